@@ -0,0 +1,77 @@
+package com.khoi.lab.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.enums.DonationStatus;
+
+/**
+ * Campaign getters the campaign pages call for every campaign shown, across
+ * donation collection sizes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CampaignBenchmark {
+    @Param({ "10", "1000", "100000" })
+    private int donationCount;
+
+    private Campaign campaign;
+
+    @Setup
+    public void setUp() {
+        campaign = new Campaign("Benchmark", null, "", null, 1000000000, LocalDateTime.now().minusDays(30),
+                LocalDateTime.now().plusDays(30));
+        List<Donation> donations = new ArrayList<>(donationCount);
+        long confirmedAmount = 0;
+        int confirmedCount = 0;
+        int pendingCount = 0;
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        for (int i = 0; i < donationCount; i++) {
+            // shuffled donate times so sorting has work to do
+            Donation donation = new Donation(null, campaign, 10000 + i % 7 * 5000,
+                    start.plusSeconds((i * 7919L) % (30L * 24 * 3600)));
+            switch (i % 10) {
+                case 0 -> donation.setStatus(DonationStatus.REFUSED);
+                case 1, 2 -> pendingCount++;
+                default -> {
+                    donation.setStatus(DonationStatus.CONFIRMED);
+                    confirmedAmount += donation.getAmount();
+                    confirmedCount++;
+                }
+            }
+            donations.add(donation);
+        }
+        campaign.setDonations(donations);
+        campaign.setDonationCounters(confirmedAmount, confirmedCount, pendingCount, confirmedCount);
+    }
+
+    @Benchmark
+    public List<Donation> getDonations() {
+        return campaign.getDonations();
+    }
+
+    @Benchmark
+    public double getDonatedPercentage() {
+        return campaign.getDonatedPercentage();
+    }
+}
@@ -0,0 +1,78 @@
+package com.khoi.lab.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.khoi.lab.service.CryptographyService;
+
+/**
+ * Password encryption on four threads: a cipher built for every call, as
+ * CryptographyService used to, against its per thread cached ciphers through
+ * the String and the byte APIs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CryptoBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private byte[] passwordBytes;
+    private String encrypted;
+    private byte[] encryptedBytes;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        passwordBytes = PASSWORD.getBytes(StandardCharsets.UTF_8);
+        encrypted = CryptographyService.encrypt(PASSWORD);
+        encryptedBytes = CryptographyService.encrypt(passwordBytes);
+    }
+
+    @Benchmark
+    public String encryptFreshCipher() throws GeneralSecurityException {
+        SecretKeySpec secretKey = new SecretKeySpec("lab301xsecretkey".getBytes(), "AES");
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+        return Base64.getEncoder().encodeToString(cipher.doFinal(PASSWORD.getBytes()));
+    }
+
+    @Benchmark
+    public String encryptString() {
+        return CryptographyService.encrypt(PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() throws GeneralSecurityException {
+        return CryptographyService.encrypt(passwordBytes);
+    }
+
+    @Benchmark
+    public String decryptString() {
+        return CryptographyService.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public byte[] decryptBytes() throws GeneralSecurityException {
+        return CryptographyService.decrypt(encryptedBytes);
+    }
+}
@@ -0,0 +1,134 @@
+package com.khoi.lab.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.khoi.lab.LabApplication;
+import com.khoi.lab.dao.AccountDAO;
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.ChartResolution;
+import com.khoi.lab.object.DashboardStats;
+import com.khoi.lab.object.LeaderboardEntry;
+
+/**
+ * DonationDAOImpl aggregations behind the dashboard and campaign pages,
+ * against the application booted on an embedded H2 database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DonationDAOBenchmark {
+    @Param({ "100", "1000" })
+    private int donationsPerCampaign;
+
+    private ConfigurableApplicationContext context;
+    private DonationDAO donationDAO;
+    private Long campaignId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LabApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.mail.host=localhost",
+                        "google.client.id=benchmark", "google.client.secret=benchmark",
+                        "google.redirect.uri=benchmark",
+                        "facebook.client.id=benchmark", "facebook.client.secret=benchmark",
+                        "facebook.redirect.uri=benchmark",
+                        "sepay.poll-enabled=false")
+                .run();
+        donationDAO = context.getBean(DonationDAO.class);
+        AccountDAO accountDAO = context.getBean(AccountDAO.class);
+
+        // the seeded campaigns are over, donate to open ones
+        List<Campaign> campaigns = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Campaign campaign = donationDAO.campaignCreate("Benchmark " + i,
+                    donationDAO.donationReceiverCreate("Receiver " + i, "0900000" + i), "", 1000000000,
+                    LocalDateTime.now().minusDays(60), LocalDateTime.now().plusDays(60), null);
+            campaigns.add(donationDAO.campaignChangeStatus(campaign, CampaignStatus.OPEN));
+        }
+        List<Account> donors = new ArrayList<>();
+        for (long id = 3; id <= 8; id++) {
+            donors.add(accountDAO.accountFindWithId(id));
+        }
+        // like initiate(), the generator runs inside the caller's transaction
+        List<Donation> donations = new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .execute(status -> donationDAO.generateRandomDonations(campaigns, donors, donationsPerCampaign,
+                        donationsPerCampaign, 10000, 5000000, 10000, 30));
+        // most aggregations only count confirmed donations, leave a quarter pending
+        for (int i = 0; i < donations.size(); i++) {
+            if (i % 4 != 3) {
+                donationDAO.donationConfirm(donations.get(i));
+            }
+        }
+        campaignId = campaigns.get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DashboardStats dashboardStatsCompute() {
+        return donationDAO.dashboardStatsCompute();
+    }
+
+    @Benchmark
+    public long getAllTimeDonatedAmount() {
+        return donationDAO.getAllTimeDonatedAmount();
+    }
+
+    @Benchmark
+    public int getAlltimeDonorCount() {
+        return donationDAO.getAlltimeDonorCount();
+    }
+
+    @Benchmark
+    public int donationGetTotalRecent() {
+        return donationDAO.donationGetTotalRecent(24L * 60);
+    }
+
+    @Benchmark
+    public Map<LocalDateTime, Long> getDonationAmountSeries() {
+        return donationDAO.getDonationAmountSeries(LocalDateTime.now().minusDays(30), LocalDateTime.now(),
+                ChartResolution.DAY, null);
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> campaignLeaderboard() {
+        return donationDAO.campaignLeaderboard(campaignId, 10);
+    }
+}
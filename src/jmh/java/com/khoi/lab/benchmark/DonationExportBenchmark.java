@@ -0,0 +1,96 @@
+package com.khoi.lab.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.khoi.lab.LabApplication;
+import com.khoi.lab.enums.ExportFormat;
+import com.khoi.lab.service.DatasetGenerator;
+import com.khoi.lab.service.DonationExportService;
+
+/**
+ * DonationExportService streaming every donation of a generated dataset,
+ * against the application booted on an embedded H2 database. The rows
+ * counter is the export throughput in rows per second, the heap columns
+ * (with -prof gc) show the export doesn't grow with the row count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class DonationExportBenchmark {
+    @Param({ "1" })
+    private int scaleFactor;
+
+    @Param({ "CSV", "NDJSON" })
+    private ExportFormat format;
+
+    private ConfigurableApplicationContext context;
+    private DonationExportService exportService;
+
+    /**
+     * Rows written, reported per second next to the exports per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LabApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:export-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.mail.host=localhost",
+                        "google.client.id=benchmark", "google.client.secret=benchmark",
+                        "google.redirect.uri=benchmark",
+                        "facebook.client.id=benchmark", "facebook.client.secret=benchmark",
+                        "facebook.redirect.uri=benchmark",
+                        "sepay.poll-enabled=false")
+                .run();
+        context.getBean(DatasetGenerator.class).generate(scaleFactor, 7);
+        exportService = context.getBean(DonationExportService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long export(Rows rows) throws IOException {
+        long count = exportService.export(format, null, null, null, null, OutputStream.nullOutputStream());
+        rows.rows += count;
+        return count;
+    }
+}
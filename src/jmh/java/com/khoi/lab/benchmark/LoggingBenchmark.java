@@ -0,0 +1,128 @@
+package com.khoi.lab.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.entity.DonationReceiver;
+import com.khoi.lab.entity.Role;
+import com.khoi.lab.enums.UserPermission;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+
+/**
+ * Logging done by the DAOs while serving one donation page request, on four
+ * threads: the former synchronous System.out entity dumps against SLF4J at
+ * the default INFO level and with the DAO debug dumps switched on. Output
+ * goes to a null stream in every mode so only the cost paid by the request
+ * thread is compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+    private static final Logger log = LoggerFactory.getLogger("com.khoi.lab.dao.DonationDAOImpl");
+
+    @Param({ "stdout", "slf4j-info", "slf4j-debug" })
+    private String mode;
+
+    private PrintStream stdout;
+    private PrintStream originalStdout;
+    private Account account;
+    private Campaign campaign;
+
+    @Setup
+    public void setUp() {
+        Role role = new Role("user", List.of(UserPermission.CREATE_DONATIONS), 1);
+        account = new Account("luke", "Luke", "Skywalker", "luke.skywalker@jedi.com", "0900000001", "password",
+                role);
+        campaign = new Campaign("Rebuild the Rebel base", new DonationReceiver("Rebel Alliance", "0900000002"),
+                "Benchmark", null, 100000000, LocalDateTime.now().minusDays(3), LocalDateTime.now().plusDays(3));
+        campaign.setId(1L);
+
+        originalStdout = System.out;
+        stdout = new PrintStream(OutputStream.nullOutputStream(), true);
+        System.setOut(stdout);
+
+        // the appender setup of logback-spring.xml, writing nowhere
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.addAppender(sink);
+        async.start();
+        ch.qos.logback.classic.Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(async);
+        context.getLogger("com.khoi.lab.dao").setLevel("slf4j-debug".equals(mode) ? Level.DEBUG : Level.INFO);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalStdout);
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public void request() {
+        if ("stdout".equals(mode)) {
+            System.out.println("| [accountFindWithId] Account found: " + account);
+            System.out.println("| [campaignFindById] Found campaign: " + campaign);
+            System.out.println("| [campaignLeaderboard] Returning top " + 10 + " donors of campaign: "
+                    + campaign.getId());
+            System.out.println("| [campaignGetDonations] Found and returned: " + 25 + " donations");
+            System.out.println("| [accountDonate] " + account.getFullName() + " donated " + 50000 + " to "
+                    + campaign);
+            System.out.println("| [campaignUpdate] Updated campaign: " + campaign);
+        } else {
+            log.debug("[accountFindWithId] Account found: {}", account);
+            log.debug("[campaignFindById] Found campaign: {}", campaign);
+            log.debug("[campaignLeaderboard] Returning top {} donors of campaign: {}", 10, campaign.getId());
+            log.debug("[campaignGetDonations] Found and returned: {} donations", 25);
+            if (log.isDebugEnabled()) {
+                log.debug("[accountDonate] {} donated {} to {}", account.getFullName(), 50000, campaign);
+            }
+            log.debug("[campaignUpdate] Updated campaign: {}", campaign);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.khoi.lab.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.khoi.lab.service.PaginationService;
+
+/**
+ * In-memory paging of the lists the management pages show
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmark {
+    private static final int PAGE_SIZE = 10;
+
+    @Param({ "100", "10000", "1000000" })
+    private int listSize;
+
+    private List<Integer> list;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            list.add(i);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> getPageFirst() {
+        return PaginationService.getPage(list, 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Integer> getPageLast() {
+        return PaginationService.getPage(list, listSize / PAGE_SIZE, PAGE_SIZE);
+    }
+}
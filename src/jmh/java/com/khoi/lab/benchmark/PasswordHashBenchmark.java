@@ -0,0 +1,52 @@
+package com.khoi.lab.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.khoi.lab.service.AesPasswordHasher;
+import com.khoi.lab.service.PasswordHasher;
+import com.khoi.lab.service.Pbkdf2PasswordHasher;
+
+/**
+ * CPU time of one login check for each password hasher. Pick the
+ * password.hash.iterations whose time fits the login budget on the target
+ * hardware: run with -p iterations=... to try other counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    // 0 is the legacy aes hasher
+    @Param({ "0", "100000", "310000", "600000" })
+    private int iterations;
+
+    private PasswordHasher hasher;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        hasher = iterations == 0 ? new AesPasswordHasher() : new Pbkdf2PasswordHasher(iterations);
+        stored = hasher.hash(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return hasher.matches(PASSWORD, stored);
+    }
+}
@@ -0,0 +1,46 @@
+package com.khoi.lab.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.khoi.lab.service.PaymentCodeAllocator;
+
+/**
+ * Payment codes reserved per second by concurrent donors, including the
+ * uniqueness check against the live codes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PaymentCodeBenchmark {
+    private PaymentCodeAllocator allocator;
+
+    /**
+     * A fresh allocator every iteration so the live codes don't pile up
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        allocator = new PaymentCodeAllocator(null);
+    }
+
+    @Benchmark
+    public String reserve() {
+        return allocator.reserve();
+    }
+}
@@ -0,0 +1,78 @@
+package com.khoi.lab.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.khoi.lab.dao.AccountDAO;
+import com.khoi.lab.data.DefaultRolePermissions;
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Role;
+import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.service.UserPermissionService;
+
+/**
+ * Permission checks as made several times on every page render, against the
+ * cached roles
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionBenchmark {
+    private static final String[] ROLE_NAMES = { "manager", "admin", "user", "blog_manager", "campaign_manager",
+            "donation_manager" };
+
+    private UserPermissionService userPermissionService;
+    private Account user;
+    private Account admin;
+
+    @Setup
+    public void setUp() {
+        List<Role> roles = new ArrayList<>();
+        for (int i = 0; i < ROLE_NAMES.length; i++) {
+            Role role = new Role(ROLE_NAMES[i], DefaultRolePermissions.getPermissionsForRole(ROLE_NAMES[i]));
+            role.setId((long) i + 1);
+            roles.add(role);
+        }
+        AccountDAO accountDAO = mock(AccountDAO.class);
+        when(accountDAO.roleList()).thenReturn(roles);
+        userPermissionService = new UserPermissionService();
+        ReflectionTestUtils.setField(userPermissionService, "accountDAO", accountDAO);
+
+        user = new Account("user", "Bench", "User", "user@lab.test", "0900000001", "password", roles.get(2));
+        admin = new Account("admin", "Bench", "Admin", "admin@lab.test", "0900000002", "password", roles.get(1));
+    }
+
+    @Benchmark
+    public boolean hasPermissionGranted() {
+        return userPermissionService.hasPermission(user, UserPermission.CREATE_DONATIONS);
+    }
+
+    @Benchmark
+    public boolean hasPermissionDenied() {
+        return userPermissionService.hasPermission(user, UserPermission.MANAGE_ROLES);
+    }
+
+    @Benchmark
+    public boolean hasPermissionAdmin() {
+        return userPermissionService.hasPermission(admin, UserPermission.VIEW_DASHBOARD);
+    }
+}
@@ -0,0 +1,57 @@
+package com.khoi.lab.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.khoi.lab.data.Constants;
+import com.khoi.lab.service.CryptographyService;
+import com.khoi.lab.service.PaymentCodeAllocator;
+import com.khoi.lab.service.StringService;
+
+/**
+ * Static helpers on the request path: password encryption and random codes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        encrypted = CryptographyService.encrypt("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return CryptographyService.encrypt("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return CryptographyService.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String getAlphaNumericString() {
+        return StringService.getAlphaNumericString(Constants.PAYMENT_CODE_LENGTH);
+    }
+
+    @Benchmark
+    public String paymentCodeNext() {
+        return PaymentCodeAllocator.nextCode();
+    }
+}
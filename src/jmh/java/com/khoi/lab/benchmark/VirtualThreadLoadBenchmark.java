@@ -0,0 +1,140 @@
+package com.khoi.lab.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import com.khoi.lab.LabApplication;
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.service.SepayClient;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Requests per millisecond and latency percentiles (SampleTime, see p0.99)
+ * of an I/O bound endpoint with 400 concurrent clients, served on platform
+ * threads (tomcatThreads of them) and on virtual threads. The endpoint does
+ * what the Sepay and OAuth paths do: a blocking call through SepayClient to
+ * an upstream answering after upstreamMillis, then a query through the
+ * connection pool (and the connection guard in virtual mode).
+ * Clients and server share the machine, give it enough cores that the
+ * upstream wait rather than CPU bounds the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(400)
+public class VirtualThreadLoadBenchmark {
+    @Param({ "platform", "virtual" })
+    private String threads;
+
+    @Param({ "50" })
+    private int upstreamMillis;
+
+    // request threads in platform mode, virtual mode has no such limit
+    @Param({ "200" })
+    private int tomcatThreads;
+
+    private HttpServer upstream;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        // stands in for Sepay, never the bottleneck
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+        upstream.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        upstream.createContext("/", exchange -> {
+            try {
+                Thread.sleep(upstreamMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"transactions\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        upstream.start();
+
+        context = new SpringApplicationBuilder(LabApplication.class)
+                .initializers((GenericApplicationContext applicationContext) -> applicationContext.registerBean(
+                        "ioEndpoint", RouterFunction.class, () -> ioEndpoint(applicationContext)))
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.threads.max=" + tomcatThreads,
+                        "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.mail.host=localhost",
+                        "google.client.id=benchmark", "google.client.secret=benchmark",
+                        "google.redirect.uri=benchmark",
+                        "facebook.client.id=benchmark", "facebook.client.secret=benchmark",
+                        "facebook.redirect.uri=benchmark",
+                        "sepay.poll-enabled=false",
+                        "sepay.api-url=http://localhost:" + upstream.getAddress().getPort(),
+                        "logging.level.root=WARN")
+                .run();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                + context.getEnvironment().getProperty("local.server.port") + "/benchmark/io")).build();
+    }
+
+    private static RouterFunction<ServerResponse> ioEndpoint(GenericApplicationContext applicationContext) {
+        return RouterFunctions.route().GET("/benchmark/io", serverRequest -> {
+            int transactions = applicationContext.getBean(SepayClient.class).transactions("0793300359", null, 20)
+                    .size();
+            long openCampaigns = applicationContext.getBean(DonationDAO.class)
+                    .campaignCountByStatus(CampaignStatus.OPEN);
+            return ServerResponse.ok().body(transactions + openCampaigns);
+        }).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        upstream.stop(0);
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -1,5 +1,9 @@
 package com.khoi.lab;
 
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -13,6 +17,8 @@ import com.khoi.lab.dao.DonationDAO;
 @SpringBootApplication
 @EnableScheduling
 public class LabApplication {
+	private static final Logger log = LoggerFactory.getLogger(LabApplication.class);
+
 	private final AccountDAO accountDAO;
 	private final DonationDAO donationDAO;
 	private final BlogDAO blogDAO;
@@ -29,7 +35,12 @@ public class LabApplication {
 	}
 
 	public static void main(String[] args) {
-		SpringApplication.run(LabApplication.class, args);
+		SpringApplication application = new SpringApplication(LabApplication.class);
+		// metrics on /actuator/metrics and /actuator/prometheus, overridable by any
+		// configured management.endpoints.web.exposure.include
+		application.setDefaultProperties(Map.of(
+				"management.endpoints.web.exposure.include", "health,info,metrics,prometheus"));
+		application.run(args);
 	}
 
 	/**
@@ -40,7 +51,7 @@ public class LabApplication {
 	@Bean
 	CommandLineRunner commandLineRunner() {
 		return _ -> {
-			System.out.println("| Application Ready!");
+			log.info("Application Ready!");
 			accountDAO.initiate();
 			donationDAO.initiate();
 			blogDAO.initiate();
@@ -0,0 +1,224 @@
+package com.khoi.lab.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.khoi.lab.object.IdempotencyEntry;
+import com.khoi.lab.object.IdempotentResponse;
+import com.khoi.lab.object.SessionPrincipal;
+import com.khoi.lab.service.AccountSessionUpdaterService;
+import com.khoi.lab.service.IdempotencyStore;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Answers POST requests carrying an Idempotency-Key header at most once.
+ * The first request with a key runs as usual and its response is recorded,
+ * repeats get the recorded response without reaching the controller. Keys
+ * are scoped to the signed in account (or the session) and bound to the
+ * request body, reusing a key for a different request is refused. Callers
+ * without a session have nothing to scope their keys to, so their requests
+ * pass through unrecorded rather than share one key space.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAY_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(KEY_HEADER);
+        if (!"POST".equals(request.getMethod()) || idempotencyKey == null || idempotencyKey.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, KEY_HEADER + " is too long");
+            return;
+        }
+        String scope = scope(request);
+        if (scope == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // form posts are read through their parameters, anything else is buffered
+        boolean form = request.getContentType() != null
+                && request.getContentType().startsWith("application/x-www-form-urlencoded");
+        byte[] body = form ? PageCacheFilter.cacheKey(request).getBytes(StandardCharsets.UTF_8)
+                : request.getInputStream().readAllBytes();
+        String key = scope + " " + request.getRequestURI() + " " + idempotencyKey;
+        String fingerprint = fingerprint(request, body);
+
+        IdempotencyEntry earlier = idempotencyStore.begin(key, fingerprint);
+        if (earlier != null) {
+            if (!earlier.matches(fingerprint)) {
+                response.sendError(422, KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            IdempotentResponse recorded = idempotencyStore.await(earlier);
+            if (recorded == null) {
+                response.sendError(HttpServletResponse.SC_CONFLICT, "The first request with this "
+                        + KEY_HEADER + " didn't finish, try again");
+                return;
+            }
+            response.setStatus(recorded.getStatus());
+            if (recorded.getContentType() != null) {
+                response.setContentType(recorded.getContentType());
+            }
+            response.setContentLength(recorded.size());
+            response.setHeader(REPLAY_HEADER, "true");
+            response.getOutputStream().write(recorded.getBody());
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean recorded = false;
+        try {
+            chain.doFilter(form ? request : new BufferedBodyRequest(request, body), wrapper);
+            // server errors are worth a retry, everything else is the outcome
+            if (wrapper.getStatus() < 500) {
+                idempotencyStore.complete(key, new IdempotentResponse(wrapper.getStatus(),
+                        wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                recorded = true;
+            }
+        } finally {
+            if (!recorded) {
+                idempotencyStore.abandon(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Whose keys these are: the signed in account, else the session
+     *
+     * @param request
+     * @return null if the caller has no session
+     */
+    static String scope(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        return principal != null ? "account:" + principal.getAccountId() : "session:" + session.getId();
+    }
+
+    /**
+     * Hash of what the request asks for, a key may only be replayed for the
+     * same request
+     *
+     * @param request
+     * @param body
+     * @return
+     */
+    static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (request.getQueryString() != null) {
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The request with its body already read, handed to the controller
+     */
+    private static class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // the whole body is already here, so the listener is told at once
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
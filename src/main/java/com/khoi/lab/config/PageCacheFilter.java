@@ -0,0 +1,98 @@
+package com.khoi.lab.config;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.khoi.lab.object.CachedPage;
+import com.khoi.lab.service.PageCache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves public pages from the page cache to visitors without a session.
+ * A page is only stored if its handler tagged it through
+ * PageCache.tagCurrentRequest(), so pages opt in one by one.
+ */
+public class PageCacheFilter extends OncePerRequestFilter {
+    public static final String CACHE_HEADER = "X-Page-Cache";
+
+    private final PageCache pageCache;
+
+    public PageCacheFilter(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"GET".equals(request.getMethod()) || request.getSession(false) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String key = cacheKey(request);
+        CachedPage page = pageCache.get(key);
+        if (page != null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(page.getContentType());
+            response.setContentLength(page.size());
+            response.setHeader(CACHE_HEADER, "HIT");
+            response.getOutputStream().write(page.getBody());
+            return;
+        }
+
+        // a page rendered while something it shows changed must not be stored
+        long generation = pageCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            Set<String> tags = PageCache.requestTags(request);
+            // a session opened while rendering means the page may be personal
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK && !tags.isEmpty()
+                    && request.getSession(false) == null && wrapper.getContentType() != null
+                    && wrapper.getContentType().startsWith("text/html")) {
+                pageCache.put(key, wrapper.getContentAsByteArray(), wrapper.getContentType(), tags,
+                        generation);
+            }
+            if (!wrapper.isCommitted()) {
+                wrapper.setHeader(CACHE_HEADER, "MISS");
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Path plus the non empty query parameters sorted by name, so parameter
+     * order and blank parameters don't split the cache
+     *
+     * @param request
+     * @return
+     */
+    public static String cacheKey(HttpServletRequest request) {
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        List<String> pairs = new ArrayList<>();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                if (value != null && !value.isBlank()) {
+                    pairs.add(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8) + "="
+                            + URLEncoder.encode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        String path = request.getRequestURI();
+        return pairs.isEmpty() ? path : path + "?" + String.join("&", pairs);
+    }
+}
@@ -0,0 +1,44 @@
+package com.khoi.lab.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.khoi.lab.service.AesPasswordHasher;
+import com.khoi.lab.service.CryptographyService;
+import com.khoi.lab.service.PasswordHasher;
+import com.khoi.lab.service.Pbkdf2PasswordHasher;
+
+/**
+ * Installs the PasswordHasher picked by password.hasher once at startup.
+ * Entities hash through CryptographyService.getPasswordHasher() since they
+ * aren't beans, so this is the one place the shared hasher is set.
+ */
+@Configuration
+public class PasswordHasherConfig {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasherConfig.class);
+
+    public PasswordHasherConfig(
+            @Value("${password.hasher:aes}") String hasher,
+            @Value("${password.hash.iterations:" + Pbkdf2PasswordHasher.DEFAULT_ITERATIONS + "}") int iterations) {
+        PasswordHasher passwordHasher = passwordHasher(hasher, iterations);
+        CryptographyService.setPasswordHasher(passwordHasher);
+        log.info("Hashing passwords with {}", passwordHasher);
+    }
+
+    /**
+     * The hasher configured by password.hasher
+     *
+     * @param hasher     aes or pbkdf2
+     * @param iterations PBKDF2 cost
+     * @return
+     */
+    static PasswordHasher passwordHasher(String hasher, int iterations) {
+        return switch (hasher) {
+            case "aes" -> new AesPasswordHasher();
+            case "pbkdf2" -> new Pbkdf2PasswordHasher(iterations);
+            default -> throw new IllegalArgumentException("Unknown password.hasher: " + hasher);
+        };
+    }
+}
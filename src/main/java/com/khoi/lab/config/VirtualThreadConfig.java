@@ -0,0 +1,80 @@
+package com.khoi.lab.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Virtual thread mode, switched on with spring.threads.virtual.enabled=true.
+ * Spring Boot then serves requests, runs @Scheduled tasks and the
+ * applicationTaskExecutor on virtual threads, and the email outbox workers
+ * and campaign lifecycle timers follow the same property. JDBC is the one
+ * resource that doesn't scale with the threads, so the DataSource is wrapped
+ * in a GuardedDataSource admitting db.guard.max-concurrency callers at once
+ * (the Hikari pool size by default) and turning away whoever waited longer
+ * than db.guard.acquire-timeout-millis.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Wrap the application DataSource in the connection guard
+     *
+     * @param environment
+     * @return
+     */
+    @Bean
+    static BeanPostProcessor connectionPoolGuard(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof GuardedDataSource) {
+                    return bean;
+                }
+                int maxConcurrency = environment.getProperty("db.guard.max-concurrency", Integer.class,
+                        dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10);
+                long acquireTimeoutMillis = environment.getProperty("db.guard.acquire-timeout-millis", Long.class,
+                        5000L);
+                log.info("Guarding {} with {} concurrent connections, {}ms wait", beanName, maxConcurrency,
+                        acquireTimeoutMillis);
+                return new GuardedDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+            }
+        };
+    }
+
+    /**
+     * db.guard.* metrics of the guarded DataSource
+     *
+     * @param dataSource
+     * @return
+     */
+    @Bean
+    MeterBinder connectionPoolGuardMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof GuardedDataSource guard)) {
+                return;
+            }
+            Gauge.builder("db.guard.active", guard, GuardedDataSource::getActive)
+                    .description("Connections held through the guard").register(registry);
+            Gauge.builder("db.guard.waiting", guard, GuardedDataSource::getWaiting)
+                    .description("Callers waiting for a connection").register(registry);
+            FunctionCounter.builder("db.guard.rejected", guard, GuardedDataSource::getRejected)
+                    .description("Callers that gave up waiting for a connection").register(registry);
+        };
+    }
+}
@@ -1,11 +1,16 @@
 package com.khoi.lab.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.khoi.lab.service.AccountSessionUpdaterService;
+import com.khoi.lab.service.IdempotencyStore;
+import com.khoi.lab.service.PageCache;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -16,6 +21,39 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(accountSessionUpdater)
-                .addPathPatterns("/**"); // apply to all URLs
+                .addPathPatterns("/**") // apply to all URLs
+                .excludePathPatterns("/assets/**", "/css/**", "/img/**", "/js/**", "/scss/**", "/vendor/**",
+                        "/favicon.ico", "/error"); // except static resources
     }
-}
\ No newline at end of file
+
+    /**
+     * Full page cache for anonymous visitors on the public pages, enabled with
+     * page.cache.enabled=true
+     *
+     * @param pageCache
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "page.cache.enabled", havingValue = "true")
+    public FilterRegistrationBean<PageCacheFilter> pageCacheFilter(PageCache pageCache) {
+        FilterRegistrationBean<PageCacheFilter> registration = new FilterRegistrationBean<>(
+                new PageCacheFilter(pageCache));
+        registration.addUrlPatterns("/index", "/campaigns", "/campaigns/campaign", "/blogs");
+        return registration;
+    }
+
+    /**
+     * Idempotency-Key support on the donate endpoint, retried requests get
+     * the first response instead of running again
+     *
+     * @param idempotencyStore
+     * @return
+     */
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(idempotencyStore));
+        registration.addUrlPatterns("/campaigns/donate");
+        return registration;
+    }
+}
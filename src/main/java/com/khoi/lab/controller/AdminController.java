@@ -1,7 +1,9 @@
 package com.khoi.lab.controller;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -9,6 +11,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.MultiValueMap;
@@ -24,16 +28,29 @@ import com.khoi.lab.entity.Donation;
 import com.khoi.lab.entity.DonationReceiver;
 import com.khoi.lab.entity.Role;
 import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.ChartResolution;
 import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.enums.ExportFormat;
 import com.khoi.lab.enums.TimeMinutes;
 import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.CampaignDonationCounts;
+import com.khoi.lab.object.DashboardStats;
+import com.khoi.lab.object.DonationCursor;
+import com.khoi.lab.object.DonationFilter;
+import com.khoi.lab.object.DonationPage;
 import com.khoi.lab.object.DonationConfirmRequest;
+import com.khoi.lab.object.SessionPrincipal;
+import com.khoi.lab.service.AccountSessionUpdaterService;
+import com.khoi.lab.service.DashboardStatsService;
+import com.khoi.lab.service.DonationExportService;
 import com.khoi.lab.service.UserPermissionService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -45,10 +62,17 @@ import org.springframework.web.servlet.ModelAndView;
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    private static final int DONATION_PAGE_SIZE = 50;
+    private static final int MAX_DONATION_PAGE_SIZE = 200;
+
     private final AccountDAO accountDAO;
     private final DonationDAO donationDAO;
     private final BlogDAO blogDAO;
     private final UserPermissionService userPermissionService;
+    private final DashboardStatsService dashboardStatsService;
+    private final DonationExportService donationExportService;
 
     /**
      * DAO Initiator
@@ -56,49 +80,43 @@ public class AdminController {
      * @param accountDAO
      */
     public AdminController(AccountDAO accountDAO, DonationDAO donationDAO, BlogDAO blogDAO,
-            UserPermissionService userPermissionService) {
+            UserPermissionService userPermissionService, DashboardStatsService dashboardStatsService,
+            DonationExportService donationExportService) {
         this.accountDAO = accountDAO;
         this.donationDAO = donationDAO;
         this.blogDAO = blogDAO;
         this.userPermissionService = userPermissionService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.donationExportService = donationExportService;
     }
 
     @GetMapping("/dashboard")
     public ModelAndView dashboardPage(HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.VIEW_DASHBOARD)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.VIEW_DASHBOARD)) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notAuthorized", true);
             return mav;
         }
 
         // add datas
-        int donationsWeekly = donationDAO.donationGetTotalRecent(TimeMinutes.WEEK.getMinutes());
-        int donationsMonthly = donationDAO.donationGetTotalRecent(TimeMinutes.DAY.getMinutes() * 3);
-        int campaignCompletedPercentage = donationDAO.campaignCompletedPercentage();
-        int donationsPending = donationDAO.donationGetUnconfirmed();
-        List<LocalDate> dates = donationDAO.getLast30Days();
-        List<String> dateLabels = dates.stream()
-                .map(d -> d.toString())
-                .collect(Collectors.toList());
-        List<Integer> donationAmounts = donationDAO.getDonationAmountsLast30Days();
-        int anonymousDonations = donationDAO.donationGetAnonymous();
-        int nonAnonymousDonations = donationDAO.donationGetNonAnonymous();
+        DashboardStats stats = dashboardStatsService.getSnapshot();
 
         // view
         return new ModelAndView("admin/dashboard")
-                .addObject("donationsWeekly", donationsWeekly)
-                .addObject("donationsMonthly", donationsMonthly)
-                .addObject("campaignCompletedPercentage", campaignCompletedPercentage)
-                .addObject("donationsPending", donationsPending)
-                .addObject("labels", dateLabels)
-                .addObject("donations", donationAmounts)
-                .addObject("groups", Arrays.asList(anonymousDonations, nonAnonymousDonations));
+                .addObject("donationsWeekly", stats.getDonationsWeekly())
+                .addObject("donationsMonthly", stats.getDonationsRecent())
+                .addObject("campaignCompletedPercentage", stats.getCampaignCompletedPercentage())
+                .addObject("donationsPending", stats.getDonationsPending())
+                .addObject("labels", stats.getDateLabels())
+                .addObject("donations", stats.getDonationAmounts())
+                .addObject("groups", Arrays.asList(stats.getAnonymousDonations(), stats.getNonAnonymousDonations()))
+                .addObject("statsAgeSeconds", stats.getAgeSeconds());
     }
 
     /**
@@ -112,12 +130,12 @@ public class AdminController {
     public ModelAndView accountsManage(
             HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_USERS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_USERS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -181,12 +199,12 @@ public class AdminController {
         }
 
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_USERS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_USERS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -222,12 +240,12 @@ public class AdminController {
     public ModelAndView campaignsManage(
             HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -248,14 +266,17 @@ public class AdminController {
      */
     @GetMapping("/manage-campaigns/statistics")
     public ModelAndView campaignsViewCampaignStatistics(HttpSession session,
-            @RequestParam(name = "campaign") Long id) {
+            @RequestParam(name = "campaign") Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) ChartResolution resolution) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -267,29 +288,43 @@ public class AdminController {
                     .addObject("campaignNotFound", true);
         }
 
-        // calculate general stats
-        int donationCount = campaign.getDonations().size();
-        int donorCount = campaign.getDonations().stream()
-                .map(donation -> donation.getAccount())
-                .distinct().toList().size();
+        // calculate general stats, counted in the database rather than loading
+        // the campaign's donations
+        CampaignDonationCounts counts = donationDAO.campaignDonationCounts(campaign.getId());
+        long donationCount = counts.getTotal();
+        int donorCount = campaign.getDonorCount();
         int campaignProgress = campaign.getDonatedPercentageCapped();
         int donatedAmount = campaign.getDonatedAmount();
         Long daysLeft = campaign.getDaysLeft();
-        long anonymousDonations = campaign.getDonations().stream().filter(d -> d.isAnonymous()).count();
-        long nonAnonymousDonations = campaign.getDonations().size() - anonymousDonations;
-        long pendingDonations = campaign.getDonations().stream().filter(d -> d.getStatus() == DonationStatus.PENDING)
-                .count();
-        long confirmedDonations = campaign.getDonations().stream()
-                .filter(d -> d.getStatus() == DonationStatus.CONFIRMED).count();
-        long refusedDonations = campaign.getDonations().size() - pendingDonations - confirmedDonations;
-
-        // calculate donation history stats
+        long anonymousDonations = counts.getAnonymous();
+        long nonAnonymousDonations = counts.getNonAnonymous();
+        long pendingDonations = counts.getPending();
+        long confirmedDonations = counts.getConfirmed();
+        long refusedDonations = counts.getRefused();
+
+        // calculate donation history stats (last 10 days by default)
         int numberOfDays = 10;
-        List<LocalDate> dates = donationDAO.getLastXDays(numberOfDays);
-        List<String> dateLabels = dates.stream()
-                .map(d -> d.toString())
+        boolean chartRangeInvalid = false;
+        resolution = resolution != null ? resolution : ChartResolution.DAY;
+        to = to != null ? to : LocalDate.now();
+        from = from != null ? from : to.minusDays(numberOfDays - 1);
+        Map<LocalDateTime, Long> series;
+        try {
+            series = donationDAO.getDonationAmountSeries(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                    resolution, campaign.getId());
+        } catch (IllegalArgumentException e) {
+            chartRangeInvalid = true;
+            resolution = ChartResolution.DAY;
+            to = LocalDate.now();
+            from = to.minusDays(numberOfDays - 1);
+            series = donationDAO.getDonationAmountSeries(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                    resolution, campaign.getId());
+        }
+        DateTimeFormatter labelFormatter = DateTimeFormatter.ofPattern(resolution.getLabelPattern());
+        List<String> dateLabels = series.keySet().stream()
+                .map(d -> d.format(labelFormatter))
                 .collect(Collectors.toList());
-        List<Integer> donationAmounts = donationDAO.getDonationAmountsLastXDays(numberOfDays, campaign.getId());
+        List<Long> donationAmounts = new ArrayList<>(series.values());
 
         return new ModelAndView("admin/campaign-stats")
                 .addObject("campaign", campaign)
@@ -305,7 +340,12 @@ public class AdminController {
                 .addObject("confirmedDonations", confirmedDonations)
                 .addObject("refusedDonations", refusedDonations)
                 .addObject("dateLabels", dateLabels)
-                .addObject("donationAmounts", donationAmounts);
+                .addObject("donationAmounts", donationAmounts)
+                .addObject("chartFrom", from)
+                .addObject("chartTo", to)
+                .addObject("chartResolution", resolution)
+                .addObject("chartResolutions", ChartResolution.values())
+                .addObject("chartRangeInvalid", chartRangeInvalid);
     }
 
     /**
@@ -332,12 +372,12 @@ public class AdminController {
             @RequestParam(defaultValue = "0") int months,
             @RequestParam(defaultValue = "0") int years) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.CREATE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.CREATE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -384,12 +424,12 @@ public class AdminController {
     @GetMapping("/manage-campaigns/edit")
     public ModelAndView campaignsEdit(HttpSession session, @RequestParam Long id) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -427,12 +467,12 @@ public class AdminController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -498,12 +538,12 @@ public class AdminController {
             @RequestParam(defaultValue = "0") int months,
             @RequestParam(defaultValue = "0") int years) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -546,12 +586,12 @@ public class AdminController {
     @GetMapping("/manage-campaigns/close")
     public ModelAndView campaignsCloseRequest(HttpSession session, @RequestParam Long id) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -590,12 +630,12 @@ public class AdminController {
     @GetMapping("/manage-campaigns/delete")
     public ModelAndView campaignsDeleteRequest(HttpSession session, @RequestParam Long id) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -624,32 +664,104 @@ public class AdminController {
     }
 
     /**
-     * Manage campaigns' donations
+     * Manage campaigns' donations, first page without filters
      * (notLoggedIn/notAuthorized)
      * 
      * @param session
      * @return
      */
+    public ModelAndView donationsManage(HttpSession session) {
+        return donationsManage(session, new DonationFilter(), null, false, DONATION_PAGE_SIZE);
+    }
+
+    /**
+     * Manage donations page, one keyset page at a time
+     * (notLoggedIn/notAuthorized)
+     * 
+     * @param session
+     * @param filter
+     * @param cursor
+     * @param newer
+     * @param size
+     * @return
+     */
     @GetMapping("/manage-donations")
     public ModelAndView donationsManage(
-            HttpSession session) {
+            HttpSession session,
+            @ModelAttribute DonationFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean newer,
+            @RequestParam(defaultValue = "" + DONATION_PAGE_SIZE) int size) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_DONATIONS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_DONATIONS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
         }
 
+        int pageSize = Math.max(1, Math.min(size, MAX_DONATION_PAGE_SIZE));
+        DonationPage page = donationDAO.donationPage(filter, DonationCursor.parse(cursor), newer, pageSize);
+
         ModelAndView mav = new ModelAndView("admin/manage-donations");
-        mav.addObject("donations", donationDAO.donationList(true));
+        mav.addObject("donations", page.getDonations());
+        mav.addObject("page", page);
+        mav.addObject("filter", filter);
+        mav.addObject("pageSize", pageSize);
         return mav;
     }
 
+    /**
+     * Stream donations as a CSV or NDJSON download, optionally filtered by
+     * date range (inclusive), status and campaign
+     * (notLoggedIn/notAuthorized)
+     * 
+     * @param session
+     * @param response
+     * @param format
+     * @param from
+     * @param to
+     * @param status
+     * @param campaign
+     * @return
+     * @throws IOException
+     */
+    @GetMapping("/manage-donations/export")
+    public ModelAndView donationsExport(
+            HttpSession session,
+            HttpServletResponse response,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) DonationStatus status,
+            @RequestParam(required = false) Long campaign) throws IOException {
+        // permission checks
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
+            ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
+            mav.addObject("notLoggedIn", true);
+            return mav;
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_DONATIONS)) {
+            ModelAndView mav = dashboardPage(session);
+            mav.addObject("notAuthorized", true);
+            return mav;
+        }
+
+        String fileName = "donations-" + LocalDate.now() + "." + format.getExtension();
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        donationExportService.export(format,
+                from == null ? null : from.atStartOfDay(),
+                to == null ? null : to.plusDays(1).atStartOfDay(),
+                status, campaign, response.getOutputStream());
+        return null;
+    }
+
     /**
      * Handle donation confirm request
      * (donationConfirmSuccess)
@@ -660,12 +772,12 @@ public class AdminController {
     @PostMapping("/manage-donations/confirm")
     public ModelAndView donationsConfirmDonation(HttpSession session, @RequestBody DonationConfirmRequest request) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_DONATIONS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_DONATIONS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -689,12 +801,12 @@ public class AdminController {
     @PostMapping("/manage-donations/refuse")
     public ModelAndView donationsRefuseDonation(HttpSession session, @RequestBody DonationConfirmRequest request) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_DONATIONS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_DONATIONS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -718,12 +830,12 @@ public class AdminController {
     @PostMapping("/manage-donations/reset")
     public ModelAndView donationsResetDonation(HttpSession session, @RequestBody DonationConfirmRequest request) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_DONATIONS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_DONATIONS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -751,12 +863,12 @@ public class AdminController {
             @RequestParam String name,
             @RequestParam String phoneNumber) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_CAMPAIGNS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_CAMPAIGNS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -780,12 +892,12 @@ public class AdminController {
     public ModelAndView blogsManage(
             HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_BLOGS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_BLOGS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -813,18 +925,18 @@ public class AdminController {
             @RequestParam String description,
             @RequestParam String imageUrl) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = new GeneralController(donationDAO, accountDAO, blogDAO).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.CREATE_BLOGS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.CREATE_BLOGS)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
         }
 
-        sessionAccount = accountDAO.accountFindWithId(sessionAccount.getId());
+        Account sessionAccount = accountDAO.accountFindWithId(principal.getAccountId());
         blogDAO.createBlogPost(sessionAccount, imageUrl, title, description);
         return blogsManage(session).addObject("blogPostCreateSuccess", true);
     }
@@ -839,12 +951,12 @@ public class AdminController {
     @GetMapping("/manage-blogs/edit")
     public ModelAndView blogEditRequest(HttpSession session, @RequestParam Long id) {
         // --- Permission Checks ---
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = new ModelAndView("index");
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_BLOGS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_BLOGS)) {
             ModelAndView mav = new ModelAndView("admin/dashboard");
             mav.addObject("notAuthorized", true);
             return mav;
@@ -877,12 +989,12 @@ public class AdminController {
     public ModelAndView blogEditPostRequest(HttpSession session, @RequestParam Long id, @RequestParam String title,
             @RequestParam String description, @RequestParam(required = false) String imageUrl) {
         // --- Permission Checks ---
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = new ModelAndView("index");
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_BLOGS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_BLOGS)) {
             ModelAndView mav = new ModelAndView("admin/dashboard");
             mav.addObject("notAuthorized", true);
             return mav;
@@ -918,15 +1030,15 @@ public class AdminController {
     @GetMapping("/manage-blogs/delete")
     public ModelAndView blogDeleteRequest(HttpSession session, @RequestParam Long id) {
         // --- Permission Checks ---
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             // Redirect to a login or index page if the user is not logged in.
             // You'll need to instantiate a GeneralController or a similar class to get the
             // correct view.
             ModelAndView mav = new ModelAndView("index");
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_BLOGS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_BLOGS)) {
             // Redirect to the dashboard with an authorization error if the user lacks
             // permission.
             ModelAndView mav = new ModelAndView("admin/dashboard");
@@ -961,12 +1073,12 @@ public class AdminController {
     public ModelAndView rolesManage(
             HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_ROLES)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_ROLES)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -993,12 +1105,12 @@ public class AdminController {
             @RequestParam String roleName,
             @RequestParam int powerLevel) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = new GeneralController(donationDAO, accountDAO, blogDAO).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.CREATE_ROLES)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.CREATE_ROLES)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -1006,7 +1118,7 @@ public class AdminController {
 
         // New check: A user cannot create a role with a power level >= their own role's
         // power level.
-        if (sessionAccount.getRole().getPowerLevel() <= powerLevel) {
+        if (principal.getPowerLevel() <= powerLevel) {
             // Redirect to the manage roles page with an error message.
             return rolesManage(session).addObject("roleCreateFailure", true);
         }
@@ -1029,12 +1141,12 @@ public class AdminController {
     @PostMapping("/manage-roles/update")
     public ModelAndView updateRoles(HttpSession session, @RequestParam MultiValueMap<String, String> formData) {
         // --- Permission Checks ---
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = new GeneralController(donationDAO, accountDAO, blogDAO).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_ROLES)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_ROLES)) {
             ModelAndView mav = new ModelAndView("admin/dashboard");
             mav.addObject("notAuthorized", true);
             return mav;
@@ -1055,13 +1167,13 @@ public class AdminController {
                     if (!rolesToUpdate.containsKey(roleId)) {
                         Role existingRole = accountDAO.roleFindById(roleId);
                         if (existingRole == null) {
-                            System.out.println("Role with ID " + roleId + " not found. Skipping update.");
+                            log.warn("Role with ID {} not found. Skipping update.", roleId);
                             continue;
                         }
 
                         // New check: A user cannot update a role with a power level >= their own.
-                        if (existingRole.getPowerLevel() >= sessionAccount.getRole().getPowerLevel()) {
-                            System.out.println("Attempt to update a role with equal or higher power level. Skipping.");
+                        if (existingRole.getPowerLevel() >= principal.getPowerLevel()) {
+                            log.warn("Attempt to update a role with equal or higher power level. Skipping.");
                             continue;
                         }
 
@@ -1082,14 +1194,14 @@ public class AdminController {
                                 try {
                                     updatedPermissions.add(UserPermission.valueOf(permName));
                                 } catch (IllegalArgumentException e) {
-                                    System.out.println("Invalid permission name: " + permName + ". Skipping.");
+                                    log.warn("Invalid permission name: {}. Skipping.", permName);
                                 }
                             }
                         }
                         rolesToUpdate.get(roleId).setPermissions(updatedPermissions);
                     }
                 } catch (Exception e) {
-                    System.out.println("Error parsing role ID or permissions: " + e.getMessage());
+                    log.warn("Error parsing role ID or permissions: {}", e.getMessage());
                 }
             }
         }
@@ -1115,12 +1227,12 @@ public class AdminController {
             HttpSession session,
             @RequestParam long id) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = new GeneralController(donationDAO, accountDAO, blogDAO).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_ROLES)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_ROLES)) {
             ModelAndView mav = dashboardPage(session);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -1133,7 +1245,7 @@ public class AdminController {
         }
 
         // New check: A user cannot delete a role with a power level >= their own.
-        if (roleToDelete.getPowerLevel() >= sessionAccount.getRole().getPowerLevel()) {
+        if (roleToDelete.getPowerLevel() >= principal.getPowerLevel()) {
             return rolesManage(session).addObject("roleDeleteFailure", true);
         }
 
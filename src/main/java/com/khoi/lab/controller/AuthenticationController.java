@@ -1,5 +1,7 @@
 package com.khoi.lab.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +13,7 @@ import com.khoi.lab.dao.AccountDAO;
 import com.khoi.lab.dao.BlogDAO;
 import com.khoi.lab.dao.DonationDAO;
 import com.khoi.lab.entity.Account;
+import com.khoi.lab.service.AccountSessionUpdaterService;
 import com.khoi.lab.service.EmailSenderService;
 import com.khoi.lab.service.StringService;
 
@@ -21,6 +24,8 @@ import jakarta.servlet.http.HttpSession;
  */
 @Controller
 public class AuthenticationController {
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationController.class);
+
     private final AccountDAO accountDAO;
     private final DonationDAO donationDAO;
     private final BlogDAO blogDAO;
@@ -28,6 +33,9 @@ public class AuthenticationController {
     @Autowired
     private EmailSenderService senderService;
 
+    @Autowired
+    private AccountSessionUpdaterService accountSessionUpdater;
+
     /**
      * DAO Initiator
      * 
@@ -66,7 +74,7 @@ public class AuthenticationController {
             @RequestParam String password,
             @RequestParam(required = false, defaultValue = "false") boolean rememberMe) {
         // check if not logged in
-        if ((Account) session.getAttribute("account") == null) {
+        if (AccountSessionUpdaterService.principal(session) == null) {
             Account account = accountDAO.accountLogin(usernameOrEmailOrPhone, password);
 
             if (account == null) {
@@ -75,7 +83,7 @@ public class AuthenticationController {
                 mav.addObject("loginFailure", true);
                 return mav;
             } else {
-                if ("".equals(account.getPassword())) {
+                if (!account.hasPassword()) {
                     ModelAndView mav = login();
                     mav.addObject("loginForbiddenMethod", true);
                     return mav;
@@ -83,14 +91,14 @@ public class AuthenticationController {
 
                 // check if account is disabled
                 if (!account.isDisabled()) {
-                    session.setAttribute("account", account);
+                    accountSessionUpdater.login(session, account);
 
                     // login success
                     ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
                     mav.addObject("loginSuccess", true);
                     return mav;
                 } else {
-                    System.out.println("| Account is disabled by admins!!!");
+                    log.debug("Account is disabled by admins!!!");
 
                     // account disabled
                     ModelAndView mav = login();
@@ -99,7 +107,7 @@ public class AuthenticationController {
                 }
             }
         } else {
-            System.out.println("| Already logged in!");
+            log.debug("Already logged in!");
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("loginAlready", true);
             return mav;
@@ -143,7 +151,7 @@ public class AuthenticationController {
             @RequestParam String passwordConfirm) {
         // check password confirm
         if (!password.equals(passwordConfirm)) {
-            System.out.println("| Password mismatch: " + password + " vs " + passwordConfirm);
+            log.debug("Password mismatch!");
             ModelAndView mav = register(null);
             mav.addObject("passwordMismatch", true);
             return mav;
@@ -151,7 +159,7 @@ public class AuthenticationController {
 
         // check account username exist
         if (accountDAO.accountFindWithUsername(username) != null) {
-            System.out.println("| Username exists!");
+            log.debug("Username exists!");
             ModelAndView mav = register(null);
             mav.addObject("registerUsernameExists", true);
             return mav;
@@ -159,7 +167,7 @@ public class AuthenticationController {
 
         // check account username exist
         if (accountDAO.accountFindWithEmail(email) != null) {
-            System.out.println("| Email exists!");
+            log.debug("Email exists!");
             ModelAndView mav = register(null);
             mav.addObject("registerEmailExists", true);
             return mav;
@@ -167,7 +175,7 @@ public class AuthenticationController {
 
         // check account phone number exist
         if (accountDAO.accountFindWithPhoneNumber(phoneNumber) != null) {
-            System.out.println("| Phone number exists!");
+            log.debug("Phone number exists!");
             ModelAndView mav = register(null);
             mav.addObject("registerPhoneNumberExists", true);
             return mav;
@@ -212,10 +220,8 @@ public class AuthenticationController {
         String code = StringService.getAlphaNumericString(6);
         accountDAO.createPasswordResetCodeForAccount(account.getId(), code);
 
-        // send email async
-        new Thread(() -> {
-            senderService.sendEmail(email, "Password Reset", "Your password reset code is: " + code);
-        }).start();
+        // queue email, sent by the outbox dispatcher
+        senderService.queueEmail(email, "Password Reset", "Your password reset code is: " + code);
 
         // forward to verify-code view
         ModelAndView mav = verifyCode();
@@ -227,9 +233,7 @@ public class AuthenticationController {
 
     @GetMapping("/change-password")
     public ModelAndView changePassword(HttpSession session) {
-        Account account = (Account) session.getAttribute("account");
-
-        if (account == null) {
+        if (AccountSessionUpdaterService.principal(session) == null) {
             return login();
         }
 
@@ -252,10 +256,13 @@ public class AuthenticationController {
             @RequestParam String oldPassword,
             @RequestParam String password,
             @RequestParam String passwordConfirm) {
-        Account account = (Account) session.getAttribute("account");
+        Account account = accountSessionUpdater.account(session);
+        if (account == null) {
+            return login();
+        }
 
         // check if correct old password
-        if (!account.getPassword().equals(oldPassword)) {
+        if (!account.passwordMatches(oldPassword)) {
             ModelAndView mav = changePassword(session);
             mav.addObject("wrongPassword", true);
             return mav;
@@ -271,7 +278,7 @@ public class AuthenticationController {
         // success
         account.setPassword(password);
         account = accountDAO.accountUpdate(account);
-        session.setAttribute("account", account);
+        accountSessionUpdater.login(session, account);
 
         ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
         mav.addObject("passwordChangeSuccess", true);
@@ -306,7 +313,7 @@ public class AuthenticationController {
             @RequestParam String codeEntered) {
         if (code.equals(codeEntered)) {
             // correct code
-            System.out.println("| Valid code entered!");
+            log.debug("Valid code entered!");
             ModelAndView mav = resetPassword();
             mav.addObject("validCode", true);
             mav.addObject("accountId", accountId);
@@ -314,7 +321,7 @@ public class AuthenticationController {
         }
 
         // incorrect code
-        System.out.println("| Invalid code entered!");
+        log.debug("Invalid code entered!");
         ModelAndView mav = verifyCode();
         mav.addObject("invalidCode", true);
         mav.addObject("accountId", accountId);
@@ -370,8 +377,8 @@ public class AuthenticationController {
      */
     @GetMapping("/logout")
     public ModelAndView logout(HttpSession session) {
-        session.removeAttribute("account");
-        System.out.println("| Logged the current user out!");
+        accountSessionUpdater.logout(session);
+        log.debug("Logged the current user out!");
         return (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
     }
 }
@@ -1,13 +1,17 @@
 package com.khoi.lab.controller;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.WeekFields;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -20,8 +24,14 @@ import com.khoi.lab.dao.DonationDAO;
 import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.BlogPost;
 import com.khoi.lab.entity.BlogPostComment;
+import com.khoi.lab.enums.BlogPostOrder;
 import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.SessionPrincipal;
+import com.khoi.lab.service.AccountSessionUpdaterService;
+import com.khoi.lab.service.BlogSearchIndex;
+import com.khoi.lab.service.PageCache;
 import com.khoi.lab.service.PaginationService;
+import com.khoi.lab.service.RecentBlogPostsService;
 import com.khoi.lab.service.UserPermissionService;
 
 import jakarta.servlet.http.HttpSession;
@@ -34,10 +44,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 @Controller
 @RequestMapping("/blogs")
 public class BlogController {
+    private static final Logger log = LoggerFactory.getLogger(BlogController.class);
+
     private final DonationDAO donationDAO;
     private final AccountDAO accountDAO;
     private final BlogDAO blogDAO;
     private final UserPermissionService userPermissionService;
+    private final BlogSearchIndex blogSearchIndex;
+    private final RecentBlogPostsService recentBlogPostsService;
 
     private static final Map<String, String> FILTER_NAMES = Map.of(
             "newest", "Newest First",
@@ -52,11 +66,14 @@ public class BlogController {
      * * @param donationDAO
      */
     public BlogController(DonationDAO donationDAO, AccountDAO accountDAO, BlogDAO blogDAO,
-            UserPermissionService userPermissionService) {
+            UserPermissionService userPermissionService, BlogSearchIndex blogSearchIndex,
+            RecentBlogPostsService recentBlogPostsService) {
         this.donationDAO = donationDAO;
         this.accountDAO = accountDAO;
         this.blogDAO = blogDAO;
         this.userPermissionService = userPermissionService;
+        this.blogSearchIndex = blogSearchIndex;
+        this.recentBlogPostsService = recentBlogPostsService;
     }
 
     /**
@@ -76,64 +93,34 @@ public class BlogController {
         if (pageSize == null || pageSize < 1)
             pageSize = 3;
 
-        // 1. Get all blog posts from the data source.
-        List<BlogPost> allBlogPosts = blogDAO.listBlogPosts().stream()
-                .sorted(Comparator.comparing(BlogPost::getId).reversed())
-                .collect(Collectors.toList());
-        List<BlogPost> blogPosts = allBlogPosts;
-
-        // 2. Apply category filter if 'query' is present.
-        if (query != null && !query.trim().isEmpty()) {
-            blogPosts = blogPosts.stream()
-                    .filter(post -> post.getTitle().toLowerCase().contains(query.toLowerCase())
-                            || post.getDescription().toLowerCase().contains(query.toLowerCase()))
-                    .collect(Collectors.toList());
-        }
-
-        // 3. Apply sorting or time-based filtering if 'filter' is present.
+        // 1. Translate 'filter' into a date range or an order.
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        BlogPostOrder order = null;
         if (filter != null && !filter.trim().isEmpty()) {
             LocalDate now = LocalDate.now();
             switch (filter.toLowerCase()) {
                 case "newest":
-                    blogPosts.sort(Comparator.comparing(BlogPost::getDate).reversed());
+                    order = BlogPostOrder.NEWEST;
                     break;
                 case "oldest":
-                    blogPosts.sort(Comparator.comparing(BlogPost::getDate));
+                    order = BlogPostOrder.OLDEST;
                     break;
                 case "popular":
-                    blogPosts.sort(Comparator.comparingInt(BlogPost::getCommentsCount).reversed());
+                    order = BlogPostOrder.POPULAR;
                     break;
                 case "week":
-                    WeekFields weekFields = WeekFields.of(Locale.getDefault());
-                    int currentWeek = now.get(weekFields.weekOfWeekBasedYear());
-                    int currentYearForWeek = now.get(weekFields.weekBasedYear());
-                    blogPosts = blogPosts.stream()
-                            .filter(post -> {
-                                // Now post.getDate() returns LocalDateTime directly
-                                LocalDate postDate = post.getDate().toLocalDate();
-                                return postDate.get(weekFields.weekOfWeekBasedYear()) == currentWeek &&
-                                        postDate.get(weekFields.weekBasedYear()) == currentYearForWeek;
-                            })
-                            .collect(Collectors.toList());
+                    LocalDate weekStart = now.with(WeekFields.of(Locale.getDefault()).dayOfWeek(), 1);
+                    from = weekStart.atStartOfDay();
+                    to = from.plusWeeks(1);
                     break;
                 case "month":
-                    blogPosts = blogPosts.stream()
-                            .filter(post -> {
-                                // Now post.getDate() returns LocalDateTime directly
-                                LocalDate postDate = post.getDate().toLocalDate();
-                                return postDate.getMonth() == now.getMonth() &&
-                                        postDate.getYear() == now.getYear();
-                            })
-                            .collect(Collectors.toList());
+                    from = now.withDayOfMonth(1).atStartOfDay();
+                    to = from.plusMonths(1);
                     break;
                 case "year":
-                    blogPosts = blogPosts.stream()
-                            .filter(post -> {
-                                // Now post.getDate() returns LocalDateTime directly
-                                LocalDate postDate = post.getDate().toLocalDate();
-                                return postDate.getYear() == now.getYear();
-                            })
-                            .collect(Collectors.toList());
+                    from = now.withDayOfYear(1).atStartOfDay();
+                    to = from.plusYears(1);
                     break;
                 default:
                     // No action if filter is unknown
@@ -141,14 +128,46 @@ public class BlogController {
             }
         }
 
-        // 4. Paginate the (now filtered and sorted) results.
-        int totalItems = blogPosts.size();
+        // 2. Apply search if 'query' is present, results come back ranked by
+        // relevance.
+        List<Long> matchingIds = null;
+        if (query != null && !query.trim().isEmpty()) {
+            matchingIds = blogSearchIndex.search(query);
+        }
+
+        // 3. Load only the requested page.
+        long totalItems;
+        List<BlogPost> paginatedBlogPosts;
+        if (matchingIds != null) {
+            List<Long> rankedIds = matchingIds;
+            if (order != null) {
+                // sort the matches on their keys alone, only the page is loaded
+                rankedIds = blogDAO.blogPostIdsOrdered(matchingIds, from, to, order);
+            } else if (from != null) {
+                // keep the relevance ranking, the database only applies the date range
+                Set<Long> inRange = new HashSet<>(blogDAO.blogPostIdsInRange(matchingIds, from, to));
+                rankedIds = matchingIds.stream().filter(inRange::contains).collect(Collectors.toList());
+            }
+            totalItems = rankedIds.size();
+            paginatedBlogPosts = blogDAO.blogPostFindByIds(PaginationService.getPage(rankedIds, page, pageSize));
+        } else {
+            int offset = (page - 1) * pageSize;
+            totalItems = blogDAO.blogPostCount(null, from, to);
+            paginatedBlogPosts = offset < totalItems
+                    ? blogDAO.blogPostPage(null, from, to, order == null ? BlogPostOrder.LATEST : order,
+                            offset, pageSize)
+                    : List.of();
+        }
         int maxPage = (totalItems == 0) ? 1 : (int) Math.ceil((double) totalItems / pageSize);
-        List<BlogPost> paginatedBlogPosts = PaginationService.getPage(blogPosts, page, pageSize);
-        List<BlogPost> recentBlogPosts = allBlogPosts.stream().limit(10).collect(Collectors.toList());
+        List<BlogPost> recentBlogPosts = recentBlogPostsService.getRecentPosts();
+
+        PageCache.tagCurrentRequest(PageCache.TAG_BLOGS);
+        for (BlogPost blogPost : paginatedBlogPosts) {
+            PageCache.tagCurrentRequest(PageCache.blogTag(blogPost.getId()));
+        }
 
         // 5. Build and return the view.
-        System.out.println("| [blogListPage] Displaying page " + page + " of " + maxPage + " pages!");
+        log.debug("[blogListPage] Displaying page {} of {} pages!", page, maxPage);
         ModelAndView mav = new ModelAndView("blogs");
         mav.addObject("blogPosts", paginatedBlogPosts);
         mav.addObject("currentPage", page);
@@ -180,36 +199,11 @@ public class BlogController {
             return mav;
         }
 
-        // fetch all posts by recent
-        List<BlogPost> allBlogPosts = blogDAO.listBlogPosts().stream()
-                .sorted(Comparator.comparing(BlogPost::getId).reversed())
-                .collect(Collectors.toList());
-
-        // Find the index of the current blog post
-        int currentIndex = -1;
-        for (int i = 0; i < allBlogPosts.size(); i++) {
-            if (allBlogPosts.get(i).getId().equals(id)) {
-                currentIndex = i;
-                break;
-            }
-        }
-
-        BlogPost previousPost = null;
-        // The fix: Add this check to prevent IndexOutOfBoundsException
-        if (currentIndex > 0) {
-            previousPost = allBlogPosts.get(currentIndex - 1);
-        }
-
-        BlogPost nextPost = null;
-        // Check if a next post exists (i.e., we are not at the last post)
-        if (currentIndex >= 0 && currentIndex < allBlogPosts.size() - 1) {
-            nextPost = allBlogPosts.get(currentIndex + 1);
-        }
+        // neighbours in the newest first listing, each a single indexed lookup
+        BlogPost previousPost = blogDAO.blogPostFindNewer(id);
+        BlogPost nextPost = blogDAO.blogPostFindOlder(id);
 
-        // Get recent posts as you were before
-        List<BlogPost> recentBlogPosts = allBlogPosts.stream()
-                .limit(10)
-                .collect(Collectors.toList());
+        List<BlogPost> recentBlogPosts = recentBlogPostsService.getRecentPosts();
 
         ModelAndView mav = new ModelAndView("blog-details");
         mav.addObject("blogPost", blogPost);
@@ -234,12 +228,12 @@ public class BlogController {
             @RequestParam String content,
             HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.CREATE_COMMENTS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.CREATE_COMMENTS)) {
             ModelAndView mav = blogListPage(null, null, null, null);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -251,7 +245,7 @@ public class BlogController {
         // Ensure the user is logged in, the comment content is not empty, and the blog
         // post exists
         if (blogPost != null && !content.trim().isEmpty()) {
-            sessionAccount = accountDAO.accountFindWithId(sessionAccount.getId());
+            Account sessionAccount = accountDAO.accountFindWithId(principal.getAccountId());
             blogDAO.createBlogPostComment(blogPost, sessionAccount, content);
         }
 
@@ -271,13 +265,13 @@ public class BlogController {
     @GetMapping("/comment/delete")
     public ModelAndView deleteComment(@RequestParam("comment") Long id, HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_COMMENTS)
-                && !userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_OWN_COMMENTS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_COMMENTS)
+                && !userPermissionService.hasPermission(principal, UserPermission.MANAGE_OWN_COMMENTS)) {
             ModelAndView mav = blogListPage(null, null, null, null).addObject("notAuthorized", true);
             return mav;
         }
@@ -294,9 +288,9 @@ public class BlogController {
         }
 
         // delete commment
-        if ((sessionAccount.getId().equals(commentToDelete.getAccount().getId())
-                && userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_OWN_COMMENTS))
-                || (userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_COMMENTS))) {
+        if ((principal.getAccountId().equals(commentToDelete.getAccount().getId())
+                && userPermissionService.hasPermission(principal, UserPermission.MANAGE_OWN_COMMENTS))
+                || (userPermissionService.hasPermission(principal, UserPermission.MANAGE_COMMENTS))) {
             blogDAO.deleteBlogPostCommentById(id);
             blogPostId = commentToDelete.getBlog().getId();
         }
@@ -329,13 +323,13 @@ public class BlogController {
             @RequestParam String content,
             HttpSession session) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
             mav.addObject("notLoggedIn", true);
             return mav;
-        } else if (!userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_COMMENTS)
-                && !userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_OWN_COMMENTS)) {
+        } else if (!userPermissionService.hasPermission(principal, UserPermission.MANAGE_COMMENTS)
+                && !userPermissionService.hasPermission(principal, UserPermission.MANAGE_OWN_COMMENTS)) {
             ModelAndView mav = blogListPage(null, null, null, null);
             mav.addObject("notAuthorized", true);
             return mav;
@@ -350,8 +344,8 @@ public class BlogController {
         }
 
         // update comment
-        if (sessionAccount.getId().equals(commentToUpdate.getAccount().getId())
-                && userPermissionService.hasPermission(sessionAccount, UserPermission.MANAGE_OWN_COMMENTS)) {
+        if (principal.getAccountId().equals(commentToUpdate.getAccount().getId())
+                && userPermissionService.hasPermission(principal, UserPermission.MANAGE_OWN_COMMENTS)) {
             commentToUpdate.setContent(content);
             blogDAO.updateBlogPostComment(commentToUpdate);
         }
@@ -1,7 +1,7 @@
 package com.khoi.lab.controller;
 
-import java.util.AbstractMap;
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,7 +17,11 @@ import com.khoi.lab.entity.DonationPaymentCode;
 import com.khoi.lab.enums.CampaignStatus;
 import com.khoi.lab.enums.PaymentMethod;
 import com.khoi.lab.enums.UserPermission;
-import com.khoi.lab.service.StringService;
+import com.khoi.lab.object.SessionPrincipal;
+import com.khoi.lab.service.AccountSessionUpdaterService;
+import com.khoi.lab.service.CampaignLeaderboardService;
+import com.khoi.lab.service.PageCache;
+import com.khoi.lab.service.PaymentCodeAllocator;
 import com.khoi.lab.service.UserPermissionService;
 
 import jakarta.servlet.http.HttpSession;
@@ -37,6 +41,13 @@ public class DonationController {
     private final DonationDAO donationDAO;
     private final AccountDAO accountDAO;
     private final UserPermissionService userPermissionService;
+    private final CampaignLeaderboardService leaderboardService;
+    private final PaymentCodeAllocator paymentCodeAllocator;
+
+    /**
+     * Number of donations listed under "recent donations"
+     */
+    private static final int RECENT_DONATIONS_SIZE = 20;
 
     /**
      * DAO Initiator
@@ -45,10 +56,13 @@ public class DonationController {
      * @param accountDAO
      */
     public DonationController(DonationDAO donationDAO, AccountDAO accountDAO,
-            UserPermissionService userPermissionService) {
+            UserPermissionService userPermissionService, CampaignLeaderboardService leaderboardService,
+            PaymentCodeAllocator paymentCodeAllocator) {
         this.donationDAO = donationDAO;
         this.accountDAO = accountDAO;
         this.userPermissionService = userPermissionService;
+        this.leaderboardService = leaderboardService;
+        this.paymentCodeAllocator = paymentCodeAllocator;
     }
 
     /**
@@ -64,6 +78,13 @@ public class DonationController {
         List<Campaign> campaignsComplete = donationDAO.campaignFindByStatus(CampaignStatus.COMPLETE);
         List<Campaign> campaignsClosed = donationDAO.campaignFindByStatus(CampaignStatus.CLOSED);
 
+        PageCache.tagCurrentRequest(PageCache.TAG_CAMPAIGNS);
+        for (List<Campaign> campaigns : List.of(campaignsCreated, campaignsOpen, campaignsComplete, campaignsClosed)) {
+            for (Campaign campaign : campaigns) {
+                PageCache.tagCurrentRequest(PageCache.campaignTag(campaign.getId()));
+            }
+        }
+
         return new ModelAndView("campaigns")
                 .addObject("campaignsCreated", campaignsCreated)
                 .addObject("campaignsOpen", campaignsOpen)
@@ -88,17 +109,17 @@ public class DonationController {
             return mav;
         }
 
-        for (Donation donation : campaign.getDonations()) {
+        List<Donation> recentDonations = donationDAO.campaignRecentDonations(id, RECENT_DONATIONS_SIZE);
+        for (Donation donation : recentDonations) {
             donation.setTimeAgo(donation.getTimeAgo(donation.getDonateTime()));
         }
 
-        // Simply retrieve the already sorted list from DAO
-        List<AbstractMap.SimpleEntry<Account, Integer>> sortedList = donationDAO
-                .campaignGetDonatorsAndDonatedAmount(campaign);
+        PageCache.tagCurrentRequest(PageCache.campaignTag(id));
 
         ModelAndView mav = new ModelAndView("campaign-details");
         mav.addObject("campaign", campaign);
-        mav.addObject("leaderboardList", sortedList);
+        mav.addObject("leaderboardList", leaderboardService.getLeaderboard(id));
+        mav.addObject("recentDonations", recentDonations);
         return mav;
     }
 
@@ -120,13 +141,13 @@ public class DonationController {
                     .addObject("campaignNotExist", true);
         }
 
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             return campaignsPage()
                     .addObject("notLoggedIn", true);
         }
 
-        sessionAccount = accountDAO.accountFindWithId(sessionAccount.getId());
+        Account sessionAccount = accountDAO.accountFindWithId(principal.getAccountId());
         List<Long> followedCampaignsIds = sessionAccount.getFollowedCampaignIds();
 
         if (!followedCampaignsIds.contains(campaign.getId())) {
@@ -162,12 +183,12 @@ public class DonationController {
         }
 
         // Check if the user is logged in
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount == null) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal == null) {
             return campaignsPage()
                     .addObject("notLoggedIn", true);
         }
-        sessionAccount = accountDAO.accountFindWithId(sessionAccount.getId());
+        Account sessionAccount = accountDAO.accountFindWithId(principal.getAccountId());
 
         // check if user has email
         if (sessionAccount.getEmail() == null) {
@@ -229,8 +250,12 @@ public class DonationController {
     }
 
     /**
-     * Handle campaign donate request
-     * (campaignNotExist/accountNotExist/paymentCodeInvalid/donationSuccess)
+     * Handle campaign donate request.
+     * Confirms a donation to the donor the payment code was issued to. The
+     * donation itself is only made by SepayTransferMatcher once the bank
+     * transfer carrying the code arrives, the code alone proves nothing as
+     * it is shown on the payment page.
+     * (campaignNotExist/paymentCodeInvalid/paymentPending/donationSuccess)
      * 
      * @param entity
      * @return
@@ -238,41 +263,43 @@ public class DonationController {
     @PostMapping("/donate")
     public ModelAndView campaignsDonateRequest(HttpSession session, @RequestBody String entity) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (!userPermissionService.hasPermission(sessionAccount, UserPermission.CREATE_DONATIONS)) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (!userPermissionService.hasPermission(principal, UserPermission.CREATE_DONATIONS)) {
             ModelAndView mav = campaignsPage();
             mav.addObject("notAuthorized", true);
             return mav;
         }
 
-        // parse json body
+        // parse json body, the campaign, donor and amount come from the code
         JSONObject json = new JSONObject(entity);
-        Long campaignId = json.getLong("campaignId");
-        Long accountId = json.getLong("accountId");
         String code = json.getString("code");
-        int amount = json.getInt("amount");
 
-        // verification
-        Campaign campaign = donationDAO.campaignFindById(campaignId);
+        // verification, only the donor the code was issued to can confirm it
+        DonationPaymentCode donationPaymentCode = donationDAO.paymentCodeFindByCode(code);
+        Long sessionAccountId = principal == null ? null : principal.getAccountId();
 
-        if (campaign == null) {
+        if (donationPaymentCode == null || donationPaymentCode.getCampaignId() == null
+                || !Objects.equals(donationPaymentCode.getAccountId(), sessionAccountId)) {
             ModelAndView mav = campaignsPage();
-            mav.addObject("campaignNotExist", true);
+            mav.addObject("paymentCodeInvalid", true);
             return mav;
         }
 
-        Account account = accountDAO.accountFindWithId(accountId);
-        DonationPaymentCode donationPaymentCode = donationDAO.paymentCodeFindByCode(code);
+        Long campaignId = donationPaymentCode.getCampaignId();
+        Campaign campaign = donationDAO.campaignFindById(campaignId);
 
-        if (donationPaymentCode == null) {
+        if (campaign == null) {
             ModelAndView mav = campaignsPage();
-            mav.addObject("paymentCodeInvalid", true);
+            mav.addObject("campaignNotExist", true);
             return mav;
         }
 
-        // commit donation & exhaust payment code
-        donationDAO.paymentCodeDeleteById(donationPaymentCode.getId());
-        donationDAO.accountDonate(campaign, account, amount);
+        // no matched bank transfer yet
+        if (!donationPaymentCode.isMatched()) {
+            ModelAndView mav = campaignsViewDetail(campaignId);
+            mav.addObject("paymentPending", true);
+            return mav;
+        }
 
         // view
         ModelAndView mav = campaignsViewDetail(campaignId);
@@ -296,9 +323,9 @@ public class DonationController {
             @RequestParam Long amount,
             @RequestParam PaymentMethod paymentMethod) {
         // permission checks
-        Account sessionAccount = (Account) session.getAttribute("account");
-        if (sessionAccount != null
-                && !userPermissionService.hasPermission(sessionAccount, UserPermission.CREATE_DONATIONS)) {
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        if (principal != null
+                && !userPermissionService.hasPermission(principal, UserPermission.CREATE_DONATIONS)) {
             ModelAndView mav = campaignsPage();
             mav.addObject("notAuthorized", true);
             return mav;
@@ -308,10 +335,16 @@ public class DonationController {
             case BANK:
                 ModelAndView mav = new ModelAndView("payment/bank");
 
-                String code = StringService.getAlphaNumericString(8);
-                donationDAO.paymentCodeCreate(code);
+                Campaign campaign = donationDAO.campaignFindById(campaignId);
+                if (campaign == null) {
+                    return campaignsPage().addObject("campaignNotExist", true);
+                }
+
+                Account sessionAccount = principal == null ? null
+                        : accountDAO.accountFindWithId(principal.getAccountId());
+                String code = paymentCodeAllocator.issue(campaign, sessionAccount, amount).getCode();
 
-                String description = new StringBuilder("QUYEN GOP ")
+                String description = new StringBuilder(Constants.PAYMENT_DESCRIPTION_PREFIX)
                         .append(code)
                         .toString();
                 String qr = "https://qr.sepay.vn/img?acc=BANK_ACCOUNT_NUMBER&bank=BANK_NAME&amount=AMOUNT&des=DESCRIPTION"
@@ -321,7 +354,7 @@ public class DonationController {
                         .replace("DESCRIPTION", description);
 
                 mav.addObject("qr", qr);
-                mav.addObject("campaign", donationDAO.campaignFindById(campaignId));
+                mav.addObject("campaign", campaign);
                 mav.addObject("bankAccountOwner", Constants.BANK_ACCOUNT_OWNER);
                 mav.addObject("bankAccountNumber", Constants.BANK_ACCOUNT_NUMBER);
                 mav.addObject("bankName", Constants.BANK_NAME);
@@ -329,7 +362,6 @@ public class DonationController {
                 mav.addObject("code", code);
                 mav.addObject("description", description);
                 mav.addObject("amount", amount);
-                mav.addObject("sepayAPIToken", Constants.SEPAY_API_TOKEN);
 
                 return mav;
             case MOMO:
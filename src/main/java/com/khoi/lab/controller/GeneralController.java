@@ -14,6 +14,9 @@ import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.BlogPost;
 import com.khoi.lab.entity.Campaign;
 import com.khoi.lab.entity.Donation;
+import com.khoi.lab.object.SessionPrincipal;
+import com.khoi.lab.service.AccountSessionUpdaterService;
+import com.khoi.lab.service.PageCache;
 
 import jakarta.servlet.http.HttpSession;
 
@@ -58,6 +61,8 @@ public class GeneralController {
         long donorCount = donationDAO.getAlltimeDonorCount();
         long donatedAmount = donationDAO.getAllTimeDonatedAmount();
 
+        PageCache.tagCurrentRequest(PageCache.TAG_HOME);
+
         // compose view
         return new ModelAndView("index")
                 .addObject("campaigns", campaigns)
@@ -77,7 +82,8 @@ public class GeneralController {
     @GetMapping("/edit-account")
     public ModelAndView sessionAccountEdit(HttpSession session) {
         ModelAndView mav = new ModelAndView("edit-account");
-        mav.addObject("account", (Account) session.getAttribute("account"));
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
+        mav.addObject("account", principal == null ? null : accountDAO.accountFindWithId(principal.getAccountId()));
         return mav;
     }
 
@@ -90,13 +96,13 @@ public class GeneralController {
      */
     @GetMapping("/account")
     public ModelAndView accountProfile(HttpSession session, @RequestParam(required = false) Long id) {
-        Account sessionAccount = (Account) session.getAttribute("account");
+        SessionPrincipal principal = AccountSessionUpdaterService.principal(session);
 
         // id or session account exists
-        if (id != null || sessionAccount != null) {
+        if (id != null || principal != null) {
             Account account = (id != null)
                     ? accountDAO.accountFindWithId(id) // id provided
-                    : accountDAO.accountFindWithId(sessionAccount.getId()); // user logged in
+                    : accountDAO.accountFindWithId(principal.getAccountId()); // user logged in
 
             if (account == null) {
                 ModelAndView mav = index();
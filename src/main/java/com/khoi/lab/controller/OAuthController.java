@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpEntity;
@@ -20,6 +22,7 @@ import com.khoi.lab.dao.AccountDAO;
 import com.khoi.lab.dao.BlogDAO;
 import com.khoi.lab.dao.DonationDAO;
 import com.khoi.lab.entity.Account;
+import com.khoi.lab.service.AccountSessionUpdaterService;
 
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -27,6 +30,8 @@ import jakarta.servlet.http.HttpSession;
 @RestController
 @RequestMapping("/oauth2")
 public class OAuthController {
+    private static final Logger log = LoggerFactory.getLogger(OAuthController.class);
+
     @Value("${google.client.id}")
     private String googleClientId;
     @Value("${google.client.secret}")
@@ -45,14 +50,17 @@ public class OAuthController {
     private final AccountDAO accountDAO;
     private final DonationDAO donationDAO;
     private final BlogDAO blogDAO;
+    private final AccountSessionUpdaterService accountSessionUpdater;
 
     /**
      * Deps injection constructor
      */
-    public OAuthController(AccountDAO accountDAO, DonationDAO donationDAO, BlogDAO blogDAO) {
+    public OAuthController(AccountDAO accountDAO, DonationDAO donationDAO, BlogDAO blogDAO,
+            AccountSessionUpdaterService accountSessionUpdater) {
         this.accountDAO = accountDAO;
         this.donationDAO = donationDAO;
         this.blogDAO = blogDAO;
+        this.accountSessionUpdater = accountSessionUpdater;
     }
 
     /**
@@ -102,7 +110,7 @@ public class OAuthController {
         String email = (String) userInfo.get("email");
         String name = (String) userInfo.get("name");
 
-        System.out.println("Google login details: " + email + " | " + name);
+        log.debug("Google login details: {} | {}", email, name);
 
         // Try to find the account by email
         Account existingAccount = accountDAO.accountFindWithEmail(email);
@@ -114,7 +122,7 @@ public class OAuthController {
                 existingAccount = accountDAO.accountUpdate(existingAccount);
 
                 // set session attributes
-                session.setAttribute("account", existingAccount);
+                accountSessionUpdater.login(session, existingAccount);
                 ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
                 mav.addObject("loginSuccess", true);
                 return mav;
@@ -142,7 +150,7 @@ public class OAuthController {
 
         // Fetch the new account and log in
         registeredAccount = accountDAO.accountFindWithEmail(email);
-        session.setAttribute("account", registeredAccount);
+        accountSessionUpdater.login(session, registeredAccount);
 
         ModelAndView mav = (new GeneralController(donationDAO, accountDAO, blogDAO)).index();
         mav.addObject("registerSuccess", true);
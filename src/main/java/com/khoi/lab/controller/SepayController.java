@@ -0,0 +1,117 @@
+package com.khoi.lab.controller;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.dao.SepayWebhookDAO;
+import com.khoi.lab.entity.DonationPaymentCode;
+import com.khoi.lab.entity.SepayWebhookEvent;
+import com.khoi.lab.service.SepayWebhookVerifier;
+
+/**
+ * Sepay controller.
+ * Receives Sepay webhooks into the inbox, SepayWebhookWorker and
+ * SepayTransactionPoller match the transfers. Payment pages only poll the
+ * status of their own code here.
+ */
+@RestController
+@RequestMapping("/api/sepay")
+public class SepayController {
+    private static final Logger log = LoggerFactory.getLogger(SepayController.class);
+
+    private static final String SUCCESS = new JSONObject().put("success", true).toString();
+
+    private final DonationDAO donationDAO;
+    private final SepayWebhookDAO sepayWebhookDAO;
+    private final SepayWebhookVerifier webhookVerifier;
+
+    public SepayController(DonationDAO donationDAO, SepayWebhookDAO sepayWebhookDAO,
+            SepayWebhookVerifier webhookVerifier) {
+        this.donationDAO = donationDAO;
+        this.sepayWebhookDAO = sepayWebhookDAO;
+        this.webhookVerifier = webhookVerifier;
+    }
+
+    /**
+     * Whether the transfer for a payment code has arrived
+     *
+     * @param code
+     * @return
+     */
+    @GetMapping("/payments/{code}")
+    public ResponseEntity<String> getPaymentStatus(@PathVariable String code) {
+        DonationPaymentCode donationPaymentCode = donationDAO.paymentCodeFindByCode(code);
+        if (donationPaymentCode == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        JSONObject status = new JSONObject()
+                .put("code", donationPaymentCode.getCode())
+                .put("matched", donationPaymentCode.isMatched());
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(status.toString());
+    }
+
+    /**
+     * Sepay transaction webhook. The delivery is only stored, a redelivery of
+     * a stored transaction is acknowledged without storing it again.
+     *
+     * @param authorization
+     * @param signature
+     * @param body
+     * @return
+     */
+    @PostMapping("/webhook")
+    public ResponseEntity<String> receiveWebhook(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = SepayWebhookVerifier.SIGNATURE_HEADER, required = false) String signature,
+            @RequestBody byte[] body) {
+        if (!webhookVerifier.verify(authorization, signature, body)) {
+            log.warn("[receiveWebhook] Refused webhook with a bad signature");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        SepayWebhookEvent event;
+        try {
+            event = parseWebhook(new String(body, StandardCharsets.UTF_8));
+        } catch (JSONException | NumberFormatException e) {
+            log.warn("[receiveWebhook] Unreadable webhook: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        sepayWebhookDAO.sepayWebhookReceive(event);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(SUCCESS);
+    }
+
+    /**
+     * Read a Sepay webhook payload into an inbox event
+     *
+     * @param payload
+     * @return
+     */
+    private SepayWebhookEvent parseWebhook(String payload) {
+        JSONObject json = new JSONObject(payload);
+        long id = json.getLong("id");
+        long amountIn = 0;
+        if ("in".equalsIgnoreCase(json.optString("transferType"))) {
+            amountIn = new BigDecimal(json.optString("transferAmount", "0")).longValue();
+        }
+        return new SepayWebhookEvent(id, json.optString("accountNumber", null), amountIn,
+                json.optString("content", ""), payload);
+    }
+}
@@ -76,6 +76,14 @@ public interface AccountDAO {
 
     Account accountFindWithId(Long id);
 
+    /**
+     * Current version of an account without loading it
+     * 
+     * @param id
+     * @return null if the account doesn't exist
+     */
+    Long accountVersionFindWithId(Long id);
+
     Account accountFindWithUsername(String username);
 
     Account accountFindWithEmail(String email);
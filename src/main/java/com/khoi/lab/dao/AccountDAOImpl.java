@@ -2,6 +2,9 @@ package com.khoi.lab.dao;
 
 import java.sql.Date;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import com.khoi.lab.data.DefaultRolePermissions;
@@ -9,7 +12,10 @@ import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.PasswordResetCode;
 import com.khoi.lab.entity.Role;
 import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.AccountChangedEvent;
+import com.khoi.lab.object.RoleChangedEvent;
 import com.khoi.lab.service.CryptographyService;
+import com.khoi.lab.service.PasswordHasher;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
@@ -18,16 +24,20 @@ import jakarta.transaction.Transactional;
 
 @Repository
 public class AccountDAOImpl implements AccountDAO {
+    private static final Logger log = LoggerFactory.getLogger(AccountDAOImpl.class);
+
     private EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AccountDAOImpl(EntityManager em) {
+    public AccountDAOImpl(EntityManager em, ApplicationEventPublisher eventPublisher) {
         this.em = em;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     @Transactional
     public void initiate() {
-        System.out.println("| [initiate] Initiating test data.");
+        log.info("[initiate] Initiating test data.");
 
         // 1. Create and save roles
         roleCreate("manager", DefaultRolePermissions.getPermissionsForRole("manager"), 4);
@@ -122,7 +132,7 @@ public class AccountDAOImpl implements AccountDAO {
     public Role roleCreate(String roleName, List<UserPermission> permissions, int powerLevel) {
         Role role = new Role(roleName.toLowerCase(), permissions, powerLevel);
         roleSave(role);
-        System.out.println("| [roleCreate] Role created: " + role);
+        log.debug("[roleCreate] Role created: {}", role);
         return role;
     }
 
@@ -130,7 +140,8 @@ public class AccountDAOImpl implements AccountDAO {
     @Transactional
     public Role roleSave(Role role) {
         em.persist(role);
-        System.out.println("| [roleSave] Role saved: " + role);
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getId()));
+        log.debug("[roleSave] Role saved: {}", role);
         return role;
     }
 
@@ -138,9 +149,9 @@ public class AccountDAOImpl implements AccountDAO {
     public Role roleFindById(Long id) {
         Role role = em.find(Role.class, id);
         if (role == null) {
-            System.out.println("| [roleFindById] Couldn't find role with id: " + id);
+            log.debug("[roleFindById] Couldn't find role with id: {}", id);
         } else {
-            System.out.println("| [roleFindById] Found role: " + role);
+            log.debug("[roleFindById] Found role: {}", role);
         }
         return role;
     }
@@ -153,10 +164,10 @@ public class AccountDAOImpl implements AccountDAO {
         tq.setParameter("roleName", roleName.toLowerCase());
         try {
             Role role = tq.getSingleResult();
-            System.out.println("| [roleFindByRoleName] Role found: " + role);
+            log.debug("[roleFindByRoleName] Role found: {}", role);
             return role;
         } catch (NoResultException e) {
-            System.out.println("| [roleFindByRoleName] Role not found!");
+            log.debug("[roleFindByRoleName] Role not found!");
             return null;
         }
     }
@@ -167,7 +178,7 @@ public class AccountDAOImpl implements AccountDAO {
                 "SELECT r FROM Role r",
                 Role.class);
         List<Role> roles = tq.getResultList();
-        System.out.println("| [roleList] Found and returned: " + roles.size() + " roles!");
+        log.debug("[roleList] Found and returned: {} roles!", roles.size());
         return roles;
     }
 
@@ -175,7 +186,8 @@ public class AccountDAOImpl implements AccountDAO {
     @Transactional
     public Role roleUpdate(Role role) {
         role = em.merge(role);
-        System.out.println("| [roleUpdate] Role updated: " + role);
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getId()));
+        log.debug("[roleUpdate] Role updated: {}", role);
         return role;
     }
 
@@ -191,7 +203,8 @@ public class AccountDAOImpl implements AccountDAO {
         }
 
         em.remove(role);
-        System.out.println("| [roleDeleteById] Deleted role with id: " + id);
+        eventPublisher.publishEvent(new RoleChangedEvent(id));
+        log.debug("[roleDeleteById] Deleted role with id: {}", id);
     }
 
     @Override
@@ -201,7 +214,7 @@ public class AccountDAOImpl implements AccountDAO {
         Role role = roleFindByRoleName(roleName);
         Account account = new Account(username, firstName, lastName, email, phoneNumber, password, role);
         accountSave(account);
-        System.out.println("| [accountRegister] Registered account: " + account);
+        log.debug("[accountRegister] Registered account: {}", account);
         return account;
     }
 
@@ -209,23 +222,28 @@ public class AccountDAOImpl implements AccountDAO {
     @Transactional
     public Account accountLogin(String usernameOrEmailOrPhone, String password) {
         TypedQuery<Account> tq = em.createQuery(
-                "SELECT a FROM Account a WHERE (a.username=:username OR a.email=:email OR a.phoneNumber=:phone) AND a.password=:password",
+                "SELECT a FROM Account a WHERE a.username=:username OR a.email=:email OR a.phoneNumber=:phone",
                 Account.class);
         tq.setParameter("username", usernameOrEmailOrPhone);
         tq.setParameter("email", usernameOrEmailOrPhone);
         tq.setParameter("phone", usernameOrEmailOrPhone);
-        tq.setParameter("password", CryptographyService.encrypt(password));
-        try {
-            Account account = tq.getSingleResult();
-            System.out.println("| [accountLogin] Details match account: " + account);
-            System.out.println("| [accountLogin] Logged in!");
-            account.setLastLoginDate(new java.sql.Date(System.currentTimeMillis()));
-            account = accountUpdate(account);
-            return account;
-        } catch (NoResultException e) {
-            System.out.println("| [accountLogin] Didn't match any account!");
-            return null;
+        // the password is checked here rather than in the query, salted hashes can't be compared in SQL
+        PasswordHasher hasher = CryptographyService.getPasswordHasher();
+        for (Account account : tq.getResultList()) {
+            if (account.passwordMatches(password)) {
+                log.debug("[accountLogin] Details match account: {}", account);
+                log.debug("[accountLogin] Logged in!");
+                if (hasher.needsRehash(account.getPassword())) {
+                    account.setPassword(password);
+                    log.debug("[accountLogin] Rehashed password of account: {}", account.getId());
+                }
+                account.setLastLoginDate(new java.sql.Date(System.currentTimeMillis()));
+                account = accountUpdate(account);
+                return account;
+            }
         }
+        log.debug("[accountLogin] Didn't match any account!");
+        return null;
     }
 
     @Override
@@ -241,14 +259,22 @@ public class AccountDAOImpl implements AccountDAO {
     @Transactional
     public void accountSave(Account account) {
         em.persist(account);
-        System.out.println("| [accountSave] Account saved: " + account);
+        log.debug("[accountSave] Account saved: {}", account);
     }
 
     @Override
     @Transactional
     public Account accountUpdate(Account account) {
         account = em.merge(account);
-        System.out.println("| [accountUpdate] Account updated: " + account);
+        em.flush();
+        // bumped by the database so concurrent updates never hand out the same version
+        em.createQuery("UPDATE Account a SET a.version = a.version + 1 WHERE a.id=:id")
+                .setParameter("id", account.getId())
+                .executeUpdate();
+        Long version = accountVersionFindWithId(account.getId());
+        account.setVersion(version);
+        eventPublisher.publishEvent(new AccountChangedEvent(account.getId(), version));
+        log.debug("[accountUpdate] Account updated: {}", account);
         return account;
     }
 
@@ -256,12 +282,20 @@ public class AccountDAOImpl implements AccountDAO {
     public Account accountFindWithId(Long id) {
         Account account = em.find(Account.class, id);
         if (account == null)
-            System.out.println("| [accountFindWithId] Account not found!");
+            log.debug("[accountFindWithId] Account not found!");
         else
-            System.out.println("| [accountFindWithId] Account found: " + account);
+            log.debug("[accountFindWithId] Account found: {}", account);
         return account;
     }
 
+    @Override
+    public Long accountVersionFindWithId(Long id) {
+        List<Long> versions = em.createQuery("SELECT a.version FROM Account a WHERE a.id=:id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
     @Override
     public Account accountFindWithUsername(String username) {
         TypedQuery<Account> tq = em.createQuery(
@@ -270,10 +304,10 @@ public class AccountDAOImpl implements AccountDAO {
         tq.setParameter("username", username);
         try {
             Account account = tq.getSingleResult();
-            System.out.println("| [accountFindWithUsername] Account found: " + account);
+            log.debug("[accountFindWithUsername] Account found: {}", account);
             return account;
         } catch (NoResultException e) {
-            System.out.println("| [accountFindWithUsername] Account not found!");
+            log.debug("[accountFindWithUsername] Account not found!");
             return null;
         }
     }
@@ -286,10 +320,10 @@ public class AccountDAOImpl implements AccountDAO {
         tq.setParameter("email", email);
         try {
             Account account = tq.getSingleResult();
-            System.out.println("| [accountFindWithEmail] Account found: " + account);
+            log.debug("[accountFindWithEmail] Account found: {}", account);
             return account;
         } catch (NoResultException e) {
-            System.out.println("| [accountFindWithEmail] Account not found!");
+            log.debug("[accountFindWithEmail] Account not found!");
             return null;
         }
     }
@@ -302,10 +336,10 @@ public class AccountDAOImpl implements AccountDAO {
         tq.setParameter("phoneNumber", phoneNumber);
         try {
             Account account = tq.getSingleResult();
-            System.out.println("| [accountFindWithPhoneNumber] Account found: " + account);
+            log.debug("[accountFindWithPhoneNumber] Account found: {}", account);
             return account;
         } catch (NoResultException e) {
-            System.out.println("| [accountFindWithPhoneNumber] Account not found!");
+            log.debug("[accountFindWithPhoneNumber] Account not found!");
             return null;
         }
     }
@@ -316,7 +350,7 @@ public class AccountDAOImpl implements AccountDAO {
                 "SELECT a FROM Account a",
                 Account.class);
         List<Account> accounts = tq.getResultList();
-        System.out.println("| [accountList] Found and returned: " + accounts.size() + " accounts!");
+        log.debug("[accountList] Found and returned: {} accounts!", accounts.size());
         return accounts;
     }
 
@@ -335,10 +369,10 @@ public class AccountDAOImpl implements AccountDAO {
         tq.setParameter("id", id);
         try {
             PasswordResetCode code = tq.getSingleResult();
-            System.out.println("| [findPasswordResetCodeWithAccountId] Code found: " + code);
+            log.debug("[findPasswordResetCodeWithAccountId] Code found: {}", code);
             return code;
         } catch (NoResultException e) {
-            System.out.println("| [findPasswordResetCodeWithAccountId] Code not found!");
+            log.debug("[findPasswordResetCodeWithAccountId] Code not found!");
             return null;
         }
     }
@@ -1,10 +1,13 @@
 package com.khoi.lab.dao;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.BlogPost;
 import com.khoi.lab.entity.BlogPostComment;
+import com.khoi.lab.enums.BlogPostOrder;
 
 /**
  * Blog DAO
@@ -38,6 +41,83 @@ public interface BlogDAO {
      */
     List<BlogPost> listBlogPosts();
 
+    /**
+     * A page of blog posts, filtered and ordered in the database
+     * 
+     * @param ids    restrict to these posts, null for all
+     * @param from   inclusive lower bound of the post date, null for none
+     * @param to     exclusive upper bound of the post date, null for none
+     * @param order
+     * @param offset
+     * @param limit
+     * @return
+     */
+    List<BlogPost> blogPostPage(Collection<Long> ids, LocalDateTime from, LocalDateTime to, BlogPostOrder order,
+            int offset, int limit);
+
+    /**
+     * Number of blog posts matching the same filter as blogPostPage(),
+     * counted up to 10000 so the cost doesn't grow with the table
+     * 
+     * @param ids
+     * @param from
+     * @param to
+     * @return
+     */
+    long blogPostCount(Collection<Long> ids, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Ids among [ids] of the posts dated within [from, to)
+     * 
+     * @param ids
+     * @param from
+     * @param to
+     * @return
+     */
+    List<Long> blogPostIdsInRange(Collection<Long> ids, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Ids among [ids] of the posts dated within [from, to), sorted by [order].
+     * Only the sort keys are read, so a search result can be paged before any
+     * post is loaded.
+     * 
+     * @param ids
+     * @param from
+     * @param to
+     * @param order
+     * @return
+     */
+    List<Long> blogPostIdsOrdered(Collection<Long> ids, LocalDateTime from, LocalDateTime to, BlogPostOrder order);
+
+    /**
+     * Load blog posts by id, keeping the order of [ids]
+     * 
+     * @param ids
+     * @return
+     */
+    List<BlogPost> blogPostFindByIds(List<Long> ids);
+
+    /**
+     * The blog post right after [id], i.e. the oldest one newer than it
+     * 
+     * @param id
+     * @return null if [id] is the newest
+     */
+    BlogPost blogPostFindNewer(Long id);
+
+    /**
+     * The blog post right before [id], i.e. the newest one older than it
+     * 
+     * @param id
+     * @return null if [id] is the oldest
+     */
+    BlogPost blogPostFindOlder(Long id);
+
+    /**
+     * Recount the stored comment count of every blog post
+     */
+    void blogPostCommentCountsRebuild();
+
     /**
      * Update blog post
      * 
@@ -1,14 +1,27 @@
 package com.khoi.lab.dao;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.BlogPost;
 import com.khoi.lab.entity.BlogPostComment;
+import com.khoi.lab.enums.BlogPostOrder;
+import com.khoi.lab.object.BlogPostChangedEvent;
+import com.khoi.lab.object.BlogPostCommentChangedEvent;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 
@@ -17,10 +30,18 @@ import jakarta.transaction.Transactional;
  */
 @Repository
 public class BlogDAOImpl implements BlogDAO {
+    private static final Logger log = LoggerFactory.getLogger(BlogDAOImpl.class);
+
+    // ids bound per IN list when filtering a search result
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final int BLOG_POST_COUNT_CAP = 10000;
+
     private EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BlogDAOImpl(EntityManager em) {
+    public BlogDAOImpl(EntityManager em, ApplicationEventPublisher eventPublisher) {
         this.em = em;
+        this.eventPublisher = eventPublisher;
     }
 
     @SuppressWarnings("unused")
@@ -243,7 +264,9 @@ public class BlogDAOImpl implements BlogDAO {
     @Transactional
     public BlogPost saveBlogPost(BlogPost blogPost) {
         em.persist(blogPost);
-        System.out.println("| [saveBlogPost] Saved blog post: " + blogPost);
+        eventPublisher.publishEvent(new BlogPostChangedEvent(blogPost.getId(), blogPost.getTitle(),
+                blogPost.getDescription(), false));
+        log.debug("[saveBlogPost] Saved blog post: {}", blogPost);
         return blogPost;
     }
 
@@ -251,9 +274,9 @@ public class BlogDAOImpl implements BlogDAO {
     public BlogPost findBlogPostById(Long id) {
         BlogPost blogPost = em.find(BlogPost.class, id);
         if (blogPost == null) {
-            System.out.println("| [findBlogPostById] Couldn't find blog post with id: " + id);
+            log.debug("[findBlogPostById] Couldn't find blog post with id: {}", id);
         } else {
-            System.out.println("| [findBlogPostById] Found blog post: " + blogPost);
+            log.debug("[findBlogPostById] Found blog post: {}", blogPost);
         }
         return blogPost;
     }
@@ -264,15 +287,228 @@ public class BlogDAOImpl implements BlogDAO {
                 "SELECT c FROM BlogPost c",
                 BlogPost.class);
         List<BlogPost> blogPosts = tq.getResultList();
-        System.out.println("| [listBlogPosts] Found and returned: " + blogPosts.size() + " blogPosts!");
+        log.debug("[listBlogPosts] Found and returned: {} blogPosts!", blogPosts.size());
+        return blogPosts;
+    }
+
+    @Override
+    public List<BlogPost> blogPostPage(Collection<Long> ids, LocalDateTime from, LocalDateTime to,
+            BlogPostOrder order, int offset, int limit) {
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<BlogPost> tq = em.createQuery(
+                "SELECT b FROM BlogPost b" + blogPostWhere(ids, from, to) + " ORDER BY " + order.getOrderBy(),
+                BlogPost.class);
+        setBlogPostParameters(tq, ids, from, to);
+        tq.setFirstResult(offset);
+        tq.setMaxResults(limit);
+        List<BlogPost> blogPosts = tq.getResultList();
+        log.debug("[blogPostPage] Found and returned: {} blogPosts!", blogPosts.size());
+        return blogPosts;
+    }
+
+    @Override
+    public long blogPostCount(Collection<Long> ids, LocalDateTime from, LocalDateTime to) {
+        if (ids != null && ids.isEmpty()) {
+            return 0;
+        }
+        // count matches up to a cap so the cost doesn't grow with the table
+        Query q = em.createNativeQuery("SELECT COUNT(*) FROM (SELECT 1 FROM blog_post b"
+                + blogPostWhere(ids, from, to) + " LIMIT " + BLOG_POST_COUNT_CAP + ") t");
+        setBlogPostParameters(q, ids, from, to);
+        return ((Number) q.getSingleResult()).longValue();
+    }
+
+    @Override
+    public List<Long> blogPostIdsInRange(Collection<Long> ids, LocalDateTime from, LocalDateTime to) {
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids == null) {
+            TypedQuery<Long> tq = em.createQuery(
+                    "SELECT b.id FROM BlogPost b" + blogPostWhere(null, from, to), Long.class);
+            setBlogPostParameters(tq, null, from, to);
+            return tq.getResultList();
+        }
+        List<Long> inRange = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            TypedQuery<Long> tq = em.createQuery(
+                    "SELECT b.id FROM BlogPost b" + blogPostWhere(chunk, from, to), Long.class);
+            setBlogPostParameters(tq, chunk, from, to);
+            inRange.addAll(tq.getResultList());
+        }
+        return inRange;
+    }
+
+    @Override
+    public List<Long> blogPostIdsOrdered(Collection<Long> ids, LocalDateTime from, LocalDateTime to,
+            BlogPostOrder order) {
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunks(ids)) {
+            TypedQuery<Object[]> tq = em.createQuery(
+                    "SELECT b.id, b.date, b.commentCount FROM BlogPost b" + blogPostWhere(chunk, from, to),
+                    Object[].class);
+            setBlogPostParameters(tq, chunk, from, to);
+            rows.addAll(tq.getResultList());
+        }
+        rows.sort(sortKeyOrder(order));
+        List<Long> ordered = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ordered.add((Long) row[0]);
+        }
+        log.debug("[blogPostIdsOrdered] Ordered {} of {} ids by {}", ordered.size(), ids.size(), order);
+        return ordered;
+    }
+
+    @Override
+    public List<BlogPost> blogPostFindByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<BlogPost> tq = em.createQuery("SELECT b FROM BlogPost b WHERE b.id IN :ids", BlogPost.class);
+        tq.setParameter("ids", ids);
+        Map<Long, BlogPost> byId = new HashMap<>();
+        for (BlogPost blogPost : tq.getResultList()) {
+            byId.put(blogPost.getId(), blogPost);
+        }
+        List<BlogPost> blogPosts = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BlogPost blogPost = byId.get(id);
+            if (blogPost != null) {
+                blogPosts.add(blogPost);
+            }
+        }
         return blogPosts;
     }
 
+    @Override
+    public BlogPost blogPostFindNewer(Long id) {
+        return blogPostFindNeighbour("SELECT b FROM BlogPost b WHERE b.id > :id ORDER BY b.id ASC", id);
+    }
+
+    @Override
+    public BlogPost blogPostFindOlder(Long id) {
+        return blogPostFindNeighbour("SELECT b FROM BlogPost b WHERE b.id < :id ORDER BY b.id DESC", id);
+    }
+
+    /**
+     * First post of a neighbour query, a primary key range scan reading one row
+     *
+     * @param jpql
+     * @param id
+     * @return
+     */
+    private BlogPost blogPostFindNeighbour(String jpql, Long id) {
+        TypedQuery<BlogPost> tq = em.createQuery(jpql, BlogPost.class);
+        tq.setParameter("id", id);
+        tq.setMaxResults(1);
+        List<BlogPost> blogPosts = tq.getResultList();
+        return blogPosts.isEmpty() ? null : blogPosts.get(0);
+    }
+
+    /**
+     * [ids] split into lists of at most ID_CHUNK_SIZE, so no IN list grows
+     * with the search result
+     *
+     * @param ids
+     * @return
+     */
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < all.size(); start += ID_CHUNK_SIZE) {
+            chunks.add(all.subList(start, Math.min(start + ID_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * In memory equivalent of [order] over (id, date, commentCount) rows
+     *
+     * @param order
+     * @return
+     */
+    private static Comparator<Object[]> sortKeyOrder(BlogPostOrder order) {
+        Comparator<Object[]> byId = Comparator.comparing((Object[] row) -> (Long) row[0]);
+        Comparator<Object[]> byIdDesc = byId.reversed();
+        Comparator<Object[]> byDate = Comparator.comparing((Object[] row) -> (LocalDateTime) row[1],
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        return switch (order) {
+            case LATEST -> byIdDesc;
+            case NEWEST -> byDate.reversed().thenComparing(byIdDesc);
+            case OLDEST -> byDate.thenComparing(byId);
+            case POPULAR -> Comparator.comparingInt((Object[] row) -> ((Number) row[2]).intValue()).reversed()
+                    .thenComparing(byIdDesc);
+        };
+    }
+
+    /**
+     * WHERE clause shared by the blog post page queries
+     *
+     * @param ids
+     * @param from
+     * @param to
+     * @return
+     */
+    private static String blogPostWhere(Collection<Long> ids, LocalDateTime from, LocalDateTime to) {
+        List<String> conditions = new ArrayList<>();
+        if (ids != null) {
+            conditions.add("b.id IN :ids");
+        }
+        if (from != null) {
+            conditions.add("b.date >= :from");
+        }
+        if (to != null) {
+            conditions.add("b.date < :to");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static void setBlogPostParameters(Query tq, Collection<Long> ids, LocalDateTime from,
+            LocalDateTime to) {
+        if (ids != null) {
+            tq.setParameter("ids", ids);
+        }
+        if (from != null) {
+            tq.setParameter("from", from);
+        }
+        if (to != null) {
+            tq.setParameter("to", to);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void blogPostCommentCountsRebuild() {
+        int updated = em.createQuery(
+                "UPDATE BlogPost b SET b.commentCount = "
+                        + "(SELECT COUNT(c) FROM BlogPostComment c WHERE c.blog = b)")
+                .executeUpdate();
+        log.info("[blogPostCommentCountsRebuild] Recounted comments of {} blogPosts", updated);
+    }
+
+    /**
+     * Shift the stored comment count of a blog post. Done as an UPDATE so
+     * concurrent comments don't overwrite each other's count.
+     *
+     * @param blogPostId
+     * @param delta
+     */
+    private void adjustCommentCount(Long blogPostId, int delta) {
+        em.createQuery("UPDATE BlogPost b SET b.commentCount = b.commentCount + :delta WHERE b.id = :id")
+                .setParameter("delta", delta)
+                .setParameter("id", blogPostId)
+                .executeUpdate();
+    }
+
     @Override
     @Transactional
     public BlogPost updateBlogPost(BlogPost blogPost) {
         blogPost = em.merge(blogPost);
-        System.out.println("| [updateBlogPost] Updated blogPost: " + blogPost);
+        eventPublisher.publishEvent(new BlogPostChangedEvent(blogPost.getId(), blogPost.getTitle(),
+                blogPost.getDescription(), false));
+        log.debug("[updateBlogPost] Updated blogPost: {}", blogPost);
         return blogPost;
     }
 
@@ -281,7 +517,8 @@ public class BlogDAOImpl implements BlogDAO {
     public void deleteBlogPostById(Long id) {
         BlogPost blogPost = findBlogPostById(id);
         em.remove(blogPost);
-        System.out.println("| [deleteBlogPostById] Deleted blogPost with id: " + id);
+        eventPublisher.publishEvent(new BlogPostChangedEvent(id, null, null, true));
+        log.debug("[deleteBlogPostById] Deleted blogPost with id: {}", id);
     }
 
     @Override
@@ -293,7 +530,7 @@ public class BlogDAOImpl implements BlogDAO {
         author.getBlogPosts().add(blogPost);
         em.merge(author);
 
-        System.out.println("| [createBlogPost] blogPost created: " + blogPost);
+        log.debug("[createBlogPost] blogPost created: {}", blogPost);
 
         return blogPost;
     }
@@ -302,7 +539,11 @@ public class BlogDAOImpl implements BlogDAO {
     @Transactional
     public BlogPostComment saveBlogPostComment(BlogPostComment blogPostComment) {
         em.persist(blogPostComment);
-        System.out.println("| [saveBlogPostComment] Saved blogPostComment: " + blogPostComment);
+        if (blogPostComment.getBlog() != null) {
+            adjustCommentCount(blogPostComment.getBlog().getId(), 1);
+            eventPublisher.publishEvent(new BlogPostCommentChangedEvent(blogPostComment.getBlog().getId()));
+        }
+        log.debug("[saveBlogPostComment] Saved blogPostComment: {}", blogPostComment);
         return blogPostComment;
     }
 
@@ -310,9 +551,9 @@ public class BlogDAOImpl implements BlogDAO {
     public BlogPostComment findBlogPostCommentById(Long id) {
         BlogPostComment blogPostComment = em.find(BlogPostComment.class, id);
         if (blogPostComment == null) {
-            System.out.println("| [findBlogPostCommentById] Couldn't find blogPostComment with id: " + id);
+            log.debug("[findBlogPostCommentById] Couldn't find blogPostComment with id: {}", id);
         } else {
-            System.out.println("| [findBlogPostCommentById] Found blogPostComment: " + blogPostComment);
+            log.debug("[findBlogPostCommentById] Found blogPostComment: {}", blogPostComment);
         }
         return blogPostComment;
     }
@@ -321,7 +562,7 @@ public class BlogDAOImpl implements BlogDAO {
     @Transactional
     public BlogPostComment updateBlogPostComment(BlogPostComment blogPostComment) {
         blogPostComment = em.merge(blogPostComment);
-        System.out.println("| [updateBlogPostComment] Updated blogPostComment: " + blogPostComment);
+        log.debug("[updateBlogPostComment] Updated blogPostComment: {}", blogPostComment);
         return blogPostComment;
     }
 
@@ -330,7 +571,11 @@ public class BlogDAOImpl implements BlogDAO {
     public void deleteBlogPostCommentById(Long id) {
         BlogPostComment blogPostComment = findBlogPostCommentById(id);
         em.remove(blogPostComment);
-        System.out.println("| [deleteBlogPostCommentById] Deleted blogPostComment with id: " + id);
+        if (blogPostComment.getBlog() != null) {
+            adjustCommentCount(blogPostComment.getBlog().getId(), -1);
+            eventPublisher.publishEvent(new BlogPostCommentChangedEvent(blogPostComment.getBlog().getId()));
+        }
+        log.debug("[deleteBlogPostCommentById] Deleted blogPostComment with id: {}", id);
     }
 
     @Override
@@ -344,7 +589,7 @@ public class BlogDAOImpl implements BlogDAO {
         blogPost.getComments().add(blogPostComment);
         em.merge(blogPost);
 
-        System.out.println("| [blogPostComment] blogPost created: " + blogPost);
+        log.debug("[blogPostComment] blogPost created: {}", blogPost);
 
         return blogPostComment;
     }
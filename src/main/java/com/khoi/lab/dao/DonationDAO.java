@@ -2,9 +2,10 @@ package com.khoi.lab.dao;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.AbstractMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.Campaign;
@@ -12,6 +13,15 @@ import com.khoi.lab.entity.Donation;
 import com.khoi.lab.entity.DonationPaymentCode;
 import com.khoi.lab.entity.DonationReceiver;
 import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.ChartResolution;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.object.CampaignDonationCounts;
+import com.khoi.lab.object.DashboardStats;
+import com.khoi.lab.object.DonationCursor;
+import com.khoi.lab.object.DonationExportRow;
+import com.khoi.lab.object.DonationFilter;
+import com.khoi.lab.object.DonationPage;
+import com.khoi.lab.object.LeaderboardEntry;
 
 /**
  * Data Access Object for Accounts
@@ -127,12 +137,32 @@ public interface DonationDAO {
         List<Donation> campaignGetDonations(Campaign campaign, boolean excludeConfirmed);
 
         /**
-         * Get donators and sum of money they donated to the campaign
+         * Donors with the most confirmed donations to a campaign, summed per
+         * account with anonymous donations collapsed into one entry
          * 
-         * @param campaign
+         * @param campaignId
+         * @param limit
+         * @return at most limit entries, highest total first
+         */
+        List<LeaderboardEntry> campaignLeaderboard(Long campaignId, int limit);
+
+        /**
+         * Confirmed donations of a single donor to a campaign, summed
+         * 
+         * @param campaignId
+         * @param accountId  null for the anonymous entry
+         * @return null if the donor has no confirmed donation
+         */
+        LeaderboardEntry campaignLeaderboardEntry(Long campaignId, Long accountId);
+
+        /**
+         * Latest donations to a campaign that weren't refused
+         * 
+         * @param campaignId
+         * @param limit
          * @return
          */
-        List<AbstractMap.SimpleEntry<Account, Integer>> campaignGetDonatorsAndDonatedAmount(Campaign campaign);
+        List<Donation> campaignRecentDonations(Long campaignId, int limit);
 
         /**
          * Change campaign status
@@ -189,6 +219,20 @@ public interface DonationDAO {
          */
         List<Campaign> campaignList();
 
+        /**
+         * Rebuild every campaign's denormalized donation counters from the
+         * donation table
+         */
+        void campaignCountersRebuild();
+
+        /**
+         * Count a campaign's donations by status, in one grouped query
+         * 
+         * @param campaignId
+         * @return
+         */
+        CampaignDonationCounts campaignDonationCounts(Long campaignId);
+
         /**
          * Confirm a donation manually
          * 
@@ -233,6 +277,35 @@ public interface DonationDAO {
          */
         List<Donation> donationList(boolean includeRefused);
 
+        /**
+         * Get one page of donations matching [filter], newest first.
+         * Pages are addressed by keyset cursor: without a cursor the newest page
+         * is returned, otherwise the page older than (or newer than, when
+         * [newer] is set) the cursor.
+         * 
+         * @param filter
+         * @param cursor
+         * @param newer
+         * @param pageSize
+         * @return
+         */
+        DonationPage donationPage(DonationFilter filter, DonationCursor cursor, boolean newer, int pageSize);
+
+        /**
+         * Stream donations matching the optional filters (any may be null) to
+         * [consumer] in id order, one row at a time from a forward-only cursor.
+         * Returns the number of rows streamed.
+         * 
+         * @param from
+         * @param to
+         * @param status
+         * @param campaignId
+         * @param consumer
+         * @return
+         */
+        long donationExport(LocalDateTime from, LocalDateTime to, DonationStatus status, Long campaignId,
+                        Consumer<DonationExportRow> consumer);
+
         /**
          * Find and return a donation with matching id
          * 
@@ -280,6 +353,65 @@ public interface DonationDAO {
          */
         void paymentCodeDeleteById(Long id);
 
+        /**
+         * Create a payment code for a bank transfer to a campaign
+         * 
+         * @param code
+         * @param campaign
+         * @param account  null for an anonymous donor
+         * @param amount
+         * @return
+         */
+        DonationPaymentCode paymentCodeCreate(String code, Campaign campaign, Account account, long amount);
+
+        /**
+         * Payment codes among the given ones that are still waiting for their
+         * transfer
+         * 
+         * @param codes
+         * @param createdAfter codes created before this are ignored
+         * @return
+         */
+        List<DonationPaymentCode> paymentCodeFindPending(Collection<String> codes, LocalDateTime createdAfter);
+
+        /**
+         * Count payment codes still waiting for their transfer
+         * 
+         * @param createdAfter codes created before this are ignored
+         * @return
+         */
+        long paymentCodeCountPending(LocalDateTime createdAfter);
+
+        /**
+         * Payment codes created after the given time
+         * 
+         * @param createdAfter
+         * @return
+         */
+        List<DonationPaymentCode> paymentCodeFindCreatedAfter(LocalDateTime createdAfter);
+
+        /**
+         * Delete up to limit unused payment codes created before the given
+         * time, oldest first. Codes a transfer used are kept.
+         * 
+         * @param createdBefore
+         * @param limit
+         * @return number of codes deleted
+         */
+        int paymentCodeDeleteExpired(LocalDateTime createdBefore, int limit);
+
+        /**
+         * Use up a payment code and make the donation it was created for. The
+         * code is claimed with a conditional update in the same transaction
+         * as the donation, so of any number of concurrent callers only one
+         * gets a donation.
+         * 
+         * @param code
+         * @return the created donation, null if the code is unknown, already
+         *         used or the donation was refused
+         */
+        Donation paymentCodeConsume(String code);
+
         /**
          * Get donations made by an account
          * 
@@ -320,6 +452,30 @@ public interface DonationDAO {
          */
         int donationGetUnconfirmed();
 
+        /**
+         * Count donations with a status
+         * 
+         * @param status
+         * @return
+         */
+        long donationCountByStatus(DonationStatus status);
+
+        /**
+         * Count donations made since a time, confirmed or not
+         * 
+         * @param since
+         * @return
+         */
+        long donationCountSince(LocalDateTime since);
+
+        /**
+         * Count campaigns with a status
+         * 
+         * @param status
+         * @return
+         */
+        long campaignCountByStatus(CampaignStatus status);
+
         /**
          * Get the amount donated on day [date]
          * 
@@ -384,6 +540,32 @@ public interface DonationDAO {
          */
         Map<LocalDate, Integer> getDonationChartDataLast30Days();
 
+        /**
+         * Get confirmed donation amounts bucketed by [resolution] for the range
+         * [from, to), optionally for a single campaign (campaignId may be null).
+         * Every bucket in range is present, empty ones hold 0.
+         *
+         * @param from
+         * @param to
+         * @param resolution
+         * @param campaignId
+         * @return
+         */
+        Map<LocalDateTime, Long> getDonationAmountSeries(LocalDateTime from, LocalDateTime to,
+                        ChartResolution resolution, Long campaignId);
+
+        /**
+         * Rebuild the daily donation rollup table from the donation table
+         */
+        void donationRollupRebuild();
+
+        /**
+         * Compute every admin dashboard figure in one go
+         * 
+         * @return
+         */
+        DashboardStats dashboardStatsCompute();
+
         /**
          * Get the amount of anonymous donations
          * 
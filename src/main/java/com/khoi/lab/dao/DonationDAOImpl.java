@@ -3,15 +3,26 @@ package com.khoi.lab.dao;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import com.khoi.lab.entity.Account;
@@ -20,14 +31,27 @@ import com.khoi.lab.entity.Donation;
 import com.khoi.lab.entity.DonationPaymentCode;
 import com.khoi.lab.entity.DonationReceiver;
 import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.ChartResolution;
 import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.enums.TimeMinutes;
 import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.AccountChangedEvent;
+import com.khoi.lab.object.CampaignChangedEvent;
+import com.khoi.lab.object.CampaignDonationCounts;
+import com.khoi.lab.object.DashboardStats;
+import com.khoi.lab.object.DonationCursor;
+import com.khoi.lab.object.DonationExportRow;
+import com.khoi.lab.object.DonationFilter;
+import com.khoi.lab.object.DonationPage;
+import com.khoi.lab.object.DonationStatusChangedEvent;
+import com.khoi.lab.object.LeaderboardEntry;
 import com.khoi.lab.service.CampaignStatusUpdaterService;
-import com.khoi.lab.service.EmailSenderService;
 import com.khoi.lab.service.UserPermissionService;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 
@@ -36,15 +60,38 @@ import jakarta.transaction.Transactional;
  */
 @Repository
 public class DonationDAOImpl implements DonationDAO {
+    private static final Logger log = LoggerFactory.getLogger(DonationDAOImpl.class);
+
+    private static final int MAX_CHART_BUCKETS = 5000;
+    private static final int DONATION_COUNT_CAP = 10000;
+
+    /**
+     * JDBC fetch size of export cursors. MySQL only honours a positive fetch
+     * size when the connection uses useCursorFetch=true, without it the export
+     * streams row by row (fetch size Integer.MIN_VALUE) instead, see
+     * exportFetchSize().
+     */
+    @Value("${donation.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
+    @Value("${spring.datasource.url:}")
+    private String datasourceUrl = "";
+
     private EntityManager em;
-    private final EmailSenderService senderService;
+    private final CampaignStatusUpdaterService campaignStatusUpdater;
     private final UserPermissionService userPermissionService;
-
-    public DonationDAOImpl(EntityManager em, EmailSenderService senderService,
-            UserPermissionService userPermissionService) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The campaign status updater depends on this DAO, so it is injected as a
+     * lazy proxy resolved on first use.
+     */
+    public DonationDAOImpl(EntityManager em, @Lazy CampaignStatusUpdaterService campaignStatusUpdater,
+            UserPermissionService userPermissionService, ApplicationEventPublisher eventPublisher) {
         this.em = em;
-        this.senderService = senderService;
+        this.campaignStatusUpdater = campaignStatusUpdater;
         this.userPermissionService = userPermissionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -59,7 +106,7 @@ public class DonationDAOImpl implements DonationDAO {
             int maxDaysAgo) {
         // Ensure that minAmount and maxAmount are multiples of the interval.
         if (minAmount % amountInterval != 0 || maxAmount % amountInterval != 0) {
-            System.err.println("Error: minAmount and maxAmount must be multiples of amountInterval.");
+            log.warn("[generateRandomDonations] minAmount and maxAmount must be multiples of amountInterval.");
             return new ArrayList<>();
         }
 
@@ -145,12 +192,15 @@ public class DonationDAOImpl implements DonationDAO {
         Account account5 = em.find(Account.class, 7);
         Account account6 = em.find(Account.class, 8);
 
-        (new CampaignStatusUpdaterService(this, senderService)).updateCampaignStatuses();
+        campaignStatusUpdater.updateCampaignStatuses();
 
         // generate random donations
         generateRandomDonations(Arrays.asList(campaign1, campaign2, campaign3),
                 Arrays.asList(account1, account2, account3, account4, account5, account6), 5, 10, 100000, 5000000,
                 10000, 7);
+
+        // backfill daily rollups for donations confirmed before the rollup existed
+        donationRollupRebuild();
     }
 
     @Override
@@ -164,7 +214,7 @@ public class DonationDAOImpl implements DonationDAO {
     @Transactional
     public DonationReceiver donationReceiverSave(DonationReceiver donationReceiver) {
         em.persist(donationReceiver);
-        System.out.println("| [donationReceiverSave] Saved donation receiver: " + donationReceiver);
+        log.debug("[donationReceiverSave] Saved donation receiver: {}", donationReceiver);
         return donationReceiver;
     }
 
@@ -172,7 +222,7 @@ public class DonationDAOImpl implements DonationDAO {
     @Transactional
     public DonationReceiver donationReceiverUpdate(DonationReceiver donationReceiver) {
         donationReceiver = em.merge(donationReceiver);
-        System.out.println("| [donationReceiverUpdate] Updated donation receiver: " + donationReceiver);
+        log.debug("[donationReceiverUpdate] Updated donation receiver: {}", donationReceiver);
         return donationReceiver;
     }
 
@@ -184,10 +234,10 @@ public class DonationDAOImpl implements DonationDAO {
         tq.setParameter("phoneNumber", phoneNumber);
         try {
             DonationReceiver donationReceiver = tq.getSingleResult();
-            System.out.println("| [donationReceiverFindByPhoneNumber] Donation receiver found: " + donationReceiver);
+            log.debug("[donationReceiverFindByPhoneNumber] Donation receiver found: {}", donationReceiver);
             return donationReceiver;
         } catch (NoResultException e) {
-            System.out.println("| [donationReceiverFindByPhoneNumber] Donation receiver not found!");
+            log.debug("[donationReceiverFindByPhoneNumber] Donation receiver not found!");
             return null;
         }
     }
@@ -204,9 +254,9 @@ public class DonationDAOImpl implements DonationDAO {
     public Campaign campaignFindById(Long id) {
         Campaign campaign = em.find(Campaign.class, id);
         if (campaign == null) {
-            System.out.println("| [campaignFindById] Couldn't find campaign with id: " + id);
+            log.debug("[campaignFindById] Couldn't find campaign with id: {}", id);
         } else {
-            System.out.println("| [campaignFindById] Found campaign: " + campaign);
+            log.debug("[campaignFindById] Found campaign: {}", campaign);
         }
         return campaign;
     }
@@ -217,22 +267,21 @@ public class DonationDAOImpl implements DonationDAO {
         LocalDateTime endTimeOld = campaign.getEndTime();
         LocalDateTime endtimeNew = endTimeOld.plusMinutes(minutes);
         campaign.setEndTime(endtimeNew);
-        System.out.println("| [campaignAddTimeMinutes] End time modified from " + endTimeOld + " -> " + endtimeNew);
-        return campaignSave(campaign);
+        log.debug("[campaignAddTimeMinutes] End time modified from {} -> {}", endTimeOld, endtimeNew);
+        return campaignUpdate(campaign);
     }
 
     @Override
     public int campaignGetDonatedAmount(Campaign campaign) {
         int amount = campaign.getDonatedAmount();
-        System.out.println("| [campaignGetDonatedAmount] Total donated amount: " + amount);
+        log.debug("[campaignGetDonatedAmount] Total donated amount: {}", amount);
         return amount;
     }
 
     @Override
     public double campaignGetDonatedPercentage(Campaign campaign) {
         double percentage = campaign.getDonatedPercentage();
-        System.out.println(
-                "| [campaignGetDonatedPercentage] Total donated percentage: " + percentage + "%");
+        log.debug("[campaignGetDonatedPercentage] Total donated percentage: {}%", percentage);
         return percentage;
     }
 
@@ -241,29 +290,55 @@ public class DonationDAOImpl implements DonationDAO {
         List<Donation> donations = excludeConfirmed
                 ? campaign.getDonations().stream().filter(d -> !d.isConfirmed()).collect(Collectors.toList())
                 : campaign.getDonations();
-        System.out.println("| [campaignGetDonations] Found and returned: " + donations.size() + " donations");
+        log.debug("[campaignGetDonations] Found and returned: {} donations", donations.size());
         return donations;
     }
 
     @Override
-    public List<AbstractMap.SimpleEntry<Account, Integer>> campaignGetDonatorsAndDonatedAmount(Campaign campaign) {
-        List<AbstractMap.SimpleEntry<Account, Integer>> list = new ArrayList<>();
-
-        for (Donation donation : campaign.getDonations()) {
-            if (!donation.isConfirmed())
-                continue;
-
-            Account account = donation.getAccount();
-            Integer donatedAmount = donation.getAmount();
+    public List<LeaderboardEntry> campaignLeaderboard(Long campaignId, int limit) {
+        List<LeaderboardEntry> entries = em.createQuery(
+                "SELECT new com.khoi.lab.object.LeaderboardEntry(a.id, a.firstName, a.lastName, SUM(d.amount), COUNT(d), MAX(d.donateTime)) "
+                        + "FROM Donation d LEFT JOIN d.account a "
+                        + "WHERE d.campaign.id = :campaignId AND d.status = :status "
+                        + "GROUP BY a.id, a.firstName, a.lastName "
+                        + "ORDER BY SUM(d.amount) DESC, MAX(d.donateTime) ASC",
+                LeaderboardEntry.class)
+                .setParameter("campaignId", campaignId)
+                .setParameter("status", DonationStatus.CONFIRMED)
+                .setMaxResults(limit)
+                .getResultList();
+        log.debug("[campaignLeaderboard] Returning top {} donors of campaign: {}", entries.size(), campaignId);
+        return entries;
+    }
 
-            list.add(new AbstractMap.SimpleEntry<>(account, donatedAmount));
+    @Override
+    public LeaderboardEntry campaignLeaderboardEntry(Long campaignId, Long accountId) {
+        TypedQuery<LeaderboardEntry> tq = em.createQuery(
+                "SELECT new com.khoi.lab.object.LeaderboardEntry(a.id, a.firstName, a.lastName, SUM(d.amount), COUNT(d), MAX(d.donateTime)) "
+                        + "FROM Donation d LEFT JOIN d.account a "
+                        + "WHERE d.campaign.id = :campaignId AND d.status = :status AND "
+                        + (accountId == null ? "a.id IS NULL " : "a.id = :accountId ")
+                        + "GROUP BY a.id, a.firstName, a.lastName",
+                LeaderboardEntry.class);
+        tq.setParameter("campaignId", campaignId);
+        tq.setParameter("status", DonationStatus.CONFIRMED);
+        if (accountId != null) {
+            tq.setParameter("accountId", accountId);
         }
+        List<LeaderboardEntry> entries = tq.getResultList();
+        return entries.isEmpty() ? null : entries.get(0);
+    }
 
-        System.out.println(
-                "| [campaignGetDonatorsAndDonatedAmount] Returning " + list.size() + " individual donation entries");
-        return list.stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .collect(Collectors.toList());
+    @Override
+    public List<Donation> campaignRecentDonations(Long campaignId, int limit) {
+        return em.createQuery(
+                "SELECT d FROM Donation d LEFT JOIN FETCH d.account WHERE d.campaign.id = :campaignId AND d.status <> :refused "
+                        + "ORDER BY d.donateTime DESC, d.id DESC",
+                Donation.class)
+                .setParameter("campaignId", campaignId)
+                .setParameter("refused", DonationStatus.REFUSED)
+                .setMaxResults(limit)
+                .getResultList();
     }
 
     @Override
@@ -271,7 +346,7 @@ public class DonationDAOImpl implements DonationDAO {
     public Campaign campaignChangeStatus(Campaign campaign, CampaignStatus status) {
         campaign.setStatus(status);
         campaign = campaignUpdate(campaign);
-        System.out.println("| [campaignChangeStatus] Modified campaign status to: " + campaign.getStatus());
+        log.debug("[campaignChangeStatus] Modified campaign status to: {}", campaign.getStatus());
         return campaign;
     }
 
@@ -283,8 +358,8 @@ public class DonationDAOImpl implements DonationDAO {
         tq.setParameter("status", status);
 
         List<Campaign> campaigns = tq.getResultList();
-        System.out.println("| [campaignFindByStatus] Found and returned: " + campaigns.size()
-                + " campaigns with status: " + status.name());
+        log.debug("[campaignFindByStatus] Found and returned: {} campaigns with status: {}",
+                campaigns.size(), status.name());
 
         return campaigns;
     }
@@ -300,11 +375,10 @@ public class DonationDAOImpl implements DonationDAO {
         tq.setParameter("receiver", donationReceiver);
         try {
             Campaign campaign = tq.getSingleResult();
-            System.out.println(
-                    "| [campaignFindByDonationReceiverPhoneNumber] Campaign found: " + campaign);
+            log.debug("[campaignFindByDonationReceiverPhoneNumber] Campaign found: {}", campaign);
             return campaign;
         } catch (NoResultException e) {
-            System.out.println("| [campaignFindByDonationReceiverPhoneNumber] Campaign not found!");
+            log.debug("[campaignFindByDonationReceiverPhoneNumber] Campaign not found!");
             return null;
         }
     }
@@ -313,7 +387,8 @@ public class DonationDAOImpl implements DonationDAO {
     @Transactional
     public Campaign campaignSave(Campaign campaign) {
         em.persist(campaign);
-        System.out.println("| [campaignSave] Saved campaign: " + campaign);
+        log.debug("[campaignSave] Saved campaign: {}", campaign);
+        eventPublisher.publishEvent(new CampaignChangedEvent(campaign.getId()));
         return campaign;
     }
 
@@ -321,7 +396,8 @@ public class DonationDAOImpl implements DonationDAO {
     @Transactional
     public Campaign campaignUpdate(Campaign campaign) {
         campaign = em.merge(campaign);
-        System.out.println("| [campaignUpdate] Updated campaign: " + campaign);
+        log.debug("[campaignUpdate] Updated campaign: {}", campaign);
+        eventPublisher.publishEvent(new CampaignChangedEvent(campaign.getId()));
         return campaign;
     }
 
@@ -330,23 +406,15 @@ public class DonationDAOImpl implements DonationDAO {
         TypedQuery<Campaign> tq = em.createQuery(
                 "SELECT c FROM Campaign c",
                 Campaign.class);
-        List<Campaign> campaigns = tq.getResultList().stream()
-                .map(c -> {
-                    double rawPercentage = c.getDonatedPercentage();
-                    long rounded = Math.round(rawPercentage);
-                    int capped = (int) Math.min(rounded, 100);
-                    c.setDonatedPercentageCapped(capped);
-                    c.setDonatedPercentageUncapped((int) rounded);
-                    return c;
-                }).collect(Collectors.toList());
-        System.out.println("| [campaignList] Found and returned: " + campaigns.size() + " campaigns!");
+        List<Campaign> campaigns = tq.getResultList();
+        log.debug("[campaignList] Found and returned: {} campaigns!", campaigns.size());
         return campaigns;
     }
 
     @Override
     public List<Donation> accountGetDonations(Account account) {
         List<Donation> donations = account.getDonations();
-        System.out.println("| [accountGetDonations] Found and returned: " + donations.size() + " donations");
+        log.debug("[accountGetDonations] Found and returned: {} donations", donations.size());
         return donations;
     }
 
@@ -358,7 +426,7 @@ public class DonationDAOImpl implements DonationDAO {
         // check campaign status
         if (campaign.getStatus() != CampaignStatus.OPEN
                 && campaign.getStatus() != CampaignStatus.COMPLETE) {
-            System.out.println("| [accountDonate] Unable to donate! Campaign status is: " + campaign.getStatus());
+            log.info("[accountDonate] Unable to donate! Campaign status is: {}", campaign.getStatus());
             return null;
         }
 
@@ -369,14 +437,15 @@ public class DonationDAOImpl implements DonationDAO {
 
         // check if admin
         if (!userPermissionService.hasPermission(account, UserPermission.CREATE_DONATIONS)) {
-            System.out.println(
-                    "| [accountDonate] Unable to donate! Account: " + account + " lacks CREATE_DONATIONS permission!");
+            log.info("[accountDonate] Unable to donate! Account: {} lacks CREATE_DONATIONS permission!",
+                    account == null ? "anonymous" : account.getId());
             return null;
         }
 
         // create donation
         Donation donation = new Donation(account, campaign, amount, LocalDateTime.now());
         donationSave(donation);
+        campaignCountersApply(donation, null);
 
         // update campaign & account
         campaign.getDonations().add(donation);
@@ -384,10 +453,15 @@ public class DonationDAOImpl implements DonationDAO {
         if (account != null) {
             account.getDonations().add(donation);
             em.merge(account);
+            accountVersionBump(account);
         }
 
-        System.out.println("| [accountDonate] " + (account == null ? "Anonymous" : account.getFullName()) + " donated "
-                + amount + " to " + campaign);
+        if (log.isDebugEnabled()) {
+            log.debug("[accountDonate] {} donated {} to {}",
+                    account == null ? "Anonymous" : account.getFullName(), amount, campaign);
+        }
+        eventPublisher.publishEvent(new DonationStatusChangedEvent(donation.getId(), campaign.getId(),
+                account == null ? null : account.getId(), null, donation.getStatus()));
 
         return donation;
     }
@@ -395,38 +469,82 @@ public class DonationDAOImpl implements DonationDAO {
     @Override
     @Transactional
     public Donation donationConfirm(Donation donation) {
-        donation.setStatus(DonationStatus.CONFIRMED);
-        donation = donationUpdate(donation);
-        System.out.println("| [donationConfirm] Confirmed donation: " + donation);
-        (new CampaignStatusUpdaterService(this, senderService)).updateCampaignStatuses();
+        donation = donationChangeStatus(donation, DonationStatus.CONFIRMED);
+        log.debug("[donationConfirm] Confirmed donation: {}", donation);
+        campaignStatusUpdater.updateCampaignStatus(donation.getCampaign());
         return donation;
     }
 
     @Override
     @Transactional
     public Donation donationRefuse(Donation donation) {
-        donation.setStatus(DonationStatus.REFUSED);
-        donation = donationUpdate(donation);
-        System.out.println("| [donationRefuse] Refused donation: " + donation);
-        (new CampaignStatusUpdaterService(this, senderService)).updateCampaignStatuses();
+        donation = donationChangeStatus(donation, DonationStatus.REFUSED);
+        log.debug("[donationRefuse] Refused donation: {}", donation);
+        campaignStatusUpdater.updateCampaignStatus(donation.getCampaign());
         return donation;
     }
 
     @Override
     @Transactional
     public Donation donationReset(Donation donation) {
-        donation.setStatus(DonationStatus.PENDING);
-        donation = donationUpdate(donation);
-        System.out.println("| [donationRefuse] Resetted donation: " + donation);
-        (new CampaignStatusUpdaterService(this, senderService)).updateCampaignStatuses();
+        donation = donationChangeStatus(donation, DonationStatus.PENDING);
+        log.debug("[donationRefuse] Resetted donation: {}", donation);
+        campaignStatusUpdater.updateCampaignStatus(donation.getCampaign());
         return donation;
     }
 
+    /**
+     * Bump an account's version in the database so sessions pick up its new
+     * donation, the same way the account DAO does on update
+     *
+     * @param account
+     */
+    private void accountVersionBump(Account account) {
+        em.createQuery("UPDATE Account a SET a.version = a.version + 1 WHERE a.id=:id")
+                .setParameter("id", account.getId())
+                .executeUpdate();
+        List<Long> versions = em.createQuery("SELECT a.version FROM Account a WHERE a.id=:id", Long.class)
+                .setParameter("id", account.getId())
+                .getResultList();
+        if (!versions.isEmpty()) {
+            account.setVersion(versions.get(0));
+            eventPublisher.publishEvent(new AccountChangedEvent(account.getId(), versions.get(0)));
+        }
+    }
+
+    /**
+     * Move a donation to [newStatus] and keep the campaign counters and daily
+     * rollup in step. The old status is read from the locked row rather than
+     * the caller's copy, so two concurrent changes can't both count.
+     *
+     * @param donation
+     * @param newStatus
+     * @return
+     */
+    private Donation donationChangeStatus(Donation donation, DonationStatus newStatus) {
+        Donation managed = em.find(Donation.class, donation.getId(), LockModeType.PESSIMISTIC_WRITE);
+        if (managed == null) {
+            return donation;
+        }
+        DonationStatus oldStatus = managed.getStatus();
+        managed.setStatus(newStatus);
+        managed = donationUpdate(managed);
+        campaignCountersApply(managed, oldStatus);
+        if (oldStatus != DonationStatus.CONFIRMED && newStatus == DonationStatus.CONFIRMED) {
+            donationRollupApply(managed, 1);
+        } else if (oldStatus == DonationStatus.CONFIRMED && newStatus != DonationStatus.CONFIRMED) {
+            donationRollupApply(managed, -1);
+        }
+        eventPublisher.publishEvent(new DonationStatusChangedEvent(managed.getId(), managed.getCampaign().getId(),
+                managed.isAnonymous() ? null : managed.getAccount().getId(), oldStatus, newStatus));
+        return managed;
+    }
+
     @Override
     @Transactional
     public Donation donationSave(Donation donation) {
         em.persist(donation);
-        System.out.println("| [donationSave] Saved donation: " + donation);
+        log.debug("[donationSave] Saved donation: {}", donation);
         return donation;
     }
 
@@ -434,7 +552,7 @@ public class DonationDAOImpl implements DonationDAO {
     @Transactional
     public Donation donationUpdate(Donation donation) {
         donation = em.merge(donation);
-        System.out.println("| [donationUpdate] Updated donation: " + donation);
+        log.debug("[donationUpdate] Updated donation: {}", donation);
         return donation;
     }
 
@@ -449,17 +567,190 @@ public class DonationDAOImpl implements DonationDAO {
             donations = donations.stream().filter(a -> !a.isRefused()).collect(Collectors.toList());
         }
 
-        System.out.println("| [donationList] Found and returned: " + donations.size() + " donations!");
+        log.debug("[donationList] Found and returned: {} donations!", donations.size());
         return donations;
     }
 
+    @Override
+    public DonationPage donationPage(DonationFilter filter, DonationCursor cursor, boolean newer, int pageSize) {
+        // walk the (donateTime, id) index towards the requested side of the cursor
+        String jpql = "SELECT d FROM Donation d JOIN FETCH d.campaign LEFT JOIN FETCH d.account WHERE 1=1"
+                + donationFilterClause(filter, false);
+        if (cursor != null) {
+            jpql += newer
+                    ? " AND (d.donateTime>:cursorTime OR (d.donateTime=:cursorTime AND d.id>:cursorId))"
+                    : " AND (d.donateTime<:cursorTime OR (d.donateTime=:cursorTime AND d.id<:cursorId))";
+        }
+        jpql += newer ? " ORDER BY d.donateTime ASC, d.id ASC" : " ORDER BY d.donateTime DESC, d.id DESC";
+
+        TypedQuery<Donation> tq = em.createQuery(jpql, Donation.class);
+        donationFilterBind(tq, filter, false);
+        if (cursor != null) {
+            tq.setParameter("cursorTime", cursor.getDonateTime());
+            tq.setParameter("cursorId", cursor.getId());
+        }
+        tq.setMaxResults(pageSize + 1);
+        List<Donation> donations = new ArrayList<>(tq.getResultList());
+
+        boolean more = donations.size() > pageSize;
+        if (more) {
+            donations.remove(pageSize);
+        }
+        if (newer) {
+            Collections.reverse(donations);
+        }
+
+        DonationCursor newerCursor = null;
+        DonationCursor olderCursor = null;
+        if (!donations.isEmpty()) {
+            DonationCursor first = DonationCursor.of(donations.get(0));
+            DonationCursor last = DonationCursor.of(donations.get(donations.size() - 1));
+            newerCursor = newer ? (more ? first : null) : (cursor != null ? first : null);
+            olderCursor = newer ? last : (more ? last : null);
+        }
+
+        // count matches up to a cap so the cost doesn't grow with the table
+        Query cq = em.createNativeQuery("SELECT COUNT(*) FROM (SELECT 1 FROM donation d WHERE 1=1"
+                + donationFilterClause(filter, true) + " LIMIT " + (DONATION_COUNT_CAP + 1) + ") t");
+        donationFilterBind(cq, filter, true);
+        long total = ((Number) cq.getSingleResult()).longValue();
+
+        log.debug("[donationPage] Found {} donations for {}, cursor: {}{}",
+                donations.size(), filter, cursor, newer ? " (newer)" : "");
+        return new DonationPage(donations, newerCursor, olderCursor, Math.min(total, DONATION_COUNT_CAP),
+                total > DONATION_COUNT_CAP);
+    }
+
+    /**
+     * Build the WHERE conditions of a donation filter, for JPQL or native SQL
+     *
+     * @param filter
+     * @param nativeSql
+     * @return
+     */
+    private String donationFilterClause(DonationFilter filter, boolean nativeSql) {
+        StringBuilder clause = new StringBuilder();
+        if (filter.getStatus() != null) {
+            clause.append(" AND d.status=:status");
+        }
+        if (filter.getCampaign() != null) {
+            clause.append(nativeSql ? " AND d.campaign_id=:campaignId" : " AND d.campaign.id=:campaignId");
+        }
+        if (filter.isAnonymousOnly()) {
+            clause.append(nativeSql ? " AND d.account_id IS NULL" : " AND d.account IS NULL");
+        } else if (filter.getAccountId() != null) {
+            clause.append(nativeSql ? " AND d.account_id=:accountId" : " AND d.account.id=:accountId");
+        } else if (filter.isNamedOnly()) {
+            clause.append(nativeSql ? " AND d.account_id IS NOT NULL" : " AND d.account IS NOT NULL");
+        }
+        if (filter.getMinAmount() != null) {
+            clause.append(" AND d.amount>=:minAmount");
+        }
+        if (filter.getMaxAmount() != null) {
+            clause.append(" AND d.amount<=:maxAmount");
+        }
+        return clause.toString();
+    }
+
+    /**
+     * Bind the parameters used by {@link #donationFilterClause}
+     *
+     * @param query
+     * @param filter
+     * @param nativeSql
+     */
+    private void donationFilterBind(Query query, DonationFilter filter, boolean nativeSql) {
+        if (filter.getStatus() != null) {
+            query.setParameter("status", nativeSql ? filter.getStatus().name() : filter.getStatus());
+        }
+        if (filter.getCampaign() != null) {
+            query.setParameter("campaignId", filter.getCampaign());
+        }
+        if (!filter.isAnonymousOnly() && filter.getAccountId() != null) {
+            query.setParameter("accountId", filter.getAccountId());
+        }
+        if (filter.getMinAmount() != null) {
+            query.setParameter("minAmount", filter.getMinAmount());
+        }
+        if (filter.getMaxAmount() != null) {
+            query.setParameter("maxAmount", filter.getMaxAmount());
+        }
+    }
+
+    @Override
+    @Transactional
+    public long donationExport(LocalDateTime from, LocalDateTime to, DonationStatus status, Long campaignId,
+            Consumer<DonationExportRow> consumer) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.khoi.lab.object.DonationExportRow(d.id, d.donateTime, d.amount, d.status, "
+                        + "c.id, c.name, a.id, a.firstName, a.lastName) "
+                        + "FROM Donation d JOIN d.campaign c LEFT JOIN d.account a WHERE 1=1");
+        if (from != null) {
+            jpql.append(" AND d.donateTime>=:from");
+        }
+        if (to != null) {
+            jpql.append(" AND d.donateTime<:to");
+        }
+        if (status != null) {
+            jpql.append(" AND d.status=:status");
+        }
+        if (campaignId != null) {
+            jpql.append(" AND c.id=:campaignId");
+        }
+        jpql.append(" ORDER BY d.id");
+
+        TypedQuery<DonationExportRow> tq = em.createQuery(jpql.toString(), DonationExportRow.class);
+        if (from != null) {
+            tq.setParameter("from", from);
+        }
+        if (to != null) {
+            tq.setParameter("to", to);
+        }
+        if (status != null) {
+            tq.setParameter("status", status);
+        }
+        if (campaignId != null) {
+            tq.setParameter("campaignId", campaignId);
+        }
+        tq.setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize(exportFetchSize, datasourceUrl));
+        tq.setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        long count = 0;
+        try (Stream<DonationExportRow> rows = tq.getResultStream()) {
+            for (Iterator<DonationExportRow> it = rows.iterator(); it.hasNext();) {
+                consumer.accept(it.next());
+                count++;
+            }
+        }
+        log.info("[donationExport] Streamed {} donations", count);
+        return count;
+    }
+
+    /**
+     * Fetch size that keeps an export cursor streaming on the given database.
+     * MySQL Connector/J reads the whole result set into memory for a positive
+     * fetch size unless useCursorFetch=true is set, so there it falls back to
+     * Integer.MIN_VALUE, which streams one row at a time.
+     *
+     * @param configured donation.export.fetch-size
+     * @param url        JDBC url of the datasource
+     * @return
+     */
+    static int exportFetchSize(int configured, String url) {
+        if (configured > 0 && url != null && url.startsWith("jdbc:mysql")
+                && !url.contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return configured;
+    }
+
     @Override
     public Donation donationFindById(Long id) {
         Donation donation = em.find(Donation.class, id);
         if (donation == null || donation.isRefused()) {
-            System.out.println("| [donationFindById] Couldn't find donation with id: " + id);
+            log.debug("[donationFindById] Couldn't find donation with id: {}", id);
         } else {
-            System.out.println("| [donationFindById] Found donation: " + donation);
+            log.debug("[donationFindById] Found donation: {}", donation);
         }
         return donation;
     }
@@ -469,7 +760,12 @@ public class DonationDAOImpl implements DonationDAO {
     public void campaignDeleteById(Long id) {
         Campaign campaign = campaignFindById(id);
         em.remove(campaign);
-        System.out.println("| [campaignDeleteById] Deleted campaign with id: " + id);
+        // rollup rows only hold the campaign id, nothing cascades to them
+        em.createQuery("DELETE FROM DonationDailyRollup r WHERE r.campaignId = :campaignId")
+                .setParameter("campaignId", id)
+                .executeUpdate();
+        log.debug("[campaignDeleteById] Deleted campaign with id: {}", id);
+        eventPublisher.publishEvent(new CampaignChangedEvent(id));
     }
 
     @Override
@@ -477,8 +773,7 @@ public class DonationDAOImpl implements DonationDAO {
     public DonationPaymentCode paymentCodeCreate(String code) {
         DonationPaymentCode donationPaymentCode = new DonationPaymentCode(code);
         donationPaymentCode = paymentCodeSave(donationPaymentCode);
-        System.out
-                .println("| [paymentCodeCreate] Created donation payment code with id: " + donationPaymentCode.getId());
+        log.debug("[paymentCodeCreate] Created donation payment code with id: {}", donationPaymentCode.getId());
         return donationPaymentCode;
     }
 
@@ -490,11 +785,10 @@ public class DonationDAOImpl implements DonationDAO {
         tq.setParameter("code", code);
         try {
             DonationPaymentCode donationPaymentCode = tq.getSingleResult();
-            System.out.println(
-                    "| [paymentCodeFindByCode] Code found: " + donationPaymentCode);
+            log.debug("[paymentCodeFindByCode] Code found: {}", donationPaymentCode);
             return donationPaymentCode;
         } catch (NoResultException e) {
-            System.out.println("| [paymentCodeFindByCode] Code not found with code: " + code);
+            log.debug("[paymentCodeFindByCode] Code not found with code: {}", code);
             return null;
         }
     }
@@ -503,9 +797,9 @@ public class DonationDAOImpl implements DonationDAO {
     public DonationPaymentCode paymentCodeFindById(Long id) {
         DonationPaymentCode donationPaymentCode = em.find(DonationPaymentCode.class, id);
         if (donationPaymentCode != null) {
-            System.out.println("| [paymentCodeFindById] Code exists: " + donationPaymentCode);
+            log.debug("[paymentCodeFindById] Code exists: {}", donationPaymentCode);
         } else {
-            System.out.println("| [paymentCodeFindById] Code doesn't exist with id: " + id);
+            log.debug("[paymentCodeFindById] Code doesn't exist with id: {}", id);
         }
         return donationPaymentCode;
     }
@@ -514,7 +808,7 @@ public class DonationDAOImpl implements DonationDAO {
     @Transactional
     public DonationPaymentCode paymentCodeSave(DonationPaymentCode donationPaymentCode) {
         em.persist(donationPaymentCode);
-        System.out.println("| [paymentCodeSave] Saved payment code: " + donationPaymentCode);
+        log.debug("[paymentCodeSave] Saved payment code: {}", donationPaymentCode);
         return donationPaymentCode;
     }
 
@@ -524,11 +818,109 @@ public class DonationDAOImpl implements DonationDAO {
         DonationPaymentCode paymentCode = paymentCodeFindById(id);
         if (paymentCode != null) {
             String code = paymentCode.getCode();
-            System.out.println("| [paymentCodeDeleteById] Deleted payment code: " + code);
+            log.debug("[paymentCodeDeleteById] Deleted payment code: {}", code);
             em.remove(paymentCode);
         } else {
-            System.out.println("| [paymentCodeDeleteById] Payment code doesn't exist with id: " + id);
+            log.debug("[paymentCodeDeleteById] Payment code doesn't exist with id: {}", id);
+        }
+    }
+
+    @Override
+    @Transactional
+    public DonationPaymentCode paymentCodeCreate(String code, Campaign campaign, Account account, long amount) {
+        DonationPaymentCode donationPaymentCode = new DonationPaymentCode(code, campaign.getId(),
+                account == null ? null : account.getId(), amount);
+        donationPaymentCode = paymentCodeSave(donationPaymentCode);
+        log.debug("[paymentCodeCreate] Created payment code {} for campaign {} and amount {}",
+                code, campaign.getId(), amount);
+        return donationPaymentCode;
+    }
+
+    @Override
+    public List<DonationPaymentCode> paymentCodeFindPending(Collection<String> codes, LocalDateTime createdAfter) {
+        if (codes.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery(
+                "SELECT c FROM DonationPaymentCode c WHERE c.code IN :codes AND c.consumeTime IS NULL"
+                        + " AND c.createTime > :createdAfter",
+                DonationPaymentCode.class)
+                .setParameter("codes", codes)
+                .setParameter("createdAfter", createdAfter)
+                .getResultList();
+    }
+
+    @Override
+    public long paymentCodeCountPending(LocalDateTime createdAfter) {
+        return em.createQuery(
+                "SELECT COUNT(c) FROM DonationPaymentCode c WHERE c.consumeTime IS NULL AND c.createTime > :createdAfter",
+                Long.class)
+                .setParameter("createdAfter", createdAfter)
+                .getSingleResult();
+    }
+
+    @Override
+    public List<DonationPaymentCode> paymentCodeFindCreatedAfter(LocalDateTime createdAfter) {
+        return em.createQuery("SELECT c FROM DonationPaymentCode c WHERE c.createTime > :createdAfter",
+                DonationPaymentCode.class)
+                .setParameter("createdAfter", createdAfter)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int paymentCodeDeleteExpired(LocalDateTime createdBefore, int limit) {
+        // codes from before createTime existed never expire otherwise, used
+        // codes are kept as the record of their donation
+        List<Long> ids = em.createQuery(
+                "SELECT c.id FROM DonationPaymentCode c WHERE c.consumeTime IS NULL"
+                        + " AND (c.createTime < :createdBefore OR c.createTime IS NULL) ORDER BY c.id",
+                Long.class)
+                .setParameter("createdBefore", createdBefore)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
         }
+        int deleted = em.createQuery("DELETE FROM DonationPaymentCode c WHERE c.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        log.info("[paymentCodeDeleteExpired] Deleted {} expired payment codes", deleted);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public Donation paymentCodeConsume(String code) {
+        // only one of any concurrent consumers sees its update hit the row
+        int claimed = em.createQuery(
+                "UPDATE DonationPaymentCode c SET c.consumeTime = :now WHERE c.code = :code AND c.consumeTime IS NULL")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("code", code)
+                .executeUpdate();
+        if (claimed != 1) {
+            log.info("[paymentCodeConsume] Payment code unknown or already used: {}", code);
+            return null;
+        }
+
+        DonationPaymentCode paymentCode = paymentCodeFindByCode(code);
+        em.refresh(paymentCode);
+        Campaign campaign = paymentCode.getCampaignId() == null ? null
+                : em.find(Campaign.class, paymentCode.getCampaignId());
+        Account account = paymentCode.getAccountId() == null ? null
+                : em.find(Account.class, paymentCode.getAccountId());
+        Donation donation = campaign == null ? null
+                : accountDonate(campaign, account, Math.toIntExact(paymentCode.getAmount()));
+        if (donation == null) {
+            // give the claim back, the donation wasn't made
+            paymentCode.setConsumeTime(null);
+            log.info("[paymentCodeConsume] No donation made for payment code: {}", code);
+            return null;
+        }
+
+        paymentCode.setDonationId(donation.getId());
+        log.debug("[paymentCodeConsume] Consumed payment code {} for donation {}", code, donation.getId());
+        return donation;
     }
 
     @Override
@@ -582,29 +974,37 @@ public class DonationDAOImpl implements DonationDAO {
         return donationList(false).stream().filter(d -> !d.isConfirmed()).toList().size();
     }
 
+    @Override
+    public long donationCountByStatus(DonationStatus status) {
+        return em.createQuery("SELECT COUNT(d) FROM Donation d WHERE d.status=:status", Long.class)
+                .setParameter("status", status)
+                .getSingleResult();
+    }
+
+    @Override
+    public long donationCountSince(LocalDateTime since) {
+        return em.createQuery("SELECT COUNT(d) FROM Donation d WHERE d.donateTime>=:since", Long.class)
+                .setParameter("since", since)
+                .getSingleResult();
+    }
+
+    @Override
+    public long campaignCountByStatus(CampaignStatus status) {
+        return em.createQuery("SELECT COUNT(c) FROM Campaign c WHERE c.status=:status", Long.class)
+                .setParameter("status", status)
+                .getSingleResult();
+    }
+
     @Override
     public int donationGetAmountOnDay(LocalDate date) {
-        int total = 0;
-        for (Donation donation : donationList(false)) {
-            if (donation.getDonateTime().toLocalDate().equals(date)
-                    && donation.isConfirmed()) {
-                total += donation.getAmount();
-            }
-        }
-        return total;
+        return donationGetAmountOnDay(date, null);
     }
 
     @Override
     public int donationGetAmountOnDay(LocalDate date, Long campaignId) {
-        int total = 0;
-        for (Donation donation : donationList(false).stream()
-                .filter(d -> d.getCampaign().getId().equals(campaignId)).toList()) {
-            if (donation.getDonateTime().toLocalDate().equals(date)
-                    && donation.isConfirmed()) {
-                total += donation.getAmount();
-            }
-        }
-        return total;
+        Map<LocalDateTime, Long> series = getDonationAmountSeries(date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay(), ChartResolution.DAY, campaignId);
+        return series.values().stream().mapToInt(Long::intValue).sum();
     }
 
     @Override
@@ -619,22 +1019,15 @@ public class DonationDAOImpl implements DonationDAO {
 
     @Override
     public List<Integer> getDonationAmountsLastXDays(int days) {
-        List<Integer> amounts = new ArrayList<>();
-        List<LocalDate> dates = getLastXDays(days);
-        for (LocalDate date : dates) {
-            amounts.add(donationGetAmountOnDay(date));
-        }
-        return amounts;
+        return getDonationAmountsLastXDays(days, null);
     };
 
     @Override
     public List<Integer> getDonationAmountsLastXDays(int days, Long campaignId) {
-        List<Integer> amounts = new ArrayList<>();
-        List<LocalDate> dates = getLastXDays(days);
-        for (LocalDate date : dates) {
-            amounts.add(donationGetAmountOnDay(date, campaignId));
-        }
-        return amounts;
+        LocalDate today = LocalDate.now();
+        Map<LocalDateTime, Long> series = getDonationAmountSeries(today.minusDays(days - 1).atStartOfDay(),
+                today.plusDays(1).atStartOfDay(), ChartResolution.DAY, campaignId);
+        return series.values().stream().map(Long::intValue).collect(Collectors.toList());
     };
 
     @Override
@@ -649,14 +1042,279 @@ public class DonationDAOImpl implements DonationDAO {
 
     @Override
     public Map<LocalDate, Integer> getDonationChartDataLast30Days() {
+        LocalDate today = LocalDate.now();
+        Map<LocalDateTime, Long> series = getDonationAmountSeries(today.minusDays(29).atStartOfDay(),
+                today.plusDays(1).atStartOfDay(), ChartResolution.DAY, null);
         Map<LocalDate, Integer> data = new LinkedHashMap<>();
-        List<LocalDate> dates = getLast30Days();
-        for (LocalDate date : dates) {
-            data.put(date, donationGetAmountOnDay(date));
-        }
+        series.forEach((bucket, amount) -> data.put(bucket.toLocalDate(), amount.intValue()));
         return data;
     }
 
+    @Override
+    public Map<LocalDateTime, Long> getDonationAmountSeries(LocalDateTime from, LocalDateTime to,
+            ChartResolution resolution, Long campaignId) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("invalid chart range: " + from + " -> " + to);
+        }
+
+        // every bucket of the range, so empty hours/days/months still show up as 0
+        Map<LocalDateTime, Long> series = new LinkedHashMap<>();
+        LocalDateTime bucket = resolution.truncate(from);
+        while (bucket.isBefore(to)) {
+            if (series.size() >= MAX_CHART_BUCKETS) {
+                throw new IllegalArgumentException("chart range too large for resolution: " + resolution);
+            }
+            series.put(bucket, 0L);
+            bucket = resolution.next(bucket);
+        }
+
+        List<Object[]> rows;
+        if (resolution == ChartResolution.HOUR) {
+            // the rollup is daily, hours are summed from the donations of the range only
+            TypedQuery<Object[]> tq = em.createQuery(
+                    "SELECT d.donateTime, d.amount FROM Donation d WHERE d.status=:status"
+                            + " AND d.donateTime>=:from AND d.donateTime<:to"
+                            + (campaignId != null ? " AND d.campaign.id=:campaignId" : ""),
+                    Object[].class);
+            tq.setParameter("status", DonationStatus.CONFIRMED);
+            tq.setParameter("from", resolution.truncate(from));
+            tq.setParameter("to", bucket);
+            if (campaignId != null) {
+                tq.setParameter("campaignId", campaignId);
+            }
+            rows = tq.getResultList();
+        } else {
+            TypedQuery<Object[]> tq = em.createQuery(
+                    "SELECT r.day, SUM(r.confirmedAmount) FROM DonationDailyRollup r"
+                            + " WHERE r.day>=:from AND r.day<:to"
+                            + (campaignId != null ? " AND r.campaignId=:campaignId" : "")
+                            + " GROUP BY r.day",
+                    Object[].class);
+            tq.setParameter("from", resolution.truncate(from).toLocalDate());
+            tq.setParameter("to", bucket.toLocalDate());
+            if (campaignId != null) {
+                tq.setParameter("campaignId", campaignId);
+            }
+            rows = tq.getResultList();
+        }
+
+        for (Object[] row : rows) {
+            LocalDateTime time = row[0] instanceof LocalDate day ? day.atStartOfDay() : (LocalDateTime) row[0];
+            long amount = ((Number) row[1]).longValue();
+            series.merge(resolution.truncate(time), amount, Long::sum);
+        }
+
+        log.debug("[getDonationAmountSeries] Returning {} {} buckets from {} rows",
+                series.size(), resolution.name(), rows.size());
+        return series;
+    }
+
+    @Override
+    @Transactional
+    public void donationRollupRebuild() {
+        em.createQuery("DELETE FROM DonationDailyRollup").executeUpdate();
+        int rows = em.createNativeQuery(
+                "INSERT INTO donation_daily_rollup (rollup_day, campaign_id, confirmed_amount, confirmed_count, anonymous_count)"
+                        + " SELECT DATE(d.donate_time), d.campaign_id, SUM(d.amount), COUNT(*),"
+                        + " SUM(CASE WHEN d.account_id IS NULL THEN 1 ELSE 0 END)"
+                        + " FROM donation d WHERE d.status = 'CONFIRMED'"
+                        + " GROUP BY DATE(d.donate_time), d.campaign_id")
+                .executeUpdate();
+        log.info("[donationRollupRebuild] Rebuilt {} daily rollup rows", rows);
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) a confirmed donation from its daily
+     * rollup row, creating the row on first use. A single upsert, so two
+     * transactions confirming the first donation of a day can't both insert
+     * the row.
+     *
+     * @param donation
+     * @param sign
+     */
+    private void donationRollupApply(Donation donation, int sign) {
+        LocalDate day = donation.getDonateTime().toLocalDate();
+        Long campaignId = donation.getCampaign().getId();
+
+        em.createNativeQuery(
+                "INSERT INTO donation_daily_rollup (rollup_day, campaign_id, confirmed_amount, confirmed_count, anonymous_count)"
+                        + " VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE"
+                        + " confirmed_amount = confirmed_amount + VALUES(confirmed_amount),"
+                        + " confirmed_count = confirmed_count + VALUES(confirmed_count),"
+                        + " anonymous_count = anonymous_count + VALUES(anonymous_count)")
+                .setParameter(1, day)
+                .setParameter(2, campaignId)
+                .setParameter(3, (long) donation.getAmount() * sign)
+                .setParameter(4, sign)
+                .setParameter(5, donation.isAnonymous() ? sign : 0)
+                .executeUpdate();
+        log.debug("[donationRollupApply] Applied {} x {} to rollup of campaign {} on {}", sign,
+                donation.getAmount(), campaignId, day);
+    }
+
+    @Override
+    public DashboardStats dashboardStatsCompute() {
+        LocalDateTime now = LocalDateTime.now();
+
+        // one pass over the donation table for every donation figure
+        TypedQuery<Object[]> tq = em.createQuery(
+                "SELECT "
+                        + "SUM(CASE WHEN d.status=:confirmed AND d.donateTime>=:weekFrom THEN d.amount ELSE 0 END), "
+                        + "SUM(CASE WHEN d.status=:confirmed AND d.donateTime>=:recentFrom THEN d.amount ELSE 0 END), "
+                        + "SUM(CASE WHEN d.status=:pending THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN d.status=:confirmed AND d.account IS NULL THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN d.status=:confirmed AND d.account IS NOT NULL THEN 1 ELSE 0 END) "
+                        + "FROM Donation d",
+                Object[].class);
+        tq.setParameter("confirmed", DonationStatus.CONFIRMED);
+        tq.setParameter("pending", DonationStatus.PENDING);
+        tq.setParameter("weekFrom", now.minusMinutes(TimeMinutes.WEEK.getMinutes()));
+        tq.setParameter("recentFrom", now.minusMinutes(TimeMinutes.DAY.getMinutes() * 3));
+        Object[] row = tq.getSingleResult();
+
+        // campaign status distribution
+        TypedQuery<Object[]> cq = em.createQuery(
+                "SELECT c.status, COUNT(c) FROM Campaign c GROUP BY c.status", Object[].class);
+        int campaignsCount = 0;
+        int campaignsCompletedCount = 0;
+        for (Object[] statusRow : cq.getResultList()) {
+            int count = ((Number) statusRow[1]).intValue();
+            campaignsCount += count;
+            if (statusRow[0] == CampaignStatus.COMPLETE || statusRow[0] == CampaignStatus.CLOSED) {
+                campaignsCompletedCount += count;
+            }
+        }
+        int campaignCompletedPercentage = campaignsCount == 0
+                ? 0
+                : (int) (((double) campaignsCompletedCount / campaignsCount) * 100);
+
+        // last 30 days chart from the rollup table
+        LocalDate today = now.toLocalDate();
+        Map<LocalDateTime, Long> series = getDonationAmountSeries(today.minusDays(29).atStartOfDay(),
+                today.plusDays(1).atStartOfDay(), ChartResolution.DAY, null);
+        List<String> dateLabels = new ArrayList<>();
+        List<Integer> donationAmounts = new ArrayList<>();
+        series.forEach((bucket, amount) -> {
+            dateLabels.add(bucket.toLocalDate().toString());
+            donationAmounts.add(amount.intValue());
+        });
+
+        DashboardStats stats = new DashboardStats(
+                sumToInt(row[0]),
+                sumToInt(row[1]),
+                campaignCompletedPercentage,
+                sumToInt(row[2]),
+                dateLabels,
+                donationAmounts,
+                sumToInt(row[3]),
+                sumToInt(row[4]),
+                now);
+        log.debug("[dashboardStatsCompute] Computed: {}", stats);
+        return stats;
+    }
+
+    /**
+     * SUM() over an empty table yields null
+     *
+     * @param sum
+     * @return
+     */
+    private static int sumToInt(Object sum) {
+        return sum == null ? 0 : ((Number) sum).intValue();
+    }
+
+    @Override
+    @Transactional
+    public void campaignCountersRebuild() {
+        // lock every campaign so no donation changes a counter mid rebuild
+        TypedQuery<Campaign> cq = em.createQuery("SELECT c FROM Campaign c", Campaign.class);
+        cq.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        List<Campaign> campaigns = cq.getResultList();
+
+        TypedQuery<Object[]> tq = em.createQuery(
+                "SELECT d.campaign.id, "
+                        + "SUM(CASE WHEN d.status=:confirmed THEN d.amount ELSE 0 END), "
+                        + "SUM(CASE WHEN d.status=:confirmed THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN d.status=:pending THEN 1 ELSE 0 END), "
+                        + "COUNT(DISTINCT CASE WHEN d.status=:confirmed THEN a.id END) "
+                        + "FROM Donation d LEFT JOIN d.account a GROUP BY d.campaign.id",
+                Object[].class);
+        tq.setParameter("confirmed", DonationStatus.CONFIRMED);
+        tq.setParameter("pending", DonationStatus.PENDING);
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (Object[] row : tq.getResultList()) {
+            rows.put((Long) row[0], row);
+        }
+
+        for (Campaign campaign : campaigns) {
+            Object[] row = rows.get(campaign.getId());
+            if (row == null) {
+                campaign.setDonationCounters(0, 0, 0, 0);
+            } else {
+                campaign.setDonationCounters(
+                        row[1] == null ? 0 : ((Number) row[1]).longValue(),
+                        sumToInt(row[2]),
+                        sumToInt(row[3]),
+                        sumToInt(row[4]));
+            }
+        }
+        log.info("[campaignCountersRebuild] Rebuilt counters of {} campaigns", campaigns.size());
+    }
+
+    @Override
+    public CampaignDonationCounts campaignDonationCounts(Long campaignId) {
+        TypedQuery<Object[]> tq = em.createQuery(
+                "SELECT d.status, COUNT(d), SUM(CASE WHEN d.account IS NULL THEN 1 ELSE 0 END) "
+                        + "FROM Donation d WHERE d.campaign.id=:campaignId GROUP BY d.status",
+                Object[].class);
+        tq.setParameter("campaignId", campaignId);
+        CampaignDonationCounts counts = new CampaignDonationCounts();
+        for (Object[] row : tq.getResultList()) {
+            counts.add((DonationStatus) row[0], ((Number) row[1]).longValue(),
+                    row[2] == null ? 0 : ((Number) row[2]).longValue());
+        }
+        log.debug("[campaignDonationCounts] Counted donations of campaign {}: {}", campaignId, counts);
+        return counts;
+    }
+
+    /**
+     * Move a donation between statuses in its campaign's counters. The campaign
+     * row is reloaded under a write lock so concurrent changes are serialized.
+     *
+     * @param donation
+     * @param oldStatus
+     */
+    private void campaignCountersApply(Donation donation, DonationStatus oldStatus) {
+        DonationStatus newStatus = donation.getStatus();
+        if (oldStatus == newStatus) {
+            return;
+        }
+        // flush first so the refresh doesn't drop pending changes to the campaign
+        Campaign campaign = donation.getCampaign();
+        em.flush();
+        em.refresh(campaign, LockModeType.PESSIMISTIC_WRITE);
+        campaign.applyDonationStatusChange(donation.getAmount(), oldStatus, newStatus);
+
+        // a registered donor counts once, from their first confirmed donation
+        boolean enters = newStatus == DonationStatus.CONFIRMED;
+        boolean leaves = oldStatus == DonationStatus.CONFIRMED;
+        if (donation.getAccount() != null && (enters || leaves)) {
+            TypedQuery<Long> tq = em.createQuery(
+                    "SELECT COUNT(d) FROM Donation d WHERE d.campaign.id=:campaignId AND d.account.id=:accountId "
+                            + "AND d.status=:status AND d.id<>:donationId",
+                    Long.class);
+            tq.setParameter("campaignId", campaign.getId());
+            tq.setParameter("accountId", donation.getAccount().getId());
+            tq.setParameter("status", DonationStatus.CONFIRMED);
+            tq.setParameter("donationId", donation.getId());
+            if (tq.getSingleResult() == 0) {
+                campaign.adjustDonorCount(enters ? 1 : -1);
+            }
+        }
+        log.debug("[campaignCountersApply] {} {} -> {}, confirmed amount: {}",
+                campaign, oldStatus, newStatus, campaign.getConfirmedAmount());
+    }
+
     @Override
     public int donationGetAnonymous() {
         return donationList(false).stream().filter(d -> d.isAnonymous() && d.isConfirmed()).toList().size();
@@ -0,0 +1,80 @@
+package com.khoi.lab.dao;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import com.khoi.lab.entity.EmailOutbox;
+
+/**
+ * Data Access Object for the email outbox
+ */
+public interface EmailOutboxDAO {
+        /**
+         * Queue an email, joins the caller's transaction if there is one
+         *
+         * @param recipient
+         * @param subject
+         * @param body
+         * @return
+         */
+        EmailOutbox emailOutboxEnqueue(String recipient, String subject, String body);
+
+        /**
+         * Claim up to limit due emails for sending. Rows locked by another
+         * dispatcher are skipped.
+         *
+         * @param limit
+         * @return the claimed emails, already marked SENDING
+         */
+        List<EmailOutbox> emailOutboxClaim(int limit);
+
+        /**
+         * Mark a claimed email as sent
+         *
+         * @param id
+         */
+        void emailOutboxMarkSent(Long id);
+
+        /**
+         * Record a failed attempt on a claimed email
+         *
+         * @param id
+         * @param error
+         * @param nextAttemptAt when to retry, null to give up
+         */
+        void emailOutboxMarkFailed(Long id, String error, LocalDateTime nextAttemptAt);
+
+        /**
+         * Put claimed emails back in the queue without counting the attempt
+         *
+         * @param ids
+         * @return number of emails released
+         */
+        int emailOutboxRelease(Collection<Long> ids);
+
+        /**
+         * Extend the claims of emails still being sent
+         *
+         * @param ids
+         * @param now the new claim time
+         * @return number of claims renewed
+         */
+        int emailOutboxRenew(Collection<Long> ids, LocalDateTime now);
+
+        /**
+         * Put back emails whose claim is older than claimedBefore, left over by
+         * a worker that died mid-send
+         *
+         * @param claimedBefore
+         * @return number of emails released
+         */
+        int emailOutboxReleaseStale(LocalDateTime claimedBefore);
+
+        /**
+         * Number of emails waiting to be sent
+         *
+         * @return
+         */
+        long emailOutboxCountPending();
+}
@@ -0,0 +1,128 @@
+package com.khoi.lab.dao;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import com.khoi.lab.entity.EmailOutbox;
+import com.khoi.lab.enums.EmailOutboxStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * DAO for the email outbox.
+ * Emails move PENDING -> SENDING -> SENT (or FAILED). A claim is a lease
+ * stamped in claimed_at: the dispatcher holding it keeps renewing it while
+ * the email is in flight, and claims left unrenewed past the lease go back to
+ * PENDING.
+ */
+@Repository
+public class EmailOutboxDAOImpl implements EmailOutboxDAO {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDAOImpl.class);
+
+    private EntityManager em;
+
+    public EmailOutboxDAOImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    @Transactional
+    public EmailOutbox emailOutboxEnqueue(String recipient, String subject, String body) {
+        EmailOutbox email = new EmailOutbox(recipient, subject, body);
+        em.persist(email);
+        log.debug("[emailOutboxEnqueue] Queued email to: {}", recipient);
+        return email;
+    }
+
+    @Override
+    @Transactional
+    public List<EmailOutbox> emailOutboxClaim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> emails = em.unwrap(Session.class).createSelectionQuery(
+                "SELECT e FROM EmailOutbox e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id",
+                EmailOutbox.class)
+                .setParameter("status", EmailOutboxStatus.PENDING)
+                .setParameter("now", now)
+                .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+                .setMaxResults(limit)
+                .getResultList();
+        for (EmailOutbox email : emails) {
+            email.claim(now);
+        }
+        return emails;
+    }
+
+    @Override
+    @Transactional
+    public void emailOutboxMarkSent(Long id) {
+        EmailOutbox email = em.find(EmailOutbox.class, id);
+        if (email != null) {
+            email.sent(LocalDateTime.now());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void emailOutboxMarkFailed(Long id, String error, LocalDateTime nextAttemptAt) {
+        EmailOutbox email = em.find(EmailOutbox.class, id);
+        if (email != null) {
+            email.failed(error, nextAttemptAt);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int emailOutboxRelease(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.createQuery(
+                "UPDATE EmailOutbox e SET e.status = :pending, e.claimedAt = NULL, e.attempts = e.attempts - 1 WHERE e.status = :sending AND e.id IN :ids")
+                .setParameter("pending", EmailOutboxStatus.PENDING)
+                .setParameter("sending", EmailOutboxStatus.SENDING)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int emailOutboxRenew(Collection<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int renewed = em.createQuery(
+                "UPDATE EmailOutbox e SET e.claimedAt = :now WHERE e.status = :sending AND e.id IN :ids")
+                .setParameter("now", now)
+                .setParameter("sending", EmailOutboxStatus.SENDING)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        log.debug("[emailOutboxRenew] Renewed {} of {} claims", renewed, ids.size());
+        return renewed;
+    }
+
+    @Override
+    @Transactional
+    public int emailOutboxReleaseStale(LocalDateTime claimedBefore) {
+        return em.createQuery(
+                "UPDATE EmailOutbox e SET e.status = :pending, e.claimedAt = NULL WHERE e.status = :sending AND e.claimedAt < :claimedBefore")
+                .setParameter("pending", EmailOutboxStatus.PENDING)
+                .setParameter("sending", EmailOutboxStatus.SENDING)
+                .setParameter("claimedBefore", claimedBefore)
+                .executeUpdate();
+    }
+
+    @Override
+    public long emailOutboxCountPending() {
+        return em.createQuery("SELECT COUNT(e) FROM EmailOutbox e WHERE e.status = :status", Long.class)
+                .setParameter("status", EmailOutboxStatus.PENDING)
+                .getSingleResult();
+    }
+}
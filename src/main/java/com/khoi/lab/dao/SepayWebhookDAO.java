@@ -0,0 +1,56 @@
+package com.khoi.lab.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.khoi.lab.entity.SepayWebhookEvent;
+import com.khoi.lab.enums.SepayWebhookStatus;
+
+/**
+ * Data Access Object for the Sepay webhook inbox
+ */
+public interface SepayWebhookDAO {
+        /**
+         * Store a webhook delivery unless its transaction is already in the
+         * inbox
+         *
+         * @param event
+         * @return false for a duplicate delivery
+         */
+        boolean sepayWebhookReceive(SepayWebhookEvent event);
+
+        /**
+         * Claim up to limit pending events, oldest first. Rows locked by
+         * another worker are skipped.
+         *
+         * @param limit
+         * @return the claimed events, already marked PROCESSING
+         */
+        List<SepayWebhookEvent> sepayWebhookClaim(int limit);
+
+        /**
+         * Record the outcome of a claimed event
+         *
+         * @param id
+         * @param status
+         * @param donationId
+         * @param error
+         */
+        void sepayWebhookMarkProcessed(Long id, SepayWebhookStatus status, Long donationId, String error);
+
+        /**
+         * Put back events whose claim is older than claimedBefore, left over by
+         * a worker that died mid-process
+         *
+         * @param claimedBefore
+         * @return number of events released
+         */
+        int sepayWebhookReleaseStale(LocalDateTime claimedBefore);
+
+        /**
+         * Number of events waiting to be processed
+         *
+         * @return
+         */
+        long sepayWebhookCountPending();
+}
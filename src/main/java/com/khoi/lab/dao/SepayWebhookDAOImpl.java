@@ -0,0 +1,102 @@
+package com.khoi.lab.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import com.khoi.lab.entity.SepayWebhookEvent;
+import com.khoi.lab.enums.SepayWebhookStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * DAO for the Sepay webhook inbox.
+ * Deliveries are stored once per bank transaction id, then claimed by the
+ * worker (PENDING -> PROCESSING) and settled as MATCHED, IGNORED, UNMATCHED
+ * or FAILED. Claims of a worker that died mid-batch go back to PENDING.
+ */
+@Repository
+public class SepayWebhookDAOImpl implements SepayWebhookDAO {
+    private static final Logger log = LoggerFactory.getLogger(SepayWebhookDAOImpl.class);
+
+    private EntityManager em;
+
+    public SepayWebhookDAOImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    @Transactional
+    public boolean sepayWebhookReceive(SepayWebhookEvent event) {
+        // redeliveries are common, skip them without a failed insert
+        if (em.find(SepayWebhookEvent.class, event.getId()) != null) {
+            log.debug("[sepayWebhookReceive] Duplicate delivery of transaction: {}", event.getId());
+            return false;
+        }
+        // INSERT IGNORE settles two deliveries of the same transaction racing past the check above
+        int rows = em.createNativeQuery(
+                "INSERT IGNORE INTO sepay_webhook_inbox (id, account_number, amount_in, content, payload, status,"
+                        + " attempts, received_at) VALUES (?, ?, ?, ?, ?, ?, 0, ?)")
+                .setParameter(1, event.getId())
+                .setParameter(2, event.getAccountNumber())
+                .setParameter(3, event.getAmountIn())
+                .setParameter(4, event.getContent())
+                .setParameter(5, event.getPayload())
+                .setParameter(6, event.getStatus().name())
+                .setParameter(7, event.getReceivedAt())
+                .executeUpdate();
+        log.debug("[sepayWebhookReceive] {} transaction: {}", rows == 1 ? "Stored" : "Duplicate delivery of",
+                event.getId());
+        return rows == 1;
+    }
+
+    @Override
+    @Transactional
+    public List<SepayWebhookEvent> sepayWebhookClaim(int limit) {
+        List<SepayWebhookEvent> events = em.unwrap(Session.class).createSelectionQuery(
+                "SELECT e FROM SepayWebhookEvent e WHERE e.status = :status ORDER BY e.receivedAt, e.id",
+                SepayWebhookEvent.class)
+                .setParameter("status", SepayWebhookStatus.PENDING)
+                .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+                .setMaxResults(limit)
+                .getResultList();
+        LocalDateTime now = LocalDateTime.now();
+        for (SepayWebhookEvent event : events) {
+            event.claim(now);
+        }
+        return events;
+    }
+
+    @Override
+    @Transactional
+    public void sepayWebhookMarkProcessed(Long id, SepayWebhookStatus status, Long donationId, String error) {
+        SepayWebhookEvent event = em.find(SepayWebhookEvent.class, id);
+        if (event != null) {
+            event.processed(status, donationId, error, LocalDateTime.now());
+        }
+    }
+
+    @Override
+    @Transactional
+    public int sepayWebhookReleaseStale(LocalDateTime claimedBefore) {
+        return em.createQuery(
+                "UPDATE SepayWebhookEvent e SET e.status = :pending, e.claimedAt = NULL WHERE e.status = :processing AND e.claimedAt < :claimedBefore")
+                .setParameter("pending", SepayWebhookStatus.PENDING)
+                .setParameter("processing", SepayWebhookStatus.PROCESSING)
+                .setParameter("claimedBefore", claimedBefore)
+                .executeUpdate();
+    }
+
+    @Override
+    public long sepayWebhookCountPending() {
+        return em.createQuery("SELECT COUNT(e) FROM SepayWebhookEvent e WHERE e.status = :status", Long.class)
+                .setParameter("status", SepayWebhookStatus.PENDING)
+                .getSingleResult();
+    }
+}
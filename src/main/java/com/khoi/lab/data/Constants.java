@@ -9,4 +9,6 @@ public class Constants {
     public static String BANK_ACCOUNT_NUMBER = "0793300359";
     public static String BANK_NAME = "MB";
     public static String BANK_FULL_NAME = "NGAN HANG QUAN DOI";
+    public static String PAYMENT_DESCRIPTION_PREFIX = "QUYEN GOP ";
+    public static int PAYMENT_CODE_LENGTH = 8;
 }
@@ -9,6 +9,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * User Account Entity
@@ -16,6 +18,8 @@ import java.util.stream.Collectors;
 @Entity
 @Table(name = "account")
 public class Account {
+    private static final Logger log = LoggerFactory.getLogger(Account.class);
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -47,6 +51,14 @@ public class Account {
     @Column(name = "is_disabled")
     private boolean isDisabled;
 
+    /**
+     * Bumped in the database by the DAO on every update, sessions reload
+     * their principal when it changes. Never written back from the entity so
+     * a stale copy can't roll it back.
+     */
+    @Column(name = "version", updatable = false)
+    private long version;
+
     /**
      * Blog post comments made by this account
      */
@@ -141,12 +153,36 @@ public class Account {
         this.phoneNumber = phoneNumber;
     }
 
+    /**
+     * The password as stored, hashed by the configured password hasher
+     *
+     * @return
+     */
     public String getPassword() {
-        return CryptographyService.decrypt(password);
+        return password;
     }
 
     public void setPassword(String password) {
-        this.password = CryptographyService.encrypt(password);
+        this.password = password == null ? null : CryptographyService.getPasswordHasher().hash(password);
+    }
+
+    /**
+     * Check a password against this account's
+     *
+     * @param password
+     * @return
+     */
+    public boolean passwordMatches(String password) {
+        return CryptographyService.getPasswordHasher().matches(password, this.password);
+    }
+
+    /**
+     * Whether the account has a password, OAuth accounts don't
+     *
+     * @return
+     */
+    public boolean hasPassword() {
+        return !passwordMatches("");
     }
 
     // New helper method to check if the account has a specific permission
@@ -154,6 +190,19 @@ public class Account {
         return this.role != null && this.role.getPermissions().contains(permission);
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set from the database after the DAO bumped it
+     *
+     * @param version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public boolean isDisabled() {
         return isDisabled;
     }
@@ -308,7 +357,7 @@ public class Account {
         AccountCampaignFollower acf = acfOptional.isPresent() ? acfOptional.get() : null;
 
         if (acf == null) {
-            System.out.println("| [Account::toggleCampaignNotification] Account does not follow campaign id: " + id);
+            log.debug("[Account::toggleCampaignNotification] Account does not follow campaign id: {}", id);
             return false;
         }
 
@@ -14,13 +14,16 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "blog_post")
+@Table(name = "blog_post", indexes = {
+        @Index(name = "idx_blog_post_date_id", columnList = "date, id"),
+        @Index(name = "idx_blog_post_comment_count_id", columnList = "comment_count, id") })
 public class BlogPost {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -47,6 +50,15 @@ public class BlogPost {
     @OneToMany(mappedBy = "blog", cascade = { CascadeType.ALL })
     private List<BlogPostComment> comments;
 
+    /**
+     * Denormalized number of comments, kept in step by the DAO so the blog
+     * listing can sort by popularity without loading any comments. Only
+     * changed through UPDATE statements, so merging a stale post can't undo
+     * a concurrent comment.
+     */
+    @Column(name = "comment_count", updatable = false)
+    private int commentCount;
+
     // Removed the 'timeAgo' field as it's now a calculated getter
 
     public BlogPost() {
@@ -129,6 +141,20 @@ public class BlogPost {
         return (this.comments != null) ? this.comments.size() : 0;
     }
 
+    /**
+     * Stored comment count, unlike getCommentsCount() this never loads the
+     * comments
+     *
+     * @return
+     */
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
     /**
      * Calculates a human-readable "time ago" string for this blog post's date.
      * This method now directly uses LocalDateTime, simplifying the conversion.
@@ -1,15 +1,16 @@
 package com.khoi.lab.entity;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.DonationStatus;
 
 import jakarta.persistence.*;
 
@@ -49,11 +50,32 @@ public class Campaign {
     private int donatedPercentageCapped;
     private int donatedPercentageUncapped;
 
+    /**
+     * Denormalized donation counters, kept in step with the donations by the DAO
+     * so listing campaigns never has to load their donations.
+     */
+    @Column(name = "confirmed_amount")
+    private long confirmedAmount;
+
+    @Column(name = "confirmed_count")
+    private int confirmedCount;
+
+    @Column(name = "pending_count")
+    private int pendingCount;
+
+    @Column(name = "donor_count")
+    private int donorCount;
+
     private LocalDateTime startTime;
 
     private LocalDateTime endTime;
 
-    @OneToMany(mappedBy = "campaign", cascade = { CascadeType.ALL }, fetch = FetchType.LAZY)
+    /**
+     * Refresh is not cascaded so the DAO can reload and lock the campaign row
+     * without discarding pending changes to its donations.
+     */
+    @OneToMany(mappedBy = "campaign", cascade = { CascadeType.PERSIST, CascadeType.MERGE,
+            CascadeType.REMOVE }, fetch = FetchType.LAZY)
     private List<Donation> donations = new ArrayList<>();
 
     /**
@@ -147,6 +169,7 @@ public class Campaign {
 
     public void setGoal(int goal) {
         this.goal = goal;
+        updateProgress();
     }
 
     public LocalDateTime getStartTime() {
@@ -177,26 +200,115 @@ public class Campaign {
     }
 
     public int getDonatedAmount() {
-        return donations.stream()
-                .filter(Donation::isConfirmed)
-                .mapToInt(Donation::getAmount)
-                .sum();
+        return (int) confirmedAmount;
     }
 
     public double getDonatedPercentage() {
-        int amount = getDonatedAmount();
         if (goal <= 0) {
             return 100;
         }
+        double percentage = Math.round(confirmedAmount * 1000.0 / goal) / 10.0;
+        return Math.min(percentage, 100.0);
+    }
+
+    public long getConfirmedAmount() {
+        return confirmedAmount;
+    }
+
+    public int getConfirmedCount() {
+        return confirmedCount;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Number of distinct registered accounts with a confirmed donation
+     *
+     * @return
+     */
+    public int getDonorCount() {
+        return donorCount;
+    }
+
+    /**
+     * Overwrite all donation counters, used when rebuilding them from scratch
+     *
+     * @param confirmedAmount
+     * @param confirmedCount
+     * @param pendingCount
+     * @param donorCount
+     */
+    public void setDonationCounters(long confirmedAmount, int confirmedCount, int pendingCount, int donorCount) {
+        this.confirmedAmount = confirmedAmount;
+        this.confirmedCount = confirmedCount;
+        this.pendingCount = pendingCount;
+        this.donorCount = donorCount;
+        updateProgress();
+    }
+
+    /**
+     * Move a donation of [amount] from [oldStatus] to [newStatus] in the
+     * counters. A null oldStatus means the donation is new.
+     * The donor count is adjusted separately as it depends on other donations.
+     *
+     * @param amount
+     * @param oldStatus
+     * @param newStatus
+     */
+    public void applyDonationStatusChange(int amount, DonationStatus oldStatus, DonationStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        if (oldStatus == DonationStatus.CONFIRMED) {
+            confirmedAmount -= amount;
+            confirmedCount--;
+        } else if (oldStatus == DonationStatus.PENDING) {
+            pendingCount--;
+        }
+        if (newStatus == DonationStatus.CONFIRMED) {
+            confirmedAmount += amount;
+            confirmedCount++;
+        } else if (newStatus == DonationStatus.PENDING) {
+            pendingCount++;
+        }
+        updateProgress();
+    }
 
-        BigDecimal amountBD = BigDecimal.valueOf(amount);
-        BigDecimal goalBD = BigDecimal.valueOf(goal);
-        BigDecimal percentage = amountBD
-                .divide(goalBD, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-                .setScale(1, RoundingMode.HALF_UP);
+    public void adjustDonorCount(int delta) {
+        this.donorCount += delta;
+    }
+
+    /**
+     * Recompute the counters from the loaded donations collection
+     */
+    public void recountDonations() {
+        long amount = 0;
+        int confirmed = 0;
+        int pending = 0;
+        Set<Long> donors = new HashSet<>();
+        for (Donation donation : donations) {
+            if (donation.isConfirmed()) {
+                amount += donation.getAmount();
+                confirmed++;
+                if (donation.getAccount() != null) {
+                    donors.add(donation.getAccount().getId());
+                }
+            } else if (donation.getStatus() == DonationStatus.PENDING) {
+                pending++;
+            }
+        }
+        setDonationCounters(amount, confirmed, pending, donors.size());
+    }
 
-        return Math.min(percentage.doubleValue(), 100.0);
+    /**
+     * Refresh the stored progress percentages from the confirmed amount
+     */
+    private void updateProgress() {
+        int uncapped = goal <= 0 ? 100 : (int) Math.round(confirmedAmount * 100.0 / goal);
+        this.donatedPercentageUncapped = uncapped;
+        this.donatedPercentageCapped = Math.min(uncapped, 100);
     }
 
     public int getDonatedPercentageCapped() {
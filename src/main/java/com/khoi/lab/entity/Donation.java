@@ -9,7 +9,9 @@ import java.time.format.DateTimeFormatter;
 import com.khoi.lab.enums.DonationStatus;
 
 @Entity
-@Table(name = "donation")
+@Table(name = "donation", indexes = {
+        @Index(name = "idx_donation_time_id", columnList = "donateTime, id"),
+        @Index(name = "idx_donation_status_time_id", columnList = "status, donateTime, id") })
 public class Donation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
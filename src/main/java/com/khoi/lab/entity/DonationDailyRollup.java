@@ -0,0 +1,75 @@
+package com.khoi.lab.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Confirmed donations aggregated per day and campaign.
+ * Maintained by the DAO with an upsert whenever a donation enters or leaves
+ * the CONFIRMED status, so charts can read a range of days with one small
+ * query. Rows are never written through this entity.
+ */
+@Entity
+@Table(name = "donation_daily_rollup", uniqueConstraints = @UniqueConstraint(columnNames = { "rollup_day",
+        "campaign_id" }), indexes = @Index(columnList = "campaign_id, rollup_day"))
+public class DonationDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "campaign_id", nullable = false)
+    private Long campaignId;
+
+    @Column(name = "confirmed_amount")
+    private long confirmedAmount;
+
+    @Column(name = "confirmed_count")
+    private int confirmedCount;
+
+    @Column(name = "anonymous_count")
+    private int anonymousCount;
+
+    protected DonationDailyRollup() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    public long getConfirmedAmount() {
+        return confirmedAmount;
+    }
+
+    public int getConfirmedCount() {
+        return confirmedCount;
+    }
+
+    public int getAnonymousCount() {
+        return anonymousCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DonationDailyRollup [day=" + day + ", campaignId=" + campaignId + ", confirmedAmount="
+                + confirmedAmount + ", confirmedCount=" + confirmedCount + "]";
+    }
+}
@@ -1,17 +1,24 @@
 package com.khoi.lab.entity;
 
+import java.time.LocalDateTime;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 /**
- * Donation Payment Unique code
+ * Donation Payment Unique code.
+ * Remembers which campaign, donor and amount a bank transfer carrying the code
+ * pays for, and the donation it was matched to once the transfer arrives.
  */
 @Entity
-@Table(name = "donation_payment_code")
+@Table(name = "donation_payment_code", indexes = {
+        @Index(name = "idx_donation_payment_code_code", columnList = "code", unique = true),
+        @Index(name = "idx_donation_payment_code_pending", columnList = "consumeTime, createTime") })
 public class DonationPaymentCode {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,11 +27,31 @@ public class DonationPaymentCode {
     @Column(name = "code")
     private String code;
 
+    private Long campaignId;
+
+    private Long accountId; // null for an anonymous donor
+
+    private long amount;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime consumeTime; // set by the one consumer that claimed the code
+
+    private Long donationId; // set once a transfer is matched
+
     protected DonationPaymentCode() {
     }
 
     public DonationPaymentCode(String code) {
         this.code = code;
+        this.createTime = LocalDateTime.now();
+    }
+
+    public DonationPaymentCode(String code, Long campaignId, Long accountId, long amount) {
+        this(code);
+        this.campaignId = campaignId;
+        this.accountId = accountId;
+        this.amount = amount;
     }
 
     public Long getId() {
@@ -43,8 +70,66 @@ public class DonationPaymentCode {
         this.code = code;
     }
 
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    public void setCampaignId(Long campaignId) {
+        this.campaignId = campaignId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getConsumeTime() {
+        return consumeTime;
+    }
+
+    public void setConsumeTime(LocalDateTime consumeTime) {
+        this.consumeTime = consumeTime;
+    }
+
+    public Long getDonationId() {
+        return donationId;
+    }
+
+    public void setDonationId(Long donationId) {
+        this.donationId = donationId;
+    }
+
+    /**
+     * Whether a bank transfer has already been matched to this code
+     *
+     * @return
+     */
+    public boolean isMatched() {
+        return donationId != null;
+    }
+
     @Override
     public String toString() {
-        return "DonatePaymentCode [code=" + code + "]";
+        return "DonatePaymentCode [code=" + code + ", campaignId=" + campaignId + ", amount=" + amount
+                + ", donationId=" + donationId + "]";
     }
 }
@@ -0,0 +1,172 @@
+package com.khoi.lab.entity;
+
+import java.time.LocalDateTime;
+
+import com.khoi.lab.enums.EmailOutboxStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Email waiting to be sent.
+ * Rows are written in the same transaction as the change that triggered the
+ * email and picked up by the outbox dispatcher, so nothing is lost if the
+ * application stops before the mail server answers.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at"))
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject")
+    private String subject;
+
+    @Column(name = "body", columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EmailOutboxStatus status;
+
+    /**
+     * Number of times a worker claimed this email
+     */
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * Earliest time the email may be claimed again
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * When a worker last claimed the email, used to release claims of workers
+     * that died mid-send
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    protected EmailOutbox() {
+    }
+
+    public EmailOutbox(String recipient, String subject, String body) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.status = EmailOutboxStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    /**
+     * Mark as claimed by a worker
+     *
+     * @param now
+     */
+    public void claim(LocalDateTime now) {
+        this.status = EmailOutboxStatus.SENDING;
+        this.claimedAt = now;
+        this.attempts++;
+    }
+
+    /**
+     * Mark as delivered to the mail server
+     *
+     * @param now
+     */
+    public void sent(LocalDateTime now) {
+        this.status = EmailOutboxStatus.SENT;
+        this.sentAt = now;
+        this.lastError = null;
+    }
+
+    /**
+     * Record a failed attempt. The email is retried at nextAttemptAt, or given
+     * up on when nextAttemptAt is null.
+     *
+     * @param error
+     * @param nextAttemptAt
+     */
+    public void failed(String error, LocalDateTime nextAttemptAt) {
+        this.status = nextAttemptAt == null ? EmailOutboxStatus.FAILED : EmailOutboxStatus.PENDING;
+        this.nextAttemptAt = nextAttemptAt;
+        this.claimedAt = null;
+        this.lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public EmailOutboxStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "EmailOutbox [id=" + id + ", recipient=" + recipient + ", subject=" + subject + ", status=" + status
+                + ", attempts=" + attempts + "]";
+    }
+}
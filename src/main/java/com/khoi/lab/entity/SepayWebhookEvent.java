@@ -0,0 +1,165 @@
+package com.khoi.lab.entity;
+
+import java.time.LocalDateTime;
+
+import com.khoi.lab.enums.SepayWebhookStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Sepay webhook delivery waiting to be processed.
+ * Keyed by the Sepay transaction id, so a redelivered webhook finds its row
+ * already there and is only stored once. The webhook endpoint only writes
+ * rows, the webhook worker matches them against payment codes.
+ */
+@Entity
+@Table(name = "sepay_webhook_inbox", indexes = @Index(name = "idx_sepay_webhook_inbox_status_received", columnList = "status, received_at"))
+public class SepayWebhookEvent {
+    /**
+     * Sepay transaction id
+     */
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "account_number")
+    private String accountNumber;
+
+    /**
+     * Money received, 0 for an outgoing transfer
+     */
+    @Column(name = "amount_in")
+    private long amountIn;
+
+    @Column(name = "content", length = 1000)
+    private String content;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private SepayWebhookStatus status;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "received_at")
+    private LocalDateTime receivedAt;
+
+    /**
+     * When a worker last claimed the event, used to release claims of workers
+     * that died mid-process
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "donation_id")
+    private Long donationId;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    protected SepayWebhookEvent() {
+    }
+
+    public SepayWebhookEvent(Long id, String accountNumber, long amountIn, String content, String payload) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.amountIn = amountIn;
+        this.content = content != null && content.length() > 1000 ? content.substring(0, 1000) : content;
+        this.payload = payload;
+        this.status = SepayWebhookStatus.PENDING;
+        this.receivedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Mark as claimed by a worker
+     *
+     * @param now
+     */
+    public void claim(LocalDateTime now) {
+        this.status = SepayWebhookStatus.PROCESSING;
+        this.claimedAt = now;
+        this.attempts++;
+    }
+
+    /**
+     * Record the outcome of processing
+     *
+     * @param status     MATCHED, IGNORED or FAILED
+     * @param donationId donation created for the transfer, if any
+     * @param error
+     * @param now
+     */
+    public void processed(SepayWebhookStatus status, Long donationId, String error, LocalDateTime now) {
+        this.status = status;
+        this.donationId = donationId;
+        this.claimedAt = null;
+        this.processedAt = now;
+        this.lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public long getAmountIn() {
+        return amountIn;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public SepayWebhookStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public Long getDonationId() {
+        return donationId;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "SepayWebhookEvent [id=" + id + ", accountNumber=" + accountNumber + ", amountIn=" + amountIn
+                + ", status=" + status + ", attempts=" + attempts + "]";
+    }
+}
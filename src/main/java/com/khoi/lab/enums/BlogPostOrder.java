@@ -0,0 +1,28 @@
+package com.khoi.lab.enums;
+
+/**
+ * Order of blog post listings, each ends on the id so pages are stable. The
+ * id runs in the same direction as the column before it, so the (date, id)
+ * and (comment_count, id) indexes serve the ORDER BY without a filesort.
+ */
+public enum BlogPostOrder {
+    LATEST("b.id DESC"),
+    NEWEST("b.date DESC, b.id DESC"),
+    OLDEST("b.date ASC, b.id ASC"),
+    POPULAR("b.commentCount DESC, b.id DESC");
+
+    private final String orderBy;
+
+    private BlogPostOrder(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    /**
+     * JPQL ORDER BY clause over a BlogPost aliased b
+     *
+     * @return
+     */
+    public String getOrderBy() {
+        return orderBy;
+    }
+}
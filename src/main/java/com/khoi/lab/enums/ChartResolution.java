@@ -0,0 +1,57 @@
+package com.khoi.lab.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket size of donation chart series
+ */
+public enum ChartResolution {
+    HOUR("yyyy-MM-dd HH:00"),
+    DAY("yyyy-MM-dd"),
+    MONTH("yyyy-MM");
+
+    private final String labelPattern;
+
+    private ChartResolution(String labelPattern) {
+        this.labelPattern = labelPattern;
+    }
+
+    public String getLabelPattern() {
+        return labelPattern;
+    }
+
+    /**
+     * Start of the bucket containing [time]
+     *
+     * @param time
+     * @return
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        switch (this) {
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return time.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+
+    /**
+     * Start of the bucket following [bucket]
+     *
+     * @param bucket
+     * @return
+     */
+    public LocalDateTime next(LocalDateTime bucket) {
+        switch (this) {
+            case HOUR:
+                return bucket.plusHours(1);
+            case DAY:
+                return bucket.plusDays(1);
+            default:
+                return bucket.plusMonths(1);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.khoi.lab.enums;
+
+/**
+ * Email outbox status enumeration
+ */
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,13 @@
+package com.khoi.lab.enums;
+
+/**
+ * Sepay webhook inbox status enumeration
+ */
+public enum SepayWebhookStatus {
+    PENDING,
+    PROCESSING,
+    MATCHED,
+    IGNORED,
+    UNMATCHED, // named a payment code but made no donation, left for reconciliation
+    FAILED
+}
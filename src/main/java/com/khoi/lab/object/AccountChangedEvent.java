@@ -0,0 +1,27 @@
+package com.khoi.lab.object;
+
+/**
+ * Published by the account DAO whenever an account is updated
+ */
+public class AccountChangedEvent {
+    private final Long accountId;
+    private final long version;
+
+    public AccountChangedEvent(Long accountId, long version) {
+        this.accountId = accountId;
+        this.version = version;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountChangedEvent [accountId=" + accountId + ", version=" + version + "]";
+    }
+}
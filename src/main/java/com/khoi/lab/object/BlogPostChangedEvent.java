@@ -0,0 +1,41 @@
+package com.khoi.lab.object;
+
+/**
+ * Published by the blog DAO whenever a blog post is saved, updated or
+ * deleted. Carries the searchable text so listeners don't need to read the
+ * post back.
+ */
+public class BlogPostChangedEvent {
+    private final Long blogPostId;
+    private final String title;
+    private final String description;
+    private final boolean deleted;
+
+    public BlogPostChangedEvent(Long blogPostId, String title, String description, boolean deleted) {
+        this.blogPostId = blogPostId;
+        this.title = title;
+        this.description = description;
+        this.deleted = deleted;
+    }
+
+    public Long getBlogPostId() {
+        return blogPostId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "BlogPostChangedEvent [blogPostId=" + blogPostId + ", deleted=" + deleted + "]";
+    }
+}
@@ -0,0 +1,22 @@
+package com.khoi.lab.object;
+
+/**
+ * Published by the blog DAO whenever a comment is added to or removed from a
+ * blog post
+ */
+public class BlogPostCommentChangedEvent {
+    private final Long blogPostId;
+
+    public BlogPostCommentChangedEvent(Long blogPostId) {
+        this.blogPostId = blogPostId;
+    }
+
+    public Long getBlogPostId() {
+        return blogPostId;
+    }
+
+    @Override
+    public String toString() {
+        return "BlogPostCommentChangedEvent [blogPostId=" + blogPostId + "]";
+    }
+}
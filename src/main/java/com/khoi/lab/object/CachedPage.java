@@ -0,0 +1,55 @@
+package com.khoi.lab.object;
+
+import java.util.Set;
+
+/**
+ * A rendered page held by the page cache
+ */
+public class CachedPage {
+    private final byte[] body;
+    private final String contentType;
+    private final Set<String> tags;
+    private final long expiresAt;
+
+    /**
+     * @param body        rendered response bytes
+     * @param contentType
+     * @param tags        invalidation tags, e.g. "campaign:3"
+     * @param expiresAt   epoch millis after which the page is stale
+     */
+    public CachedPage(byte[] body, String contentType, Set<String> tags, long expiresAt) {
+        this.body = body;
+        this.contentType = contentType;
+        this.tags = Set.copyOf(tags);
+        this.expiresAt = expiresAt;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    public int size() {
+        return body.length;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedPage [contentType=" + contentType + ", size=" + body.length + ", tags=" + tags + "]";
+    }
+}
@@ -0,0 +1,22 @@
+package com.khoi.lab.object;
+
+/**
+ * Published by the donation DAO whenever a campaign is saved, updated or
+ * deleted
+ */
+public class CampaignChangedEvent {
+    private final Long campaignId;
+
+    public CampaignChangedEvent(Long campaignId) {
+        this.campaignId = campaignId;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    @Override
+    public String toString() {
+        return "CampaignChangedEvent [campaignId=" + campaignId + "]";
+    }
+}
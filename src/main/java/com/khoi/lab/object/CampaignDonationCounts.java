@@ -0,0 +1,60 @@
+package com.khoi.lab.object;
+
+import com.khoi.lab.enums.DonationStatus;
+
+/**
+ * Number of donations of one campaign by status, and how many of them are
+ * anonymous. Counted by the database instead of loading the donations.
+ */
+public class CampaignDonationCounts {
+    private long pending;
+    private long confirmed;
+    private long refused;
+    private long anonymous;
+
+    /**
+     * Add the count of one status group
+     *
+     * @param status
+     * @param count
+     * @param anonymous donations of the group without an account
+     */
+    public void add(DonationStatus status, long count, long anonymous) {
+        switch (status) {
+            case PENDING -> this.pending += count;
+            case CONFIRMED -> this.confirmed += count;
+            case REFUSED -> this.refused += count;
+        }
+        this.anonymous += anonymous;
+    }
+
+    public long getTotal() {
+        return pending + confirmed + refused;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public long getConfirmed() {
+        return confirmed;
+    }
+
+    public long getRefused() {
+        return refused;
+    }
+
+    public long getAnonymous() {
+        return anonymous;
+    }
+
+    public long getNonAnonymous() {
+        return getTotal() - anonymous;
+    }
+
+    @Override
+    public String toString() {
+        return "CampaignDonationCounts [pending=" + pending + ", confirmed=" + confirmed + ", refused=" + refused
+                + ", anonymous=" + anonymous + "]";
+    }
+}
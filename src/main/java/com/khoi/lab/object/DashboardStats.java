@@ -0,0 +1,85 @@
+package com.khoi.lab.object;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the admin dashboard figures
+ */
+public final class DashboardStats {
+    private final int donationsWeekly;
+    private final int donationsRecent;
+    private final int campaignCompletedPercentage;
+    private final int donationsPending;
+    private final List<String> dateLabels;
+    private final List<Integer> donationAmounts;
+    private final int anonymousDonations;
+    private final int nonAnonymousDonations;
+    private final LocalDateTime computedAt;
+
+    public DashboardStats(int donationsWeekly, int donationsRecent, int campaignCompletedPercentage,
+            int donationsPending, List<String> dateLabels, List<Integer> donationAmounts, int anonymousDonations,
+            int nonAnonymousDonations, LocalDateTime computedAt) {
+        this.donationsWeekly = donationsWeekly;
+        this.donationsRecent = donationsRecent;
+        this.campaignCompletedPercentage = campaignCompletedPercentage;
+        this.donationsPending = donationsPending;
+        this.dateLabels = List.copyOf(dateLabels);
+        this.donationAmounts = List.copyOf(donationAmounts);
+        this.anonymousDonations = anonymousDonations;
+        this.nonAnonymousDonations = nonAnonymousDonations;
+        this.computedAt = computedAt;
+    }
+
+    public int getDonationsWeekly() {
+        return donationsWeekly;
+    }
+
+    public int getDonationsRecent() {
+        return donationsRecent;
+    }
+
+    public int getCampaignCompletedPercentage() {
+        return campaignCompletedPercentage;
+    }
+
+    public int getDonationsPending() {
+        return donationsPending;
+    }
+
+    public List<String> getDateLabels() {
+        return dateLabels;
+    }
+
+    public List<Integer> getDonationAmounts() {
+        return donationAmounts;
+    }
+
+    public int getAnonymousDonations() {
+        return anonymousDonations;
+    }
+
+    public int getNonAnonymousDonations() {
+        return nonAnonymousDonations;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * Seconds elapsed since this snapshot was computed
+     *
+     * @return
+     */
+    public long getAgeSeconds() {
+        return Duration.between(computedAt, LocalDateTime.now()).getSeconds();
+    }
+
+    @Override
+    public String toString() {
+        return "DashboardStats [donationsWeekly=" + donationsWeekly + ", donationsPending=" + donationsPending
+                + ", computedAt=" + computedAt + "]";
+    }
+}
@@ -0,0 +1,66 @@
+package com.khoi.lab.object;
+
+/**
+ * Rows written by one run of the dataset generator
+ */
+public class DatasetReport {
+    private final int scaleFactor;
+    private final long seed;
+    private final int accounts;
+    private final int campaigns;
+    private final int donations;
+    private final long millis;
+
+    public DatasetReport(int scaleFactor, long seed, int accounts, int campaigns, int donations, long millis) {
+        this.scaleFactor = scaleFactor;
+        this.seed = seed;
+        this.accounts = accounts;
+        this.campaigns = campaigns;
+        this.donations = donations;
+        this.millis = millis;
+    }
+
+    public int getScaleFactor() {
+        return scaleFactor;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public int getCampaigns() {
+        return campaigns;
+    }
+
+    public int getDonations() {
+        return donations;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Every row inserted, donation receivers included (one per campaign)
+     *
+     * @return
+     */
+    public long getRows() {
+        return (long) accounts + campaigns * 2L + donations;
+    }
+
+    public long getRowsPerSecond() {
+        return millis == 0 ? getRows() : getRows() * 1000 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return "DatasetReport [scaleFactor=" + scaleFactor + ", seed=" + seed + ", accounts=" + accounts
+                + ", campaigns=" + campaigns + ", donations=" + donations + ", millis=" + millis
+                + ", rowsPerSecond=" + getRowsPerSecond() + "]";
+    }
+}
@@ -0,0 +1,59 @@
+package com.khoi.lab.object;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import com.khoi.lab.entity.Donation;
+
+/**
+ * Keyset position in the donation list, ordered by (donateTime, id).
+ * Encoded in URLs as [donateTime]_[id].
+ */
+public class DonationCursor {
+    private final LocalDateTime donateTime;
+    private final Long id;
+
+    public DonationCursor(LocalDateTime donateTime, Long id) {
+        this.donateTime = donateTime;
+        this.id = id;
+    }
+
+    public static DonationCursor of(Donation donation) {
+        return new DonationCursor(donation.getDonateTime(), donation.getId());
+    }
+
+    /**
+     * Parse an encoded cursor, returns null if it's missing or malformed
+     *
+     * @param value
+     * @return
+     */
+    public static DonationCursor parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int separator = value.lastIndexOf('_');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return new DonationCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public LocalDateTime getDonateTime() {
+        return donateTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return donateTime + "_" + id;
+    }
+}
@@ -0,0 +1,69 @@
+package com.khoi.lab.object;
+
+import java.time.LocalDateTime;
+
+import com.khoi.lab.enums.DonationStatus;
+
+/**
+ * Flat projection of a donation used by exports, so rows can be streamed
+ * without loading entities into the persistence context
+ */
+public class DonationExportRow {
+    private final Long id;
+    private final LocalDateTime donateTime;
+    private final int amount;
+    private final DonationStatus status;
+    private final Long campaignId;
+    private final String campaignName;
+    private final Long accountId;
+    private final String donorName;
+
+    public DonationExportRow(Long id, LocalDateTime donateTime, int amount, DonationStatus status, Long campaignId,
+            String campaignName, Long accountId, String firstName, String lastName) {
+        this.id = id;
+        this.donateTime = donateTime;
+        this.amount = amount;
+        this.status = status;
+        this.campaignId = campaignId;
+        this.campaignName = campaignName;
+        this.accountId = accountId;
+        this.donorName = accountId == null ? null : firstName + " " + lastName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getDonateTime() {
+        return donateTime;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public DonationStatus getStatus() {
+        return status;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    public String getCampaignName() {
+        return campaignName;
+    }
+
+    /**
+     * Id of the donating account, null for anonymous donations
+     *
+     * @return
+     */
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getDonorName() {
+        return donorName;
+    }
+}
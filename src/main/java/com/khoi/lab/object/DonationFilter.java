@@ -0,0 +1,90 @@
+package com.khoi.lab.object;
+
+import com.khoi.lab.enums.DonationStatus;
+
+/**
+ * Admin donation list filters, bound from request parameters.
+ * Every filter is optional; account=-1 selects anonymous donations.
+ */
+public class DonationFilter {
+    public static final String DONOR_ANONYMOUS = "anonymous";
+    public static final String DONOR_NAMED = "named";
+
+    private DonationStatus status;
+    private Long campaign;
+    private Long account;
+    private String donor;
+    private Integer minAmount;
+    private Integer maxAmount;
+
+    public DonationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(DonationStatus status) {
+        this.status = status;
+    }
+
+    public Long getCampaign() {
+        return campaign;
+    }
+
+    public void setCampaign(Long campaign) {
+        this.campaign = campaign;
+    }
+
+    public Long getAccount() {
+        return account;
+    }
+
+    public void setAccount(Long account) {
+        this.account = account;
+    }
+
+    public String getDonor() {
+        return donor;
+    }
+
+    public void setDonor(String donor) {
+        this.donor = donor;
+    }
+
+    public Integer getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(Integer minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public Integer getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(Integer maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    /**
+     * Id of a registered account to filter by, null if none
+     *
+     * @return
+     */
+    public Long getAccountId() {
+        return account != null && account > 0 ? account : null;
+    }
+
+    public boolean isAnonymousOnly() {
+        return DONOR_ANONYMOUS.equals(donor) || (account != null && account == -1);
+    }
+
+    public boolean isNamedOnly() {
+        return DONOR_NAMED.equals(donor) && !isAnonymousOnly();
+    }
+
+    @Override
+    public String toString() {
+        return "DonationFilter [status=" + status + ", campaign=" + campaign + ", account=" + account + ", donor="
+                + donor + ", minAmount=" + minAmount + ", maxAmount=" + maxAmount + "]";
+    }
+}
@@ -0,0 +1,65 @@
+package com.khoi.lab.object;
+
+import java.util.List;
+
+import com.khoi.lab.entity.Donation;
+
+/**
+ * One page of the admin donation list, newest first
+ */
+public class DonationPage {
+    private final List<Donation> donations;
+    private final DonationCursor newerCursor;
+    private final DonationCursor olderCursor;
+    private final long totalEstimate;
+    private final boolean totalCapped;
+
+    public DonationPage(List<Donation> donations, DonationCursor newerCursor, DonationCursor olderCursor,
+            long totalEstimate, boolean totalCapped) {
+        this.donations = donations;
+        this.newerCursor = newerCursor;
+        this.olderCursor = olderCursor;
+        this.totalEstimate = totalEstimate;
+        this.totalCapped = totalCapped;
+    }
+
+    public List<Donation> getDonations() {
+        return donations;
+    }
+
+    /**
+     * Cursor of the page before this one, null on the first page
+     *
+     * @return
+     */
+    public DonationCursor getNewerCursor() {
+        return newerCursor;
+    }
+
+    /**
+     * Cursor of the page after this one, null on the last page
+     *
+     * @return
+     */
+    public DonationCursor getOlderCursor() {
+        return olderCursor;
+    }
+
+    /**
+     * Number of matching donations, counted up to a cap
+     *
+     * @return
+     */
+    public long getTotalEstimate() {
+        return totalEstimate;
+    }
+
+    /**
+     * Whether there are more matching donations than the estimate
+     *
+     * @return
+     */
+    public boolean isTotalCapped() {
+        return totalCapped;
+    }
+}
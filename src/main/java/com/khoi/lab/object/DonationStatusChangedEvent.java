@@ -0,0 +1,61 @@
+package com.khoi.lab.object;
+
+import com.khoi.lab.enums.DonationStatus;
+
+/**
+ * Published by the donation DAO whenever a donation is created or changes
+ * status
+ */
+public class DonationStatusChangedEvent {
+    private final Long donationId;
+    private final Long campaignId;
+    private final Long accountId;
+    private final DonationStatus oldStatus;
+    private final DonationStatus newStatus;
+
+    public DonationStatusChangedEvent(Long donationId, Long campaignId, Long accountId, DonationStatus oldStatus,
+            DonationStatus newStatus) {
+        this.donationId = donationId;
+        this.campaignId = campaignId;
+        this.accountId = accountId;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+    }
+
+    public Long getDonationId() {
+        return donationId;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    /**
+     * Donor, null for an anonymous donation
+     *
+     * @return
+     */
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Previous status, null for a newly created donation
+     *
+     * @return
+     */
+    public DonationStatus getOldStatus() {
+        return oldStatus;
+    }
+
+    public DonationStatus getNewStatus() {
+        return newStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "DonationStatusChangedEvent [donationId=" + donationId + ", campaignId=" + campaignId
+                + ", oldStatus=" + oldStatus
+                + ", newStatus=" + newStatus + "]";
+    }
+}
@@ -0,0 +1,58 @@
+package com.khoi.lab.object;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request seen under an idempotency key: the fingerprint of the request
+ * and its response, still pending while the first execution is in flight
+ */
+public class IdempotencyEntry {
+    private final String fingerprint;
+    private final CompletableFuture<IdempotentResponse> response = new CompletableFuture<>();
+    private long expiresAt;
+
+    /**
+     * @param fingerprint hash of the request the key was first used for
+     * @param expiresAt   epoch millis after which the key is forgotten
+     */
+    public IdempotencyEntry(String fingerprint, long expiresAt) {
+        this.fingerprint = fingerprint;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public CompletableFuture<IdempotentResponse> getResponse() {
+        return response;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * Bytes held for the recorded response, none while in flight
+     *
+     * @return
+     */
+    public int size() {
+        if (!response.isDone() || response.isCompletedExceptionally()) {
+            return 0;
+        }
+        return response.join().size();
+    }
+
+    public boolean matches(String fingerprint) {
+        return this.fingerprint.equals(fingerprint);
+    }
+}
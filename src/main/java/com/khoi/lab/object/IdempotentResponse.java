@@ -0,0 +1,44 @@
+package com.khoi.lab.object;
+
+/**
+ * A response recorded under an idempotency key, replayed to repeats of the
+ * request
+ */
+public class IdempotentResponse {
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+
+    /**
+     * @param status      http status code
+     * @param contentType
+     * @param body        response bytes
+     */
+    public IdempotentResponse(int status, String contentType, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int size() {
+        return body.length;
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotentResponse [status=" + status + ", contentType=" + contentType + ", size=" + body.length
+                + "]";
+    }
+}
@@ -0,0 +1,54 @@
+package com.khoi.lab.object;
+
+import java.time.LocalDateTime;
+
+/**
+ * Confirmed donations of one donor to a campaign, summed up. All anonymous
+ * donations share a single entry with a null account id.
+ */
+public class LeaderboardEntry {
+    private final Long accountId;
+    private final String fullName;
+    private final long totalAmount;
+    private final long donationCount;
+    private final LocalDateTime lastDonateTime;
+
+    public LeaderboardEntry(Long accountId, String firstName, String lastName, Long totalAmount, Long donationCount,
+            LocalDateTime lastDonateTime) {
+        this.accountId = accountId;
+        this.fullName = accountId == null ? null : firstName + " " + lastName;
+        this.totalAmount = totalAmount == null ? 0L : totalAmount;
+        this.donationCount = donationCount == null ? 0L : donationCount;
+        this.lastDonateTime = lastDonateTime;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public boolean isAnonymous() {
+        return accountId == null;
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getDonationCount() {
+        return donationCount;
+    }
+
+    public LocalDateTime getLastDonateTime() {
+        return lastDonateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "LeaderboardEntry [accountId=" + accountId + ", totalAmount=" + totalAmount + ", donationCount="
+                + donationCount + "]";
+    }
+}
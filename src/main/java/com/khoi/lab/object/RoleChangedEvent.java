@@ -0,0 +1,21 @@
+package com.khoi.lab.object;
+
+/**
+ * Published by the account DAO whenever a role is saved, updated or deleted
+ */
+public class RoleChangedEvent {
+    private final Long roleId;
+
+    public RoleChangedEvent(Long roleId) {
+        this.roleId = roleId;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    @Override
+    public String toString() {
+        return "RoleChangedEvent [roleId=" + roleId + "]";
+    }
+}
@@ -0,0 +1,93 @@
+package com.khoi.lab.object;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.khoi.lab.entity.Role;
+import com.khoi.lab.enums.UserPermission;
+
+/**
+ * Immutable, compiled form of a role's permissions.
+ * Every permission is one bit of a long indexed by its ordinal, so checking a
+ * permission is a single bit test.
+ */
+public final class RolePermissions {
+    static {
+        if (UserPermission.values().length > Long.SIZE) {
+            throw new IllegalStateException("UserPermission no longer fits in a long bitmask");
+        }
+    }
+
+    private final Long roleId;
+    private final String roleName;
+    private final long mask;
+
+    public RolePermissions(Long roleId, String roleName, Collection<UserPermission> permissions) {
+        this.roleId = roleId;
+        this.roleName = roleName;
+        this.mask = compile(permissions);
+    }
+
+    /**
+     * Compile a role entity
+     *
+     * @param role
+     * @return
+     */
+    public static RolePermissions of(Role role) {
+        return new RolePermissions(role.getId(), role.getRoleName(), role.getPermissions());
+    }
+
+    /**
+     * Bitmask of a set of permissions
+     *
+     * @param permissions
+     * @return
+     */
+    public static long compile(Collection<UserPermission> permissions) {
+        long mask = 0L;
+        if (permissions != null) {
+            for (UserPermission permission : permissions) {
+                mask |= 1L << permission.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    public boolean has(UserPermission permission) {
+        return permission != null && (mask & (1L << permission.ordinal())) != 0;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * Permissions as a set, allocates a new copy
+     *
+     * @return
+     */
+    public Set<UserPermission> toSet() {
+        Set<UserPermission> permissions = EnumSet.noneOf(UserPermission.class);
+        for (UserPermission permission : UserPermission.values()) {
+            if (has(permission)) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
+
+    @Override
+    public String toString() {
+        return "RolePermissions [roleName=" + roleName + ", permissions=" + toSet() + "]";
+    }
+}
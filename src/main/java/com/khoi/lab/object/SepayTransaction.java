@@ -0,0 +1,50 @@
+package com.khoi.lab.object;
+
+/**
+ * A bank transaction as reported by the Sepay transactions API
+ */
+public class SepayTransaction {
+    private final long id;
+    private final String accountNumber;
+    private final long amountIn;
+    private final String content;
+
+    public SepayTransaction(long id, String accountNumber, long amountIn, String content) {
+        this.id = id;
+        this.accountNumber = accountNumber;
+        this.amountIn = amountIn;
+        this.content = content;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Money received, 0 for an outgoing transaction
+     *
+     * @return
+     */
+    public long getAmountIn() {
+        return amountIn;
+    }
+
+    /**
+     * Transfer description written by the sender
+     *
+     * @return
+     */
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "SepayTransaction [id=" + id + ", accountNumber=" + accountNumber + ", amountIn=" + amountIn
+                + ", content=" + content + "]";
+    }
+}
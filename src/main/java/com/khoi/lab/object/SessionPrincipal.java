@@ -0,0 +1,115 @@
+package com.khoi.lab.object;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.enums.UserPermission;
+
+/**
+ * What a session knows about its logged in account.
+ * Holds the few fields pages render on every request and the compiled role
+ * permissions, stamped with the account version and role generation they
+ * were read at. The account entity itself is never kept in the session,
+ * handlers that need it load it by id.
+ */
+public final class SessionPrincipal implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    private final Long accountId;
+    private final String fullName;
+    private final boolean hasPassword;
+    private final List<Long> followedCampaignIds;
+    private final Long roleId;
+    private final int powerLevel;
+    private final long permissions;
+    private final long version;
+    private final long roleGeneration;
+
+    public SessionPrincipal(Long accountId, String fullName, boolean hasPassword, List<Long> followedCampaignIds,
+            Long roleId, int powerLevel, long permissions, long version, long roleGeneration) {
+        this.accountId = accountId;
+        this.fullName = fullName;
+        this.hasPassword = hasPassword;
+        this.followedCampaignIds = followedCampaignIds == null ? List.of() : List.copyOf(followedCampaignIds);
+        this.roleId = roleId;
+        this.powerLevel = powerLevel;
+        this.permissions = permissions;
+        this.version = version;
+        this.roleGeneration = roleGeneration;
+    }
+
+    /**
+     * Principal of an account as loaded now
+     *
+     * @param account
+     * @param roleGeneration
+     * @return
+     */
+    public static SessionPrincipal of(Account account, long roleGeneration) {
+        return new SessionPrincipal(account.getId(), account.getFullName(), account.hasPassword(),
+                account.getFollowedCampaignIds(),
+                account.getRole() != null ? account.getRole().getId() : null,
+                account.getRole() != null ? account.getRole().getPowerLevel() : 0,
+                account.getRole() != null ? RolePermissions.compile(account.getRole().getPermissions()) : 0L,
+                account.getVersion(), roleGeneration);
+    }
+
+    /**
+     * Whether the principal was read at these versions
+     *
+     * @param version
+     * @param roleGeneration
+     * @return
+     */
+    public boolean matches(long version, long roleGeneration) {
+        return this.version == version && this.roleGeneration == roleGeneration;
+    }
+
+    /**
+     * Whether the account's role had a permission when the principal was read
+     *
+     * @param permission
+     * @return
+     */
+    public boolean has(UserPermission permission) {
+        return permission != null && (permissions & (1L << permission.ordinal())) != 0;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public boolean hasPassword() {
+        return hasPassword;
+    }
+
+    public List<Long> getFollowedCampaignIds() {
+        return followedCampaignIds;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public int getPowerLevel() {
+        return powerLevel;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getRoleGeneration() {
+        return roleGeneration;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal [accountId=" + accountId + ", roleId=" + roleId + ", version=" + version + "]";
+    }
+}
@@ -1,36 +1,150 @@
 package com.khoi.lab.service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import com.khoi.lab.dao.AccountDAO;
 import com.khoi.lab.entity.Account;
+import com.khoi.lab.object.AccountChangedEvent;
+import com.khoi.lab.object.SessionPrincipal;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 /**
- * Campaign status updater service
+ * Account session updater service.
+ * The session only holds a SessionPrincipal stamped with the account version
+ * and role generation it was read at, and it is only rebuilt once one of them
+ * moves. Versions of recently seen accounts are kept in a bounded LRU map and
+ * updated as accounts change, so an unchanged session costs no query. An
+ * account that fell out of the map is simply read again.
  */
 @Service
 public class AccountSessionUpdaterService implements HandlerInterceptor {
+    public static final String PRINCIPAL = "principal";
+
     @Autowired
     private AccountDAO accountDAO;
 
+    @Autowired
+    private UserPermissionService userPermissionService;
+
+    private final Map<Long, Long> versions;
+
+    public AccountSessionUpdaterService(@Value("${session.account-versions.max-entries:10000}") int maxEntries) {
+        this.versions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
     @SuppressWarnings("null")
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
             throws Exception {
         HttpSession session = request.getSession(false);
-        if (session != null) {
-            Account account = (Account) session.getAttribute("account");
-            if (account != null) {
-                Account updatedAccount = accountDAO.accountFindWithId(account.getId());
-                session.setAttribute("account", updatedAccount);
+        if (session == null) {
+            return true;
+        }
+        SessionPrincipal principal = (SessionPrincipal) session.getAttribute(PRINCIPAL);
+        if (principal == null) {
+            return true;
+        }
+
+        long roleGeneration = userPermissionService.getRoleGeneration();
+        Long version = accountVersion(principal.getAccountId());
+        if (version == null) {
+            // account no longer exists
+            session.removeAttribute(PRINCIPAL);
+            return true;
+        }
+
+        if (!principal.matches(version, roleGeneration)) {
+            Account updatedAccount = accountDAO.accountFindWithId(principal.getAccountId());
+            if (updatedAccount == null) {
+                session.removeAttribute(PRINCIPAL);
+            } else {
+                versions.merge(updatedAccount.getId(), updatedAccount.getVersion(), Math::max);
+                session.setAttribute(PRINCIPAL, SessionPrincipal.of(updatedAccount, roleGeneration));
             }
         }
         return true;
     }
+
+    /**
+     * Log an account into a session
+     *
+     * @param session
+     * @param account
+     */
+    public void login(HttpSession session, Account account) {
+        session.setAttribute(PRINCIPAL, SessionPrincipal.of(account, userPermissionService.getRoleGeneration()));
+    }
+
+    /**
+     * Log the session's account out
+     *
+     * @param session
+     */
+    public void logout(HttpSession session) {
+        session.removeAttribute(PRINCIPAL);
+    }
+
+    /**
+     * The session's principal
+     *
+     * @param session
+     * @return null if not logged in
+     */
+    public static SessionPrincipal principal(HttpSession session) {
+        return (SessionPrincipal) session.getAttribute(PRINCIPAL);
+    }
+
+    /**
+     * Load the session's account, for handlers that need the entity
+     *
+     * @param session
+     * @return null if not logged in or the account no longer exists
+     */
+    public Account account(HttpSession session) {
+        SessionPrincipal principal = principal(session);
+        return principal == null ? null : accountDAO.accountFindWithId(principal.getAccountId());
+    }
+
+    /**
+     * Record the new version of an account once its update is committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        versions.merge(event.getAccountId(), event.getVersion(), Math::max);
+    }
+
+    /**
+     * Latest known version of an account, read from the database on first use
+     *
+     * @param accountId
+     * @return null if the account doesn't exist
+     */
+    private Long accountVersion(Long accountId) {
+        Long version = versions.get(accountId);
+        if (version == null) {
+            version = accountDAO.accountVersionFindWithId(accountId);
+            if (version != null) {
+                versions.merge(accountId, version, Math::max);
+            }
+        }
+        return version;
+    }
 }
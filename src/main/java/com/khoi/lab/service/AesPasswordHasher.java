@@ -0,0 +1,24 @@
+package com.khoi.lab.service;
+
+/**
+ * Legacy password hasher.
+ * Stores the AES encryption of the password, as accounts always were. The
+ * encryption is deterministic so checking a password is one cheap encrypt
+ * and compare, but anyone holding the key can read every password back.
+ */
+public class AesPasswordHasher implements PasswordHasher {
+    @Override
+    public String hash(String password) {
+        return CryptographyService.encrypt(password);
+    }
+
+    @Override
+    public boolean matches(String password, String stored) {
+        return stored != null && stored.equals(hash(password));
+    }
+
+    @Override
+    public String toString() {
+        return "aes";
+    }
+}
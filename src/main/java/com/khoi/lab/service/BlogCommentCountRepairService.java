@@ -0,0 +1,36 @@
+package com.khoi.lab.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.BlogDAO;
+
+/**
+ * Blog comment count repair service.
+ * Comment counts on blog posts are maintained incrementally; this recounts
+ * them on startup (filling in the column for existing posts) and nightly.
+ */
+@Service
+public class BlogCommentCountRepairService {
+    private static final Logger log = LoggerFactory.getLogger(BlogCommentCountRepairService.class);
+
+    private final BlogDAO blogDAO;
+
+    public BlogCommentCountRepairService(BlogDAO blogDAO) {
+        this.blogDAO = blogDAO;
+    }
+
+    /**
+     * Recount all blog post comment counts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 45 3 * * *")
+    public void repairCommentCounts() {
+        log.info("Recounting blog post comments...");
+        blogDAO.blogPostCommentCountsRebuild();
+    }
+}
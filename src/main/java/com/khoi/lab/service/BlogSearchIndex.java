@@ -0,0 +1,405 @@
+package com.khoi.lab.service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.khoi.lab.dao.BlogDAO;
+import com.khoi.lab.entity.BlogPost;
+import com.khoi.lab.object.BlogPostChangedEvent;
+
+/**
+ * In memory inverted index over blog post titles and descriptions.
+ * Text is folded to lowercase ASCII (Vietnamese diacritics and đ removed) so
+ * "tre em" finds "trẻ em". A search returns the posts containing every query
+ * term, the last term also matching as a prefix, ranked with BM25. Title
+ * terms count twice.
+ */
+@Service
+public class BlogSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(BlogSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final long MAX_PACKED_ID = 0xFFFFFFFFL;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final BlogDAO blogDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> posts containing it
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    // post id -> slot, slots index the arrays below and are reused after removal
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long[] postIds = new long[64];
+    private int[] lengths = new int[64];
+    private String[][] slotTerms = new String[64][];
+    private int slotCount = 0;
+    private long totalLength = 0;
+
+    public BlogSearchIndex(BlogDAO blogDAO) {
+        this.blogDAO = blogDAO;
+    }
+
+    /**
+     * Fold text for indexing: strip diacritics, map đ to d and lowercase
+     *
+     * @param text
+     * @return
+     */
+    public static String fold(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return folded.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split text into folded terms
+     *
+     * @param text
+     * @return
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(fold(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Build the index from every post once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuild(blogDAO.listBlogPosts());
+    }
+
+    /**
+     * Replace the index content with the given posts
+     *
+     * @param blogPosts
+     */
+    public void rebuild(Collection<BlogPost> blogPosts) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slots.clear();
+            freeSlots.clear();
+            slotCount = 0;
+            totalLength = 0;
+            for (BlogPost blogPost : blogPosts) {
+                add(blogPost.getId(), blogPost.getTitle(), blogPost.getDescription());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} blog posts, {} terms", size(), termCount());
+    }
+
+    /**
+     * Keep the index in step once a blog post change is committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostChanged(BlogPostChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getBlogPostId());
+        } else {
+            index(event.getBlogPostId(), event.getTitle(), event.getDescription());
+        }
+    }
+
+    /**
+     * Add or replace a post
+     *
+     * @param blogPostId
+     * @param title
+     * @param description
+     */
+    public void index(Long blogPostId, String title, String description) {
+        if (blogPostId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(blogPostId);
+            add(blogPostId, title, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a post
+     *
+     * @param blogPostId
+     */
+    public void remove(Long blogPostId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(blogPostId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the posts matching every term of the query, best match first
+     *
+     * @param query
+     * @return
+     */
+    public List<Long> search(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = slots.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            // resolve every term first so the rarest one is scanned first, later
+            // terms then only score posts that are still in the running
+            List<Collection<Postings>> matches = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Collection<Postings> termMatches;
+                if (i == terms.size() - 1 && term.length() >= MIN_PREFIX_LENGTH) {
+                    termMatches = postings.subMap(term, true, term + Character.MAX_VALUE, false).values();
+                } else {
+                    Postings exact = postings.get(term);
+                    termMatches = exact == null ? List.of() : List.of(exact);
+                }
+                if (termMatches.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(termMatches);
+            }
+            matches.sort(Comparator.comparingInt(BlogSearchIndex::postingCount));
+
+            double averageLength = (double) totalLength / docCount;
+            double[] norms = new double[slotCount];
+            for (int slot = 0; slot < slotCount; slot++) {
+                norms[slot] = K1 * (1 - B + B * lengths[slot] / averageLength);
+            }
+            double[] scores = new double[slotCount];
+            // number of leading terms a post matched, a post is a hit once it
+            // reaches terms.size()
+            int[] matched = new int[slotCount];
+
+            for (int i = 0; i < matches.size(); i++) {
+                for (Postings posting : matches.get(i)) {
+                    double idf = Math.log(1 + (docCount - posting.size + 0.5) / (posting.size + 0.5));
+                    int[] postingSlots = posting.slots;
+                    int[] frequencies = posting.frequencies;
+                    for (int j = 0; j < posting.size; j++) {
+                        int slot = postingSlots[j];
+                        if (matched[slot] < i) {
+                            continue;
+                        }
+                        int tf = frequencies[j];
+                        scores[slot] += idf * tf * (K1 + 1) / (tf + norms[slot]);
+                        matched[slot] = i + 1;
+                    }
+                }
+            }
+
+            // pack (score, id) into one long so the hits sort as primitives,
+            // scores are positive so their float bits order like the scores
+            long[] hits = new long[slotCount];
+            int hitCount = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (matched[slot] == terms.size()) {
+                    if (postIds[slot] > MAX_PACKED_ID) {
+                        return rankBoxed(scores, matched, terms.size());
+                    }
+                    hits[hitCount++] = (long) Float.floatToIntBits((float) scores[slot]) << 32 | postIds[slot];
+                }
+            }
+            Arrays.sort(hits, 0, hitCount);
+            List<Long> ids = new ArrayList<>(hitCount);
+            for (int i = hitCount - 1; i >= 0; i--) {
+                ids.add(hits[i] & MAX_PACKED_ID);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed posts
+     *
+     * @return
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct indexed terms
+     *
+     * @return
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rank hits with a comparator, only needed once post ids no longer fit
+     * in 32 bits
+     */
+    private List<Long> rankBoxed(double[] scores, int[] matched, int termCount) {
+        List<Integer> hits = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (matched[slot] == termCount) {
+                hits.add(slot);
+            }
+        }
+        hits.sort((a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Long.compare(postIds[b], postIds[a]);
+        });
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (int slot : hits) {
+            ids.add(postIds[slot]);
+        }
+        return ids;
+    }
+
+    private static int postingCount(Collection<Postings> termMatches) {
+        int count = 0;
+        for (Postings posting : termMatches) {
+            count += posting.size;
+        }
+        return count;
+    }
+
+    private void add(Long blogPostId, String title, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(title)) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(description)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+        ensureCapacity(slotCount);
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(slot, entry.getValue());
+            length += entry.getValue();
+        }
+        slots.put(blogPostId, slot);
+        postIds[slot] = blogPostId;
+        lengths[slot] = length;
+        slotTerms[slot] = frequencies.keySet().toArray(new String[0]);
+        totalLength += length;
+    }
+
+    private void removeLocked(Long blogPostId) {
+        Integer slot = slots.remove(blogPostId);
+        if (slot == null) {
+            return;
+        }
+        for (String term : slotTerms[slot]) {
+            Postings posting = postings.get(term);
+            if (posting != null && posting.remove(slot) && posting.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths[slot];
+        lengths[slot] = 0;
+        slotTerms[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > postIds.length) {
+            int newLength = Math.max(capacity, postIds.length * 2);
+            postIds = Arrays.copyOf(postIds, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            slotTerms = Arrays.copyOf(slotTerms, newLength);
+        }
+    }
+
+    /**
+     * Slots of the posts containing a term, with the term's weighted
+     * frequency in each
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int[] frequencies = new int[4];
+        private int size = 0;
+
+        private void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        private boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
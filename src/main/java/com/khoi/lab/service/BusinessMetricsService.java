@@ -0,0 +1,57 @@
+package com.khoi.lab.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.DonationStatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Business metrics service.
+ * Publishes gauges of pending donations, open campaigns and donations made
+ * in the last minute. They are counted on a schedule rather than on every
+ * scrape so that metric scrapes never reach the database.
+ */
+@Service
+public class BusinessMetricsService {
+    private static final Logger log = LoggerFactory.getLogger(BusinessMetricsService.class);
+
+    private final DonationDAO donationDAO;
+
+    private final AtomicLong pendingDonations = new AtomicLong();
+    private final AtomicLong openCampaigns = new AtomicLong();
+    private final AtomicLong donationsLastMinute = new AtomicLong();
+
+    public BusinessMetricsService(DonationDAO donationDAO, MeterRegistry meterRegistry) {
+        this.donationDAO = donationDAO;
+        Gauge.builder("donations.pending", pendingDonations, AtomicLong::get)
+                .description("Donations waiting for confirmation").register(meterRegistry);
+        Gauge.builder("campaigns.open", openCampaigns, AtomicLong::get)
+                .description("Campaigns open for donations").register(meterRegistry);
+        Gauge.builder("donations.per_minute", donationsLastMinute, AtomicLong::get)
+                .description("Donations made in the last minute").register(meterRegistry);
+    }
+
+    /**
+     * Recount the gauges
+     */
+    @Scheduled(fixedDelayString = "${metrics.business.refresh-millis:30000}", initialDelay = 10000)
+    public void refresh() {
+        try {
+            pendingDonations.set(donationDAO.donationCountByStatus(DonationStatus.PENDING));
+            openCampaigns.set(donationDAO.campaignCountByStatus(CampaignStatus.OPEN));
+            donationsLastMinute.set(donationDAO.donationCountSince(LocalDateTime.now().minusMinutes(1)));
+        } catch (RuntimeException e) {
+            log.warn("Couldn't refresh business metrics: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.khoi.lab.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.DonationDAO;
+
+/**
+ * Campaign counter repair service.
+ * Donation counters on campaigns are maintained incrementally; this rebuilds
+ * them from the donation table on startup and nightly to undo any drift.
+ */
+@Service
+public class CampaignCounterRepairService {
+    private static final Logger log = LoggerFactory.getLogger(CampaignCounterRepairService.class);
+
+    private final DonationDAO donationDAO;
+
+    public CampaignCounterRepairService(DonationDAO donationDAO) {
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * Rebuild all campaign counters
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 3 * * *")
+    public void repairCampaignCounters() {
+        log.info("Rebuilding campaign donation counters...");
+        donationDAO.campaignCountersRebuild();
+    }
+}
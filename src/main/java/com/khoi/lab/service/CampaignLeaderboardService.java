@@ -0,0 +1,121 @@
+package com.khoi.lab.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.object.DonationStatusChangedEvent;
+import com.khoi.lab.object.LeaderboardEntry;
+
+/**
+ * Per campaign top donors cache.
+ * Each campaign's top K donors are read once with a grouped query. When a
+ * donation is confirmed only its donor's total is re-read and merged into
+ * the list. When a donation leaves CONFIRMED and its donor is on the list,
+ * a donor outside it might overtake, so the campaign is dropped and reloaded
+ * on the next view.
+ */
+@Service
+public class CampaignLeaderboardService {
+    public static final int LEADERBOARD_SIZE = 10;
+
+    private static final Comparator<LeaderboardEntry> ORDER = Comparator
+            .comparingLong(LeaderboardEntry::getTotalAmount).reversed()
+            .thenComparing(LeaderboardEntry::getLastDonateTime, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final DonationDAO donationDAO;
+    private final Map<Long, List<LeaderboardEntry>> leaderboards = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public CampaignLeaderboardService(DonationDAO donationDAO) {
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * Top donors of a campaign, highest total first
+     *
+     * @param campaignId
+     * @return
+     */
+    public List<LeaderboardEntry> getLeaderboard(Long campaignId) {
+        List<LeaderboardEntry> leaderboard = leaderboards.get(campaignId);
+        if (leaderboard != null) {
+            return leaderboard;
+        }
+        // don't cache a list read before a donation change that raced with it
+        long loadedGeneration = generation.get();
+        leaderboard = List.copyOf(donationDAO.campaignLeaderboard(campaignId, LEADERBOARD_SIZE));
+        if (generation.get() == loadedGeneration) {
+            leaderboards.putIfAbsent(campaignId, leaderboard);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Merge a confirmed donation into its campaign's list once committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationStatusChanged(DonationStatusChangedEvent event) {
+        boolean confirmed = event.getNewStatus() == DonationStatus.CONFIRMED
+                && event.getOldStatus() != DonationStatus.CONFIRMED;
+        boolean unconfirmed = event.getOldStatus() == DonationStatus.CONFIRMED
+                && event.getNewStatus() != DonationStatus.CONFIRMED;
+        if (!confirmed && !unconfirmed) {
+            return;
+        }
+        generation.incrementAndGet();
+        Long campaignId = event.getCampaignId();
+        if (campaignId == null || !leaderboards.containsKey(campaignId)) {
+            return;
+        }
+        if (confirmed) {
+            LeaderboardEntry entry = donationDAO.campaignLeaderboardEntry(campaignId, event.getAccountId());
+            leaderboards.computeIfPresent(campaignId, (id, leaderboard) -> merge(leaderboard, entry));
+        } else {
+            leaderboards.computeIfPresent(campaignId,
+                    (id, leaderboard) -> contains(leaderboard, event.getAccountId()) ? null : leaderboard);
+        }
+    }
+
+    /**
+     * Replace a donor's entry with its new total and keep the best K
+     *
+     * @param leaderboard
+     * @param entry
+     * @return
+     */
+    static List<LeaderboardEntry> merge(List<LeaderboardEntry> leaderboard, LeaderboardEntry entry) {
+        if (entry == null) {
+            return leaderboard;
+        }
+        List<LeaderboardEntry> merged = new ArrayList<>(leaderboard.size() + 1);
+        for (LeaderboardEntry existing : leaderboard) {
+            if (!Objects.equals(existing.getAccountId(), entry.getAccountId())) {
+                merged.add(existing);
+            }
+        }
+        merged.add(entry);
+        merged.sort(ORDER);
+        return List.copyOf(merged.subList(0, Math.min(merged.size(), LEADERBOARD_SIZE)));
+    }
+
+    private static boolean contains(List<LeaderboardEntry> leaderboard, Long accountId) {
+        for (LeaderboardEntry entry : leaderboard) {
+            if (Objects.equals(entry.getAccountId(), accountId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,176 @@
+package com.khoi.lab.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.object.CampaignChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Campaign lifecycle scheduler.
+ * Keeps one timer per campaign for its next time based transition (CREATED
+ * campaigns open at startTime, COMPLETE campaigns close at endTime) and fires
+ * it when it's due. Timers sit in the executor's delay queue, a binary heap
+ * ordered by deadline, so a single thread sleeps until the earliest one.
+ * The index is reloaded for a campaign whenever it is saved, updated or
+ * deleted.
+ */
+@Service
+public class CampaignLifecycleScheduler {
+    private static final Logger log = LoggerFactory.getLogger(CampaignLifecycleScheduler.class);
+
+    private final DonationDAO donationDAO;
+    private final CampaignStatusUpdaterService statusUpdaterService;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<Long, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
+
+    public CampaignLifecycleScheduler(DonationDAO donationDAO, CampaignStatusUpdaterService statusUpdaterService,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.donationDAO = donationDAO;
+        this.statusUpdaterService = statusUpdaterService;
+        this.executor = new ScheduledThreadPoolExecutor(1, virtualThreads
+                ? Thread.ofVirtual().name("campaign-lifecycle").factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "campaign-lifecycle");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Time of the next status transition driven by the clock, null if the
+     * campaign's next transition depends on donations instead
+     *
+     * @param campaign
+     * @return
+     */
+    public static LocalDateTime nextDeadline(Campaign campaign) {
+        if (campaign.getStatus() == null) {
+            return null;
+        }
+        switch (campaign.getStatus()) {
+            case CREATED:
+                return campaign.getStartTime();
+            case COMPLETE:
+                return campaign.getEndTime();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Index every campaign once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        for (Campaign campaign : donationDAO.campaignList()) {
+            schedule(campaign);
+        }
+        log.info("Indexed {} campaign deadlines", timers.size());
+    }
+
+    /**
+     * Re-index a campaign after its changes are committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampaignChanged(CampaignChangedEvent event) {
+        reload(event.getCampaignId());
+    }
+
+    /**
+     * Re-read a campaign and replace its timer
+     *
+     * @param campaignId
+     */
+    public void reload(Long campaignId) {
+        if (campaignId == null) {
+            return;
+        }
+        Campaign campaign = donationDAO.campaignFindById(campaignId);
+        if (campaign == null) {
+            cancel(campaignId);
+        } else {
+            schedule(campaign);
+        }
+    }
+
+    /**
+     * Replace the timer of a campaign with one for its next deadline
+     *
+     * @param campaign
+     */
+    public void schedule(Campaign campaign) {
+        Long campaignId = campaign.getId();
+        LocalDateTime deadline = nextDeadline(campaign);
+        if (deadline == null) {
+            cancel(campaignId);
+            return;
+        }
+        long delayMillis = Math.max(0, Duration.between(LocalDateTime.now(), deadline).toMillis());
+        ScheduledFuture<?> timer = executor.schedule(() -> fire(campaignId), delayMillis, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = timers.put(campaignId, timer);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Number of campaigns with a pending timer
+     *
+     * @return
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Run the due transition, then index whatever comes next
+     *
+     * @param campaignId
+     */
+    private void fire(Long campaignId) {
+        log.info("Deadline reached for campaign: {}", campaignId);
+        try {
+            Campaign campaign = statusUpdaterService.updateCampaignStatus(campaignId);
+            if (campaign == null) {
+                cancel(campaignId);
+            } else {
+                schedule(campaign);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Transition failed for campaign: {}, leaving it to the reconciliation sweep: {}",
+                    campaignId, e.getMessage());
+        }
+    }
+
+    private void cancel(Long campaignId) {
+        ScheduledFuture<?> previous = timers.remove(campaignId);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
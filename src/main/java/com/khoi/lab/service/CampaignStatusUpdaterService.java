@@ -1,5 +1,7 @@
 package com.khoi.lab.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,101 +18,156 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * Campaign status updater service
  */
 @Service
 public class CampaignStatusUpdaterService {
+    private static final Logger log = LoggerFactory.getLogger(CampaignStatusUpdaterService.class);
+
     private final DonationDAO donationDAO;
     private final EmailSenderService senderService;
+    private final MeterRegistry meterRegistry;
+    private final Timer sweepTimer;
 
-    public CampaignStatusUpdaterService(DonationDAO donationDAO, EmailSenderService senderService) {
+    public CampaignStatusUpdaterService(DonationDAO donationDAO, EmailSenderService senderService,
+            MeterRegistry meterRegistry) {
         this.donationDAO = donationDAO;
         this.senderService = senderService;
+        this.meterRegistry = meterRegistry;
+        this.sweepTimer = Timer.builder("campaign.status.sweep")
+                .description("Time taken by the campaign status reconciliation sweep").register(meterRegistry);
     }
 
     /**
-     * Update campaign statuses
+     * Reconciliation sweep over every campaign. Deadlines are normally handled
+     * on time by CampaignLifecycleScheduler, this only catches anything it
+     * missed.
      */
-    @Scheduled(fixedRate = 60000)
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
     @Transactional
     public void updateCampaignStatuses() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Campaign> campaigns = donationDAO.campaignList();
-
-        System.out.println("| [service:CampaignStatusUpdater] Periodic checking campaign statuses...");
-
-        for (Campaign campaign : campaigns) {
-            String eventName = "";
-
-            // check change of status
-            switch (campaign.getStatus()) {
-                case CampaignStatus.CREATED:
-                    if (now.isAfter(campaign.getStartTime()) || now.isEqual(campaign.getStartTime())) {
-                        eventName = "CAMPAIGN_OPENED";
-                        donationDAO.campaignChangeStatus(campaign, CampaignStatus.OPEN);
-                        System.out.println("| [service:CampaignStatusUpdater] Campaign: " + campaign.getId()
-                                + " updated status CREATED -> OPEN");
-                    }
-                    break;
-                case CampaignStatus.OPEN:
-                    if (campaign.getDonatedAmount() >= campaign.getGoal()) {
-                        eventName = "CAMPAIGN_COMPLETED";
-                        donationDAO.campaignChangeStatus(campaign, CampaignStatus.COMPLETE);
-                        System.out.println("| [service:CampaignStatusUpdater] Campaign: " + campaign.getId()
-                                + " updated status OPEN -> COMPLETE");
-                    }
-                    break;
-                case CampaignStatus.COMPLETE:
-                    if (now.isAfter(campaign.getEndTime()) || now.isEqual(campaign.getEndTime())) {
-                        eventName = "CAMPAIGN_CLOSED";
-                        donationDAO.campaignChangeStatus(campaign, CampaignStatus.CLOSED);
-                        System.out.println("| [service:CampaignStatusUpdater] Campaign: " + campaign.getId()
-                                + " updated status COMPLETE -> CLOSED");
-                    }
-                    break;
-                case CampaignStatus.CLOSED:
-                    if ((now.isAfter(campaign.getStartTime()) || now.isEqual(campaign.getStartTime()))
-                            && campaign.getDonatedPercentageCapped() < 100) {
-                        eventName = "CAMPAIGN_REOPENED";
-                        donationDAO.campaignChangeStatus(campaign, CampaignStatus.OPEN);
-                        System.out.println("| [service:CampaignStatusUpdater] Campaign: " + campaign.getId()
-                                + " updated status CLOSED -> OPEN");
-                    }
-                    break;
+        sweepTimer.record(() -> {
+            List<Campaign> campaigns = donationDAO.campaignList();
+
+            log.info("Periodic checking campaign statuses...");
+
+            for (Campaign campaign : campaigns) {
+                updateCampaignStatus(campaign);
+            }
+        });
+    }
+
+    /**
+     * Update the status of a single campaign
+     *
+     * @param campaignId
+     * @return the campaign, null if it no longer exists
+     */
+    @Transactional
+    public Campaign updateCampaignStatus(Long campaignId) {
+        Campaign campaign = donationDAO.campaignFindById(campaignId);
+        if (campaign != null) {
+            updateCampaignStatus(campaign);
+        }
+        return campaign;
+    }
+
+    /**
+     * Apply every transition the campaign is due for, e.g. a campaign opening
+     * with its goal already met goes CREATED -> OPEN -> COMPLETE
+     *
+     * @param campaign
+     */
+    public void updateCampaignStatus(Campaign campaign) {
+        for (int i = 0; i < CampaignStatus.values().length; i++) {
+            if (!applyNextTransition(campaign)) {
+                return;
             }
+        }
+    }
+
+    /**
+     * Apply the next due transition of a campaign and notify its followers
+     *
+     * @param campaign
+     * @return whether the status changed
+     */
+    private boolean applyNextTransition(Campaign campaign) {
+        LocalDateTime now = LocalDateTime.now();
+        CampaignStatus previousStatus = campaign.getStatus();
+        String eventName = "";
 
-            // skip the below if no events happened
-            if (eventName == "")
-                continue;
-
-            // send notifications to subscribed accounts
-            for (AccountCampaignFollower acf : campaign.getFollowers().stream()
-                    .filter(acf_ -> acf_.isReceiveNotifications())
-                    .collect(Collectors.toList())) {
-                Account followerAccount = acf.getAccount();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-                List<String> template = EmailTemplates.getEmailTemplateForEvent(eventName);
-                if (template == null) {
-                    System.out.println("| [service:CampaignStatusUpdater] Unrecognized event " + eventName
-                            + ", skipping mail send.");
-                    return;
+        // check change of status
+        switch (campaign.getStatus()) {
+            case CampaignStatus.CREATED:
+                if (now.isAfter(campaign.getStartTime()) || now.isEqual(campaign.getStartTime())) {
+                    eventName = "CAMPAIGN_OPENED";
+                    donationDAO.campaignChangeStatus(campaign, CampaignStatus.OPEN);
+                    log.info("Campaign: {} updated status CREATED -> OPEN", campaign.getId());
+                }
+                break;
+            case CampaignStatus.OPEN:
+                if (campaign.getDonatedAmount() >= campaign.getGoal()) {
+                    eventName = "CAMPAIGN_COMPLETED";
+                    donationDAO.campaignChangeStatus(campaign, CampaignStatus.COMPLETE);
+                    log.info("Campaign: {} updated status OPEN -> COMPLETE", campaign.getId());
+                }
+                break;
+            case CampaignStatus.COMPLETE:
+                if (now.isAfter(campaign.getEndTime()) || now.isEqual(campaign.getEndTime())) {
+                    eventName = "CAMPAIGN_CLOSED";
+                    donationDAO.campaignChangeStatus(campaign, CampaignStatus.CLOSED);
+                    log.info("Campaign: {} updated status COMPLETE -> CLOSED", campaign.getId());
                 }
-                String subject = template.get(0);
-                String description = template.get(1)
-                        .replace("{CAMPAIGN_NAME}", campaign.getName())
-                        .replace("{CAMPAIGN_GOAL}", campaign.getGoal() + "đ")
-                        .replace("{CAMPAIGN_END_TIME}", campaign.getEndTime().format(formatter))
-                        .replace("{CAMPAIGN_LINK}", "http://localhost:8080/campaigns/campaign?id=" + campaign.getId());
-
-                new Thread(() -> {
-                    senderService.sendEmail(followerAccount.getEmail(), subject, description);
-                }).start();
-
-                System.out.println("| [service:CampaignStatusUpdater] User: " + followerAccount.getId()
-                        + " received a notification via email!");
+                break;
+            case CampaignStatus.CLOSED:
+                if ((now.isAfter(campaign.getStartTime()) || now.isEqual(campaign.getStartTime()))
+                        && campaign.getDonatedPercentageCapped() < 100) {
+                    eventName = "CAMPAIGN_REOPENED";
+                    donationDAO.campaignChangeStatus(campaign, CampaignStatus.OPEN);
+                    log.info("Campaign: {} updated status CLOSED -> OPEN", campaign.getId());
+                }
+                break;
+        }
+
+        // skip the below if no events happened
+        if (eventName == "")
+            return false;
+
+        Counter.builder("campaign.status.transitions")
+                .tag("from", previousStatus.name())
+                .tag("event", eventName)
+                .register(meterRegistry)
+                .increment();
+
+        // send notifications to subscribed accounts
+        for (AccountCampaignFollower acf : campaign.getFollowers().stream()
+                .filter(acf_ -> acf_.isReceiveNotifications())
+                .collect(Collectors.toList())) {
+            Account followerAccount = acf.getAccount();
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+            List<String> template = EmailTemplates.getEmailTemplateForEvent(eventName);
+            if (template == null) {
+                log.warn("Unrecognized event {}, skipping mail send.", eventName);
+                return true;
             }
+            String subject = template.get(0);
+            String description = template.get(1)
+                    .replace("{CAMPAIGN_NAME}", campaign.getName())
+                    .replace("{CAMPAIGN_GOAL}", campaign.getGoal() + "đ")
+                    .replace("{CAMPAIGN_END_TIME}", campaign.getEndTime().format(formatter))
+                    .replace("{CAMPAIGN_LINK}", "http://localhost:8080/campaigns/campaign?id=" + campaign.getId());
+
+            senderService.queueEmail(followerAccount.getEmail(), subject, description);
+
+            log.debug("User: {} queued a notification email!", followerAccount.getId());
         }
+        return true;
     }
 }
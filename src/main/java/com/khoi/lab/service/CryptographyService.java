@@ -1,56 +1,138 @@
 package com.khoi.lab.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 /**
- * Cryptography tasks encrypt/decrypt strings
+ * Cryptography tasks encrypt/decrypt strings and hash passwords.
+ * The key is built once and initialized ciphers are borrowed from a small
+ * shared pool per mode: Cipher is not thread safe, but AES/ECB carries no
+ * state between doFinal calls so a returned cipher can serve the next caller.
+ * A pool rather than a per thread cache, so virtual threads, which never
+ * reuse a thread, don't build a cipher per request.
+ *
+ * Account passwords go through the PasswordHasher picked by password.hasher:
+ * aes (default) keeps the reversible encryption existing rows were stored
+ * with, pbkdf2 stores salted PBKDF2 hashes costing password.hash.iterations
+ * and upgrades aes rows as their owners log in. PasswordHasherConfig
+ * installs it at startup.
  */
 @Service
 public class CryptographyService {
+    private static final Logger log = LoggerFactory.getLogger(CryptographyService.class);
+
     private static final String ALGORITHM = "AES";
     private static final String SECRET_KEY = "lab301xsecretkey";
+    private static final SecretKeySpec KEY = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8),
+            ALGORITHM);
+    // idle ciphers kept per mode, callers beyond it build a throwaway cipher
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final BlockingQueue<Cipher> ENCRYPT_CIPHERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Cipher> DECRYPT_CIPHERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    // installed once at startup by PasswordHasherConfig
+    private static volatile PasswordHasher passwordHasher = new AesPasswordHasher();
+
+    /**
+     * Encrypt input bytes
+     *
+     * @param bytes
+     * @return
+     */
+    public static byte[] encrypt(byte[] bytes) throws GeneralSecurityException {
+        return doFinal(ENCRYPT_CIPHERS, Cipher.ENCRYPT_MODE, bytes);
+    }
+
+    /**
+     * Decrypt input bytes
+     *
+     * @param bytes
+     * @return
+     */
+    public static byte[] decrypt(byte[] bytes) throws GeneralSecurityException {
+        return doFinal(DECRYPT_CIPHERS, Cipher.DECRYPT_MODE, bytes);
+    }
 
     /**
      * Encrypt input string
-     * 
+     *
      * @param string
-     * @return
+     * @return Base64 of the encrypted UTF-8 bytes
      */
     public static String encrypt(String string) {
         try {
-            SecretKeySpec secretKey = new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] encryptedBytes = cipher.doFinal(string.getBytes());
-            return Base64.getEncoder().encodeToString(encryptedBytes);
-        } catch (Exception e) {
-            e.printStackTrace();
+            return Base64.getEncoder().encodeToString(encrypt(string.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            log.error("Couldn't encrypt", e);
         }
         return null;
     }
 
     /**
      * Decrypt input string
-     * 
-     * @param string
+     *
+     * @param string Base64 of the encrypted bytes
      * @return
      */
     public static String decrypt(String string) {
         try {
-            SecretKeySpec secretKey = new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] encryptedBytes = Base64.getDecoder().decode(string);
-            byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
-            return new String(decryptedBytes);
-        } catch (Exception e) {
-            e.printStackTrace();
+            return new String(decrypt(Base64.getDecoder().decode(string)), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("Couldn't decrypt", e);
         }
         return null;
     }
+
+    /**
+     * The password hasher accounts are stored with
+     *
+     * @return
+     */
+    public static PasswordHasher getPasswordHasher() {
+        return passwordHasher;
+    }
+
+    /**
+     * Replace the password hasher, set at startup by PasswordHasherConfig.
+     * Tests swapping it restore the previous hasher when done.
+     *
+     * @param hasher
+     */
+    public static void setPasswordHasher(PasswordHasher hasher) {
+        passwordHasher = hasher;
+    }
+
+    private static byte[] doFinal(BlockingQueue<Cipher> pool, int mode, byte[] bytes)
+            throws GeneralSecurityException {
+        Cipher cipher = pool.poll();
+        if (cipher == null) {
+            cipher = cipher(mode);
+        }
+        // a failed doFinal resets the cipher, so it is returned either way
+        try {
+            return cipher.doFinal(bytes);
+        } finally {
+            pool.offer(cipher);
+        }
+    }
+
+    private static Cipher cipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(mode, KEY);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not available", e);
+        }
+    }
 }
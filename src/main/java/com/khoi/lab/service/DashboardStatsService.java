@@ -0,0 +1,75 @@
+package com.khoi.lab.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.object.DashboardStats;
+import com.khoi.lab.object.DonationStatusChangedEvent;
+
+/**
+ * Keeps a precomputed admin dashboard snapshot. Requests read the current
+ * snapshot, refreshes build a new one off the request path and swap it in.
+ */
+@Service
+public class DashboardStatsService {
+    private static final Duration MAX_AGE = Duration.ofSeconds(60);
+
+    private final DonationDAO donationDAO;
+    private final AtomicReference<DashboardStats> snapshot = new AtomicReference<>();
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+
+    public DashboardStatsService(DonationDAO donationDAO) {
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * Current snapshot, computed on the spot only if none exists yet
+     *
+     * @return
+     */
+    public DashboardStats getSnapshot() {
+        DashboardStats stats = snapshot.get();
+        return stats != null ? stats : refresh();
+    }
+
+    /**
+     * Compute a new snapshot and swap it in
+     *
+     * @return
+     */
+    public DashboardStats refresh() {
+        stale.set(false);
+        DashboardStats stats = donationDAO.dashboardStatsCompute();
+        snapshot.set(stats);
+        return stats;
+    }
+
+    /**
+     * Refresh when a donation changed or the snapshot is too old
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void refreshIfStale() {
+        DashboardStats stats = snapshot.get();
+        if (stale.get() || stats == null
+                || stats.getComputedAt().isBefore(LocalDateTime.now().minus(MAX_AGE))) {
+            refresh();
+        }
+    }
+
+    /**
+     * Mark the snapshot stale once a donation change has been committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationStatusChanged(DonationStatusChangedEvent event) {
+        stale.set(true);
+    }
+}
@@ -0,0 +1,273 @@
+package com.khoi.lab.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.khoi.lab.dao.AccountDAO;
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.entity.Role;
+import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.object.DatasetReport;
+
+/**
+ * Synthetic dataset generator.
+ * Fills the database with a production sized dataset for a scale factor:
+ * SF1 is 1k accounts, 100 campaigns and 100k donations, SF10 and SF100 ten
+ * and a hundred times that. The same scale factor and seed give the same
+ * rows, donate times being relative to the time of the run. Rows go in
+ * through JDBC batch inserts, donations in chunks spread over a few threads,
+ * bypassing the DAOs which save one donation at a time. On MySQL the
+ * connection url should carry rewriteBatchedStatements=true so each batch is
+ * sent as one multi-row insert.
+ */
+@Service
+public class DatasetGenerator {
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    public static final int ACCOUNTS_PER_SCALE = 1000;
+    public static final int CAMPAIGNS_PER_SCALE = 100;
+    public static final int DONATIONS_PER_SCALE = 100000;
+
+    // donations per worker task, each chunk draws from its own seeded random
+    static final int CHUNK_SIZE = 10000;
+
+    private static final String ACCOUNT_INSERT = "INSERT INTO account (username, first_name, last_name, email,"
+            + " phone_number, password, role_id, is_disabled, version) VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, 0)";
+    private static final String RECEIVER_INSERT = "INSERT INTO donation_receiver (name, phone_number) VALUES (?, ?)";
+    private static final String CAMPAIGN_INSERT = "INSERT INTO campaign (name, description, receiver_id, status,"
+            + " goal, donated_percentage_capped, donated_percentage_uncapped, confirmed_amount, confirmed_count,"
+            + " pending_count, donor_count, start_time, end_time) VALUES (?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, ?, ?)";
+    private static final String DONATION_INSERT = "INSERT INTO donation (account_id, campaign_id, amount,"
+            + " donate_time, status) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountDAO accountDAO;
+    private final DonationDAO donationDAO;
+
+    @Value("${dataset.threads:4}")
+    private int threads = 4;
+
+    @Value("${dataset.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            AccountDAO accountDAO, DonationDAO donationDAO) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accountDAO = accountDAO;
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * Generate the dataset of a scale factor, once per scale factor and seed
+     *
+     * @param scaleFactor
+     * @param seed
+     * @return
+     */
+    public DatasetReport generate(int scaleFactor, long seed) {
+        if (scaleFactor < 1) {
+            throw new IllegalArgumentException("Scale factor must be at least 1: " + scaleFactor);
+        }
+        Role role = accountDAO.roleFindByRoleName("user");
+        if (role == null) {
+            throw new IllegalStateException("Role 'user' doesn't exist, the application must have initiated once");
+        }
+        String prefix = "sf" + scaleFactor + "s" + seed + "-";
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account WHERE username = ?",
+                Integer.class, prefix + 0);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("Dataset " + prefix + " was already generated");
+        }
+        warnIfBatchesNotRewritten();
+
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Random random = new Random(seed);
+
+        List<Long> accountIds = insertAccounts(prefix, scaleFactor * ACCOUNTS_PER_SCALE, role.getId());
+        List<CampaignWindow> campaigns = insertCampaigns(prefix, scaleFactor * CAMPAIGNS_PER_SCALE, random, now);
+        int donations = insertDonations(scaleFactor * DONATIONS_PER_SCALE, seed, accountIds, campaigns, now);
+
+        long rebuildStart = System.currentTimeMillis();
+        donationDAO.campaignCountersRebuild();
+        donationDAO.donationRollupRebuild();
+        log("Rebuilt campaign counters and daily rollups", 0, rebuildStart);
+
+        DatasetReport report = new DatasetReport(scaleFactor, seed, accountIds.size(), campaigns.size(), donations,
+                System.currentTimeMillis() - start);
+        log.info("Generated {}", report);
+        return report;
+    }
+
+    private List<Long> insertAccounts(String prefix, int count, Long roleId) {
+        long start = System.currentTimeMillis();
+        String password = CryptographyService.getPasswordHasher().hash("password");
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] { prefix + i, "Donor", String.valueOf(i), prefix + i + "@dataset.lab",
+                    prefix + i, password, roleId });
+        }
+        insert(ACCOUNT_INSERT, rows);
+        log("Inserted " + count + " accounts", count, start);
+        return jdbcTemplate.queryForList("SELECT id FROM account WHERE username LIKE ? ORDER BY id", Long.class,
+                prefix + "%");
+    }
+
+    private List<CampaignWindow> insertCampaigns(String prefix, int count, Random random, LocalDateTime now) {
+        long start = System.currentTimeMillis();
+        List<Object[]> receivers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            receivers.add(new Object[] { "Receiver " + prefix + i, prefix + i });
+        }
+        insert(RECEIVER_INSERT, receivers);
+        List<Long> receiverIds = jdbcTemplate.queryForList(
+                "SELECT id FROM donation_receiver WHERE phone_number LIKE ? ORDER BY id", Long.class, prefix + "%");
+
+        List<CampaignWindow> campaigns = new ArrayList<>(count);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime startTime = now.minusDays(1 + random.nextInt(365)).minusMinutes(random.nextInt(1440));
+            LocalDateTime endTime = startTime.plusDays(7 + random.nextInt(114));
+            CampaignStatus status = endTime.isAfter(now) ? CampaignStatus.OPEN : CampaignStatus.CLOSED;
+            campaigns.add(new CampaignWindow(startTime, endTime.isAfter(now) ? now : endTime));
+            rows.add(new Object[] { "Campaign " + prefix + i, "Synthetic campaign " + i, receiverIds.get(i),
+                    status.name(), (10 + random.nextInt(491)) * 1000000, Timestamp.valueOf(startTime),
+                    Timestamp.valueOf(endTime) });
+        }
+        insert(CAMPAIGN_INSERT, rows);
+        List<Long> campaignIds = jdbcTemplate.queryForList(
+                "SELECT id FROM campaign WHERE name LIKE ? ORDER BY id", Long.class, "Campaign " + prefix + "%");
+        for (int i = 0; i < count; i++) {
+            campaigns.get(i).id = campaignIds.get(i);
+        }
+        log("Inserted " + count + " campaigns and receivers", count * 2, start);
+        return campaigns;
+    }
+
+    private int insertDonations(int count, long seed, List<Long> accountIds, List<CampaignWindow> campaigns,
+            LocalDateTime now) {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (int chunk = 0; chunk * CHUNK_SIZE < count; chunk++) {
+                int index = chunk;
+                int size = Math.min(CHUNK_SIZE, count - chunk * CHUNK_SIZE);
+                // rows are built by the worker, queued chunks hold no rows
+                chunks.add(executor.submit(
+                        () -> insert(DONATION_INSERT, donationRows(seed, index, size, accountIds, campaigns))));
+            }
+            int inserted = 0;
+            for (Future<Integer> chunk : chunks) {
+                inserted += chunk.get();
+            }
+            log("Inserted " + inserted + " donations on " + threads + " threads", inserted, start);
+            return inserted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while inserting donations", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Couldn't insert donations", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Donation rows of one chunk, the same for the same seed and chunk
+     * whichever thread builds them
+     *
+     * @param seed
+     * @param chunk
+     * @param size
+     * @param accountIds
+     * @param campaigns
+     * @return account id (null when anonymous), campaign id, amount, donate
+     *         time and status of every donation
+     */
+    static List<Object[]> donationRows(long seed, int chunk, int size, List<Long> accountIds,
+            List<CampaignWindow> campaigns) {
+        Random random = new Random(seed * 31 + chunk);
+        List<Object[]> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CampaignWindow campaign = campaigns.get(random.nextInt(campaigns.size()));
+            Long accountId = random.nextInt(2) == 0 ? null : accountIds.get(random.nextInt(accountIds.size()));
+            int amount = (1 + random.nextInt(500)) * 10000;
+            long seconds = Math.max(1, Duration.between(campaign.startTime, campaign.lastDonateTime)
+                    .getSeconds());
+            LocalDateTime donateTime = campaign.startTime.plusSeconds((long) (random.nextDouble() * seconds));
+            int roll = random.nextInt(10);
+            DonationStatus status = roll < 7 ? DonationStatus.CONFIRMED
+                    : roll < 9 ? DonationStatus.PENDING : DonationStatus.REFUSED;
+            rows.add(new Object[] { accountId, campaign.id, amount, Timestamp.valueOf(donateTime), status.name() });
+        }
+        return rows;
+    }
+
+    /**
+     * Insert rows in batches of batchSize, in one transaction
+     *
+     * @return number of rows inserted
+     */
+    private int insert(String sql, List<Object[]> rows) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows, batchSize,
+                (ps, row) -> {
+                    for (int i = 0; i < row.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                }));
+        return rows.size();
+    }
+
+    private void warnIfBatchesNotRewritten() {
+        String url = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+        if (url != null && url.startsWith("jdbc:mysql") && !url.contains("rewriteBatchedStatements=true")) {
+            log.warn("Add rewriteBatchedStatements=true to the datasource url,"
+                    + " batches are sent one row at a time without it");
+        }
+    }
+
+    private void log(String message, long rows, long start) {
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        log.info("{} in {}ms{}", message, millis, rows > 0 ? " (" + rows * 1000 / millis + " rows/s)" : "");
+    }
+
+    /**
+     * A generated campaign and the time span its donations fall in
+     */
+    static class CampaignWindow {
+        private Long id;
+        private final LocalDateTime startTime;
+        private final LocalDateTime lastDonateTime;
+
+        CampaignWindow(Long id, LocalDateTime startTime, LocalDateTime lastDonateTime) {
+            this.id = id;
+            this.startTime = startTime;
+            this.lastDonateTime = lastDonateTime;
+        }
+
+        CampaignWindow(LocalDateTime startTime, LocalDateTime lastDonateTime) {
+            this(null, startTime, lastDonateTime);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.khoi.lab.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.object.DatasetReport;
+
+/**
+ * Dataset generator runner.
+ * Generates a dataset once the application is up when started with the
+ * dataset profile, then exits:
+ * java -jar lab.jar --spring.profiles.active=dataset --dataset.scale-factor=10 --dataset.seed=42
+ * Point spring.datasource.url at MySQL (with rewriteBatchedStatements=true)
+ * or at an embedded H2 database.
+ */
+@Service
+@Profile("dataset")
+public class DatasetGeneratorRunner {
+    private static final Logger log = LoggerFactory.getLogger(DatasetGeneratorRunner.class);
+
+    private final DatasetGenerator datasetGenerator;
+    private final ApplicationContext applicationContext;
+
+    @Value("${dataset.scale-factor:1}")
+    private int scaleFactor = 1;
+
+    @Value("${dataset.seed:42}")
+    private long seed = 42;
+
+    @Value("${dataset.exit:true}")
+    private boolean exit = true;
+
+    public DatasetGeneratorRunner(DatasetGenerator datasetGenerator, ApplicationContext applicationContext) {
+        this.datasetGenerator = datasetGenerator;
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Generate the configured dataset
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        log.info("Generating dataset SF{} seed {}...", scaleFactor, seed);
+        DatasetReport report = datasetGenerator.generate(scaleFactor, seed);
+        log.info("{} rows in {}ms ({} rows/s)", report.getRows(), report.getMillis(), report.getRowsPerSecond());
+        if (exit) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+}
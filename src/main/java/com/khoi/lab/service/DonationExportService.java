@@ -0,0 +1,140 @@
+package com.khoi.lab.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.enums.ExportFormat;
+import com.khoi.lab.object.DonationExportRow;
+
+/**
+ * Donation export service.
+ * Writes each row to the output as soon as it's read from the database so
+ * memory use doesn't grow with the number of donations.
+ */
+@Service
+public class DonationExportService {
+    private static final Logger log = LoggerFactory.getLogger(DonationExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,donate_time,amount,status,campaign_id,campaign_name,account_id,donor_name";
+
+    private final DonationDAO donationDAO;
+
+    public DonationExportService(DonationDAO donationDAO) {
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * Export donations matching the optional filters to [out]
+     *
+     * @param format
+     * @param from
+     * @param to
+     * @param status
+     * @param campaignId
+     * @param out
+     * @return number of rows written
+     * @throws IOException
+     */
+    public long export(ExportFormat format, LocalDateTime from, LocalDateTime to, DonationStatus status,
+            Long campaignId, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long count;
+        try {
+            count = donationDAO.donationExport(from, to, status, campaignId, row -> {
+                try {
+                    writer.write(format == ExportFormat.CSV ? toCsv(row) : toJson(row));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Exported {} donations as {} in {}ms ({} rows/s)", count, format, elapsedMs,
+                count * 1000 / elapsedMs);
+        return count;
+    }
+
+    /**
+     * Format a row as a CSV line (without line break)
+     *
+     * @param row
+     * @return
+     */
+    public static String toCsv(DonationExportRow row) {
+        return row.getId() + ","
+                + (row.getDonateTime() == null ? "" : row.getDonateTime()) + ","
+                + row.getAmount() + ","
+                + row.getStatus() + ","
+                + row.getCampaignId() + ","
+                + csvEscape(row.getCampaignName()) + ","
+                + (row.getAccountId() == null ? "" : row.getAccountId()) + ","
+                + csvEscape(row.getDonorName());
+    }
+
+    /**
+     * Format a row as a single line JSON object
+     *
+     * @param row
+     * @return
+     */
+    public static String toJson(DonationExportRow row) {
+        JSONObject json = new JSONObject();
+        json.put("id", row.getId());
+        json.put("donateTime", row.getDonateTime() == null ? JSONObject.NULL : row.getDonateTime().toString());
+        json.put("amount", row.getAmount());
+        json.put("status", row.getStatus() == null ? JSONObject.NULL : row.getStatus().name());
+        json.put("campaignId", row.getCampaignId());
+        json.put("campaignName", row.getCampaignName() == null ? JSONObject.NULL : row.getCampaignName());
+        json.put("accountId", row.getAccountId() == null ? JSONObject.NULL : row.getAccountId());
+        json.put("donorName", row.getDonorName() == null ? JSONObject.NULL : row.getDonorName());
+        return json.toString();
+    }
+
+    /**
+     * Quote a CSV field when it contains a separator, quote or line break.
+     * Fields a spreadsheet would read as a formula (starting with =, +, -, @,
+     * tab or carriage return) are prefixed with ' and quoted, names are user
+     * supplied and must not become live formulas.
+     *
+     * @param value
+     * @return
+     */
+    private static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean formula = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        if (formula) {
+            value = "'" + value;
+        } else if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,18 +1,54 @@
 package com.khoi.lab.service;
 
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import com.khoi.lab.dao.EmailOutboxDAO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * Email Sender service
  */
 @Service
 public class EmailSenderService {
+    private static final Logger log = LoggerFactory.getLogger(EmailSenderService.class);
+
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private EmailOutboxDAO emailOutboxDAO;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Queue an email in the outbox. It is written in the caller's transaction
+     * and sent by the OutboxDispatcher once committed.
+     *
+     * @param toEmail
+     * @param subject
+     * @param body
+     */
+    public void queueEmail(String toEmail, String subject, String body) {
+        emailOutboxDAO.emailOutboxEnqueue(toEmail, subject, body);
+    }
+
+    /**
+     * Send an email right away on the calling thread
+     *
+     * @param toEmail
+     * @param subject
+     * @param body
+     */
     public void sendEmail(String toEmail, String subject, String body) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom("khoilmfx28754@funix.edu.vn");
@@ -20,7 +56,26 @@ public class EmailSenderService {
         message.setText(body);
         message.setSubject(subject);
 
-        mailSender.send(message);
-        System.out.println("| [service:EmailSenderService] Mail sent to: " + toEmail);
+        long start = System.nanoTime();
+        try {
+            mailSender.send(message);
+        } catch (RuntimeException e) {
+            record(start, "failure", e.getClass().getSimpleName());
+            throw e;
+        }
+        record(start, "success", "none");
+        log.debug("Mail sent to: {}", toEmail);
+    }
+
+    /**
+     * Record the time taken by a send as email.send
+     */
+    private void record(long start, String outcome, String exception) {
+        Timer.builder("email.send")
+                .description("Time taken to hand a mail to the SMTP server")
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 }
@@ -0,0 +1,161 @@
+package com.khoi.lab.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.object.IdempotencyEntry;
+import com.khoi.lab.object.IdempotentResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Idempotency key store.
+ * Remembers, for a while, the response given to a request sent with an
+ * Idempotency-Key header so that retries of it are answered with the same
+ * response instead of running again. A retry arriving while the first
+ * request is still running waits for it. Bounded by entry count and by the
+ * bytes of the recorded responses, oldest keys are forgotten first.
+ */
+@Service
+public class IdempotencyStore {
+    // insertion ordered, eldest entry is the oldest key
+    private final LinkedHashMap<String, IdempotencyEntry> entries = new LinkedHashMap<>();
+    private long bytes = 0;
+
+    private final Counter executedCounter;
+    private final Counter replayedCounter;
+    private final Counter rejectedCounter;
+
+    @Value("${idempotency.ttl-seconds:3600}")
+    private long ttlSeconds = 3600;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${idempotency.max-bytes:16777216}")
+    private long maxBytes = 16777216;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds = 30;
+
+    public IdempotencyStore(MeterRegistry meterRegistry) {
+        this.executedCounter = Counter.builder("idempotency.requests").tag("result", "executed")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("idempotency.requests").tag("result", "replayed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("idempotency.requests").tag("result", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.entries", this, IdempotencyStore::entryCount).register(meterRegistry);
+    }
+
+    /**
+     * Start a request under a key
+     *
+     * @param key
+     * @param fingerprint hash of the request
+     * @return null if the caller is the first and must run the request then
+     *         call complete() or abandon(), otherwise the entry of the
+     *         earlier request
+     */
+    public synchronized IdempotencyEntry begin(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        IdempotencyEntry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            // replays are counted once their response is handed out by await()
+            if (!entry.matches(fingerprint)) {
+                rejectedCounter.increment();
+            }
+            return entry;
+        }
+        if (entry != null) {
+            remove(key);
+        }
+        entries.put(key, new IdempotencyEntry(fingerprint, now + ttlSeconds * 1000));
+        executedCounter.increment();
+        evict();
+        return null;
+    }
+
+    /**
+     * Record the response of the request started under a key and hand it to
+     * any waiting retries
+     *
+     * @param key
+     * @param response
+     */
+    public synchronized void complete(String key, IdempotentResponse response) {
+        IdempotencyEntry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.setExpiresAt(System.currentTimeMillis() + ttlSeconds * 1000);
+        entry.getResponse().complete(response);
+        bytes += entry.size();
+        evict();
+    }
+
+    /**
+     * Forget a key whose request failed, so that a retry runs it again
+     *
+     * @param key
+     */
+    public synchronized void abandon(String key) {
+        remove(key);
+    }
+
+    /**
+     * The response of an earlier request, waiting for it if still in flight
+     *
+     * @param entry
+     * @return null if the earlier request failed or didn't finish in time
+     */
+    public IdempotentResponse await(IdempotencyEntry entry) {
+        try {
+            IdempotentResponse response = entry.getResponse().get(waitSeconds, TimeUnit.SECONDS);
+            replayedCounter.increment();
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, IdempotencyEntry>> eldest = entries.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Map.Entry<String, IdempotencyEntry> entry = eldest.next();
+            if (!entry.getValue().isExpired(now) && entries.size() <= maxEntries && bytes <= maxBytes) {
+                break;
+            }
+            eldest.remove();
+            bytes -= entry.getValue().size();
+            // retries waiting on a request pushed out while in flight stop waiting
+            entry.getValue().getResponse().completeExceptionally(new IllegalStateException("Key evicted"));
+        }
+    }
+
+    private void remove(String key) {
+        IdempotencyEntry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.size();
+            entry.getResponse().completeExceptionally(new IllegalStateException("Key forgotten"));
+        }
+    }
+}
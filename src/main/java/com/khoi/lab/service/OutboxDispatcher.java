@@ -0,0 +1,228 @@
+package com.khoi.lab.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.EmailOutboxDAO;
+import com.khoi.lab.entity.EmailOutbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Email outbox dispatcher.
+ * Claims due emails from the outbox in batches and sends them on a fixed pool
+ * of workers. Failed emails are retried with exponential backoff until
+ * maxAttempts, on shutdown the pool is drained and unfinished claims are put
+ * back in the queue. Claims are leases renewed every renew-millis while the
+ * email is in flight, so a slow SMTP session can outlast lease-seconds without
+ * its email being released and sent a second time, only the claims of a dead
+ * dispatcher expire. Keep renew-millis well under lease-seconds.
+ */
+@Service
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final EmailOutboxDAO emailOutboxDAO;
+    private final EmailSenderService senderService;
+    private final ThreadPoolExecutor workers;
+    private final int capacity;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pending = new AtomicLong();
+    private final Timer sentTimer;
+    private final Timer failedTimer;
+    private final Counter givenUpCounter;
+    private volatile boolean draining = false;
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts = 6;
+
+    @Value("${email.outbox.backoff-seconds:30}")
+    private long backoffSeconds = 30;
+
+    @Value("${email.outbox.lease-seconds:300}")
+    private long leaseSeconds = 300;
+
+    @Value("${email.outbox.drain-seconds:20}")
+    private long drainSeconds = 20;
+
+    public OutboxDispatcher(EmailOutboxDAO emailOutboxDAO, EmailSenderService senderService,
+            MeterRegistry meterRegistry, @Value("${email.outbox.workers:4}") int workerCount,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.emailOutboxDAO = emailOutboxDAO;
+        this.senderService = senderService;
+        this.capacity = workerCount * 2;
+        // the pool size stays the number of concurrent SMTP sessions either way
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("email-outbox-", 1).factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(capacity), threadFactory);
+
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.in_flight", inFlight, Set::size)
+                .description("Emails claimed by a worker")
+                .register(meterRegistry);
+        this.sentTimer = Timer.builder("email.outbox.send").tag("outcome", "sent").register(meterRegistry);
+        this.failedTimer = Timer.builder("email.outbox.send").tag("outcome", "failed").register(meterRegistry);
+        this.givenUpCounter = Counter.builder("email.outbox.given_up")
+                .description("Emails dropped after maxAttempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delay before the next attempt, doubling after every failure
+     *
+     * @param attempts attempts made so far
+     * @param baseSeconds delay after the first failure
+     * @return
+     */
+    public static Duration backoff(int attempts, long baseSeconds) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = Duration.ofSeconds(baseSeconds).multipliedBy(1L << exponent);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    /**
+     * Claim as many due emails as the workers have room for and hand them
+     * out
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-millis:1000}")
+    public void poll() {
+        if (draining) {
+            return;
+        }
+        int free = capacity - inFlight.size();
+        if (free > 0) {
+            for (EmailOutbox email : emailOutboxDAO.emailOutboxClaim(Math.min(batchSize, free))) {
+                inFlight.add(email.getId());
+                try {
+                    workers.execute(() -> deliver(email));
+                } catch (RejectedExecutionException e) {
+                    inFlight.remove(email.getId());
+                    emailOutboxDAO.emailOutboxRelease(List.of(email.getId()));
+                }
+            }
+        }
+        pending.set(emailOutboxDAO.emailOutboxCountPending());
+    }
+
+    /**
+     * Renew the claims of emails this dispatcher still holds
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.renew-millis:60000}")
+    public void renewClaims() {
+        List<Long> claimed = new ArrayList<>(inFlight);
+        if (!claimed.isEmpty()) {
+            emailOutboxDAO.emailOutboxRenew(claimed, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Put back emails claimed by a worker that never reported back
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStale() {
+        int released = emailOutboxDAO.emailOutboxReleaseStale(LocalDateTime.now().minusSeconds(leaseSeconds));
+        if (released > 0) {
+            log.info("Released {} stale email claims", released);
+        }
+    }
+
+    /**
+     * Number of emails currently claimed by a worker
+     *
+     * @return
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Send one claimed email and record the outcome
+     *
+     * @param email
+     */
+    private void deliver(EmailOutbox email) {
+        long start = System.nanoTime();
+        try {
+            senderService.sendEmail(email.getRecipient(), email.getSubject(), email.getBody());
+            sentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            emailOutboxDAO.emailOutboxMarkSent(email.getId());
+        } catch (RuntimeException e) {
+            failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            LocalDateTime nextAttemptAt = null;
+            if (email.getAttempts() < maxAttempts) {
+                nextAttemptAt = LocalDateTime.now().plus(backoff(email.getAttempts(), backoffSeconds));
+            } else {
+                givenUpCounter.increment();
+            }
+            log.warn("Email {} to {} failed (attempt {}), {}: {}", email.getId(), email.getRecipient(),
+                    email.getAttempts(), nextAttemptAt == null ? "giving up" : "retrying at " + nextAttemptAt,
+                    e.getMessage());
+            try {
+                emailOutboxDAO.emailOutboxMarkFailed(email.getId(), e.getMessage(), nextAttemptAt);
+            } catch (RuntimeException markFailure) {
+                log.warn("Couldn't record failure of email {}, its claim will expire: {}",
+                        email.getId(), markFailure.getMessage());
+            }
+        } finally {
+            inFlight.remove(email.getId());
+        }
+    }
+
+    /**
+     * Stop claiming, let the workers finish what they hold and put back the
+     * rest
+     */
+    @PreDestroy
+    public void shutdown() {
+        draining = true;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(drainSeconds, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        List<Long> unfinished = new ArrayList<>(inFlight);
+        if (!unfinished.isEmpty()) {
+            int released = emailOutboxDAO.emailOutboxRelease(unfinished);
+            log.info("Released {} unsent emails on shutdown", released);
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package com.khoi.lab.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.khoi.lab.object.BlogPostChangedEvent;
+import com.khoi.lab.object.BlogPostCommentChangedEvent;
+import com.khoi.lab.object.CachedPage;
+import com.khoi.lab.object.CampaignChangedEvent;
+import com.khoi.lab.object.DonationStatusChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Rendered page cache for anonymous visitors.
+ * Pages are held in a memory tier bounded by total bytes, least recently used
+ * pages spill over to an optional disk tier. Every page carries tags naming
+ * what it shows (home, campaigns, campaign:{id}, blogs, blog:{id}) and is
+ * dropped as soon as a DAO write touching one of them commits. A page whose
+ * rendering overlapped an invalidation is not stored. Disk files are read,
+ * written and deleted outside the lock.
+ */
+@Service
+public class PageCache {
+    private static final Logger log = LoggerFactory.getLogger(PageCache.class);
+
+    public static final String TAG_HOME = "home";
+    public static final String TAG_CAMPAIGNS = "campaigns";
+    public static final String TAG_BLOGS = "blogs";
+
+    private static final String TAGS_ATTRIBUTE = PageCache.class.getName() + ".tags";
+
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final Path diskDirectory;
+
+    // access ordered, eldest entry is the least recently used
+    private final LinkedHashMap<String, CachedPage> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, DiskPage> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private long memoryBytes = 0;
+    private long diskBytes = 0;
+    // bumped by every invalidation
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong fileSequence = new AtomicLong();
+
+    private final Counter hitCounter;
+    private final Counter diskHitCounter;
+    private final Counter missCounter;
+    private final Counter invalidationCounter;
+
+    @Value("${page.cache.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    public PageCache(MeterRegistry meterRegistry,
+            @Value("${page.cache.memory-max-bytes:33554432}") long maxMemoryBytes,
+            @Value("${page.cache.disk-dir:}") String diskDirectory,
+            @Value("${page.cache.disk-max-bytes:268435456}") long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.diskDirectory = diskDirectory == null || diskDirectory.isBlank() ? null : Path.of(diskDirectory);
+        if (this.diskDirectory != null) {
+            clearDiskDirectory();
+        }
+
+        this.hitCounter = Counter.builder("page.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.diskHitCounter = Counter.builder("page.cache.requests").tag("result", "disk_hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("page.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.invalidationCounter = Counter.builder("page.cache.invalidations")
+                .description("Pages dropped because something they show changed")
+                .register(meterRegistry);
+        Gauge.builder("page.cache.entries", this, cache -> cache.entryCount(false)).tag("tier", "memory")
+                .register(meterRegistry);
+        Gauge.builder("page.cache.entries", this, cache -> cache.entryCount(true)).tag("tier", "disk")
+                .register(meterRegistry);
+        Gauge.builder("page.cache.bytes", this, cache -> cache.byteCount(false)).tag("tier", "memory")
+                .register(meterRegistry);
+        Gauge.builder("page.cache.bytes", this, cache -> cache.byteCount(true)).tag("tier", "disk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tag the page being rendered for the current request. Called by
+     * controllers for every entity the page shows, does nothing outside a
+     * request.
+     *
+     * @param tags
+     */
+    @SuppressWarnings("unchecked")
+    public static void tagCurrentRequest(String... tags) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Set<String> requestTags = (Set<String>) attributes.getAttribute(TAGS_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (requestTags == null) {
+            requestTags = new HashSet<>();
+            attributes.setAttribute(TAGS_ATTRIBUTE, requestTags, RequestAttributes.SCOPE_REQUEST);
+        }
+        for (String tag : tags) {
+            requestTags.add(tag);
+        }
+    }
+
+    /**
+     * Tags collected for the current request by tagCurrentRequest()
+     *
+     * @param request
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static Set<String> requestTags(HttpServletRequest request) {
+        Set<String> tags = (Set<String>) request.getAttribute(TAGS_ATTRIBUTE);
+        return tags == null ? Set.of() : tags;
+    }
+
+    public static String campaignTag(Long campaignId) {
+        return "campaign:" + campaignId;
+    }
+
+    public static String blogTag(Long blogPostId) {
+        return "blog:" + blogPostId;
+    }
+
+    /**
+     * Invalidation counter, read before rendering a page and handed back to
+     * put() so a page rendered while something it shows changed isn't stored
+     *
+     * @return
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * A cached page, looking in memory then on disk
+     *
+     * @param key
+     * @return null on a miss
+     */
+    public CachedPage get(String key) {
+        long now = System.currentTimeMillis();
+        List<Runnable> diskOps = new ArrayList<>();
+        DiskPage onDisk;
+        synchronized (this) {
+            CachedPage page = memory.get(key);
+            if (page != null && !page.isExpired(now)) {
+                hitCounter.increment();
+                return page;
+            }
+            onDisk = disk.get(key);
+            if (onDisk == null || !onDisk.written || onDisk.page.isExpired(now)) {
+                if (page != null || onDisk != null) {
+                    remove(key, diskOps);
+                }
+                missCounter.increment();
+                onDisk = null;
+            }
+        }
+        if (onDisk == null) {
+            runDiskOps(diskOps);
+            return null;
+        }
+
+        byte[] body = readDisk(onDisk.file);
+        CachedPage promoted = null;
+        synchronized (this) {
+            // the page may have been invalidated while its file was read
+            if (body != null && !onDisk.removed) {
+                // promote back into memory, which may push another page to disk
+                promoted = new CachedPage(body, onDisk.page.getContentType(), onDisk.page.getTags(),
+                        onDisk.page.getExpiresAt());
+                removeDisk(key, diskOps);
+                putMemory(key, promoted, diskOps);
+                diskHitCounter.increment();
+            } else {
+                missCounter.increment();
+            }
+        }
+        runDiskOps(diskOps);
+        return promoted;
+    }
+
+    /**
+     * Cache a rendered page
+     *
+     * @param key
+     * @param body
+     * @param contentType
+     * @param tags
+     */
+    public void put(String key, byte[] body, String contentType, Set<String> tags) {
+        put(key, body, contentType, tags, generation());
+    }
+
+    /**
+     * Cache a rendered page, unless something was invalidated since it
+     * started rendering
+     *
+     * @param key
+     * @param body
+     * @param contentType
+     * @param tags
+     * @param renderedGeneration generation() read before rendering
+     */
+    public void put(String key, byte[] body, String contentType, Set<String> tags, long renderedGeneration) {
+        List<Runnable> diskOps = new ArrayList<>();
+        synchronized (this) {
+            if (generation.get() != renderedGeneration) {
+                log.debug("Not caching {}, invalidated while rendering", key);
+                return;
+            }
+            remove(key, diskOps);
+            if (body.length <= maxMemoryBytes) {
+                CachedPage page = new CachedPage(body, contentType, tags,
+                        System.currentTimeMillis() + ttlSeconds * 1000);
+                putMemory(key, page, diskOps);
+                for (String tag : page.getTags()) {
+                    keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+                }
+            }
+        }
+        runDiskOps(diskOps);
+    }
+
+    /**
+     * Drop every page carrying one of the tags
+     *
+     * @param tags
+     */
+    public void invalidate(String... tags) {
+        List<Runnable> diskOps = new ArrayList<>();
+        int dropped = 0;
+        synchronized (this) {
+            generation.incrementAndGet();
+            for (String tag : tags) {
+                Set<String> keys = keysByTag.get(tag);
+                if (keys == null) {
+                    continue;
+                }
+                for (String key : new ArrayList<>(keys)) {
+                    remove(key, diskOps);
+                    dropped++;
+                }
+            }
+        }
+        runDiskOps(diskOps);
+        if (dropped > 0) {
+            invalidationCounter.increment(dropped);
+            log.debug("Invalidated {} pages tagged {}", dropped, List.of(tags));
+        }
+    }
+
+    /**
+     * Drop every page
+     */
+    public void clear() {
+        List<Runnable> diskOps = new ArrayList<>();
+        synchronized (this) {
+            generation.incrementAndGet();
+            for (String key : new ArrayList<>(memory.keySet())) {
+                remove(key, diskOps);
+            }
+            for (String key : new ArrayList<>(disk.keySet())) {
+                remove(key, diskOps);
+            }
+        }
+        runDiskOps(diskOps);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampaignChanged(CampaignChangedEvent event) {
+        invalidate(campaignTag(event.getCampaignId()), TAG_CAMPAIGNS, TAG_HOME);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationStatusChanged(DonationStatusChangedEvent event) {
+        invalidate(campaignTag(event.getCampaignId()), TAG_HOME);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostChanged(BlogPostChangedEvent event) {
+        invalidate(blogTag(event.getBlogPostId()), TAG_BLOGS, TAG_HOME);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostCommentChanged(BlogPostCommentChangedEvent event) {
+        invalidate(blogTag(event.getBlogPostId()));
+    }
+
+    private synchronized int entryCount(boolean onDisk) {
+        return onDisk ? disk.size() : memory.size();
+    }
+
+    private synchronized long byteCount(boolean onDisk) {
+        return onDisk ? diskBytes : memoryBytes;
+    }
+
+    private void putMemory(String key, CachedPage page, List<Runnable> diskOps) {
+        memory.put(key, page);
+        memoryBytes += page.size();
+        Iterator<Map.Entry<String, CachedPage>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedPage> entry = eldest.next();
+            eldest.remove();
+            memoryBytes -= entry.getValue().size();
+            if (!spillToDisk(entry.getKey(), entry.getValue(), diskOps)) {
+                untag(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Move a page evicted from memory to the disk tier. The file is written
+     * by the caller once it has left the lock, until then the page counts as
+     * a miss.
+     *
+     * @return whether the page is now on disk
+     */
+    private boolean spillToDisk(String key, CachedPage page, List<Runnable> diskOps) {
+        if (diskDirectory == null || page.size() > maxDiskBytes) {
+            return false;
+        }
+        // only metadata is kept in memory for pages on disk
+        DiskPage diskPage = new DiskPage(
+                new CachedPage(new byte[0], page.getContentType(), page.getTags(), page.getExpiresAt()),
+                diskPath(key), page.size());
+        disk.put(key, diskPage);
+        diskBytes += diskPage.size;
+        byte[] body = page.getBody();
+        diskOps.add(() -> writeDisk(key, diskPage, body));
+        Iterator<Map.Entry<String, DiskPage>> eldest = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+            Map.Entry<String, DiskPage> entry = eldest.next();
+            eldest.remove();
+            dropDisk(entry.getValue(), diskOps);
+            untag(entry.getKey(), entry.getValue().page);
+        }
+        return !diskPage.removed;
+    }
+
+    private void writeDisk(String key, DiskPage diskPage, byte[] body) {
+        boolean written;
+        try {
+            Files.write(diskPage.file, body);
+            written = true;
+        } catch (IOException e) {
+            log.warn("Couldn't write page to disk: {}", e.getMessage());
+            written = false;
+        }
+        boolean orphaned;
+        synchronized (this) {
+            if (!written && !diskPage.removed) {
+                disk.remove(key);
+                dropDisk(diskPage, null);
+                untag(key, diskPage.page);
+            }
+            diskPage.written = written;
+            orphaned = diskPage.removed;
+        }
+        // dropped while being written, its delete may have run first
+        if (orphaned) {
+            deleteFile(diskPage.file);
+        }
+    }
+
+    private byte[] readDisk(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void removeDisk(String key, List<Runnable> diskOps) {
+        DiskPage diskPage = disk.remove(key);
+        if (diskPage != null) {
+            dropDisk(diskPage, diskOps);
+        }
+    }
+
+    private void dropDisk(DiskPage diskPage, List<Runnable> diskOps) {
+        diskPage.removed = true;
+        diskBytes -= diskPage.size;
+        if (diskOps != null) {
+            diskOps.add(() -> deleteFile(diskPage.file));
+        }
+    }
+
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Couldn't delete cached page: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * File writes and deletes queued while holding the lock
+     */
+    private void runDiskOps(List<Runnable> diskOps) {
+        for (Runnable diskOp : diskOps) {
+            diskOp.run();
+        }
+    }
+
+    private void remove(String key, List<Runnable> diskOps) {
+        CachedPage page = memory.remove(key);
+        if (page != null) {
+            memoryBytes -= page.size();
+            untag(key, page);
+        }
+        DiskPage onDisk = disk.remove(key);
+        if (onDisk != null) {
+            dropDisk(onDisk, diskOps);
+            untag(key, onDisk.page);
+        }
+    }
+
+    private void untag(String key, CachedPage page) {
+        for (String tag : page.getTags()) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTag.remove(tag);
+            }
+        }
+    }
+
+    /**
+     * A new file for every spill, so a late write or delete of an earlier
+     * copy of the page can't touch it
+     */
+    private Path diskPath(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return diskDirectory.resolve(HexFormat.of().formatHex(digest) + "-" + fileSequence.incrementAndGet()
+                    + ".page");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Pages on disk from a previous run have no tags left to invalidate them
+     */
+    private void clearDiskDirectory() {
+        try {
+            Files.createDirectories(diskDirectory);
+            try (Stream<Path> files = Files.list(diskDirectory)) {
+                for (Path file : files.filter(f -> f.toString().endsWith(".page")).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't prepare page cache directory " + diskDirectory, e);
+        }
+    }
+
+    /**
+     * A page in the disk tier, fields other than the final ones are guarded
+     * by the cache lock
+     */
+    private static class DiskPage {
+        // metadata only, the body is in the file
+        private final CachedPage page;
+        private final Path file;
+        private final int size;
+        private boolean written = false;
+        private boolean removed = false;
+
+        DiskPage(CachedPage page, Path file, int size) {
+            this.page = page;
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
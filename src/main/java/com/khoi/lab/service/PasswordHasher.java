@@ -0,0 +1,38 @@
+package com.khoi.lab.service;
+
+/**
+ * Password hasher.
+ * Turns a password into the value stored on the account and checks login
+ * attempts against it. An account without a password (registered through
+ * OAuth) is stored as the hash of the empty string and must be recognisable
+ * without paying the full hashing cost.
+ */
+public interface PasswordHasher {
+    /**
+     * The value to store for a password
+     *
+     * @param password
+     * @return
+     */
+    String hash(String password);
+
+    /**
+     * Check a password against a stored value
+     *
+     * @param password
+     * @param stored
+     * @return
+     */
+    boolean matches(String password, String stored);
+
+    /**
+     * Whether a stored value should be replaced by a fresh hash once the
+     * password is known, e.g. after the cost was raised
+     *
+     * @param stored
+     * @return
+     */
+    default boolean needsRehash(String stored) {
+        return false;
+    }
+}
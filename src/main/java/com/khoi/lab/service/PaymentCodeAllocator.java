@@ -0,0 +1,165 @@
+package com.khoi.lab.service;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.data.Constants;
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.entity.DonationPaymentCode;
+
+/**
+ * Payment code allocator.
+ * Issues the codes donors put in their bank transfer description. Codes are
+ * drawn from a shared SecureRandom and checked against the codes still
+ * in the table, kept in memory with their expiry, so a live code is never
+ * handed out twice. Codes older than payment.code.ttl-minutes can no longer
+ * be matched and, unless a transfer used them, are deleted in batches by the
+ * sweeper. Used codes stay as the record of their donation, a new code that
+ * hits one of them is caught by the unique index and drawn again.
+ */
+@Service
+public class PaymentCodeAllocator {
+    private static final Logger log = LoggerFactory.getLogger(PaymentCodeAllocator.class);
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    // thread safe, shared so virtual threads don't seed one per request
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAX_ISSUE_ATTEMPTS = 5;
+
+    private final DonationDAO donationDAO;
+    // codes still in the table, with the time they expire at
+    private final Map<String, LocalDateTime> liveCodes = new ConcurrentHashMap<>();
+
+    @Value("${payment.code.ttl-minutes:60}")
+    private long codeTtlMinutes = 60;
+
+    @Value("${payment.code.sweep-batch:500}")
+    private int sweepBatch = 500;
+
+    public PaymentCodeAllocator(DonationDAO donationDAO) {
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * A random payment code, not checked for uniqueness
+     *
+     * @return
+     */
+    public static String nextCode() {
+        char[] code = new char[Constants.PAYMENT_CODE_LENGTH];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = ALPHABET[RANDOM.nextInt(ALPHABET.length)];
+        }
+        return new String(code);
+    }
+
+    /**
+     * Reserve a code no live payment code uses
+     *
+     * @return
+     */
+    public String reserve() {
+        LocalDateTime expireTime = LocalDateTime.now().plusMinutes(codeTtlMinutes);
+        while (true) {
+            String code = nextCode();
+            if (liveCodes.putIfAbsent(code, expireTime) == null) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * Issue a new payment code for a bank transfer to a campaign
+     *
+     * @param campaign
+     * @param account  null for an anonymous donor
+     * @param amount
+     * @return
+     */
+    public DonationPaymentCode issue(Campaign campaign, Account account, long amount) {
+        for (int attempt = 1;; attempt++) {
+            String code = reserve();
+            try {
+                DonationPaymentCode paymentCode = donationDAO.paymentCodeCreate(code, campaign, account, amount);
+                liveCodes.put(code, expireTime(paymentCode));
+                return paymentCode;
+            } catch (DataIntegrityViolationException e) {
+                // taken by a used code, keep it reserved so it isn't drawn again soon
+                if (attempt >= MAX_ISSUE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("Payment code {} already exists, drawing another", code);
+            } catch (RuntimeException e) {
+                liveCodes.remove(code);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Number of codes currently reserved
+     *
+     * @return
+     */
+    public int liveCount() {
+        return liveCodes.size();
+    }
+
+    /**
+     * Remember the codes already in the table once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        sweep();
+        for (DonationPaymentCode paymentCode : donationDAO.paymentCodeFindCreatedAfter(cutoff(LocalDateTime.now()))) {
+            liveCodes.putIfAbsent(paymentCode.getCode(), expireTime(paymentCode));
+        }
+        log.info("Loaded {} live payment codes", liveCodes.size());
+    }
+
+    /**
+     * Delete expired payment codes, batch by batch, and forget them
+     *
+     * @return number of codes deleted
+     */
+    @Scheduled(fixedDelayString = "${payment.code.sweep-millis:60000}")
+    public int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        int batch;
+        do {
+            batch = donationDAO.paymentCodeDeleteExpired(cutoff(now), sweepBatch);
+            deleted += batch;
+        } while (batch >= sweepBatch);
+        // only after the rows are gone, so a forgotten code can't clash with one
+        liveCodes.values().removeIf(expireTime -> expireTime.isBefore(now));
+
+        if (deleted > 0) {
+            log.info("Swept {} expired payment codes", deleted);
+        }
+        return deleted;
+    }
+
+    private LocalDateTime cutoff(LocalDateTime now) {
+        return now.minusMinutes(codeTtlMinutes);
+    }
+
+    private LocalDateTime expireTime(DonationPaymentCode paymentCode) {
+        LocalDateTime createTime = paymentCode.getCreateTime() == null ? LocalDateTime.now()
+                : paymentCode.getCreateTime();
+        return createTime.plusMinutes(codeTtlMinutes);
+    }
+}
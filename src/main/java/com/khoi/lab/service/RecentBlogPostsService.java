@@ -0,0 +1,64 @@
+package com.khoi.lab.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.khoi.lab.dao.BlogDAO;
+import com.khoi.lab.entity.BlogPost;
+import com.khoi.lab.enums.BlogPostOrder;
+import com.khoi.lab.object.BlogPostChangedEvent;
+
+/**
+ * Recent blog posts sidebar cache.
+ * The list is read once and dropped whenever a post is created, edited or
+ * deleted.
+ */
+@Service
+public class RecentBlogPostsService {
+    public static final int RECENT_POSTS_SIZE = 10;
+
+    private final BlogDAO blogDAO;
+    private final AtomicReference<List<BlogPost>> recentPosts = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public RecentBlogPostsService(BlogDAO blogDAO) {
+        this.blogDAO = blogDAO;
+    }
+
+    /**
+     * Most recent blog posts, newest first
+     *
+     * @return
+     */
+    public List<BlogPost> getRecentPosts() {
+        List<BlogPost> cached = recentPosts.get();
+        if (cached != null) {
+            return cached;
+        }
+        // don't cache a list read before a post change that raced with it
+        long loadedGeneration = generation.get();
+        List<BlogPost> loaded = List.copyOf(
+                blogDAO.blogPostPage(null, null, null, BlogPostOrder.LATEST, 0, RECENT_POSTS_SIZE));
+        if (generation.get() == loadedGeneration && recentPosts.compareAndSet(null, loaded)
+                && generation.get() != loadedGeneration) {
+            // an invalidation slipped in between the check and the store
+            recentPosts.compareAndSet(loaded, null);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop the list once a blog post change is committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlogPostChanged(BlogPostChangedEvent event) {
+        generation.incrementAndGet();
+        recentPosts.set(null);
+    }
+}
@@ -0,0 +1,87 @@
+package com.khoi.lab.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.khoi.lab.data.Constants;
+import com.khoi.lab.object.SepayTransaction;
+
+/**
+ * Sepay user API client.
+ * The base url is configurable so the client can be pointed at a fake Sepay
+ * server.
+ */
+@Service
+public class SepayClient {
+    private final RestTemplate restTemplate;
+    private final String apiUrl;
+    private final String apiToken;
+
+    public SepayClient(RestTemplateBuilder restTemplateBuilder,
+            @Value("${sepay.api-url:https://my.sepay.vn}") String apiUrl,
+            @Value("${sepay.api-token:}") String apiToken) {
+        this.restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofSeconds(5))
+                .readTimeout(Duration.ofSeconds(10))
+                .build();
+        this.apiUrl = apiUrl;
+        this.apiToken = apiToken == null || apiToken.isBlank() ? Constants.SEPAY_API_TOKEN : apiToken;
+    }
+
+    /**
+     * Transactions of a bank account. Without sinceId the latest ones, with
+     * it up to limit transactions following sinceId, a full page means more
+     * may follow.
+     *
+     * @param accountNumber
+     * @param sinceId       only transactions after this id, null for the latest
+     * @param limit
+     * @return
+     */
+    public List<SepayTransaction> transactions(String accountNumber, Long sinceId, int limit) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(apiUrl)
+                .path("/userapi/transactions/list")
+                .queryParam("account_number", accountNumber)
+                .queryParam("limit", limit);
+        if (sinceId != null) {
+            uri.queryParam("since_id", sinceId);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(apiToken);
+        String body = restTemplate.exchange(uri.build().toUri(), HttpMethod.GET, new HttpEntity<>(headers),
+                String.class).getBody();
+
+        List<SepayTransaction> transactions = new ArrayList<>();
+        JSONArray array = body == null ? null : new JSONObject(body).optJSONArray("transactions");
+        if (array == null) {
+            return transactions;
+        }
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject transaction = array.getJSONObject(i);
+            long id = Long.parseLong(transaction.optString("id", "0"));
+            if (sinceId != null && id <= sinceId) {
+                continue;
+            }
+            transactions.add(new SepayTransaction(
+                    id,
+                    transaction.optString("account_number", accountNumber),
+                    new BigDecimal(transaction.optString("amount_in", "0")).longValue(),
+                    transaction.optString("transaction_content", "")));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,114 @@
+package com.khoi.lab.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+import com.khoi.lab.data.Constants;
+import com.khoi.lab.object.SepayTransaction;
+
+/**
+ * Sepay transaction poller.
+ * One server side poll per bank account replaces every open payment page
+ * polling Sepay on its own. New transactions are read after a per account
+ * cursor and handed to the transfer matcher. With the Sepay webhook set up
+ * this is only a fallback for missed deliveries and can be switched off with
+ * sepay.poll-enabled=false.
+ */
+@Service
+public class SepayTransactionPoller {
+    private static final Logger log = LoggerFactory.getLogger(SepayTransactionPoller.class);
+
+    // pages read from one account per poll, so a burst can't hold the poll
+    private static final int MAX_PAGES_PER_POLL = 20;
+
+    private final SepayTransferMatcher transferMatcher;
+    private final SepayClient sepayClient;
+    private final List<String> accountNumbers;
+    // last transaction id seen for each bank account
+    private final Map<String, Long> cursors = new ConcurrentHashMap<>();
+
+    @Value("${sepay.poll-enabled:true}")
+    private boolean pollEnabled = true;
+
+    @Value("${sepay.poll-limit:50}")
+    private int pollLimit = 50;
+
+    public SepayTransactionPoller(SepayTransferMatcher transferMatcher, SepayClient sepayClient,
+            @Value("${sepay.account-numbers:}") String accountNumbers) {
+        this.transferMatcher = transferMatcher;
+        this.sepayClient = sepayClient;
+        List<String> configured = new ArrayList<>();
+        for (String accountNumber : accountNumbers.split(",")) {
+            if (!accountNumber.isBlank()) {
+                configured.add(accountNumber.trim());
+            }
+        }
+        this.accountNumbers = configured.isEmpty() ? List.of(Constants.BANK_ACCOUNT_NUMBER) : List.copyOf(configured);
+    }
+
+    /**
+     * Poll every bank account, skipped while no payment code is waiting
+     */
+    @Scheduled(fixedDelayString = "${sepay.poll-millis:10000}")
+    public void poll() {
+        if (!pollEnabled || !transferMatcher.hasPendingCodes()) {
+            return;
+        }
+        for (String accountNumber : accountNumbers) {
+            try {
+                pollAccount(accountNumber);
+            } catch (RestClientException e) {
+                log.warn("Couldn't fetch transactions for {}: {}", accountNumber, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Match the transactions of one bank account received since the last poll.
+     * A full page means more transactions may follow it, so pages are read
+     * after one another until a short page comes back, the cursor only ever
+     * moves past transactions that were handed to the matcher. A burst larger
+     * than MAX_PAGES_PER_POLL pages carries on from the cursor at the next
+     * poll.
+     *
+     * @param accountNumber
+     * @return number of donations created
+     */
+    int pollAccount(String accountNumber) {
+        int donated = 0;
+        for (int page = 0; page < MAX_PAGES_PER_POLL; page++) {
+            Long cursor = cursors.get(accountNumber);
+            List<SepayTransaction> transactions = new ArrayList<>(
+                    sepayClient.transactions(accountNumber, cursor, pollLimit));
+            if (transactions.isEmpty()) {
+                break;
+            }
+            transactions.sort(Comparator.comparingLong(SepayTransaction::getId));
+
+            donated += transferMatcher.match(transactions).size();
+            cursors.put(accountNumber, transactions.get(transactions.size() - 1).getId());
+            // the first poll only places the cursor at the latest transactions
+            if (cursor == null || transactions.size() < pollLimit) {
+                break;
+            }
+            if (page == MAX_PAGES_PER_POLL - 1) {
+                log.info("More than {} pages of transactions on {}, continuing at the next poll",
+                        MAX_PAGES_PER_POLL, accountNumber);
+            }
+        }
+        if (donated > 0) {
+            log.info("Matched {} transfers on {}", donated, accountNumber);
+        }
+        return donated;
+    }
+}
@@ -0,0 +1,172 @@
+package com.khoi.lab.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.data.Constants;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.entity.DonationPaymentCode;
+import com.khoi.lab.object.SepayTransaction;
+
+/**
+ * Sepay transfer matcher.
+ * Finds the pending payment codes mentioned in incoming bank transfers and
+ * turns them into donations. Shared by the transaction poller and the webhook
+ * worker, a code can only be matched once whichever of them sees it first.
+ */
+@Service
+public class SepayTransferMatcher {
+    private static final Logger log = LoggerFactory.getLogger(SepayTransferMatcher.class);
+
+    private static final String DESCRIPTION_PREFIX = normalize(Constants.PAYMENT_DESCRIPTION_PREFIX);
+
+    private final DonationDAO donationDAO;
+
+    @Value("${payment.code.ttl-minutes:60}")
+    private long codeTtlMinutes = 60;
+
+    public SepayTransferMatcher(DonationDAO donationDAO) {
+        this.donationDAO = donationDAO;
+    }
+
+    /**
+     * Payment codes created before this are no longer waited for
+     *
+     * @return
+     */
+    public LocalDateTime pendingCutoff() {
+        return LocalDateTime.now().minusMinutes(codeTtlMinutes);
+    }
+
+    /**
+     * Whether any payment code is still waiting for its transfer
+     *
+     * @return
+     */
+    public boolean hasPendingCodes() {
+        return donationDAO.paymentCodeCountPending(pendingCutoff()) > 0;
+    }
+
+    /**
+     * Match transfers against pending payment codes, in the given order
+     *
+     * @param transactions
+     * @return the donations created, by transaction id
+     */
+    public Map<Long, Donation> match(List<SepayTransaction> transactions) {
+        return match(transactions, new HashMap<>());
+    }
+
+    /**
+     * Match transfers against pending payment codes, in the given order.
+     * Transfers that name a payment code but made no donation, because the
+     * code expired before they arrived, was already used or the amount is
+     * off, are logged and reported for reconciliation.
+     *
+     * @param transactions
+     * @param unmatched    filled with the reason of every such transfer, by
+     *                     transaction id
+     * @return the donations created, by transaction id
+     */
+    public Map<Long, Donation> match(List<SepayTransaction> transactions, Map<Long, String> unmatched) {
+        Set<String> candidates = new HashSet<>();
+        for (SepayTransaction transaction : transactions) {
+            if (transaction.getAmountIn() > 0) {
+                candidates.addAll(extractCodes(transaction.getContent()));
+            }
+        }
+        Map<Long, Donation> donations = new HashMap<>();
+        if (candidates.isEmpty()) {
+            return donations;
+        }
+        Map<String, DonationPaymentCode> pending = new HashMap<>();
+        for (DonationPaymentCode paymentCode : donationDAO.paymentCodeFindPending(candidates, pendingCutoff())) {
+            pending.put(paymentCode.getCode(), paymentCode);
+        }
+
+        for (SepayTransaction transaction : transactions) {
+            if (transaction.getAmountIn() <= 0) {
+                continue;
+            }
+            List<String> codes = extractCodes(transaction.getContent());
+            String reason = null;
+            for (String code : codes) {
+                DonationPaymentCode paymentCode = pending.get(code);
+                if (paymentCode == null) {
+                    reason = "payment code " + code + " is expired, already used or unknown";
+                    continue;
+                }
+                if (paymentCode.getAmount() != transaction.getAmountIn()) {
+                    log.warn("Amount mismatch for code {}: expected {}, received {}",
+                            code, paymentCode.getAmount(), transaction.getAmountIn());
+                    reason = "amount " + transaction.getAmountIn() + " doesn't match " + paymentCode.getAmount()
+                            + " of payment code " + code;
+                    continue;
+                }
+                pending.remove(code);
+                Donation donation = donationDAO.paymentCodeConsume(code);
+                if (donation != null) {
+                    donations.put(transaction.getId(), donation);
+                    reason = null;
+                } else {
+                    reason = "payment code " + code + " was already used";
+                }
+                break;
+            }
+            if (reason != null) {
+                log.warn("Transfer {} of {} needs reconciliation: {}", transaction.getId(),
+                        transaction.getAmountIn(), reason);
+                unmatched.put(transaction.getId(), reason);
+            }
+        }
+        return donations;
+    }
+
+    /**
+     * Payment codes mentioned in a transfer description. Banks may drop or
+     * replace the spaces and add their own prefix, so the description is
+     * compared without anything but letters and digits.
+     *
+     * @param content
+     * @return
+     */
+    public static List<String> extractCodes(String content) {
+        List<String> codes = new ArrayList<>();
+        if (content == null) {
+            return codes;
+        }
+        String normalized = normalize(content);
+        int from = normalized.indexOf(DESCRIPTION_PREFIX);
+        while (from >= 0) {
+            int start = from + DESCRIPTION_PREFIX.length();
+            int end = start + Constants.PAYMENT_CODE_LENGTH;
+            if (end <= normalized.length()) {
+                codes.add(normalized.substring(start, end));
+            }
+            from = normalized.indexOf(DESCRIPTION_PREFIX, start);
+        }
+        return codes;
+    }
+
+    private static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toUpperCase(text.charAt(i));
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.khoi.lab.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sepay webhook authentication.
+ * A delivery is accepted when it carries an HMAC-SHA256 signature of its body
+ * made with sepay.webhook.secret, or the "Apikey" authorization Sepay sends
+ * when the webhook is set up with sepay.webhook.api-key. With neither
+ * configured every delivery is refused.
+ */
+@Service
+public class SepayWebhookVerifier {
+    private static final Logger log = LoggerFactory.getLogger(SepayWebhookVerifier.class);
+
+    public static final String SIGNATURE_HEADER = "X-Sepay-Signature";
+
+    private static final String API_KEY_PREFIX = "Apikey ";
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    private final byte[] secret;
+    private final byte[] apiKey;
+
+    public SepayWebhookVerifier(@Value("${sepay.webhook.secret:}") String secret,
+            @Value("${sepay.webhook.api-key:}") String apiKey) {
+        this.secret = secret.isBlank() ? null : secret.getBytes(StandardCharsets.UTF_8);
+        this.apiKey = apiKey.isBlank() ? null : apiKey.getBytes(StandardCharsets.UTF_8);
+        if (this.secret == null && this.apiKey == null) {
+            log.warn("No webhook secret or api key set, Sepay webhooks will be refused");
+        }
+    }
+
+    /**
+     * Whether a delivery comes from Sepay
+     *
+     * @param authorization Authorization header, may be null
+     * @param signature     signature header, may be null
+     * @param body          raw request body
+     * @return
+     */
+    public boolean verify(String authorization, String signature, byte[] body) {
+        if (secret != null && signature != null) {
+            String hex = signature.startsWith(SIGNATURE_PREFIX) ? signature.substring(SIGNATURE_PREFIX.length())
+                    : signature;
+            byte[] expected = sign(body).getBytes(StandardCharsets.US_ASCII);
+            if (MessageDigest.isEqual(expected, hex.trim().toLowerCase().getBytes(StandardCharsets.US_ASCII))) {
+                return true;
+            }
+        }
+        if (apiKey != null && authorization != null && authorization.startsWith(API_KEY_PREFIX)) {
+            byte[] given = authorization.substring(API_KEY_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.isEqual(apiKey, given);
+        }
+        return false;
+    }
+
+    /**
+     * Hex HMAC-SHA256 of a body with the webhook secret
+     *
+     * @param body
+     * @return
+     */
+    public String sign(byte[] body) {
+        if (secret == null) {
+            throw new IllegalStateException("sepay.webhook.secret is not set");
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.khoi.lab.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.khoi.lab.dao.SepayWebhookDAO;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.entity.SepayWebhookEvent;
+import com.khoi.lab.enums.SepayWebhookStatus;
+import com.khoi.lab.object.SepayTransaction;
+
+/**
+ * Sepay webhook worker.
+ * Drains the webhook inbox in the background so the webhook endpoint never
+ * waits on matching. Each stored transfer is claimed by one worker and handed
+ * to the transfer matcher, which turns a payment code into at most one
+ * donation even if the same transfer is also seen by the poller. Transfers
+ * that name a payment code but made no donation, like one arriving after its
+ * code expired, are kept as UNMATCHED with the reason for reconciliation.
+ */
+@Service
+public class SepayWebhookWorker {
+    private static final Logger log = LoggerFactory.getLogger(SepayWebhookWorker.class);
+
+    private final SepayWebhookDAO sepayWebhookDAO;
+    private final SepayTransferMatcher transferMatcher;
+
+    @Value("${sepay.webhook.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${sepay.webhook.max-batches:20}")
+    private int maxBatches = 20;
+
+    @Value("${sepay.webhook.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${sepay.webhook.lease-seconds:300}")
+    private long leaseSeconds = 300;
+
+    public SepayWebhookWorker(SepayWebhookDAO sepayWebhookDAO, SepayTransferMatcher transferMatcher) {
+        this.sepayWebhookDAO = sepayWebhookDAO;
+        this.transferMatcher = transferMatcher;
+    }
+
+    /**
+     * Process pending deliveries until the inbox is empty or maxBatches
+     * batches were handled
+     *
+     * @return number of events processed
+     */
+    @Scheduled(fixedDelayString = "${sepay.webhook.poll-millis:500}")
+    public int drain() {
+        int processed = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<SepayWebhookEvent> events = sepayWebhookDAO.sepayWebhookClaim(batchSize);
+            for (SepayWebhookEvent event : events) {
+                process(event);
+            }
+            processed += events.size();
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * Put back events claimed by a worker that never reported back
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStale() {
+        int released = sepayWebhookDAO.sepayWebhookReleaseStale(LocalDateTime.now().minusSeconds(leaseSeconds));
+        if (released > 0) {
+            log.info("Released {} stale webhook claims", released);
+        }
+    }
+
+    /**
+     * Match one claimed event and record the outcome
+     *
+     * @param event
+     */
+    private void process(SepayWebhookEvent event) {
+        try {
+            Map<Long, String> unmatched = new HashMap<>();
+            Map<Long, Donation> donations = transferMatcher.match(List.of(new SepayTransaction(event.getId(),
+                    event.getAccountNumber(), event.getAmountIn(), event.getContent())), unmatched);
+            Donation donation = donations.get(event.getId());
+            if (donation != null) {
+                sepayWebhookDAO.sepayWebhookMarkProcessed(event.getId(), SepayWebhookStatus.MATCHED,
+                        donation.getId(), null);
+            } else if (unmatched.containsKey(event.getId())) {
+                sepayWebhookDAO.sepayWebhookMarkProcessed(event.getId(), SepayWebhookStatus.UNMATCHED, null,
+                        unmatched.get(event.getId()));
+            } else {
+                sepayWebhookDAO.sepayWebhookMarkProcessed(event.getId(), SepayWebhookStatus.IGNORED, null, null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Transaction {} failed (attempt {}): {}", event.getId(), event.getAttempts(), e.getMessage());
+            // below maxAttempts the claim is left to expire and the event is retried
+            if (event.getAttempts() >= maxAttempts) {
+                try {
+                    sepayWebhookDAO.sepayWebhookMarkProcessed(event.getId(), SepayWebhookStatus.FAILED, null,
+                            e.getMessage());
+                } catch (RuntimeException markFailure) {
+                    log.warn("Couldn't record failure of transaction {}: {}", event.getId(),
+                            markFailure.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.khoi.lab.service;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.khoi.lab.dao.AccountDAO;
 import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.Role;
 import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.RoleChangedEvent;
+import com.khoi.lab.object.RolePermissions;
+import com.khoi.lab.object.SessionPrincipal;
 
+/**
+ * Permission checks against a cache of compiled roles.
+ * All roles are loaded at once on the first check and kept until a role
+ * changes, so a check is two map lookups and a bit test.
+ */
 @Service
 public class UserPermissionService {
     @Autowired
     private AccountDAO accountDAO;
 
+    private final AtomicReference<RoleCache> cache = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
     /**
      * Checks if a user has a specific permission.
      *
@@ -29,19 +44,99 @@ public class UserPermissionService {
             return false;
         }
 
-        // get roleName
-        String roleName = account.getRole().getRoleName();
-        Role role = accountDAO.roleFindByRoleName(roleName);
-
         // role exist check
+        RolePermissions role = rolePermissions(account.getRole());
         if (role == null) {
             return false;
         }
 
-        // get permissions
-        List<UserPermission> permissions = role.getPermissions();
-
         // check if contains required permission
-        return permissions.contains(requiredPermission);
+        return role.has(requiredPermission);
+    }
+
+    /**
+     * Checks if a session's account has a specific permission. The principal
+     * carries the permissions its role had when it was read, and is rebuilt
+     * whenever a role changes.
+     *
+     * @param principal          The principal of the logged-in session.
+     * @param requiredPermission The specific permission to check for.
+     * @return true if the principal is not null and has the required
+     *         permission, false otherwise.
+     */
+    public boolean hasPermission(SessionPrincipal principal, UserPermission requiredPermission) {
+        return principal != null && principal.has(requiredPermission);
+    }
+
+    /**
+     * Compiled permissions of a role, looked up by id and then by name
+     *
+     * @param role
+     * @return null if the role doesn't exist anymore
+     */
+    public RolePermissions rolePermissions(Role role) {
+        RoleCache roles = roles();
+        RolePermissions permissions = role.getId() != null ? roles.byId.get(role.getId()) : null;
+        if (permissions == null && role.getRoleName() != null) {
+            permissions = roles.byName.get(role.getRoleName().toLowerCase());
+        }
+        return permissions;
+    }
+
+    /**
+     * Counter bumped whenever a role changes
+     *
+     * @return
+     */
+    public long getRoleGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Drop the cached roles, the next check reloads them
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Drop the cached roles once a role change has been committed
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoleChanged(RoleChangedEvent event) {
+        invalidate();
+    }
+
+    private RoleCache roles() {
+        // roles loaded before the last invalidation are never reused
+        long currentGeneration = generation.get();
+        RoleCache roles = cache.get();
+        if (roles != null && roles.generation == currentGeneration) {
+            return roles;
+        }
+        Map<Long, RolePermissions> byId = new HashMap<>();
+        Map<String, RolePermissions> byName = new HashMap<>();
+        for (Role role : accountDAO.roleList()) {
+            RolePermissions permissions = RolePermissions.of(role);
+            byId.put(role.getId(), permissions);
+            byName.put(role.getRoleName().toLowerCase(), permissions);
+        }
+        roles = new RoleCache(currentGeneration, byId, byName);
+        cache.set(roles);
+        return roles;
+    }
+
+    private static final class RoleCache {
+        private final long generation;
+        private final Map<Long, RolePermissions> byId;
+        private final Map<String, RolePermissions> byName;
+
+        private RoleCache(long generation, Map<Long, RolePermissions> byId, Map<String, RolePermissions> byName) {
+            this.generation = generation;
+            this.byId = Map.copyOf(byId);
+            this.byName = Map.copyOf(byName);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,5 @@
 $(document).ready(function() {
-  var table = $('#dataTable').DataTable({
+  $('#dataTable').DataTable({
     dom:  "<'row mb-2'<'col-sm-6 text-left'f><'col-sm-6 text-right'B>>" +
           "<'row'<'col-sm-12'tr>>" +
           "<'row'<'col-sm-5'i><'col-sm-7'p>>",
@@ -28,18 +28,9 @@ $(document).ready(function() {
         }
       }
     ],
-    order: [[0, 'desc']]
+    // rows arrive one server page at a time, newest first
+    paging: false,
+    info: false,
+    order: []
   });
-
-  // paramed search
-  const params = new URLSearchParams(window.location.search);
-  const searchCampaign = params.get('campaign');
-  const searchAccount = params.get('account');
-
-  if (searchCampaign) {
-      table.column(1).search(`[id:${searchCampaign}]`).draw();
-  }
-  if (searchAccount) {
-      table.column(2).search(`[id:${searchAccount}]`).draw();
-  }
 });
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.khoi.lab.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class GuardedDataSourceTest {
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+
+    /**
+     * Test for getConnection()
+     * Scenario: more callers than permits
+     * Verifies that the extra caller is turned away after the timeout and a
+     * closed connection lets the next one in.
+     */
+    @Test
+    void getConnection_LimitsConcurrency() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        GuardedDataSource guard = new GuardedDataSource(dataSource, 2, 10);
+        Connection first = guard.getConnection();
+        guard.getConnection();
+
+        // Call the method
+        assertThrows(SQLTransientConnectionException.class, guard::getConnection);
+
+        // Assertions
+        assertEquals(2, guard.getActive());
+        assertEquals(1, guard.getRejected());
+        first.close();
+        first.close();
+        verify(connection, times(2)).close();
+        assertEquals(1, guard.getActive());
+        guard.getConnection();
+        assertThrows(SQLTransientConnectionException.class, guard::getConnection);
+    }
+
+    /**
+     * Test for getConnection()
+     * Scenario: the pool fails to hand out a connection
+     * Verifies that the permit is given back.
+     */
+    @Test
+    void getConnection_PoolFailure_ReleasesPermit() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+        GuardedDataSource guard = new GuardedDataSource(dataSource, 1, 10);
+
+        // Call the method
+        assertThrows(SQLTransientConnectionException.class, guard::getConnection);
+
+        // Assertions
+        assertEquals(0, guard.getActive());
+        assertEquals(0, guard.getRejected());
+    }
+}
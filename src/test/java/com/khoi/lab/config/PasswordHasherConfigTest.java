@@ -0,0 +1,54 @@
+package com.khoi.lab.config;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.khoi.lab.service.AesPasswordHasher;
+import com.khoi.lab.service.CryptographyService;
+import com.khoi.lab.service.PasswordHasher;
+import com.khoi.lab.service.Pbkdf2PasswordHasher;
+
+public class PasswordHasherConfigTest {
+
+    /**
+     * Test for PasswordHasherConfig()
+     * Scenario: password.hasher=pbkdf2
+     * Verifies that the configured hasher is installed for the entities.
+     */
+    @Test
+    void passwordHasherConfig_Pbkdf2_InstallsHasher() {
+        PasswordHasher previous = CryptographyService.getPasswordHasher();
+        try {
+            // Call the method
+            new PasswordHasherConfig("pbkdf2", 1000);
+
+            // Assertions
+            PasswordHasher installed = CryptographyService.getPasswordHasher();
+            assertInstanceOf(Pbkdf2PasswordHasher.class, installed);
+            assertTrue(installed.hash("toilakhoi").startsWith("pbkdf2$1000$"));
+        } finally {
+            CryptographyService.setPasswordHasher(previous);
+        }
+        assertSame(previous, CryptographyService.getPasswordHasher());
+    }
+
+    /**
+     * Test for passwordHasher()
+     * Scenario: known and unknown password.hasher values
+     * Verifies that aes maps to the legacy hasher and anything else fails
+     * startup without touching the installed hasher.
+     */
+    @Test
+    void passwordHasher_UnknownName_Throws() {
+        PasswordHasher previous = CryptographyService.getPasswordHasher();
+
+        // Assertions
+        assertInstanceOf(AesPasswordHasher.class, PasswordHasherConfig.passwordHasher("aes", 1000));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasherConfig("md5", 1000));
+        assertSame(previous, CryptographyService.getPasswordHasher());
+    }
+}
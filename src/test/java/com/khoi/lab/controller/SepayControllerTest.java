@@ -0,0 +1,181 @@
+package com.khoi.lab.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.dao.SepayWebhookDAO;
+import com.khoi.lab.entity.DonationPaymentCode;
+import com.khoi.lab.entity.SepayWebhookEvent;
+import com.khoi.lab.service.SepayWebhookVerifier;
+
+/**
+ * Replays recorded Sepay webhook payloads against the controller
+ */
+@ExtendWith(MockitoExtension.class)
+public class SepayControllerTest {
+    @Mock
+    private DonationDAO donationDAO;
+
+    @Mock
+    private SepayWebhookDAO sepayWebhookDAO;
+
+    private final SepayWebhookVerifier webhookVerifier = new SepayWebhookVerifier("test-secret", "test-key");
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders
+                .standaloneSetup(new SepayController(donationDAO, sepayWebhookDAO, webhookVerifier))
+                .build();
+    }
+
+    private byte[] recorded(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/sepay/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Test for receiveWebhook()
+     * Verifies that a signed incoming transfer is stored in the inbox.
+     */
+    @Test
+    void receiveWebhook_StoresSignedDelivery() throws Exception {
+        byte[] body = recorded("webhook-in.json");
+        when(sepayWebhookDAO.sepayWebhookReceive(any())).thenReturn(true);
+
+        // Call the method
+        mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(body)
+                .header(SepayWebhookVerifier.SIGNATURE_HEADER, "sha256=" + webhookVerifier.sign(body)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        // Assertions
+        ArgumentCaptor<SepayWebhookEvent> stored = ArgumentCaptor.forClass(SepayWebhookEvent.class);
+        verify(sepayWebhookDAO).sepayWebhookReceive(stored.capture());
+        assertEquals(92704L, stored.getValue().getId());
+        assertEquals(50000L, stored.getValue().getAmountIn());
+        assertEquals("0793300359", stored.getValue().getAccountNumber());
+    }
+
+    /**
+     * Test for receiveWebhook()
+     * Verifies that a redelivery is acknowledged like the first delivery.
+     */
+    @Test
+    void receiveWebhook_AcknowledgesDuplicate() throws Exception {
+        byte[] body = recorded("webhook-in.json");
+        when(sepayWebhookDAO.sepayWebhookReceive(any())).thenReturn(true, false);
+
+        // Call the method
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(body)
+                    .header("Authorization", "Apikey test-key"))
+                    .andExpect(status().isOk());
+        }
+
+        // Assertions
+        verify(sepayWebhookDAO, times(2)).sepayWebhookReceive(any());
+    }
+
+    /**
+     * Test for receiveWebhook()
+     * Verifies that an outgoing transfer is stored without an incoming amount.
+     */
+    @Test
+    void receiveWebhook_OutgoingTransfer() throws Exception {
+        byte[] body = recorded("webhook-out.json");
+
+        // Call the method
+        mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(body)
+                .header("Authorization", "Apikey test-key"))
+                .andExpect(status().isOk());
+
+        // Assertions
+        ArgumentCaptor<SepayWebhookEvent> stored = ArgumentCaptor.forClass(SepayWebhookEvent.class);
+        verify(sepayWebhookDAO).sepayWebhookReceive(stored.capture());
+        assertEquals(0L, stored.getValue().getAmountIn());
+    }
+
+    /**
+     * Test for receiveWebhook()
+     * Verifies that a forged or tampered delivery is refused and not stored.
+     */
+    @Test
+    void receiveWebhook_RefusesBadSignature() throws Exception {
+        byte[] body = recorded("webhook-in.json");
+        String signature = webhookVerifier.sign(body);
+        byte[] tampered = new String(body).replace("50000", "5000000").getBytes();
+
+        // Call the method
+        mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(tampered)
+                .header(SepayWebhookVerifier.SIGNATURE_HEADER, signature))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(body)
+                .header("Authorization", "Apikey wrong-key"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isUnauthorized());
+
+        // Assertions
+        verify(sepayWebhookDAO, never()).sepayWebhookReceive(any());
+    }
+
+    /**
+     * Test for receiveWebhook()
+     * Verifies that a payload without a transaction id is rejected.
+     */
+    @Test
+    void receiveWebhook_RejectsUnreadable() throws Exception {
+        byte[] body = "{\"content\":\"no id\"}".getBytes();
+
+        // Call the method
+        mvc.perform(post("/api/sepay/webhook").contentType(MediaType.APPLICATION_JSON).content(body)
+                .header(SepayWebhookVerifier.SIGNATURE_HEADER, webhookVerifier.sign(body)))
+                .andExpect(status().isBadRequest());
+
+        // Assertions
+        verify(sepayWebhookDAO, never()).sepayWebhookReceive(any());
+    }
+
+    /**
+     * Test for getPaymentStatus()
+     * Verifies that a payment page learns when its code has been matched.
+     */
+    @Test
+    void getPaymentStatus_ReportsMatch() throws Exception {
+        DonationPaymentCode paymentCode = new DonationPaymentCode("ABCD1234", 1L, null, 50000);
+        paymentCode.setDonationId(3L);
+        when(donationDAO.paymentCodeFindByCode("ABCD1234")).thenReturn(paymentCode);
+
+        // Call the method
+        mvc.perform(get("/api/sepay/payments/ABCD1234"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"code\":\"ABCD1234\",\"matched\":true}"));
+        mvc.perform(get("/api/sepay/payments/ZZZZZZZZ"))
+                .andExpect(status().isNotFound());
+    }
+}
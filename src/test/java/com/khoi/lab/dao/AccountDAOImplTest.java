@@ -6,8 +6,11 @@ import com.khoi.lab.entity.PasswordResetCode;
 import com.khoi.lab.entity.Role;
 import com.khoi.lab.enums.UserPermission;
 import com.khoi.lab.service.CryptographyService;
+import com.khoi.lab.service.PasswordHasher;
+import com.khoi.lab.service.Pbkdf2PasswordHasher;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +19,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Collections;
 import java.util.List;
@@ -38,6 +42,9 @@ class AccountDAOImplTest {
     @Mock
     private EntityManager mockEm;
 
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+
     // Mocking the TypedQuery objects for various return types
     @Mock
     private TypedQuery<Account> mockAccountTypedQuery;
@@ -48,6 +55,12 @@ class AccountDAOImplTest {
     @Mock
     private TypedQuery<PasswordResetCode> mockPasswordResetCodeTypedQuery;
 
+    @Mock
+    private TypedQuery<Long> mockLongTypedQuery;
+
+    @Mock
+    private Query mockQuery;
+
     // Injecting the mocked dependencies into the DAO implementation
     @InjectMocks
     private AccountDAOImpl accountDAO;
@@ -211,53 +224,93 @@ class AccountDAOImplTest {
 
     // --- Account Tests ---
 
+    /**
+     * Stub the version bump accountUpdate runs after merging
+     *
+     * @param newVersion
+     */
+    private void stubVersionBump(long newVersion) {
+        when(mockEm.createQuery("UPDATE Account a SET a.version = a.version + 1 WHERE a.id=:id"))
+                .thenReturn(mockQuery);
+        when(mockQuery.setParameter("id", 1L)).thenReturn(mockQuery);
+        when(mockEm.createQuery("SELECT a.version FROM Account a WHERE a.id=:id", Long.class))
+                .thenReturn(mockLongTypedQuery);
+        when(mockLongTypedQuery.setParameter("id", 1L)).thenReturn(mockLongTypedQuery);
+        when(mockLongTypedQuery.getResultList()).thenReturn(List.of(newVersion));
+    }
+
     @Test
     void testAccountLogin_SuccessWithUsername() {
         // Arrange
-        try (MockedStatic<CryptographyService> mockedCrypto = mockStatic(CryptographyService.class)) {
-            String username = "testuser";
-            String password = "password";
-            String encryptedPassword = "encrypted_password";
+        String username = "testuser";
+        when(mockEm.createQuery(anyString(), eq(Account.class))).thenReturn(mockAccountTypedQuery);
+        when(mockAccountTypedQuery.setParameter("username", username)).thenReturn(mockAccountTypedQuery);
+        when(mockAccountTypedQuery.setParameter("email", username)).thenReturn(mockAccountTypedQuery);
+        when(mockAccountTypedQuery.setParameter("phone", username)).thenReturn(mockAccountTypedQuery);
+        when(mockAccountTypedQuery.getResultList()).thenReturn(List.of(mockAccount));
+        when(mockEm.merge(any(Account.class))).thenReturn(mockAccount);
+        stubVersionBump(1L);
 
-            mockedCrypto.when(() -> CryptographyService.encrypt(password)).thenReturn(encryptedPassword);
+        // Act
+        Account loggedInAccount = accountDAO.accountLogin(username, "password");
 
-            when(mockEm.createQuery(anyString(), eq(Account.class))).thenReturn(mockAccountTypedQuery);
-            when(mockAccountTypedQuery.setParameter("username", username)).thenReturn(mockAccountTypedQuery);
-            when(mockAccountTypedQuery.setParameter("email", username)).thenReturn(mockAccountTypedQuery);
-            when(mockAccountTypedQuery.setParameter("phone", username)).thenReturn(mockAccountTypedQuery);
-            when(mockAccountTypedQuery.setParameter("password", encryptedPassword)).thenReturn(mockAccountTypedQuery);
-            when(mockAccountTypedQuery.getSingleResult()).thenReturn(mockAccount);
-            when(mockEm.merge(any(Account.class))).thenReturn(mockAccount);
+        // Assert
+        assertNotNull(loggedInAccount);
+        assertEquals(mockAccount, loggedInAccount);
+        assertNotNull(loggedInAccount.getLastLoginDate());
+        verify(mockAccountTypedQuery).getResultList();
+    }
 
-            // Act
-            Account loggedInAccount = accountDAO.accountLogin(username, password);
+    @Test
+    void testAccountLogin_WrongPassword() {
+        // Arrange
+        when(mockEm.createQuery(anyString(), eq(Account.class))).thenReturn(mockAccountTypedQuery);
+        when(mockAccountTypedQuery.getResultList()).thenReturn(List.of(mockAccount));
 
-            // Assert
-            assertNotNull(loggedInAccount);
-            assertEquals(mockAccount, loggedInAccount);
-            assertNotNull(loggedInAccount.getLastLoginDate());
-            verify(mockAccountTypedQuery).getSingleResult();
-        }
+        // Act
+        Account loggedInAccount = accountDAO.accountLogin("testuser", "wrong");
+
+        // Assert
+        assertNull(loggedInAccount);
+        verify(mockEm, never()).merge(any(Account.class));
     }
 
     @Test
     void testAccountLogin_NotFound() {
         // Arrange
-        try (MockedStatic<CryptographyService> mockedCrypto = mockStatic(CryptographyService.class)) {
-            String username = "nonexistent";
-            String password = "password";
-            String encryptedPassword = "encrypted_password";
-            mockedCrypto.when(() -> CryptographyService.encrypt(password)).thenReturn(encryptedPassword);
+        when(mockEm.createQuery(anyString(), eq(Account.class))).thenReturn(mockAccountTypedQuery);
+        when(mockAccountTypedQuery.getResultList()).thenReturn(List.of());
+
+        // Act
+        Account loggedInAccount = accountDAO.accountLogin("nonexistent", "password");
+
+        // Assert
+        assertNull(loggedInAccount);
+        verify(mockAccountTypedQuery).getResultList();
+    }
 
+    @Test
+    void testAccountLogin_Pbkdf2_RehashesLegacyPassword() {
+        // Arrange
+        String legacy = mockAccount.getPassword();
+        PasswordHasher previous = CryptographyService.getPasswordHasher();
+        CryptographyService.setPasswordHasher(new Pbkdf2PasswordHasher(1000));
+        try {
             when(mockEm.createQuery(anyString(), eq(Account.class))).thenReturn(mockAccountTypedQuery);
-            when(mockAccountTypedQuery.getSingleResult()).thenThrow(new NoResultException());
+            when(mockAccountTypedQuery.getResultList()).thenReturn(List.of(mockAccount));
+            when(mockEm.merge(any(Account.class))).thenReturn(mockAccount);
+            stubVersionBump(1L);
 
             // Act
-            Account loggedInAccount = accountDAO.accountLogin(username, password);
+            Account loggedInAccount = accountDAO.accountLogin("testuser", "password");
 
             // Assert
-            assertNull(loggedInAccount);
-            verify(mockAccountTypedQuery).getSingleResult();
+            assertEquals(mockAccount, loggedInAccount);
+            assertNotEquals(legacy, loggedInAccount.getPassword());
+            assertTrue(loggedInAccount.getPassword().startsWith("pbkdf2$1000$"));
+            assertTrue(loggedInAccount.passwordMatches("password"));
+        } finally {
+            CryptographyService.setPasswordHasher(previous);
         }
     }
 
@@ -276,7 +329,9 @@ class AccountDAOImplTest {
     @Test
     void testAccountUpdate() {
         // Arrange
+        mockAccount.setVersion(3L);
         when(mockEm.merge(mockAccount)).thenReturn(mockAccount);
+        stubVersionBump(4L);
 
         // Act
         Account updatedAccount = accountDAO.accountUpdate(mockAccount);
@@ -284,7 +339,10 @@ class AccountDAOImplTest {
         // Assert
         assertNotNull(updatedAccount);
         assertEquals(mockAccount, updatedAccount);
+        assertEquals(4L, updatedAccount.getVersion());
         verify(mockEm, times(1)).merge(mockAccount);
+        verify(mockQuery).executeUpdate();
+        verify(mockEventPublisher).publishEvent(any(com.khoi.lab.object.AccountChangedEvent.class));
     }
 
     @Test
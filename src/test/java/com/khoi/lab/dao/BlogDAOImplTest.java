@@ -2,6 +2,7 @@ package com.khoi.lab.dao;
 
 import com.khoi.lab.entity.BlogPost;
 import com.khoi.lab.entity.BlogPostComment;
+import com.khoi.lab.enums.BlogPostOrder;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import org.junit.jupiter.api.Test;
@@ -10,7 +11,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +34,9 @@ class BlogDAOImplTest {
     @Mock
     private EntityManager entityManager;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     // Mock entities and queries for use in the tests
     @Mock
     private BlogPost mockBlogPost;
@@ -96,6 +102,98 @@ class BlogDAOImplTest {
         verify(mockTypedQuery, times(1)).getResultList();
     }
 
+    @Test
+    void testBlogPostPage() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = from.plusMonths(1);
+        when(entityManager.createQuery(
+                "SELECT b FROM BlogPost b WHERE b.date >= :from AND b.date < :to ORDER BY "
+                        + BlogPostOrder.POPULAR.getOrderBy(),
+                BlogPost.class)).thenReturn(mockTypedQuery);
+        when(mockTypedQuery.getResultList()).thenReturn(List.of(mockBlogPost));
+
+        // Act
+        List<BlogPost> resultList = blogDAO.blogPostPage(null, from, to, BlogPostOrder.POPULAR, 6, 3);
+
+        // Assert
+        // Only the requested page is fetched
+        assertEquals(1, resultList.size());
+        verify(mockTypedQuery).setParameter("from", from);
+        verify(mockTypedQuery).setParameter("to", to);
+        verify(mockTypedQuery).setFirstResult(6);
+        verify(mockTypedQuery).setMaxResults(3);
+    }
+
+    @Test
+    void testBlogPostPage_NoMatchingIds() {
+        // Act
+        List<BlogPost> resultList = blogDAO.blogPostPage(List.of(), null, null, BlogPostOrder.LATEST, 0, 3);
+
+        // Assert
+        // An empty search result never reaches the database
+        assertTrue(resultList.isEmpty());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBlogPostIdsOrdered_Popular() {
+        // Arrange
+        TypedQuery<Object[]> mockRowQuery = mock(TypedQuery.class);
+        List<Long> ids = new java.util.ArrayList<>();
+        for (long id = 1; id <= 1500; id++) {
+            ids.add(id);
+        }
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 0, 0);
+        when(entityManager.createQuery("SELECT b.id, b.date, b.commentCount FROM BlogPost b WHERE b.id IN :ids",
+                Object[].class)).thenReturn(mockRowQuery);
+        when(mockRowQuery.getResultList()).thenReturn(
+                List.of(new Object[] { 1L, date, 2 }, new Object[] { 2L, date, 5 }),
+                List.<Object[]>of(new Object[] { 1200L, date, 2 }));
+
+        // Act
+        List<Long> ordered = blogDAO.blogPostIdsOrdered(ids, null, null, BlogPostOrder.POPULAR);
+
+        // Assert
+        // The ids are bound in bounded chunks and sorted like the ORDER BY
+        assertEquals(List.of(2L, 1200L, 1L), ordered);
+        verify(mockRowQuery, times(2)).getResultList();
+        verify(mockRowQuery).setParameter("ids", ids.subList(0, 1000));
+        verify(mockRowQuery).setParameter("ids", ids.subList(1000, 1500));
+    }
+
+    @Test
+    void testBlogPostFindNewer() {
+        // Arrange
+        when(entityManager.createQuery("SELECT b FROM BlogPost b WHERE b.id > :id ORDER BY b.id ASC",
+                BlogPost.class)).thenReturn(mockTypedQuery);
+        when(mockTypedQuery.getResultList()).thenReturn(List.of(mockBlogPost));
+
+        // Act
+        BlogPost newer = blogDAO.blogPostFindNewer(5L);
+
+        // Assert
+        // A single row is read past the current id
+        assertEquals(mockBlogPost, newer);
+        verify(mockTypedQuery).setParameter("id", 5L);
+        verify(mockTypedQuery).setMaxResults(1);
+    }
+
+    @Test
+    void testBlogPostFindOlder_None() {
+        // Arrange
+        when(entityManager.createQuery("SELECT b FROM BlogPost b WHERE b.id < :id ORDER BY b.id DESC",
+                BlogPost.class)).thenReturn(mockTypedQuery);
+        when(mockTypedQuery.getResultList()).thenReturn(List.of());
+
+        // Act
+        BlogPost older = blogDAO.blogPostFindOlder(1L);
+
+        // Assert
+        assertNull(older);
+    }
+
     @Test
     void testUpdateBlogPost() {
         // Arrange
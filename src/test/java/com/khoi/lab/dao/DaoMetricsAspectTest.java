@@ -0,0 +1,76 @@
+package com.khoi.lab.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.khoi.lab.config.DaoMetricsAspect;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+@ExtendWith(MockitoExtension.class)
+public class DaoMetricsAspectTest {
+    @Mock
+    private EntityManager em;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmailOutboxDAO emailOutboxDAO;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new EmailOutboxDAOImpl(em));
+        factory.addAspect(new DaoMetricsAspect(meterRegistry));
+        emailOutboxDAO = factory.getProxy();
+    }
+
+    /**
+     * Test for time()
+     * Verifies that successful DAO calls are timed by class and method.
+     */
+    @Test
+    void time_Success() {
+        // Call the method
+        emailOutboxDAO.emailOutboxEnqueue("luke.skywalker@jedi.com", "Subject", "Body");
+        emailOutboxDAO.emailOutboxEnqueue("leia.organa@rebel.com", "Subject", "Body");
+
+        // Assertions
+        assertEquals(2, meterRegistry.get(DaoMetricsAspect.METRIC_NAME)
+                .tag("class", "EmailOutboxDAOImpl")
+                .tag("method", "emailOutboxEnqueue")
+                .tag("outcome", "success")
+                .timer().count());
+    }
+
+    /**
+     * Test for time()
+     * Scenario: the DAO method throws
+     * Verifies that the call is timed as a failure with its exception and the
+     * exception still reaches the caller.
+     */
+    @Test
+    void time_Failure() {
+        doThrow(new PersistenceException("down")).when(em).persist(any());
+
+        // Call the method
+        assertThrows(PersistenceException.class,
+                () -> emailOutboxDAO.emailOutboxEnqueue("han.solo@falcon.com", "Subject", "Body"));
+
+        // Assertions
+        assertEquals(1, meterRegistry.get(DaoMetricsAspect.METRIC_NAME)
+                .tag("method", "emailOutboxEnqueue")
+                .tag("outcome", "failure")
+                .tag("exception", "PersistenceException")
+                .timer().count());
+    }
+}
@@ -7,10 +7,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -20,6 +24,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.khoi.lab.entity.Account;
 import com.khoi.lab.entity.Campaign;
@@ -28,10 +33,16 @@ import com.khoi.lab.entity.DonationPaymentCode;
 import com.khoi.lab.entity.DonationReceiver;
 import com.khoi.lab.enums.CampaignStatus;
 import com.khoi.lab.enums.DonationStatus;
-import com.khoi.lab.service.EmailSenderService;
+import com.khoi.lab.object.CampaignDonationCounts;
+import com.khoi.lab.object.DashboardStats;
+import com.khoi.lab.object.DonationCursor;
+import com.khoi.lab.object.DonationFilter;
+import com.khoi.lab.object.DonationPage;
+import com.khoi.lab.service.CampaignStatusUpdaterService;
 import com.khoi.lab.service.UserPermissionService;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,10 +51,12 @@ public class DonationDAOImplTest {
     @Mock
     private EntityManager em;
     @Mock
-    private EmailSenderService senderService;
+    private CampaignStatusUpdaterService campaignStatusUpdater;
     @Mock
     private UserPermissionService userPermissionService;
     @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
     private TypedQuery<Campaign> mockCampaignTypedQuery;
     @Mock
     private TypedQuery<DonationReceiver> mockDrTypedQuery;
@@ -51,6 +64,8 @@ public class DonationDAOImplTest {
     private TypedQuery<Donation> mockDonationTypedQuery;
     @Mock
     private TypedQuery<DonationPaymentCode> mockPaymentCodeTypedQuery;
+    @Mock
+    private TypedQuery<Object[]> mockRowTypedQuery;
 
     // Class under test, with mocked dependencies injected
     @InjectMocks
@@ -82,6 +97,55 @@ public class DonationDAOImplTest {
         verify(em, never()).persist(any(Donation.class));
     }
 
+    /**
+     * Test for paymentCodeConsume()
+     * Scenario: The code was already claimed by another request.
+     * Verifies that no donation is made.
+     */
+    @Test
+    void paymentCodeConsume_AlreadyClaimed_ReturnsNull() {
+        Query mockClaimQuery = mock(Query.class, RETURNS_SELF);
+        when(em.createQuery(anyString())).thenReturn(mockClaimQuery);
+        when(mockClaimQuery.executeUpdate()).thenReturn(0);
+
+        // Call the method
+        Donation result = donationDAO.paymentCodeConsume("ABCD1234");
+
+        // Assertions
+        assertNull(result);
+        verify(em, never()).createQuery(anyString(), eq(DonationPaymentCode.class));
+        verify(em, never()).persist(any(Donation.class));
+    }
+
+    /**
+     * Test for paymentCodeConsume()
+     * Scenario: The code is claimed but its campaign no longer takes donations.
+     * Verifies that the claim is given back.
+     */
+    @Test
+    void paymentCodeConsume_DonationRefused_ReleasesClaim() {
+        DonationPaymentCode paymentCode = new DonationPaymentCode("ABCD1234", 10L, null, 50000);
+        paymentCode.setConsumeTime(LocalDateTime.now());
+        Campaign campaign = new Campaign();
+        campaign.setId(10L);
+        campaign.setStatus(CampaignStatus.CLOSED);
+        Query mockClaimQuery = mock(Query.class, RETURNS_SELF);
+
+        when(em.createQuery(anyString())).thenReturn(mockClaimQuery);
+        when(mockClaimQuery.executeUpdate()).thenReturn(1);
+        when(em.createQuery(anyString(), eq(DonationPaymentCode.class))).thenReturn(mockPaymentCodeTypedQuery);
+        when(mockPaymentCodeTypedQuery.getSingleResult()).thenReturn(paymentCode);
+        when(em.find(eq(Campaign.class), any())).thenReturn(campaign);
+
+        // Call the method
+        Donation result = donationDAO.paymentCodeConsume("ABCD1234");
+
+        // Assertions
+        assertNull(result);
+        assertNull(paymentCode.getConsumeTime());
+        verify(em, never()).persist(any(Donation.class));
+    }
+
     /**
      * Test for campaignChangeStatus()
      * Verifies that the campaign's status is correctly updated.
@@ -180,4 +244,191 @@ public class DonationDAOImplTest {
         assertEquals(3000, total); // 1000 (d1) + 2000 (d2)
         // d4 is outside the 60 minute window and d3 is not confirmed.
     }
+
+    /**
+     * Test for getDonationAmountsLastXDays()
+     * Verifies that the chart reads the daily rollup with a single range query
+     * and fills days without donations with 0.
+     */
+    @Test
+    void getDonationAmountsLastXDays_ReadsRollupRange() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = Arrays.asList(
+                new Object[] { today, 5000L },
+                new Object[] { today.minusDays(2), 1500L });
+
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(mockRowTypedQuery);
+        when(mockRowTypedQuery.getResultList()).thenReturn(rows);
+
+        // Call the method
+        List<Integer> amounts = donationDAO.getDonationAmountsLastXDays(3, 10L);
+
+        // Assertions
+        assertEquals(Arrays.asList(1500, 0, 5000), amounts);
+        verify(em, times(1)).createQuery(anyString(), eq(Object[].class));
+    }
+
+    /**
+     * Test for dashboardStatsCompute()
+     * Verifies that the snapshot is built from the aggregate rows and tolerates
+     * SUM() returning null on an empty table.
+     */
+    @Test
+    void dashboardStatsCompute_BuildsSnapshotFromAggregates() {
+        @SuppressWarnings("unchecked")
+        TypedQuery<Object[]> mockStatusTypedQuery = mock(TypedQuery.class);
+        @SuppressWarnings("unchecked")
+        TypedQuery<Object[]> mockSeriesTypedQuery = mock(TypedQuery.class);
+
+        when(em.createQuery(anyString(), eq(Object[].class)))
+                .thenReturn(mockRowTypedQuery).thenReturn(mockStatusTypedQuery).thenReturn(mockSeriesTypedQuery);
+        when(mockRowTypedQuery.getSingleResult()).thenReturn(new Object[] { 7000L, 2000L, 3L, null, 4L });
+        when(mockStatusTypedQuery.getResultList()).thenReturn(Arrays.asList(
+                new Object[] { CampaignStatus.OPEN, 3L },
+                new Object[] { CampaignStatus.COMPLETE, 1L }));
+        when(mockSeriesTypedQuery.getResultList()).thenReturn(Arrays.<Object[]>asList(
+                new Object[] { LocalDate.now(), 2000L }));
+
+        // Call the method
+        DashboardStats stats = donationDAO.dashboardStatsCompute();
+
+        // Assertions
+        assertEquals(7000, stats.getDonationsWeekly());
+        assertEquals(2000, stats.getDonationsRecent());
+        assertEquals(3, stats.getDonationsPending());
+        assertEquals(0, stats.getAnonymousDonations());
+        assertEquals(4, stats.getNonAnonymousDonations());
+        assertEquals(25, stats.getCampaignCompletedPercentage());
+        assertEquals(30, stats.getDateLabels().size());
+        assertEquals(2000, stats.getDonationAmounts().get(29));
+    }
+
+    /**
+     * Test for donationConfirm()
+     * Scenario: the donation no longer exists.
+     * Verifies that its campaign status is still reconciled through the
+     * injected updater.
+     */
+    @Test
+    void donationConfirm_UpdatesCampaignStatus() {
+        Campaign campaign = new Campaign();
+        Donation donation = new Donation();
+        donation.setId(1L);
+        donation.setCampaign(campaign);
+
+        // Call the method
+        donationDAO.donationConfirm(donation);
+
+        // Assertions
+        verify(campaignStatusUpdater).updateCampaignStatus(campaign);
+    }
+
+    /**
+     * Test for exportFetchSize()
+     * Verifies that MySQL without useCursorFetch streams row by row instead
+     * of buffering the result set, and other databases keep the setting.
+     */
+    @Test
+    void exportFetchSize_MySqlWithoutCursorFetch_StreamsRows() {
+        // Assertions
+        assertEquals(Integer.MIN_VALUE, DonationDAOImpl.exportFetchSize(1000, "jdbc:mysql://db/lab"));
+        assertEquals(1000, DonationDAOImpl.exportFetchSize(1000, "jdbc:mysql://db/lab?useCursorFetch=true"));
+        assertEquals(1000, DonationDAOImpl.exportFetchSize(1000, "jdbc:h2:mem:lab"));
+        assertEquals(Integer.MIN_VALUE, DonationDAOImpl.exportFetchSize(Integer.MIN_VALUE, "jdbc:mysql://db/lab"));
+    }
+
+    /**
+     * Test for campaignDonationCounts()
+     * Verifies that the grouped status counts add up without loading the
+     * campaign's donations.
+     */
+    @Test
+    void campaignDonationCounts_SumsStatusGroups() {
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(mockRowTypedQuery);
+        when(mockRowTypedQuery.getResultList()).thenReturn(List.of(
+                new Object[] { DonationStatus.PENDING, 3L, 1L },
+                new Object[] { DonationStatus.CONFIRMED, 5L, 2L },
+                new Object[] { DonationStatus.REFUSED, 2L, null }));
+
+        // Call the method
+        CampaignDonationCounts counts = donationDAO.campaignDonationCounts(4L);
+
+        // Assertions
+        assertEquals(10, counts.getTotal());
+        assertEquals(3, counts.getPending());
+        assertEquals(5, counts.getConfirmed());
+        assertEquals(2, counts.getRefused());
+        assertEquals(3, counts.getAnonymous());
+        assertEquals(7, counts.getNonAnonymous());
+        verify(mockRowTypedQuery).setParameter("campaignId", 4L);
+        verify(em, never()).find(eq(Campaign.class), any());
+    }
+
+    /**
+     * Test for campaignDeleteById()
+     * Verifies that the campaign's daily rollup rows are deleted with it.
+     */
+    @Test
+    void campaignDeleteById_DeletesRollupRows() {
+        Campaign campaign = new Campaign();
+        Query mockDeleteQuery = mock(Query.class, RETURNS_SELF);
+        when(em.find(Campaign.class, 5L)).thenReturn(campaign);
+        when(em.createQuery("DELETE FROM DonationDailyRollup r WHERE r.campaignId = :campaignId"))
+                .thenReturn(mockDeleteQuery);
+
+        // Call the method
+        donationDAO.campaignDeleteById(5L);
+
+        // Assertions
+        verify(em).remove(campaign);
+        verify(mockDeleteQuery).setParameter("campaignId", 5L);
+        verify(mockDeleteQuery).executeUpdate();
+    }
+
+    /**
+     * Test for donationPage()
+     * Verifies that one extra row is fetched to detect a following page, and
+     * that it is dropped from the page and used for the older cursor.
+     */
+    @Test
+    void donationPage_FirstPage_ReturnsOlderCursorOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Donation> rows = Arrays.asList(new Donation(), new Donation(), new Donation());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setId(30L - i);
+            rows.get(i).setDonateTime(now.minusMinutes(i));
+        }
+        Query mockCountQuery = mock(Query.class);
+
+        when(em.createQuery(anyString(), eq(Donation.class))).thenReturn(mockDonationTypedQuery);
+        when(mockDonationTypedQuery.getResultList()).thenReturn(rows);
+        when(em.createNativeQuery(anyString())).thenReturn(mockCountQuery);
+        when(mockCountQuery.getSingleResult()).thenReturn(3L);
+
+        // Call the method
+        DonationPage page = donationDAO.donationPage(new DonationFilter(), null, false, 2);
+
+        // Assertions
+        assertEquals(2, page.getDonations().size());
+        assertNull(page.getNewerCursor());
+        assertEquals(29L, page.getOlderCursor().getId());
+        assertEquals(3, page.getTotalEstimate());
+        verify(mockDonationTypedQuery).setMaxResults(3);
+    }
+
+    /**
+     * Test for DonationCursor.parse()
+     * Verifies that cursors round trip and malformed ones are ignored.
+     */
+    @Test
+    void donationCursor_RoundTripsAndRejectsGarbage() {
+        DonationCursor cursor = new DonationCursor(LocalDateTime.of(2025, 7, 20, 10, 30, 15, 123000), 42L);
+
+        DonationCursor parsed = DonationCursor.parse(cursor.toString());
+
+        assertEquals(cursor.getDonateTime(), parsed.getDonateTime());
+        assertEquals(42L, parsed.getId());
+        assertNull(DonationCursor.parse("yesterday_42"));
+        assertNull(DonationCursor.parse("2025-07-20T10:30"));
+    }
 }
@@ -0,0 +1,132 @@
+package com.khoi.lab.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.entity.DonationPaymentCode;
+import com.khoi.lab.entity.DonationReceiver;
+import com.khoi.lab.enums.CampaignStatus;
+
+/**
+ * Stress test for DonationDAO.paymentCodeConsume() against a real database.
+ * Many threads race to consume the same payment code, exactly one of them
+ * may turn it into a donation.
+ */
+@SpringBootTest
+class DonationPaymentCodeConsumeStressTest {
+    private static final int THREADS = 64;
+    private static final int CODES = 20;
+
+    @Autowired
+    private DonationDAO donationDAO;
+
+    @Autowired
+    private AccountDAO accountDAO;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // rows made by this run, removed afterwards so reruns don't collide
+    private String codePrefix;
+    private Long campaignId;
+    private Long receiverId;
+    private Long donorId;
+    private String donorEmail;
+
+    @AfterEach
+    void tearDown() {
+        if (codePrefix != null) {
+            jdbcTemplate.update("DELETE FROM donation_payment_code WHERE code LIKE ?", codePrefix + "%");
+        }
+        if (campaignId != null) {
+            jdbcTemplate.update("DELETE FROM donation_daily_rollup WHERE campaign_id = ?", campaignId);
+            jdbcTemplate.update("DELETE FROM donation WHERE campaign_id = ?", campaignId);
+            jdbcTemplate.update("DELETE FROM account_campaign_followers WHERE campaign_id = ?", campaignId);
+            jdbcTemplate.update("DELETE FROM campaign WHERE id = ?", campaignId);
+        }
+        if (receiverId != null) {
+            jdbcTemplate.update("DELETE FROM donation_receiver WHERE id = ?", receiverId);
+        }
+        if (donorId != null) {
+            jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient = ?", donorEmail);
+            jdbcTemplate.update("DELETE FROM account WHERE id = ?", donorId);
+        }
+    }
+
+    /**
+     * Test for paymentCodeConsume()
+     * Scenario: 64 threads consume the same code at once, for several codes.
+     * Verifies that every code makes exactly one donation.
+     */
+    @Test
+    void paymentCodeConsume_Contended_NoDoubleSpend() throws Exception {
+        long suffix = System.nanoTime() % 100000;
+        codePrefix = String.format("S%05d", suffix);
+        DonationReceiver receiver = donationDAO.donationReceiverCreate("Stress receiver", "09" + suffix);
+        receiverId = receiver.getId();
+        Campaign campaign = donationDAO.campaignCreate("Stress campaign " + suffix, receiver, "stress", 1000000,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusDays(1), null);
+        campaignId = campaign.getId();
+        campaign = donationDAO.campaignChangeStatus(campaign, CampaignStatus.OPEN);
+        donorEmail = "stress" + suffix + "@lab.test";
+        Account donor = accountDAO.accountRegister("stress" + suffix, "Stress", "Donor", donorEmail,
+                "08" + suffix, "password", "user");
+        donorId = donor.getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < CODES; i++) {
+                String code = codePrefix + String.format("%02d", i);
+                donationDAO.paymentCodeCreate(code, campaign, donor, 1000);
+
+                CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<Donation>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    results.add(executor.submit(() -> {
+                        barrier.await(10, TimeUnit.SECONDS);
+                        return donationDAO.paymentCodeConsume(code);
+                    }));
+                }
+
+                int donations = 0;
+                for (Future<Donation> result : results) {
+                    if (result.get(30, TimeUnit.SECONDS) != null) {
+                        donations++;
+                    }
+                }
+
+                // Assertions
+                assertEquals(1, donations, "donations made for " + code);
+                DonationPaymentCode paymentCode = donationDAO.paymentCodeFindByCode(code);
+                assertNotNull(paymentCode.getConsumeTime());
+                assertNotNull(paymentCode.getDonationId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assertions
+        long persisted = donationDAO.donationList(true).stream()
+                .filter(d -> campaignId.equals(d.getCampaign().getId()))
+                .count();
+        assertEquals(CODES, persisted);
+    }
+}
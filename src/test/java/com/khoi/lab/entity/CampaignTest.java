@@ -1,6 +1,7 @@
 package com.khoi.lab.entity;
 
 import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.DonationStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -113,6 +114,7 @@ public class CampaignTest {
         when(mockDonation3.getAmount()).thenReturn(1500);
 
         campaign.setDonations(Arrays.asList(mockDonation1, mockDonation2, mockDonation3));
+        campaign.recountDonations();
         assertEquals(2000, campaign.getDonatedAmount(), "Donated amount should only sum confirmed donations.");
     }
 
@@ -122,6 +124,7 @@ public class CampaignTest {
         when(mockDonation1.isConfirmed()).thenReturn(true);
         when(mockDonation1.getAmount()).thenReturn(2000); // 20% of 10000 goal
         campaign.setDonations(Arrays.asList(mockDonation1));
+        campaign.recountDonations();
 
         // The calculated percentage should be exactly 20.0
         assertEquals(20.0, campaign.getDonatedPercentage(), 0.01, "Donated percentage should be calculated correctly.");
@@ -133,6 +136,7 @@ public class CampaignTest {
         when(mockDonation1.isConfirmed()).thenReturn(true);
         when(mockDonation1.getAmount()).thenReturn(12000); // 120% of 10000 goal
         campaign.setDonations(Arrays.asList(mockDonation1));
+        campaign.recountDonations();
 
         // The percentage should be capped at 100.0
         assertEquals(100.0, campaign.getDonatedPercentage(), 0.01,
@@ -146,6 +150,7 @@ public class CampaignTest {
         when(mockDonation1.isConfirmed()).thenReturn(true);
         when(mockDonation1.getAmount()).thenReturn(1000);
         campaign.setDonations(Arrays.asList(mockDonation1));
+        campaign.recountDonations();
 
         // The percentage should be 100.0
         assertEquals(100.0, campaign.getDonatedPercentage(), 0.01, "Percentage should be 100% if the goal is zero.");
@@ -201,4 +206,35 @@ public class CampaignTest {
         assertEquals(mockDonation3, sortedAndFiltered.get(0), "The newest donation should be first.");
         assertEquals(mockDonation1, sortedAndFiltered.get(1), "The second newest donation should be second.");
     }
+
+    @Test
+    void testApplyDonationStatusChange_UpdatesCountersAndProgress() {
+        // New pending donation, then confirmed (25% of 10000 goal)
+        campaign.applyDonationStatusChange(2500, null, DonationStatus.PENDING);
+        assertEquals(1, campaign.getPendingCount());
+        assertEquals(0, campaign.getDonatedAmount());
+
+        campaign.applyDonationStatusChange(2500, DonationStatus.PENDING, DonationStatus.CONFIRMED);
+        assertEquals(0, campaign.getPendingCount());
+        assertEquals(1, campaign.getConfirmedCount());
+        assertEquals(2500, campaign.getDonatedAmount());
+        assertEquals(25, campaign.getDonatedPercentageCapped());
+
+        // Refusing it takes it back out of the confirmed counters
+        campaign.applyDonationStatusChange(2500, DonationStatus.CONFIRMED, DonationStatus.REFUSED);
+        assertEquals(0, campaign.getConfirmedCount());
+        assertEquals(0, campaign.getDonatedAmount());
+        assertEquals(0, campaign.getDonatedPercentageCapped());
+    }
+
+    @Test
+    void testSetGoal_RecomputesStoredProgress() {
+        campaign.setDonationCounters(15000, 3, 0, 2);
+        assertEquals(100, campaign.getDonatedPercentageCapped());
+        assertEquals(150, campaign.getDonatedPercentageUncapped());
+
+        campaign.setGoal(30000);
+        assertEquals(50, campaign.getDonatedPercentageCapped());
+        assertEquals(50, campaign.getDonatedPercentageUncapped());
+    }
 }
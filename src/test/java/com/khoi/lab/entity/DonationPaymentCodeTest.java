@@ -3,8 +3,10 @@ package com.khoi.lab.entity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for the DonationPaymentCode entity.
@@ -44,4 +46,18 @@ public class DonationPaymentCodeTest {
         assertEquals(newCode, donationPaymentCode.getCode(),
                 "The code getter should return the value set by the setter.");
     }
+
+    @Test
+    void testPaymentIntentConstructor() {
+        // Verify that the campaign, donor and amount are remembered and the code starts unmatched
+        DonationPaymentCode paymentIntent = new DonationPaymentCode(TEST_CODE, 3L, null, 50000L);
+        assertEquals(3L, paymentIntent.getCampaignId(), "The campaign id should be set by the constructor.");
+        assertNull(paymentIntent.getAccountId(), "An anonymous donor has no account id.");
+        assertEquals(50000L, paymentIntent.getAmount(), "The amount should be set by the constructor.");
+        assertNotNull(paymentIntent.getCreateTime(), "The creation time should be set by the constructor.");
+        assertFalse(paymentIntent.isMatched(), "A new code should not be matched.");
+
+        paymentIntent.setDonationId(9L);
+        assertTrue(paymentIntent.isMatched(), "A code with a donation should be matched.");
+    }
 }
@@ -0,0 +1,208 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.khoi.lab.dao.AccountDAO;
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Role;
+import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.AccountChangedEvent;
+import com.khoi.lab.object.SessionPrincipal;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountSessionUpdaterServiceTest {
+    @Mock
+    private AccountDAO accountDAO;
+    @Mock
+    private UserPermissionService userPermissionService;
+
+    // keeps the versions of two accounts at most
+    @InjectMocks
+    private AccountSessionUpdaterService accountSessionUpdater = new AccountSessionUpdaterService(2);
+
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        session = new MockHttpSession();
+    }
+
+    private Account account(Long id, long version) {
+        Role role = new Role("user", Collections.singletonList(UserPermission.CREATE_DONATIONS), 1);
+        role.setId(1L);
+        Account account = new Account("user" + id, "Test", "User", null, null, "password", role);
+        account.setId(id);
+        account.setVersion(version);
+        return account;
+    }
+
+    private SessionPrincipal principal() {
+        return (SessionPrincipal) session.getAttribute("principal");
+    }
+
+    private void request() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        accountSessionUpdater.preHandle(request, new MockHttpServletResponse(), null);
+    }
+
+    /**
+     * Test for login()
+     * Verifies that only the principal is stored in the session and that it
+     * carries the role's permissions.
+     */
+    @Test
+    void login_StoresPrincipalOnly() {
+        // Call the method
+        accountSessionUpdater.login(session, account(1L, 3));
+
+        // Assertions
+        assertNull(session.getAttribute("account"));
+        assertEquals(1L, principal().getAccountId());
+        assertEquals(3L, principal().getVersion());
+        assertEquals(1, principal().getPowerLevel());
+        assertEquals(true, principal().has(UserPermission.CREATE_DONATIONS));
+        assertEquals(false, principal().has(UserPermission.MANAGE_USERS));
+    }
+
+    /**
+     * Test for preHandle()
+     * Verifies that an unchanged account is checked against the database once
+     * and never reloaded.
+     */
+    @Test
+    void preHandle_UnchangedAccount_NoReload() throws Exception {
+        accountSessionUpdater.login(session, account(1L, 3));
+        SessionPrincipal principal = principal();
+        when(accountDAO.accountVersionFindWithId(1L)).thenReturn(3L);
+
+        // Call the method
+        for (int i = 0; i < 100; i++) {
+            request();
+        }
+
+        // Assertions
+        assertSame(principal, principal());
+        verify(accountDAO, times(1)).accountVersionFindWithId(1L);
+        verifyNoMoreInteractions(accountDAO);
+    }
+
+    /**
+     * Test for preHandle()
+     * Verifies that the principal is rebuilt once after the account changed.
+     */
+    @Test
+    void preHandle_ChangedAccount_ReloadsOnce() throws Exception {
+        accountSessionUpdater.login(session, account(1L, 3));
+        when(accountDAO.accountVersionFindWithId(1L)).thenReturn(3L);
+        request();
+
+        when(accountDAO.accountFindWithId(1L)).thenReturn(account(1L, 4));
+
+        // Call the method
+        accountSessionUpdater.onAccountChanged(new AccountChangedEvent(1L, 4L));
+        request();
+        request();
+
+        // Assertions
+        assertEquals(4L, principal().getVersion());
+        verify(accountDAO, times(1)).accountFindWithId(1L);
+    }
+
+    /**
+     * Test for onAccountChanged()
+     * Scenario: an older version arrives after a newer one.
+     * Verifies that the known version never goes back.
+     */
+    @Test
+    void onAccountChanged_OutOfOrder_KeepsNewest() throws Exception {
+        accountSessionUpdater.login(session, account(1L, 5));
+
+        // Call the method
+        accountSessionUpdater.onAccountChanged(new AccountChangedEvent(1L, 5L));
+        accountSessionUpdater.onAccountChanged(new AccountChangedEvent(1L, 4L));
+        request();
+
+        // Assertions
+        verify(accountDAO, never()).accountVersionFindWithId(1L);
+        verify(accountDAO, never()).accountFindWithId(1L);
+    }
+
+    /**
+     * Test for preHandle()
+     * Scenario: more accounts are seen than the version map keeps.
+     * Verifies that the oldest account is dropped and read again on its next
+     * request.
+     */
+    @Test
+    void preHandle_VersionMapFull_EvictsOldest() throws Exception {
+        when(accountDAO.accountVersionFindWithId(1L)).thenReturn(0L);
+        accountSessionUpdater.login(session, account(1L, 0));
+        request();
+
+        // Call the method
+        accountSessionUpdater.onAccountChanged(new AccountChangedEvent(2L, 0L));
+        accountSessionUpdater.onAccountChanged(new AccountChangedEvent(3L, 0L));
+        request();
+
+        // Assertions
+        verify(accountDAO, times(2)).accountVersionFindWithId(1L);
+    }
+
+    /**
+     * Test for preHandle()
+     * Verifies that a role change rebuilds the principal.
+     */
+    @Test
+    void preHandle_RoleChanged_Reloads() throws Exception {
+        when(userPermissionService.getRoleGeneration()).thenReturn(0L, 0L, 1L);
+        accountSessionUpdater.login(session, account(1L, 0));
+        when(accountDAO.accountVersionFindWithId(1L)).thenReturn(0L);
+        when(accountDAO.accountFindWithId(1L)).thenReturn(account(1L, 0));
+
+        // Call the method
+        request();
+        request();
+
+        // Assertions
+        assertEquals(1L, principal().getRoleGeneration());
+        verify(accountDAO, times(1)).accountFindWithId(1L);
+    }
+
+    /**
+     * Test for preHandle()
+     * Scenario: the account was deleted.
+     * Verifies that the session is logged out.
+     */
+    @Test
+    void preHandle_DeletedAccount_ClearsSession() throws Exception {
+        accountSessionUpdater.login(session, account(1L, 0));
+        when(accountDAO.accountVersionFindWithId(1L)).thenReturn(null);
+
+        // Call the method
+        request();
+
+        // Assertions
+        assertNull(principal());
+        verify(accountDAO, never()).accountFindWithId(1L);
+    }
+}
@@ -0,0 +1,123 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.BlogDAO;
+import com.khoi.lab.object.BlogPostChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class BlogSearchIndexTest {
+    @Mock
+    private BlogDAO blogDAO;
+
+    @InjectMocks
+    private BlogSearchIndex searchIndex;
+
+    /**
+     * Test for search()
+     * Scenario: Query typed without Vietnamese diacritics.
+     * Verifies that it matches text written with them, including đ.
+     */
+    @Test
+    void search_IgnoresDiacritics() {
+        searchIndex.index(1L, "Quyên góp cho trẻ em vùng cao", "Áo ấm mùa đông");
+        searchIndex.index(2L, "Nước sạch", "Giếng khoan cho làng");
+
+        assertEquals(List.of(1L), searchIndex.search("tre em"));
+        assertEquals(List.of(1L), searchIndex.search("DONG"));
+        assertEquals(List.of(2L), searchIndex.search("nuoc sach"));
+    }
+
+    /**
+     * Test for search()
+     * Verifies that every term has to match and that posts with the term in
+     * the title rank above posts only mentioning it in the description.
+     */
+    @Test
+    void search_MatchesAllTermsRankedByRelevance() {
+        searchIndex.index(1L, "School supplies", "Books for children, water bottles included");
+        searchIndex.index(2L, "Clean water", "Water filters for a village school");
+        searchIndex.index(3L, "Winter clothes", "Coats for the mountain region");
+
+        assertEquals(List.of(2L, 1L), searchIndex.search("water school"));
+        assertEquals(List.of(), searchIndex.search("water coats"));
+    }
+
+    /**
+     * Test for search()
+     * Verifies that the last query term also matches as a prefix.
+     */
+    @Test
+    void search_LastTermMatchesPrefix() {
+        searchIndex.index(1L, "Flood relief", "Emergency shelters");
+        searchIndex.index(2L, "Flowers", "Garden project");
+
+        assertEquals(2, searchIndex.search("flo").size());
+        assertEquals(List.of(1L), searchIndex.search("emergency shel"));
+        assertEquals(List.of(), searchIndex.search("flo garden"));
+    }
+
+    /**
+     * Test for onBlogPostChanged()
+     * Verifies that updates replace the old terms and deletions drop the post.
+     */
+    @Test
+    void onBlogPostChanged_UpdatesAndRemoves() {
+        searchIndex.onBlogPostChanged(new BlogPostChangedEvent(1L, "Old title", "Old text", false));
+        searchIndex.onBlogPostChanged(new BlogPostChangedEvent(1L, "New title", "New text", false));
+
+        assertEquals(List.of(), searchIndex.search("old"));
+        assertEquals(List.of(1L), searchIndex.search("new"));
+
+        searchIndex.onBlogPostChanged(new BlogPostChangedEvent(1L, null, null, true));
+
+        assertEquals(List.of(), searchIndex.search("new"));
+        assertEquals(0, searchIndex.size());
+        assertEquals(0, searchIndex.termCount());
+    }
+
+    /**
+     * Test for search()
+     * Scenario: 20000 posts over a skewed 3000 word vocabulary.
+     * Verifies that a two term query stays well within a few milliseconds.
+     */
+    @Test
+    void search_LargeIndex_IsFast() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[3000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "tu" + Integer.toString(i, 36);
+        }
+        for (long id = 1; id <= 20000; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < 60; i++) {
+                description.append(vocabulary[(int) (vocabulary.length * Math.pow(random.nextDouble(), 3))])
+                        .append(' ');
+            }
+            searchIndex.index(id, vocabulary[random.nextInt(vocabulary.length)], description.toString());
+        }
+        for (int i = 0; i < 500; i++) {
+            searchIndex.search("tu10 tu5");
+        }
+
+        long start = System.nanoTime();
+        int runs = 500;
+        for (int i = 0; i < runs; i++) {
+            searchIndex.search("tu10 tu5");
+        }
+        long averageMicros = (System.nanoTime() - start) / runs / 1000;
+
+        assertEquals(20000, searchIndex.size());
+        assertTrue(averageMicros < 5000, "average search took " + averageMicros + "us");
+    }
+}
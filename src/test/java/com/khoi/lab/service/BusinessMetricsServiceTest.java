@@ -0,0 +1,66 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.CampaignStatus;
+import com.khoi.lab.enums.DonationStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class BusinessMetricsServiceTest {
+    @Mock
+    private DonationDAO donationDAO;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Test for refresh()
+     * Verifies that the gauges show the counts of the last refresh.
+     */
+    @Test
+    void refresh_UpdatesGauges() {
+        BusinessMetricsService service = new BusinessMetricsService(donationDAO, meterRegistry);
+        when(donationDAO.donationCountByStatus(DonationStatus.PENDING)).thenReturn(7L);
+        when(donationDAO.campaignCountByStatus(CampaignStatus.OPEN)).thenReturn(3L);
+        when(donationDAO.donationCountSince(any())).thenReturn(12L);
+
+        // Call the method
+        service.refresh();
+
+        // Assertions
+        assertEquals(7, meterRegistry.get("donations.pending").gauge().value());
+        assertEquals(3, meterRegistry.get("campaigns.open").gauge().value());
+        assertEquals(12, meterRegistry.get("donations.per_minute").gauge().value());
+    }
+
+    /**
+     * Test for refresh()
+     * Scenario: the database is unavailable
+     * Verifies that the gauges keep their last values.
+     */
+    @Test
+    void refresh_DatabaseDown_KeepsLastValues() {
+        BusinessMetricsService service = new BusinessMetricsService(donationDAO, meterRegistry);
+        when(donationDAO.donationCountByStatus(DonationStatus.PENDING)).thenReturn(7L)
+                .thenThrow(new IllegalStateException("down"));
+        when(donationDAO.campaignCountByStatus(CampaignStatus.OPEN)).thenReturn(3L);
+        when(donationDAO.donationCountSince(any())).thenReturn(12L);
+        service.refresh();
+
+        // Call the method
+        service.refresh();
+
+        // Assertions
+        assertEquals(7, meterRegistry.get("donations.pending").gauge().value());
+        assertEquals(3, meterRegistry.get("campaigns.open").gauge().value());
+    }
+}
@@ -0,0 +1,106 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.object.DonationStatusChangedEvent;
+import com.khoi.lab.object.LeaderboardEntry;
+
+@ExtendWith(MockitoExtension.class)
+public class CampaignLeaderboardServiceTest {
+    @Mock
+    private DonationDAO donationDAO;
+
+    @InjectMocks
+    private CampaignLeaderboardService leaderboardService;
+
+    private LeaderboardEntry entry(Long accountId, long total) {
+        return new LeaderboardEntry(accountId, "Donor", String.valueOf(accountId), total, 1L, LocalDateTime.now());
+    }
+
+    private List<LeaderboardEntry> fullLeaderboard() {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (long i = 1; i <= CampaignLeaderboardService.LEADERBOARD_SIZE; i++) {
+            entries.add(entry(i, 100000L * (CampaignLeaderboardService.LEADERBOARD_SIZE + 1 - i)));
+        }
+        return entries;
+    }
+
+    /**
+     * Test for getLeaderboard()
+     * Verifies that the grouped query only runs once per campaign.
+     */
+    @Test
+    void getLeaderboard_QueriesOnce() {
+        when(donationDAO.campaignLeaderboard(1L, CampaignLeaderboardService.LEADERBOARD_SIZE))
+                .thenReturn(fullLeaderboard());
+
+        // Call the method
+        leaderboardService.getLeaderboard(1L);
+        List<LeaderboardEntry> leaderboard = leaderboardService.getLeaderboard(1L);
+
+        // Assertions
+        assertEquals(CampaignLeaderboardService.LEADERBOARD_SIZE, leaderboard.size());
+        verify(donationDAO, times(1)).campaignLeaderboard(1L, CampaignLeaderboardService.LEADERBOARD_SIZE);
+    }
+
+    /**
+     * Test for onDonationStatusChanged()
+     * Verifies that a confirmed donation moves its donor up and pushes the last
+     * donor out without reloading the list.
+     */
+    @Test
+    void onDonationStatusChanged_ConfirmedDonation_MergesDonor() {
+        when(donationDAO.campaignLeaderboard(1L, CampaignLeaderboardService.LEADERBOARD_SIZE))
+                .thenReturn(fullLeaderboard());
+        when(donationDAO.campaignLeaderboardEntry(1L, 42L)).thenReturn(entry(42L, 550000L));
+        leaderboardService.getLeaderboard(1L);
+
+        // Call the method
+        leaderboardService.onDonationStatusChanged(
+                new DonationStatusChangedEvent(7L, 1L, 42L, DonationStatus.PENDING, DonationStatus.CONFIRMED));
+        List<LeaderboardEntry> leaderboard = leaderboardService.getLeaderboard(1L);
+
+        // Assertions
+        assertEquals(CampaignLeaderboardService.LEADERBOARD_SIZE, leaderboard.size());
+        assertEquals(42L, leaderboard.get(5).getAccountId());
+        assertEquals(9L, leaderboard.get(leaderboard.size() - 1).getAccountId());
+        verify(donationDAO, times(1)).campaignLeaderboard(1L, CampaignLeaderboardService.LEADERBOARD_SIZE);
+    }
+
+    /**
+     * Test for onDonationStatusChanged()
+     * Scenario: a listed donor's donation is refused after being confirmed.
+     * Verifies that the campaign is reloaded on the next view.
+     */
+    @Test
+    void onDonationStatusChanged_ListedDonorRefused_Reloads() {
+        when(donationDAO.campaignLeaderboard(1L, CampaignLeaderboardService.LEADERBOARD_SIZE))
+                .thenReturn(fullLeaderboard());
+        leaderboardService.getLeaderboard(1L);
+
+        // Call the method
+        leaderboardService.onDonationStatusChanged(
+                new DonationStatusChangedEvent(7L, 1L, 3L, DonationStatus.CONFIRMED, DonationStatus.REFUSED));
+        leaderboardService.getLeaderboard(1L);
+
+        // Assertions
+        verify(donationDAO, times(2)).campaignLeaderboard(1L, CampaignLeaderboardService.LEADERBOARD_SIZE);
+        verify(donationDAO, never()).campaignLeaderboardEntry(1L, 3L);
+    }
+}
@@ -0,0 +1,82 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.enums.CampaignStatus;
+
+@ExtendWith(MockitoExtension.class)
+public class CampaignLifecycleSchedulerTest {
+    @Mock
+    private DonationDAO donationDAO;
+    @Mock
+    private CampaignStatusUpdaterService statusUpdaterService;
+
+    private CampaignLifecycleScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new CampaignLifecycleScheduler(donationDAO, statusUpdaterService, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private Campaign campaign(Long id, CampaignStatus status, LocalDateTime startTime, LocalDateTime endTime) {
+        Campaign campaign = new Campaign("Campaign", null, "", null, 1000, startTime, endTime);
+        campaign.setId(id);
+        campaign.setStatus(status);
+        return campaign;
+    }
+
+    /**
+     * Test for nextDeadline()
+     * Verifies that only CREATED and COMPLETE campaigns wait on the clock.
+     */
+    @Test
+    void nextDeadline_DependsOnStatus() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = start.plusDays(10);
+
+        assertEquals(start, CampaignLifecycleScheduler.nextDeadline(campaign(1L, CampaignStatus.CREATED, start, end)));
+        assertEquals(end, CampaignLifecycleScheduler.nextDeadline(campaign(1L, CampaignStatus.COMPLETE, start, end)));
+        assertNull(CampaignLifecycleScheduler.nextDeadline(campaign(1L, CampaignStatus.OPEN, start, end)));
+        assertNull(CampaignLifecycleScheduler.nextDeadline(campaign(1L, CampaignStatus.CLOSED, start, end)));
+    }
+
+    /**
+     * Test for schedule()
+     * Verifies that a due deadline fires the transition and a far one doesn't.
+     */
+    @Test
+    void schedule_FiresDueDeadlinesOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        Campaign due = campaign(1L, CampaignStatus.CREATED, now.plusNanos(50_000_000), now.plusDays(1));
+        Campaign later = campaign(2L, CampaignStatus.CREATED, now.plusDays(1), now.plusDays(2));
+        Campaign opened = campaign(1L, CampaignStatus.OPEN, due.getStartTime(), due.getEndTime());
+        when(statusUpdaterService.updateCampaignStatus(1L)).thenReturn(opened);
+
+        scheduler.schedule(due);
+        scheduler.schedule(later);
+
+        verify(statusUpdaterService, timeout(2000)).updateCampaignStatus(1L);
+        verify(statusUpdaterService, never()).updateCampaignStatus(2L);
+    }
+}
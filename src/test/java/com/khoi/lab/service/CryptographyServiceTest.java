@@ -0,0 +1,159 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+public class CryptographyServiceTest {
+    /**
+     * Test for encrypt(String)
+     * Verifies that a pooled cipher produces what a freshly built one did,
+     * so passwords stored before keep matching.
+     */
+    @Test
+    void encrypt_SameAsFreshCipher() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec("lab301xsecretkey".getBytes(), "AES"));
+        String expected = Base64.getEncoder().encodeToString(cipher.doFinal("toilakhoi".getBytes()));
+
+        // Call the method
+        String encrypted = CryptographyService.encrypt("toilakhoi");
+
+        // Assertions
+        assertEquals(expected, encrypted);
+        assertEquals(encrypted, CryptographyService.encrypt("toilakhoi"));
+        assertEquals("toilakhoi", CryptographyService.decrypt(encrypted));
+    }
+
+    /**
+     * Test for encrypt(byte[]) and decrypt(byte[])
+     * Scenario: many threads share the service
+     * Verifies that every thread round trips its own input.
+     */
+    @Test
+    void encryptDecrypt_Bytes_Concurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                byte[] input = ("payload " + i).getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        if (!java.util.Arrays.equals(input,
+                                CryptographyService.decrypt(CryptographyService.encrypt(input)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            // Assertions
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test for encrypt(byte[]) and decrypt(byte[])
+     * Scenario: a virtual thread per call
+     * Verifies that every call round trips its input on ciphers borrowed from
+     * the shared pool.
+     */
+    @Test
+    void encryptDecrypt_Bytes_VirtualThreads() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                byte[] input = ("payload " + i).getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() -> java.util.Arrays.equals(input,
+                        CryptographyService.decrypt(CryptographyService.encrypt(input)))));
+            }
+
+            // Assertions
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+    }
+
+    /**
+     * Test for decrypt(String)
+     * Scenario: the input is not something we encrypted
+     * Verifies that null is returned and the cipher is still usable.
+     */
+    @Test
+    void decrypt_Garbage_ReturnsNull() throws Exception {
+        // Call the method
+        String decrypted = CryptographyService.decrypt(Base64.getEncoder().encodeToString(new byte[7]));
+
+        // Assertions
+        assertEquals(null, decrypted);
+        byte[] input = "still works".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(input, CryptographyService.decrypt(CryptographyService.encrypt(input)));
+    }
+
+    /**
+     * Test for Pbkdf2PasswordHasher
+     * Verifies that hashes are salted, verify and carry their cost.
+     */
+    @Test
+    void pbkdf2_HashAndMatch() {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+
+        // Call the method
+        String hash = hasher.hash("toilakhoi");
+
+        // Assertions
+        assertTrue(hash.startsWith("pbkdf2$1000$"));
+        assertNotEquals(hash, hasher.hash("toilakhoi"));
+        assertTrue(hasher.matches("toilakhoi", hash));
+        assertFalse(hasher.matches("toilakhoj", hash));
+        assertFalse(hasher.matches("", hash));
+        assertFalse(hasher.needsRehash(hash));
+        assertTrue(new Pbkdf2PasswordHasher(2000).needsRehash(hash));
+        assertTrue(new Pbkdf2PasswordHasher(2000).matches("toilakhoi", hash));
+    }
+
+    /**
+     * Test for Pbkdf2PasswordHasher
+     * Scenario: accounts stored by the aes hasher or without a password
+     * Verifies that they still verify and legacy values are flagged for rehash.
+     */
+    @Test
+    void pbkdf2_LegacyAndEmpty() {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+        String legacy = new AesPasswordHasher().hash("toilakhoi");
+        String legacyEmpty = new AesPasswordHasher().hash("");
+
+        // Assertions
+        assertTrue(hasher.matches("toilakhoi", legacy));
+        assertFalse(hasher.matches("toilakhoj", legacy));
+        assertTrue(hasher.needsRehash(legacy));
+        assertEquals("", hasher.hash(""));
+        assertTrue(hasher.matches("", ""));
+        assertFalse(hasher.matches("toilakhoi", ""));
+        assertTrue(hasher.matches("", legacyEmpty));
+        assertFalse(hasher.needsRehash(""));
+        assertThrows(IllegalArgumentException.class, () -> new Pbkdf2PasswordHasher(0));
+    }
+}
@@ -0,0 +1,127 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.khoi.lab.dao.AccountDAO;
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.service.DatasetGenerator.CampaignWindow;
+
+@ExtendWith(MockitoExtension.class)
+public class DatasetGeneratorTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AccountDAO accountDAO;
+
+    @Mock
+    private DonationDAO donationDAO;
+
+    private final List<Long> accountIds = LongStream.rangeClosed(1, 50).boxed().collect(Collectors.toList());
+    private final List<CampaignWindow> campaigns = List.of(
+            new CampaignWindow(1L, NOW.minusDays(30), NOW.minusDays(10)),
+            new CampaignWindow(2L, NOW.minusDays(5), NOW));
+
+    /**
+     * Test for donationRows()
+     * Verifies that the same seed and chunk give the same rows and another
+     * seed gives different ones.
+     */
+    @Test
+    void donationRows_Deterministic() {
+        // Call the method
+        List<Object[]> first = DatasetGenerator.donationRows(42, 3, 500, accountIds, campaigns);
+        List<Object[]> again = DatasetGenerator.donationRows(42, 3, 500, accountIds, campaigns);
+        List<Object[]> otherSeed = DatasetGenerator.donationRows(43, 3, 500, accountIds, campaigns);
+
+        // Assertions
+        assertEquals(500, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i), again.get(i));
+        }
+        boolean differs = false;
+        for (int i = 0; i < first.size(); i++) {
+            differs |= !Arrays.equals(first.get(i), otherSeed.get(i));
+        }
+        assertTrue(differs);
+    }
+
+    /**
+     * Test for donationRows()
+     * Verifies that donations fall within the window of their campaign and
+     * amounts are whole multiples of 10000.
+     */
+    @Test
+    void donationRows_WithinCampaignWindow() {
+        // Call the method
+        List<Object[]> rows = DatasetGenerator.donationRows(7, 0, 1000, accountIds, campaigns);
+
+        // Assertions
+        boolean anonymous = false;
+        for (Object[] row : rows) {
+            CampaignWindow campaign = (Long) row[1] == 1L ? campaigns.get(0) : campaigns.get(1);
+            LocalDateTime donateTime = ((Timestamp) row[3]).toLocalDateTime();
+            int amount = (int) row[2];
+            anonymous |= row[0] == null;
+
+            assertFalse(donateTime.isBefore(campaign == campaigns.get(0) ? NOW.minusDays(30) : NOW.minusDays(5)));
+            assertFalse(donateTime.isAfter(campaign == campaigns.get(0) ? NOW.minusDays(10) : NOW));
+            assertTrue(amount > 0 && amount % 10000 == 0, String.valueOf(amount));
+        }
+        assertTrue(anonymous);
+    }
+
+    /**
+     * Test for generate()
+     * Scenario: scale factor below 1
+     * Verifies that nothing is written.
+     */
+    @Test
+    void generate_InvalidScaleFactor_Throws() {
+        DatasetGenerator generator = new DatasetGenerator(jdbcTemplate, transactionManager, accountDAO, donationDAO);
+
+        // Call the method & Assertions
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(0, 42));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    /**
+     * Test for generate()
+     * Scenario: the user role hasn't been created yet
+     * Verifies that nothing is written.
+     */
+    @Test
+    void generate_MissingRole_Throws() {
+        DatasetGenerator generator = new DatasetGenerator(jdbcTemplate, transactionManager, accountDAO, donationDAO);
+        when(accountDAO.roleFindByRoleName("user")).thenReturn(null);
+
+        // Call the method & Assertions
+        assertThrows(IllegalStateException.class, () -> generator.generate(1, 42));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,119 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.enums.ExportFormat;
+import com.khoi.lab.object.DonationExportRow;
+
+@ExtendWith(MockitoExtension.class)
+public class DonationExportServiceTest {
+    @Mock
+    private DonationDAO donationDAO;
+
+    @InjectMocks
+    private DonationExportService donationExportService;
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 7, 20, 10, 30);
+
+    /**
+     * Make the mocked DAO stream the given rows to the export consumer
+     */
+    @SuppressWarnings("unchecked")
+    private void mockRows(DonationExportRow... rows) {
+        when(donationDAO.donationExport(isNull(), isNull(), eq(DonationStatus.CONFIRMED), isNull(), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<DonationExportRow> consumer = invocation.getArgument(4, Consumer.class);
+                    for (DonationExportRow row : rows) {
+                        consumer.accept(row);
+                    }
+                    return (long) rows.length;
+                });
+    }
+
+    /**
+     * Test for export() as CSV
+     * Verifies the header, anonymous donors and quoting of fields containing
+     * separators or quotes.
+     */
+    @Test
+    void export_Csv_WritesHeaderAndEscapesFields() throws Exception {
+        mockRows(
+                new DonationExportRow(1L, TIME, 50000, DonationStatus.CONFIRMED, 2L, "Help, \"now\"", null, null,
+                        null),
+                new DonationExportRow(2L, TIME, 10000, DonationStatus.CONFIRMED, 2L, "Plain", 7L, "Han", "Solo"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = donationExportService.export(ExportFormat.CSV, null, null, DonationStatus.CONFIRMED, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals("id,donate_time,amount,status,campaign_id,campaign_name,account_id,donor_name", lines[0]);
+        assertEquals("1,2025-07-20T10:30,50000,CONFIRMED,2,\"Help, \"\"now\"\"\",,", lines[1]);
+        assertEquals("2,2025-07-20T10:30,10000,CONFIRMED,2,Plain,7,Han Solo", lines[2]);
+    }
+
+    /**
+     * Test for export() as CSV
+     * Scenario: campaign and donor names that a spreadsheet would run as
+     * formulas.
+     * Verifies that they are prefixed with ' and quoted.
+     */
+    @Test
+    void export_Csv_NeutralisesFormulas() throws Exception {
+        mockRows(
+                new DonationExportRow(1L, TIME, 50000, DonationStatus.CONFIRMED, 2L,
+                        "=HYPERLINK(\"http://evil\",\"x\")", 7L, "+cmd", "Solo"),
+                new DonationExportRow(2L, TIME, 10000, DonationStatus.CONFIRMED, 2L, "@SUM(A1)", 8L, "-1",
+                        "Smith"),
+                new DonationExportRow(3L, TIME, 10000, DonationStatus.CONFIRMED, 2L, "\tTab", null, null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Call the method
+        donationExportService.export(ExportFormat.CSV, null, null, DonationStatus.CONFIRMED, null, out);
+
+        // Assertions
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("1,2025-07-20T10:30,50000,CONFIRMED,2,\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",7,"
+                + "\"'+cmd Solo\"", lines[1]);
+        assertEquals("2,2025-07-20T10:30,10000,CONFIRMED,2,\"'@SUM(A1)\",8,\"'-1 Smith\"", lines[2]);
+        assertEquals("3,2025-07-20T10:30,10000,CONFIRMED,2,\"'\tTab\",,", lines[3]);
+    }
+
+    /**
+     * Test for export() as NDJSON
+     * Verifies that every row is one JSON object per line.
+     */
+    @Test
+    void export_Ndjson_WritesOneObjectPerLine() throws Exception {
+        mockRows(new DonationExportRow(3L, TIME, 20000, DonationStatus.CONFIRMED, 1L, "Campaign", null, null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        donationExportService.export(ExportFormat.NDJSON, null, null, DonationStatus.CONFIRMED, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        JSONObject json = new JSONObject(lines[0]);
+        assertEquals(3, json.getLong("id"));
+        assertEquals(20000, json.getInt("amount"));
+        assertEquals(JSONObject.NULL, json.get("accountId"));
+    }
+}
@@ -0,0 +1,250 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.khoi.lab.config.IdempotencyFilter;
+import com.khoi.lab.object.IdempotencyEntry;
+import com.khoi.lab.object.IdempotentResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class IdempotencyStoreTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(meterRegistry);
+    private final MockHttpSession session = new MockHttpSession();
+
+    private IdempotentResponse response(String body) {
+        return new IdempotentResponse(200, "text/html", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletRequest donateRequest(String key, String body) {
+        MockHttpServletRequest request = anonymousDonateRequest(key, body);
+        request.setSession(session);
+        return request;
+    }
+
+    private MockHttpServletRequest anonymousDonateRequest(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/campaigns/donate");
+        request.addHeader(IdempotencyFilter.KEY_HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("idempotency.requests").tag("result", result).counter().count();
+    }
+
+    /**
+     * Servlet echoing the request body, counting its executions and
+     * optionally holding them until released
+     */
+    private static class EchoServlet extends HttpServlet {
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        boolean hold;
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            executions.incrementAndGet();
+            entered.countDown();
+            if (hold) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            response.setContentType("text/html");
+            response.getWriter().write("done " + new String(request.getInputStream().readAllBytes(),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Test for begin()
+     * Verifies that the first caller runs the request and a repeat gets the
+     * recorded response.
+     */
+    @Test
+    void begin_RepeatGetsRecordedResponse() {
+        // Call the method
+        IdempotencyEntry first = idempotencyStore.begin("k1", "f1");
+        idempotencyStore.complete("k1", response("ok"));
+        IdempotencyEntry repeat = idempotencyStore.begin("k1", "f1");
+
+        // Assertions
+        assertNull(first);
+        assertNotNull(repeat);
+        assertTrue(repeat.matches("f1"));
+        assertArrayEquals("ok".getBytes(StandardCharsets.UTF_8), idempotencyStore.await(repeat).getBody());
+    }
+
+    /**
+     * Test for await()
+     * Verifies that a repeat arriving while the first request is in flight
+     * gets its response once it completes.
+     */
+    @Test
+    void await_WaitsForInFlightRequest() throws Exception {
+        idempotencyStore.begin("k1", "f1");
+        IdempotencyEntry repeat = idempotencyStore.begin("k1", "f1");
+
+        // Call the method
+        CompletableFuture<IdempotentResponse> waiting = CompletableFuture.supplyAsync(
+                () -> idempotencyStore.await(repeat));
+        idempotencyStore.complete("k1", response("ok"));
+
+        // Assertions
+        assertEquals(200, waiting.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    /**
+     * Test for abandon()
+     * Verifies that waiting repeats give up and the next request runs again.
+     */
+    @Test
+    void abandon_NextRequestRunsAgain() {
+        idempotencyStore.begin("k1", "f1");
+        IdempotencyEntry repeat = idempotencyStore.begin("k1", "f1");
+
+        // Call the method
+        idempotencyStore.abandon("k1");
+
+        // Assertions
+        assertNull(idempotencyStore.await(repeat));
+        assertNull(idempotencyStore.begin("k1", "f1"));
+    }
+
+    /**
+     * Test for complete()
+     * Verifies that the oldest keys are forgotten once recorded responses go
+     * over the byte budget.
+     */
+    @Test
+    void complete_EvictsOldestOverBudget() {
+        ReflectionTestUtils.setField(idempotencyStore, "maxBytes", 10L);
+        idempotencyStore.begin("k1", "f1");
+        idempotencyStore.complete("k1", response("123456"));
+        idempotencyStore.begin("k2", "f2");
+
+        // Call the method
+        idempotencyStore.complete("k2", response("123456"));
+
+        // Assertions
+        assertEquals(1, idempotencyStore.entryCount());
+        assertNull(idempotencyStore.begin("k1", "f1"));
+    }
+
+    /**
+     * Test for IdempotencyFilter
+     * Verifies that a repeated request is answered from the store without
+     * reaching the servlet, and a key reused for another body is refused.
+     */
+    @Test
+    void filter_ReplaysAndRejectsReuse() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyStore);
+        EchoServlet servlet = new EchoServlet();
+
+        // Call the method
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(donateRequest("abc", "{\"code\":\"X\"}"), first, new MockFilterChain(servlet));
+        MockHttpServletResponse repeat = new MockHttpServletResponse();
+        filter.doFilter(donateRequest("abc", "{\"code\":\"X\"}"), repeat, new MockFilterChain(servlet));
+        MockHttpServletResponse reused = new MockHttpServletResponse();
+        filter.doFilter(donateRequest("abc", "{\"code\":\"Y\"}"), reused, new MockFilterChain(servlet));
+
+        // Assertions
+        assertEquals(1, servlet.executions.get());
+        assertEquals("done {\"code\":\"X\"}", first.getContentAsString());
+        assertEquals("done {\"code\":\"X\"}", repeat.getContentAsString());
+        assertEquals("true", repeat.getHeader(IdempotencyFilter.REPLAY_HEADER));
+        assertEquals(422, reused.getStatus());
+        assertEquals(1, requests("replayed"));
+        assertEquals(1, requests("rejected"));
+    }
+
+    /**
+     * Test for IdempotencyFilter
+     * Scenario: the caller has no session.
+     * Verifies that its keys are not shared with other session-less callers
+     * and every request runs.
+     */
+    @Test
+    void filter_NoSession_PassesThrough() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyStore);
+        EchoServlet servlet = new EchoServlet();
+
+        // Call the method
+        filter.doFilter(anonymousDonateRequest("abc", "{}"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet));
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(anonymousDonateRequest("abc", "{}"), other, new MockFilterChain(servlet));
+
+        // Assertions
+        assertEquals(2, servlet.executions.get());
+        assertNull(other.getHeader(IdempotencyFilter.REPLAY_HEADER));
+        assertEquals(0, idempotencyStore.entryCount());
+    }
+
+    /**
+     * Test for IdempotencyFilter
+     * Verifies that a duplicate sent while the first request runs waits for
+     * it instead of running too.
+     */
+    @Test
+    void filter_ConcurrentDuplicateWaits() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyStore);
+        EchoServlet servlet = new EchoServlet();
+        servlet.hold = true;
+
+        // Call the method
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(donateRequest("abc", "{}"), first, new MockFilterChain(servlet));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(servlet.entered.await(5, TimeUnit.SECONDS));
+        MockHttpServletResponse duplicate = new MockHttpServletResponse();
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(donateRequest("abc", "{}"), duplicate, new MockFilterChain(servlet));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        servlet.release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        waiting.get(5, TimeUnit.SECONDS);
+
+        // Assertions
+        assertEquals(1, servlet.executions.get());
+        assertEquals("done {}", duplicate.getContentAsString());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAY_HEADER));
+    }
+}
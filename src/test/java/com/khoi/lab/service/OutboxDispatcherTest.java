@@ -0,0 +1,233 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.khoi.lab.dao.EmailOutboxDAO;
+import com.khoi.lab.entity.EmailOutbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxDispatcherTest {
+    @Mock
+    private EmailOutboxDAO emailOutboxDAO;
+
+    private SmtpStub smtp;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStub();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+
+        meterRegistry = new SimpleMeterRegistry();
+        EmailSenderService senderService = new EmailSenderService();
+        ReflectionTestUtils.setField(senderService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(senderService, "emailOutboxDAO", emailOutboxDAO);
+        ReflectionTestUtils.setField(senderService, "meterRegistry", meterRegistry);
+
+        dispatcher = new OutboxDispatcher(emailOutboxDAO, senderService, meterRegistry, 2, false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dispatcher.shutdown();
+        smtp.close();
+    }
+
+    private EmailOutbox claimed(Long id, String recipient, int attempts) {
+        EmailOutbox email = new EmailOutbox(recipient, "Subject " + id, "Body " + id);
+        email.setId(id);
+        for (int i = 0; i < attempts; i++) {
+            email.claim(email.getCreatedAt());
+        }
+        return email;
+    }
+
+    /**
+     * Test for poll()
+     * Verifies that claimed emails are delivered to the SMTP server and marked
+     * sent.
+     */
+    @Test
+    void poll_SendsClaimedEmailsThroughSmtp() {
+        when(emailOutboxDAO.emailOutboxClaim(4)).thenReturn(List.of(
+                claimed(1L, "luke.skywalker@jedi.com", 1),
+                claimed(2L, "leia.organa@rebel.com", 1)));
+
+        // Call the method
+        dispatcher.poll();
+
+        // Assertions
+        verify(emailOutboxDAO, timeout(5000)).emailOutboxMarkSent(1L);
+        verify(emailOutboxDAO, timeout(5000)).emailOutboxMarkSent(2L);
+        assertEquals(2, smtp.getRecipients().size());
+        assertTrue(smtp.getRecipients().contains("<leia.organa@rebel.com>"));
+        assertEquals(2, meterRegistry.get("email.outbox.send").tag("outcome", "sent").timer().count());
+        assertEquals(2, meterRegistry.get("email.send").tag("outcome", "success").timer().count());
+    }
+
+    /**
+     * Test for poll()
+     * Scenario: the mail server is down.
+     * Verifies that emails are retried until maxAttempts, then given up on.
+     */
+    @Test
+    void poll_FailedSendRetriesThenGivesUp() throws IOException {
+        smtp.close();
+        when(emailOutboxDAO.emailOutboxClaim(4)).thenReturn(List.of(
+                claimed(1L, "han.solo@falcon.com", 1),
+                claimed(2L, "r2.d2@astro.com", 6)));
+
+        // Call the method
+        dispatcher.poll();
+
+        // Assertions
+        verify(emailOutboxDAO, timeout(5000)).emailOutboxMarkFailed(eq(1L), any(), notNull());
+        verify(emailOutboxDAO, timeout(5000)).emailOutboxMarkFailed(eq(2L), any(), isNull());
+        assertEquals(1, meterRegistry.get("email.outbox.given_up").counter().count());
+        assertEquals(2, meterRegistry.get("email.send").tag("outcome", "failure").timer().count());
+    }
+
+    /**
+     * Test for backoff()
+     * Verifies that the delay doubles after every attempt and is capped.
+     */
+    @Test
+    void backoff_DoublesUpToCap() {
+        assertEquals(Duration.ofSeconds(30), OutboxDispatcher.backoff(1, 30));
+        assertEquals(Duration.ofSeconds(60), OutboxDispatcher.backoff(2, 30));
+        assertEquals(Duration.ofSeconds(240), OutboxDispatcher.backoff(4, 30));
+        assertEquals(Duration.ofHours(1), OutboxDispatcher.backoff(40, 30));
+    }
+
+    /**
+     * Test for shutdown()
+     * Verifies that the dispatcher stops claiming once it's draining.
+     */
+    @Test
+    void shutdown_StopsClaiming() {
+        dispatcher.shutdown();
+
+        dispatcher.poll();
+
+        verify(emailOutboxDAO, never()).emailOutboxClaim(anyInt());
+    }
+
+    /**
+     * Test for renewClaims()
+     * Verifies that only the emails still held by the dispatcher get their
+     * claims renewed.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void renewClaims_RenewsInFlightEmails() {
+        dispatcher.renewClaims();
+        ((Set<Long>) ReflectionTestUtils.getField(dispatcher, "inFlight")).add(7L);
+
+        // Call the method
+        dispatcher.renewClaims();
+
+        // Assertions
+        verify(emailOutboxDAO, times(1)).emailOutboxRenew(eq(List.of(7L)), any());
+    }
+
+    /**
+     * Minimal SMTP server accepting every message
+     */
+    private static class SmtpStub {
+        private final ServerSocket serverSocket;
+        private final List<String> recipients = new CopyOnWriteArrayList<>();
+
+        SmtpStub() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread thread = new Thread(this::serve, "smtp-stub");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        List<String> getRecipients() {
+            return recipients;
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void serve() {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept();
+                        BufferedReader in = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                        PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                    reply(out, "220 localhost");
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        String command = line.toUpperCase();
+                        if (command.startsWith("RCPT TO:")) {
+                            recipients.add(line.substring("RCPT TO:".length()).trim());
+                            reply(out, "250 OK");
+                        } else if (command.startsWith("DATA")) {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // discard the message body
+                            }
+                            reply(out, "250 OK");
+                        } else if (command.startsWith("QUIT")) {
+                            reply(out, "221 Bye");
+                            break;
+                        } else {
+                            reply(out, "250 OK");
+                        }
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            }
+        }
+
+        private void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.khoi.lab.config.PageCacheFilter;
+import com.khoi.lab.enums.DonationStatus;
+import com.khoi.lab.object.CachedPage;
+import com.khoi.lab.object.CampaignChangedEvent;
+import com.khoi.lab.object.DonationStatusChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PageCacheTest {
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private byte[] body(int size, char fill) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) fill);
+        return body;
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("page.cache.requests").tag("result", result).counter().count();
+    }
+
+    /**
+     * Test for get()
+     * Verifies that a stored page is served back and hits and misses are counted.
+     */
+    @Test
+    void get_ReturnsStoredPage() {
+        PageCache pageCache = new PageCache(meterRegistry, 1024, "", 0);
+        pageCache.put("/index", body(10, 'a'), "text/html", Set.of(PageCache.TAG_HOME));
+
+        // Call the method
+        CachedPage hit = pageCache.get("/index");
+        CachedPage miss = pageCache.get("/blogs");
+
+        // Assertions
+        assertNotNull(hit);
+        assertArrayEquals(body(10, 'a'), hit.getBody());
+        assertNull(miss);
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+    }
+
+    /**
+     * Test for onCampaignChanged()
+     * Verifies that only pages showing the campaign are dropped.
+     */
+    @Test
+    void onCampaignChanged_DropsTaggedPages() {
+        PageCache pageCache = new PageCache(meterRegistry, 1024, "", 0);
+        pageCache.put("/campaigns/campaign?id=1", body(10, 'a'), "text/html", Set.of(PageCache.campaignTag(1L)));
+        pageCache.put("/campaigns/campaign?id=2", body(10, 'b'), "text/html", Set.of(PageCache.campaignTag(2L)));
+        pageCache.put("/blogs", body(10, 'c'), "text/html", Set.of(PageCache.TAG_BLOGS));
+
+        // Call the method
+        pageCache.onCampaignChanged(new CampaignChangedEvent(1L));
+
+        // Assertions
+        assertNull(pageCache.get("/campaigns/campaign?id=1"));
+        assertNotNull(pageCache.get("/campaigns/campaign?id=2"));
+        assertNotNull(pageCache.get("/blogs"));
+        assertEquals(1, meterRegistry.get("page.cache.invalidations").counter().count());
+    }
+
+    /**
+     * Test for onDonationStatusChanged()
+     * Verifies that a donation drops the home page and its campaign's pages.
+     */
+    @Test
+    void onDonationStatusChanged_DropsCampaignAndHome() {
+        PageCache pageCache = new PageCache(meterRegistry, 1024, "", 0);
+        pageCache.put("/index", body(10, 'a'), "text/html", Set.of(PageCache.TAG_HOME));
+        pageCache.put("/campaigns", body(10, 'b'), "text/html",
+                Set.of(PageCache.TAG_CAMPAIGNS, PageCache.campaignTag(3L)));
+
+        // Call the method
+        pageCache.onDonationStatusChanged(new DonationStatusChangedEvent(9L, 3L, 5L,
+                DonationStatus.PENDING, DonationStatus.CONFIRMED));
+
+        // Assertions
+        assertNull(pageCache.get("/index"));
+        assertNull(pageCache.get("/campaigns"));
+    }
+
+    /**
+     * Test for put()
+     * Verifies that the memory tier evicts the least recently used page once over its byte bound.
+     */
+    @Test
+    void put_EvictsLeastRecentlyUsed() {
+        PageCache pageCache = new PageCache(meterRegistry, 25, "", 0);
+        pageCache.put("/a", body(10, 'a'), "text/html", Set.of("a"));
+        pageCache.put("/b", body(10, 'b'), "text/html", Set.of("b"));
+        pageCache.get("/a");
+
+        // Call the method
+        pageCache.put("/c", body(10, 'c'), "text/html", Set.of("c"));
+
+        // Assertions
+        assertNotNull(pageCache.get("/a"));
+        assertNull(pageCache.get("/b"));
+        assertNotNull(pageCache.get("/c"));
+        assertEquals(20, meterRegistry.get("page.cache.bytes").tag("tier", "memory").gauge().value());
+    }
+
+    /**
+     * Test for get()
+     * Verifies that a page evicted from memory is served from disk, and is
+     * still dropped by its tags while on disk.
+     */
+    @Test
+    void get_ServesSpilledPageFromDisk() {
+        PageCache pageCache = new PageCache(meterRegistry, 15, tempDir.toString(), 1024);
+        pageCache.put("/a", body(10, 'a'), "text/html", Set.of("a"));
+        pageCache.put("/b", body(10, 'b'), "text/html", Set.of("b"));
+        pageCache.put("/c", body(10, 'c'), "text/html", Set.of("c"));
+
+        // Call the method
+        CachedPage promoted = pageCache.get("/a");
+        pageCache.invalidate("c");
+
+        // Assertions
+        assertNotNull(promoted);
+        assertArrayEquals(body(10, 'a'), promoted.getBody());
+        assertEquals(1, requests("disk_hit"));
+        assertNull(pageCache.get("/c"));
+        assertNotNull(pageCache.get("/b"));
+    }
+
+    /**
+     * Test for put()
+     * Scenario: pages keep spilling until the disk tier is over its byte bound
+     * Verifies that the least recently used page is dropped from disk and the
+     * others are still served.
+     */
+    @Test
+    void put_EvictsFromDiskOverMaxDiskBytes() throws Exception {
+        PageCache pageCache = new PageCache(meterRegistry, 15, tempDir.toString(), 25);
+        pageCache.put("/a", body(10, 'a'), "text/html", Set.of("a"));
+        pageCache.put("/b", body(10, 'b'), "text/html", Set.of("b"));
+        pageCache.put("/c", body(10, 'c'), "text/html", Set.of("c"));
+
+        // Call the method
+        pageCache.put("/d", body(10, 'd'), "text/html", Set.of("d"));
+
+        // Assertions
+        assertEquals(20, meterRegistry.get("page.cache.bytes").tag("tier", "disk").gauge().value());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count());
+        }
+        assertNull(pageCache.get("/a"));
+        CachedPage promoted = pageCache.get("/b");
+        assertNotNull(promoted);
+        assertArrayEquals(body(10, 'b'), promoted.getBody());
+        assertNotNull(pageCache.get("/d"));
+    }
+
+    /**
+     * Test for put()
+     * Scenario: an invalidation commits while the page is being rendered
+     * Verifies that the page is not stored.
+     */
+    @Test
+    void put_InvalidatedWhileRendering_NotStored() {
+        PageCache pageCache = new PageCache(meterRegistry, 1024, "", 0);
+        long generation = pageCache.generation();
+        pageCache.onCampaignChanged(new CampaignChangedEvent(1L));
+
+        // Call the method
+        pageCache.put("/campaigns/campaign?id=1", body(10, 'a'), "text/html",
+                Set.of(PageCache.campaignTag(1L)), generation);
+
+        // Assertions
+        assertNull(pageCache.get("/campaigns/campaign?id=1"));
+        pageCache.put("/campaigns/campaign?id=1", body(10, 'a'), "text/html",
+                Set.of(PageCache.campaignTag(1L)), pageCache.generation());
+        assertNotNull(pageCache.get("/campaigns/campaign?id=1"));
+    }
+
+    /**
+     * Test for PageCacheFilter.cacheKey()
+     * Verifies that parameter order and blank parameters don't change the key.
+     */
+    @Test
+    void cacheKey_NormalizesQuery() {
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/blogs");
+        first.addParameter("page", "2");
+        first.addParameter("filter", "popular");
+        first.addParameter("query", "");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/blogs");
+        second.addParameter("filter", "popular");
+        second.addParameter("page", "2");
+
+        // Assertions
+        assertEquals("/blogs?filter=popular&page=2", PageCacheFilter.cacheKey(first));
+        assertEquals(PageCacheFilter.cacheKey(first), PageCacheFilter.cacheKey(second));
+    }
+}
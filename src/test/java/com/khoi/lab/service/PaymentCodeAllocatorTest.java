@@ -0,0 +1,198 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.data.Constants;
+import com.khoi.lab.entity.Campaign;
+import com.khoi.lab.entity.DonationPaymentCode;
+
+@ExtendWith(MockitoExtension.class)
+public class PaymentCodeAllocatorTest {
+    @Mock
+    private DonationDAO donationDAO;
+
+    @InjectMocks
+    private PaymentCodeAllocator allocator;
+
+    /**
+     * Test for nextCode()
+     * Verifies that codes have the payment code length and only use upper case
+     * letters and digits.
+     */
+    @Test
+    void nextCode_Format() {
+        for (int i = 0; i < 1000; i++) {
+            // Call the method
+            String code = PaymentCodeAllocator.nextCode();
+
+            // Assertions
+            assertEquals(Constants.PAYMENT_CODE_LENGTH, code.length());
+            assertTrue(code.matches("[A-Z0-9]+"), code);
+        }
+    }
+
+    /**
+     * Test for reserve()
+     * Verifies that concurrent callers never get the same code.
+     */
+    @Test
+    void reserve_Concurrent_Unique() throws Exception {
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Call the method
+        for (int i = 0; i < 20000; i++) {
+            executor.submit(() -> codes.add(allocator.reserve()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Assertions
+        assertEquals(20000, codes.size());
+        assertEquals(20000, allocator.liveCount());
+    }
+
+    /**
+     * Test for issue()
+     * Scenario: The payment code couldn't be saved.
+     * Verifies that the reserved code is released.
+     */
+    @Test
+    void issue_SaveFails_ReleasesCode() {
+        Campaign campaign = new Campaign();
+        campaign.setId(1L);
+        when(donationDAO.paymentCodeCreate(anyString(), any(Campaign.class), isNull(), anyLong()))
+                .thenThrow(new IllegalStateException("duplicate"));
+
+        // Call the method
+        assertThrows(IllegalStateException.class, () -> allocator.issue(campaign, null, 50000));
+
+        // Assertions
+        assertEquals(0, allocator.liveCount());
+    }
+
+    /**
+     * Test for issue()
+     * Scenario: The drawn code is taken by a used code still in the table.
+     * Verifies that another code is drawn and saved.
+     */
+    @Test
+    void issue_DuplicateCode_Retries() {
+        Campaign campaign = new Campaign();
+        campaign.setId(1L);
+        DonationPaymentCode saved = new DonationPaymentCode("ABCD1234", 1L, null, 50000);
+        when(donationDAO.paymentCodeCreate(anyString(), any(Campaign.class), isNull(), anyLong()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenReturn(saved);
+
+        // Call the method
+        DonationPaymentCode result = allocator.issue(campaign, null, 50000);
+
+        // Assertions
+        assertSame(saved, result);
+        verify(donationDAO, times(2)).paymentCodeCreate(anyString(), any(Campaign.class), isNull(), anyLong());
+    }
+
+    /**
+     * Test for issue()
+     * Scenario: Every drawn code is taken.
+     * Verifies that the allocator gives up after a few attempts.
+     */
+    @Test
+    void issue_DuplicateCode_GivesUp() {
+        Campaign campaign = new Campaign();
+        campaign.setId(1L);
+        when(donationDAO.paymentCodeCreate(anyString(), any(Campaign.class), isNull(), anyLong()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // Call the method
+        assertThrows(DataIntegrityViolationException.class, () -> allocator.issue(campaign, null, 50000));
+
+        // Assertions
+        verify(donationDAO, times(5)).paymentCodeCreate(anyString(), any(Campaign.class), isNull(), anyLong());
+    }
+
+    /**
+     * Test for issue()
+     * Verifies that the saved code is returned and kept live.
+     */
+    @Test
+    void issue_Saved_KeepsCodeLive() {
+        Campaign campaign = new Campaign();
+        campaign.setId(1L);
+        DonationPaymentCode saved = new DonationPaymentCode("ABCD1234", 1L, null, 50000);
+        when(donationDAO.paymentCodeCreate(anyString(), any(Campaign.class), isNull(), anyLong())).thenReturn(saved);
+
+        // Call the method
+        DonationPaymentCode result = allocator.issue(campaign, null, 50000);
+
+        // Assertions
+        assertSame(saved, result);
+        assertEquals(1, allocator.liveCount());
+    }
+
+    /**
+     * Test for sweep()
+     * Verifies that expired codes are deleted batch by batch until a batch
+     * comes back short.
+     */
+    @Test
+    void sweep_DeletesInBatches() {
+        when(donationDAO.paymentCodeDeleteExpired(any(LocalDateTime.class), anyInt())).thenReturn(500, 500, 42);
+
+        // Call the method
+        int deleted = allocator.sweep();
+
+        // Assertions
+        assertEquals(1042, deleted);
+        verify(donationDAO, times(3)).paymentCodeDeleteExpired(any(LocalDateTime.class), anyInt());
+    }
+
+    /**
+     * Test for load()
+     * Verifies that codes already in the table are kept live and expired
+     * ones are forgotten on the next sweep.
+     */
+    @Test
+    void load_RemembersExistingCodes() {
+        DonationPaymentCode fresh = new DonationPaymentCode("FRESH001");
+        DonationPaymentCode old = new DonationPaymentCode("OLD00001");
+        old.setCreateTime(LocalDateTime.now().minusMinutes(61));
+        when(donationDAO.paymentCodeFindCreatedAfter(any(LocalDateTime.class))).thenReturn(List.of(fresh, old));
+
+        // Call the method
+        allocator.load();
+        assertEquals(2, allocator.liveCount());
+        allocator.sweep();
+
+        // Assertions
+        assertEquals(1, allocator.liveCount());
+    }
+}
@@ -0,0 +1,73 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.BlogDAO;
+import com.khoi.lab.entity.BlogPost;
+import com.khoi.lab.enums.BlogPostOrder;
+import com.khoi.lab.object.BlogPostChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class RecentBlogPostsServiceTest {
+    @Mock
+    private BlogDAO blogDAO;
+
+    @InjectMocks
+    private RecentBlogPostsService recentBlogPostsService;
+
+    private BlogPost post(Long id) {
+        BlogPost blogPost = new BlogPost();
+        blogPost.setId(id);
+        return blogPost;
+    }
+
+    /**
+     * Test for getRecentPosts()
+     * Verifies that the list is only queried once.
+     */
+    @Test
+    void getRecentPosts_QueriesOnce() {
+        when(blogDAO.blogPostPage(null, null, null, BlogPostOrder.LATEST, 0,
+                RecentBlogPostsService.RECENT_POSTS_SIZE)).thenReturn(List.of(post(2L), post(1L)));
+
+        // Call the method
+        recentBlogPostsService.getRecentPosts();
+        List<BlogPost> recentPosts = recentBlogPostsService.getRecentPosts();
+
+        // Assertions
+        assertEquals(2, recentPosts.size());
+        verify(blogDAO, times(1)).blogPostPage(null, null, null, BlogPostOrder.LATEST, 0,
+                RecentBlogPostsService.RECENT_POSTS_SIZE);
+    }
+
+    /**
+     * Test for onBlogPostChanged()
+     * Verifies that a written post makes the next view reload the list.
+     */
+    @Test
+    void onBlogPostChanged_ReloadsList() {
+        when(blogDAO.blogPostPage(null, null, null, BlogPostOrder.LATEST, 0,
+                RecentBlogPostsService.RECENT_POSTS_SIZE))
+                .thenReturn(List.of(post(1L)), List.of(post(2L), post(1L)));
+
+        recentBlogPostsService.getRecentPosts();
+        recentBlogPostsService.onBlogPostChanged(new BlogPostChangedEvent(2L, "New", "Post", false));
+        List<BlogPost> recentPosts = recentBlogPostsService.getRecentPosts();
+
+        // Assertions
+        assertEquals(2L, recentPosts.get(0).getId());
+        verify(blogDAO, times(2)).blogPostPage(null, null, null, BlogPostOrder.LATEST, 0,
+                RecentBlogPostsService.RECENT_POSTS_SIZE);
+    }
+}
@@ -0,0 +1,100 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import com.khoi.lab.object.SepayTransaction;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the client against a local fake Sepay server
+ */
+public class SepayClientTest {
+    private static final String TRANSACTIONS = """
+            {"status": 200, "error": null, "messages": {"success": true}, "transactions": [
+              {"id": "93", "account_number": "0793300359", "amount_in": "50000.00", "amount_out": "0.00",
+               "transaction_content": "MBVCB.123.QUYEN GOP ABCD1234.CT tu 0123"},
+              {"id": "92", "account_number": "0793300359", "amount_in": "0.00", "amount_out": "20000.00",
+               "transaction_content": "chuyen tien"},
+              {"id": "90", "account_number": "0793300359", "amount_in": "10000.00", "amount_out": "0.00",
+               "transaction_content": "old"}
+            ]}
+            """;
+
+    private HttpServer server;
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private final AtomicReference<String> lastAuthorization = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/userapi/transactions/list", exchange -> {
+            lastQuery.set(exchange.getRequestURI().getQuery());
+            lastAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = TRANSACTIONS.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private SepayClient client() {
+        return new SepayClient(new RestTemplateBuilder(), "http://127.0.0.1:" + server.getAddress().getPort(),
+                "test-token");
+    }
+
+    /**
+     * Test for transactions()
+     * Verifies that the request carries the account, cursor and token, and
+     * that transactions up to the cursor are left out.
+     */
+    @Test
+    void transactions_ReadsAfterCursor() {
+        // Call the method
+        List<SepayTransaction> transactions = client().transactions("0793300359", 90L, 50);
+
+        // Assertions
+        assertEquals("Bearer test-token", lastAuthorization.get());
+        assertTrue(lastQuery.get().contains("account_number=0793300359"));
+        assertTrue(lastQuery.get().contains("since_id=90"));
+        assertEquals(2, transactions.size());
+        assertEquals(93L, transactions.get(0).getId());
+        assertEquals(50000L, transactions.get(0).getAmountIn());
+        assertEquals(0L, transactions.get(1).getAmountIn());
+    }
+
+    /**
+     * Test for transactions()
+     * Verifies that the first poll without a cursor reads the latest transactions.
+     */
+    @Test
+    void transactions_WithoutCursor() {
+        // Call the method
+        List<SepayTransaction> transactions = client().transactions("0793300359", null, 3);
+
+        // Assertions
+        assertTrue(!lastQuery.get().contains("since_id"));
+        assertTrue(lastQuery.get().contains("limit=3"));
+        assertEquals(3, transactions.size());
+    }
+}
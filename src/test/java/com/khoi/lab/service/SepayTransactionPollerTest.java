@@ -0,0 +1,119 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.object.SepayTransaction;
+
+@ExtendWith(MockitoExtension.class)
+public class SepayTransactionPollerTest {
+    @Mock
+    private SepayTransferMatcher transferMatcher;
+
+    @Mock
+    private SepayClient sepayClient;
+
+    private SepayTransactionPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        poller = new SepayTransactionPoller(transferMatcher, sepayClient, "111, 222");
+    }
+
+    /**
+     * Test for poll()
+     * Verifies that Sepay isn't called while no payment code is waiting.
+     */
+    @Test
+    void poll_SkipsWithoutPendingCodes() {
+        when(transferMatcher.hasPendingCodes()).thenReturn(false);
+
+        // Call the method
+        poller.poll();
+
+        // Assertions
+        verify(sepayClient, never()).transactions(anyString(), any(), anyInt());
+    }
+
+    /**
+     * Test for poll()
+     * Verifies that every configured bank account is polled.
+     */
+    @Test
+    void poll_PollsEveryAccount() {
+        when(transferMatcher.hasPendingCodes()).thenReturn(true);
+
+        // Call the method
+        poller.poll();
+
+        // Assertions
+        verify(sepayClient).transactions(eq("111"), eq(null), anyInt());
+        verify(sepayClient).transactions(eq("222"), eq(null), anyInt());
+    }
+
+    /**
+     * Test for pollAccount()
+     * Verifies that transactions are matched oldest first and the next poll
+     * reads after the newest one.
+     */
+    @Test
+    void pollAccount_MatchesAndAdvancesCursor() {
+        SepayTransaction newer = new SepayTransaction(12, "111", 50000, "QUYEN GOP ABCD1234");
+        SepayTransaction older = new SepayTransaction(11, "111", 20000, "unrelated");
+        when(sepayClient.transactions("111", null, 50)).thenReturn(List.of(newer, older));
+        when(transferMatcher.match(List.of(older, newer))).thenReturn(Map.of(12L, new Donation()));
+
+        // Call the method
+        int donated = poller.pollAccount("111");
+        poller.pollAccount("111");
+
+        // Assertions
+        assertEquals(1, donated);
+        verify(sepayClient).transactions("111", 12L, 50);
+    }
+
+    /**
+     * Test for pollAccount()
+     * Scenario: a burst fills the page after the cursor.
+     * Verifies that the following pages are read until a short one, so no
+     * transfer is skipped.
+     */
+    @Test
+    void pollAccount_FullPage_ReadsFollowingPages() {
+        ReflectionTestUtils.setField(poller, "pollLimit", 2);
+        SepayTransaction first = new SepayTransaction(10, "111", 0, "");
+        SepayTransaction t11 = new SepayTransaction(11, "111", 0, "");
+        SepayTransaction t12 = new SepayTransaction(12, "111", 0, "");
+        SepayTransaction t13 = new SepayTransaction(13, "111", 0, "");
+        when(sepayClient.transactions("111", null, 2)).thenReturn(List.of(first));
+        when(sepayClient.transactions("111", 10L, 2)).thenReturn(List.of(t12, t11));
+        when(sepayClient.transactions("111", 12L, 2)).thenReturn(List.of(t13));
+        poller.pollAccount("111");
+
+        // Call the method
+        poller.pollAccount("111");
+        poller.pollAccount("111");
+
+        // Assertions
+        verify(transferMatcher).match(List.of(t11, t12));
+        verify(transferMatcher).match(List.of(t13));
+        verify(sepayClient).transactions("111", 13L, 2);
+    }
+}
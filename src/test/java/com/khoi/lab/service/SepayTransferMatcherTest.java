@@ -0,0 +1,149 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.DonationDAO;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.entity.DonationPaymentCode;
+import com.khoi.lab.object.SepayTransaction;
+
+@ExtendWith(MockitoExtension.class)
+public class SepayTransferMatcherTest {
+    @Mock
+    private DonationDAO donationDAO;
+
+    @InjectMocks
+    private SepayTransferMatcher transferMatcher;
+
+    private DonationPaymentCode paymentCode(String code, long amount) {
+        DonationPaymentCode paymentCode = new DonationPaymentCode(code, 1L, null, amount);
+        paymentCode.setId(7L);
+        return paymentCode;
+    }
+
+    /**
+     * Test for match()
+     * Verifies that a transfer with a pending code and the right amount
+     * completes the donation.
+     */
+    @Test
+    void match_CompletesPendingCode() {
+        DonationPaymentCode paymentCode = paymentCode("ABCD1234", 50000);
+        Donation donation = new Donation();
+        when(donationDAO.paymentCodeFindPending(eq(Set.of("ABCD1234")), any())).thenReturn(List.of(paymentCode));
+        when(donationDAO.paymentCodeConsume("ABCD1234")).thenReturn(donation);
+
+        // Call the method
+        Map<Long, Donation> donations = transferMatcher.match(List.of(
+                new SepayTransaction(12, "111", 50000, "MBVCB.99.QUYENGOP ABCD1234.CT tu 0123"),
+                new SepayTransaction(11, "111", 20000, "unrelated")));
+
+        // Assertions
+        assertEquals(Map.of(12L, donation), donations);
+    }
+
+    /**
+     * Test for match()
+     * Verifies that a transfer of a different amount doesn't complete the donation.
+     */
+    @Test
+    void match_SkipsAmountMismatch() {
+        when(donationDAO.paymentCodeFindPending(any(), any())).thenReturn(List.of(paymentCode("ABCD1234", 50000)));
+
+        // Call the method
+        Map<Long, Donation> donations = transferMatcher.match(List.of(
+                new SepayTransaction(12, "111", 40000, "QUYEN GOP ABCD1234")));
+
+        // Assertions
+        assertTrue(donations.isEmpty());
+        verify(donationDAO, never()).paymentCodeConsume(any());
+    }
+
+    /**
+     * Test for match()
+     * Verifies that two transfers naming the same code only complete it once.
+     */
+    @Test
+    void match_UsesCodeOnce() {
+        DonationPaymentCode paymentCode = paymentCode("ABCD1234", 50000);
+        when(donationDAO.paymentCodeFindPending(any(), any())).thenReturn(List.of(paymentCode));
+        when(donationDAO.paymentCodeConsume("ABCD1234")).thenReturn(new Donation());
+
+        // Call the method
+        Map<Long, Donation> donations = transferMatcher.match(List.of(
+                new SepayTransaction(12, "111", 50000, "QUYEN GOP ABCD1234"),
+                new SepayTransaction(13, "111", 50000, "QUYEN GOP ABCD1234")));
+
+        // Assertions
+        assertEquals(Set.of(12L), donations.keySet());
+        verify(donationDAO, times(1)).paymentCodeConsume("ABCD1234");
+    }
+
+    /**
+     * Test for match()
+     * Scenario: the transfer names a code that is no longer pending, as when
+     * it arrives after the code expired
+     * Verifies that it is reported for reconciliation while an unrelated
+     * transfer is not.
+     */
+    @Test
+    void match_ExpiredCode_ReportedUnmatched() {
+        when(donationDAO.paymentCodeFindPending(any(), any())).thenReturn(List.of());
+        Map<Long, String> unmatched = new java.util.HashMap<>();
+
+        // Call the method
+        Map<Long, Donation> donations = transferMatcher.match(List.of(
+                new SepayTransaction(12, "111", 50000, "QUYEN GOP ABCD1234"),
+                new SepayTransaction(13, "111", 50000, "tien nha")), unmatched);
+
+        // Assertions
+        assertTrue(donations.isEmpty());
+        assertEquals(Set.of(12L), unmatched.keySet());
+        assertTrue(unmatched.get(12L).contains("ABCD1234"));
+        verify(donationDAO, never()).paymentCodeConsume(any());
+    }
+
+    /**
+     * Test for match()
+     * Verifies that transfers without a code don't query payment codes.
+     */
+    @Test
+    void match_SkipsTransfersWithoutCode() {
+        // Call the method
+        Map<Long, Donation> donations = transferMatcher.match(List.of(
+                new SepayTransaction(12, "111", 50000, "tien nha")));
+
+        // Assertions
+        assertTrue(donations.isEmpty());
+        verify(donationDAO, never()).paymentCodeFindPending(any(), any());
+    }
+
+    /**
+     * Test for extractCodes()
+     * Verifies that codes are found whatever the bank did to the spacing.
+     */
+    @Test
+    void extractCodes_IgnoresSpacingAndCase() {
+        assertEquals(List.of("ABCD1234"), SepayTransferMatcher.extractCodes("quyen-gop abcd1234 ct tu"));
+        assertEquals(List.of("ABCD1234"), SepayTransferMatcher.extractCodes("MB.QUYENGOPABCD1234"));
+        assertEquals(List.of(), SepayTransferMatcher.extractCodes("QUYEN GOP ABC"));
+        assertEquals(List.of(), SepayTransferMatcher.extractCodes(null));
+    }
+}
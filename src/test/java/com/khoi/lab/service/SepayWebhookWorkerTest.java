@@ -0,0 +1,132 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.SepayWebhookDAO;
+import com.khoi.lab.entity.Donation;
+import com.khoi.lab.entity.SepayWebhookEvent;
+import com.khoi.lab.enums.SepayWebhookStatus;
+
+@ExtendWith(MockitoExtension.class)
+public class SepayWebhookWorkerTest {
+    @Mock
+    private SepayWebhookDAO sepayWebhookDAO;
+
+    @Mock
+    private SepayTransferMatcher transferMatcher;
+
+    @InjectMocks
+    private SepayWebhookWorker worker;
+
+    private SepayWebhookEvent claimed(long id, int attempts) {
+        SepayWebhookEvent event = new SepayWebhookEvent(id, "111", 50000, "QUYEN GOP ABCD1234", "{}");
+        for (int i = 0; i < attempts; i++) {
+            event.claim(LocalDateTime.now());
+        }
+        return event;
+    }
+
+    /**
+     * Test for drain()
+     * Verifies that a matched transfer is recorded with its donation and an
+     * unmatched one is ignored.
+     */
+    @Test
+    void drain_RecordsOutcome() {
+        Donation donation = new Donation();
+        donation.setId(5L);
+        when(sepayWebhookDAO.sepayWebhookClaim(100)).thenReturn(List.of(claimed(1, 1), claimed(2, 1)));
+        when(transferMatcher.match(any(), any())).thenReturn(Map.of(1L, donation), Map.of());
+
+        // Call the method
+        int processed = worker.drain();
+
+        // Assertions
+        assertEquals(2, processed);
+        verify(sepayWebhookDAO).sepayWebhookMarkProcessed(1L, SepayWebhookStatus.MATCHED, 5L, null);
+        verify(sepayWebhookDAO).sepayWebhookMarkProcessed(2L, SepayWebhookStatus.IGNORED, null, null);
+    }
+
+    /**
+     * Test for drain()
+     * Scenario: the transfer arrived after its payment code expired
+     * Verifies that it is kept for reconciliation with the reason instead of
+     * being ignored.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_LateTransfer_FlaggedUnmatched() {
+        when(sepayWebhookDAO.sepayWebhookClaim(100)).thenReturn(List.of(claimed(1, 1)));
+        when(transferMatcher.match(any(), any())).thenAnswer(invocation -> {
+            ((Map<Long, String>) invocation.getArgument(1)).put(1L, "payment code ABCD1234 is expired");
+            return Map.of();
+        });
+
+        // Call the method
+        worker.drain();
+
+        // Assertions
+        verify(sepayWebhookDAO).sepayWebhookMarkProcessed(1L, SepayWebhookStatus.UNMATCHED, null,
+                "payment code ABCD1234 is expired");
+    }
+
+    /**
+     * Test for drain()
+     * Verifies that full batches are followed by another claim.
+     */
+    @Test
+    void drain_ClaimsUntilEmpty() {
+        List<SepayWebhookEvent> fullBatch = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            fullBatch.add(claimed(id, 1));
+        }
+        when(sepayWebhookDAO.sepayWebhookClaim(100)).thenReturn(fullBatch, List.of(claimed(101, 1)));
+        when(transferMatcher.match(any(), any())).thenReturn(Map.of());
+
+        // Call the method
+        int processed = worker.drain();
+
+        // Assertions
+        assertEquals(101, processed);
+        verify(sepayWebhookDAO, times(2)).sepayWebhookClaim(100);
+    }
+
+    /**
+     * Test for drain()
+     * Verifies that a failure is left to be retried until the last attempt.
+     */
+    @Test
+    void drain_RetriesThenGivesUp() {
+        when(sepayWebhookDAO.sepayWebhookClaim(100)).thenReturn(List.of(claimed(1, 1), claimed(2, 5)));
+        when(transferMatcher.match(any(), any())).thenThrow(new IllegalStateException("database down"));
+
+        // Call the method
+        worker.drain();
+
+        // Assertions
+        verify(sepayWebhookDAO, never()).sepayWebhookMarkProcessed(eq(1L), any(), any(), any());
+        verify(sepayWebhookDAO).sepayWebhookMarkProcessed(eq(2L), eq(SepayWebhookStatus.FAILED), isNull(),
+                eq("database down"));
+        verify(sepayWebhookDAO, never()).sepayWebhookMarkProcessed(anyLong(), eq(SepayWebhookStatus.MATCHED),
+                any(), any());
+    }
+}
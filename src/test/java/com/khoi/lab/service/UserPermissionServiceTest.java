@@ -0,0 +1,119 @@
+package com.khoi.lab.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.khoi.lab.dao.AccountDAO;
+import com.khoi.lab.entity.Account;
+import com.khoi.lab.entity.Role;
+import com.khoi.lab.enums.UserPermission;
+import com.khoi.lab.object.RoleChangedEvent;
+import com.khoi.lab.object.RolePermissions;
+
+@ExtendWith(MockitoExtension.class)
+public class UserPermissionServiceTest {
+    @Mock
+    private AccountDAO accountDAO;
+
+    @InjectMocks
+    private UserPermissionService userPermissionService;
+
+    private Role role(Long id, String roleName, UserPermission... permissions) {
+        Role role = new Role(roleName, Arrays.asList(permissions));
+        role.setId(id);
+        return role;
+    }
+
+    private Account account(Role role) {
+        Account account = new Account();
+        account.setRole(role);
+        return account;
+    }
+
+    /**
+     * Test for hasPermission()
+     * Verifies that roles are loaded once and every further check is served
+     * from the cache without touching the DAO.
+     */
+    @Test
+    void hasPermission_LoadsRolesOnce() {
+        Role admin = role(1L, "admin", UserPermission.VIEW_DASHBOARD, UserPermission.MANAGE_CAMPAIGNS);
+        Role user = role(2L, "user", UserPermission.CREATE_DONATIONS);
+        when(accountDAO.roleList()).thenReturn(List.of(admin, user));
+
+        // Call the method
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(userPermissionService.hasPermission(account(admin), UserPermission.MANAGE_CAMPAIGNS));
+            assertFalse(userPermissionService.hasPermission(account(user), UserPermission.VIEW_DASHBOARD));
+        }
+
+        // Assertions
+        verify(accountDAO, times(1)).roleList();
+        verifyNoMoreInteractions(accountDAO);
+    }
+
+    /**
+     * Test for onRoleChanged()
+     * Verifies that a role change is picked up by the next check.
+     */
+    @Test
+    void onRoleChanged_ReloadsRoles() {
+        Role before = role(2L, "user", UserPermission.CREATE_DONATIONS);
+        Role after = role(2L, "user", UserPermission.CREATE_DONATIONS, UserPermission.CREATE_COMMENTS);
+        when(accountDAO.roleList()).thenReturn(List.of(before), List.of(after));
+
+        assertFalse(userPermissionService.hasPermission(account(before), UserPermission.CREATE_COMMENTS));
+
+        // Call the method
+        userPermissionService.onRoleChanged(new RoleChangedEvent(2L));
+
+        // Assertions
+        assertTrue(userPermissionService.hasPermission(account(before), UserPermission.CREATE_COMMENTS));
+        verify(accountDAO, times(2)).roleList();
+    }
+
+    /**
+     * Test for hasPermission()
+     * Scenario: the account's role was deleted or has no id yet.
+     * Verifies that unknown roles have no permissions and names are matched
+     * when the id is missing.
+     */
+    @Test
+    void hasPermission_UnknownOrUnsavedRole() {
+        when(accountDAO.roleList()).thenReturn(List.of(role(1L, "admin", UserPermission.MANAGE_USERS)));
+
+        assertFalse(userPermissionService.hasPermission(account(role(9L, "ghost")), UserPermission.MANAGE_USERS));
+        assertTrue(userPermissionService.hasPermission(account(role(null, "ADMIN")), UserPermission.MANAGE_USERS));
+        assertFalse(userPermissionService.hasPermission((Account) null, UserPermission.MANAGE_USERS));
+    }
+
+    /**
+     * Test for RolePermissions
+     * Verifies that the bitmask holds exactly the role's permissions.
+     */
+    @Test
+    void rolePermissions_CompilesToBitmask() {
+        RolePermissions permissions = RolePermissions.of(
+                role(1L, "blog_manager", UserPermission.CREATE_BLOGS, UserPermission.MANAGE_BLOGS));
+
+        assertTrue(permissions.has(UserPermission.CREATE_BLOGS));
+        assertTrue(permissions.has(UserPermission.MANAGE_BLOGS));
+        assertFalse(permissions.has(UserPermission.MANAGE_OWN_BLOGS));
+        assertEquals(2, Long.bitCount(permissions.getMask()));
+        assertEquals(2, permissions.toSet().size());
+    }
+}